@@ -0,0 +1,137 @@
+package com.roadwarnings.narino.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pools de hilos para trabajo asíncrono.
+ * - taskExecutor: ejecutor por defecto de los métodos @Async (emails)
+ * - outboxExecutor: workers que despachan los efectos secundarios del outbox
+ * - pushExecutor: envíos a FCM (concurrencia acotada)
+ * - mailExecutor: workers de la cola de emails (un lote por conexión SMTP)
+ * - websocketSendExecutor: escritura de las colas por sesión WebSocket (clientes lentos)
+ * - sseExecutor: escritura de los streams SSE de alertas
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${outbox.workers.core-size:4}")
+    private int outboxCoreSize;
+
+    @Value("${outbox.workers.max-size:8}")
+    private int outboxMaxSize;
+
+    @Value("${outbox.workers.queue-capacity:1000}")
+    private int outboxQueueCapacity;
+
+    @Value("${push.workers:4}")
+    private int pushWorkers;
+
+    @Value("${push.queue-capacity:2000}")
+    private int pushQueueCapacity;
+
+    @Value("${mail.queue.workers:2}")
+    private int mailWorkers;
+
+    @Value("${mail.queue.capacity:100}")
+    private int mailQueueCapacity;
+
+    @Value("${websocket.send.workers:8}")
+    private int websocketSendWorkers;
+
+    @Value("${websocket.send.queue-capacity:10000}")
+    private int websocketSendQueueCapacity;
+
+    @Value("${alerts.sse.workers:16}")
+    private int sseWorkers;
+
+    @Value("${alerts.sse.queue-capacity:10000}")
+    private int sseQueueCapacity;
+
+    @Bean(name = "taskExecutor")
+    ThreadPoolTaskExecutor taskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("async-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "outboxExecutor")
+    ThreadPoolTaskExecutor outboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(outboxCoreSize);
+        executor.setMaxPoolSize(outboxMaxSize);
+        executor.setQueueCapacity(outboxQueueCapacity);
+        executor.setThreadNamePrefix("outbox-");
+        // Si la cola se llena el evento queda PENDING y lo recoge el poller
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(20);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "pushExecutor")
+    ThreadPoolTaskExecutor pushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pushWorkers);
+        executor.setMaxPoolSize(pushWorkers);
+        executor.setQueueCapacity(pushQueueCapacity);
+        executor.setThreadNamePrefix("push-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "mailExecutor")
+    ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mailWorkers);
+        executor.setMaxPoolSize(mailWorkers);
+        executor.setQueueCapacity(mailQueueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        // Si la cola se llena los emails quedan PENDING y los recoge el poller
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(20);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "websocketSendExecutor")
+    ThreadPoolTaskExecutor websocketSendExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(websocketSendWorkers);
+        executor.setMaxPoolSize(websocketSendWorkers);
+        executor.setQueueCapacity(websocketSendQueueCapacity);
+        executor.setThreadNamePrefix("ws-send-");
+        // Si la cola se llena, el hilo que encola vacía la sesión él mismo
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "sseExecutor")
+    ThreadPoolTaskExecutor sseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(sseWorkers);
+        executor.setMaxPoolSize(sseWorkers);
+        executor.setQueueCapacity(sseQueueCapacity);
+        executor.setThreadNamePrefix("sse-");
+        // Si la cola se llena se cierra la conexión; el cliente reconecta con Last-Event-ID
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
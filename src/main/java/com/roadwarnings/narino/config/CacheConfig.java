@@ -39,6 +39,7 @@ public class CacheConfig {
     public static final String WEATHER_CACHE = "weather";
     public static final String WEATHER_FORECAST_CACHE = "weather-forecast";
     public static final String TRAFFIC_CACHE = "traffic";
+    public static final String DIRECTIONS_CACHE = "directions";
 
     @Bean
     CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
@@ -118,6 +119,10 @@ public class CacheConfig {
         cacheConfigurations.put(TRAFFIC_CACHE,
                 defaultConfig.entryTtl(Duration.ofMinutes(5)));
 
+        // Rutas de Google Directions - TTL corto (10 minutos) porque la duración depende del tráfico
+        cacheConfigurations.put(DIRECTIONS_CACHE,
+                defaultConfig.entryTtl(Duration.ofMinutes(10)));
+
         return RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
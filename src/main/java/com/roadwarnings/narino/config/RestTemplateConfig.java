@@ -1,7 +1,9 @@
 package com.roadwarnings.narino.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -10,8 +12,18 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${external.http.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${external.http.read-timeout-ms:5000}")
+    private int readTimeoutMs;
+
     @Bean
     RestTemplate restTemplate() {
-        return new RestTemplate();
+        // Sin timeouts un proveedor colgado retiene el hilo indefinidamente
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
     }
 }
@@ -1,19 +1,113 @@
 package com.roadwarnings.narino.config;
 
+import com.roadwarnings.narino.service.AlertWireFormatInterceptor;
+import com.roadwarnings.narino.service.WebSocketClusterBridge;
+import com.roadwarnings.narino.service.WebSocketSessionMonitor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
 
+import java.util.Map;
+
+/**
+ * Broker STOMP. Con websocket.cluster.mode:
+ * - none: broker simple en memoria (una sola instancia)
+ * - redis: broker simple en cada instancia + puente Redis pub/sub (WebSocketClusterBridge)
+ * - relay: broker externo (RabbitMQ/ActiveMQ con STOMP) compartido por todas las instancias;
+ *   Redis sigue siendo necesario para el ClusterMessageBus (push cercano, stream SSE)
+ *
+ * El formato de los eventos de alertas se negocia por suscripción (AlertWireFormatInterceptor);
+ * como lleva deltas, se preserva el orden de publicación por sesión.
+ * Los envíos a cada sesión pasan por una cola acotada (WebSocketSessionMonitor).
+ */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ObjectProvider<WebSocketClusterBridge> clusterBridge;
+    private final AlertWireFormatInterceptor alertWireFormatInterceptor;
+    private final WebSocketSessionMonitor sessionMonitor;
+
+    @Value("${websocket.cluster.mode:none}")
+    private String clusterMode;
+
+    @Value("${websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${websocket.inbound.core-size:4}")
+    private int inboundCoreSize;
+
+    @Value("${websocket.inbound.max-size:16}")
+    private int inboundMaxSize;
+
+    @Value("${websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-size:8}")
+    private int outboundCoreSize;
+
+    @Value("${websocket.outbound.max-size:16}")
+    private int outboundMaxSize;
+
+    @Value("${websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Prefijo para mensajes del servidor al cliente
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(clusterMode)) {
+            // Prefijos relayados al broker externo
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            // Mensajes /user a sesiones conectadas en otra instancia
+            relay.setUserDestinationBroadcast("/topic/unresolved-user-destination");
+            relay.setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            // Prefijo para mensajes del servidor al cliente
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+
+        // Los frames de cada sesión salen en el orden publicado: el canal de salida usa un pool
+        // y AlertWireFormatInterceptor calcula los deltas en ese orden (un delta aplicado antes
+        // que el anterior dejaría al cliente con campos viejos). Aplica al broker simple y al relay
+        config.setPreservePublishOrder(true);
+
+        clusterBridge.ifAvailable(bridge -> config.configureBrokerChannel().interceptors(bridge));
 
         // Prefijo para mensajes del cliente al servidor
         config.setApplicationDestinationPrefixes("/app");
@@ -25,5 +119,69 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+
+        // WebSocket nativo (sin SockJS): admite frames binarios
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(new NativeTransportInterceptor());
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCoreSize)
+                .maxPoolSize(inboundMaxSize)
+                .queueCapacity(inboundQueueCapacity);
+        // SUBSCRIBE: registra el formato pedido en el header accept
+        registration.interceptors(alertWireFormatInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Los hilos de salida solo encolan en la sesión; la escritura al socket va en websocketSendExecutor
+        registration.taskExecutor()
+                .corePoolSize(outboundCoreSize)
+                .maxPoolSize(outboundMaxSize)
+                .queueCapacity(outboundQueueCapacity);
+        // MESSAGE: cambia el payload por el formato negociado de la suscripción
+        registration.interceptors(alertWireFormatInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Mismos límites en el decorador de Spring; en la práctica los aplica BoundedSendSession
+        registration.setSendTimeLimit(sessionMonitor.getSendTimeLimit())
+                .setSendBufferSizeLimit(sessionMonitor.getBufferSizeLimit())
+                .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                    @Override
+                    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                        super.afterConnectionEstablished(sessionMonitor.decorate(session));
+                    }
+
+                    @Override
+                    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                        sessionMonitor.release(session.getId());
+                        super.afterConnectionClosed(session, closeStatus);
+                    }
+                });
+    }
+
+    /**
+     * Marca las sesiones abiertas por /ws-native para poder enviarles frames binarios
+     */
+    private static class NativeTransportInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            attributes.put(AlertWireFormatInterceptor.NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+            // Nada que hacer tras el handshake
+        }
     }
 }
@@ -4,6 +4,7 @@ import com.roadwarnings.narino.dto.response.UserResponseDTO;
 import com.roadwarnings.narino.entity.User;
 import com.roadwarnings.narino.enums.UserRole;
 import com.roadwarnings.narino.repository.*;
+import com.roadwarnings.narino.service.WebSocketSessionMonitor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,6 +35,7 @@ public class AdminController {
     private final GasStationRepository gasStationRepository;
     private final RouteRepository routeRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final WebSocketSessionMonitor webSocketSessionMonitor;
 
     /**
      * Obtiene todos los usuarios del sistema (paginado)
@@ -124,6 +126,14 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Estado de envío de las sesiones WebSocket (cola y frames descartados), de la más atrasada a la menos
+     */
+    @GetMapping("/websocket/sessions")
+    public ResponseEntity<List<WebSocketSessionMonitor.SessionStats>> getWebSocketSessions() {
+        return ResponseEntity.ok(webSocketSessionMonitor.getSessionStats());
+    }
+
     /**
      * Obtiene estadísticas generales del sistema
      */
@@ -5,7 +5,10 @@ import com.roadwarnings.narino.dto.request.AlertaRequestDTO;
 import com.roadwarnings.narino.dto.request.AlertFilterDTO;
 import com.roadwarnings.narino.dto.request.AlertSearchDTO;
 import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
+import com.roadwarnings.narino.enums.AlertSeverity;
 import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.exception.BadRequestException;
+import com.roadwarnings.narino.service.AlertEventStreamService;
 import com.roadwarnings.narino.service.AlertService;
 import com.roadwarnings.narino.service.AlertSearchService;
 import jakarta.validation.Valid;
@@ -15,13 +18,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/alert")
@@ -31,6 +37,7 @@ public class AlertController {
 
     private final AlertService alertService;
     private final AlertSearchService alertSearchService;
+    private final AlertEventStreamService alertEventStreamService;
 
     @PostMapping
     @RateLimited(RateLimited.Type.ALERT_CREATION)
@@ -39,7 +46,9 @@ public class AlertController {
 
         String username = getAuthenticatedUsername();
         AlertaResponseDTO response = alertService.createAlert(request, username);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        // Reporte duplicado fusionado con una alerta existente: no se creó ningún recurso
+        HttpStatus status = Boolean.TRUE.equals(response.getMerged()) ? HttpStatus.OK : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(response);
     }
 
     // 🔹 Obtener todas las alertas
@@ -80,6 +89,36 @@ public class AlertController {
         return ResponseEntity.ok(alertService.getActiveAlertsPaginated(pageable));
     }
 
+    // 🔹 Stream SSE de eventos (bbox y severidades opcionales; reanuda con Last-Event-ID)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAlerts(
+            @RequestParam(required = false) Double minLatitude,
+            @RequestParam(required = false) Double maxLatitude,
+            @RequestParam(required = false) Double minLongitude,
+            @RequestParam(required = false) Double maxLongitude,
+            @RequestParam(required = false) Set<AlertSeverity> severity,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        boolean anyBound = minLatitude != null || maxLatitude != null || minLongitude != null || maxLongitude != null;
+        boolean allBounds = minLatitude != null && maxLatitude != null && minLongitude != null && maxLongitude != null;
+        if (anyBound && !allBounds) {
+            throw new BadRequestException("El bbox requiere minLatitude, maxLatitude, minLongitude y maxLongitude");
+        }
+        if (allBounds && (minLatitude > maxLatitude || minLongitude > maxLongitude)) {
+            throw new BadRequestException("bbox inválido: los mínimos superan a los máximos");
+        }
+
+        SseEmitter emitter = alertEventStreamService.open(new AlertEventStreamService.StreamFilter(
+                minLatitude, maxLatitude, minLongitude, maxLongitude, severity), lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                // Evita que nginx acumule los eventos en su buffer
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
     // 🔹 Por id
     @GetMapping("/{id}")
     public ResponseEntity<AlertaResponseDTO> getAlertById(@PathVariable Long id) {
@@ -0,0 +1,50 @@
+package com.roadwarnings.narino.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.response.AlertIngestResultDTO;
+import com.roadwarnings.narino.service.AlertIngestService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Ingesta masiva de alertas de feeds oficiales (INVÍAS, Policía de Carreteras...)
+ * Solo accesible por usuarios con rol ADMIN
+ */
+@RestController
+@RequestMapping("/api/admin/alerts")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+@Slf4j
+public class AlertIngestController {
+
+    private final AlertIngestService alertIngestService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Ingesta un arreglo JSON o un flujo NDJSON (una alerta por línea)
+     * POST /api/admin/alerts/ingest?source=INVIAS
+     * La respuesta resume insertadas, duplicadas e inválidas (con los primeros errores).
+     */
+    @PostMapping(value = "/ingest",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<AlertIngestResultDTO> ingest(
+            @RequestParam String source,
+            HttpServletRequest request) throws IOException {
+
+        // Se lee en streaming: un arreglo raíz se recorre elemento a elemento
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(alertIngestService.ingest(source, items));
+        }
+    }
+}
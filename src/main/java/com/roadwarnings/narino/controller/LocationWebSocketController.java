@@ -0,0 +1,38 @@
+package com.roadwarnings.narino.controller;
+
+import com.roadwarnings.narino.dto.websocket.LocationUpdateMessage;
+import com.roadwarnings.narino.service.NearbyUserIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * Mensajes STOMP de los clientes (/app/...)
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class LocationWebSocketController {
+
+    private final NearbyUserIndex nearbyUserIndex;
+
+    /**
+     * El cliente reporta su posición; desde ese momento recibe en
+     * /user/queue/nearby-alerts las alertas nuevas dentro de su radio
+     */
+    @MessageMapping("/location")
+    public void updateLocation(@Payload LocationUpdateMessage location, Principal principal,
+                               SimpMessageHeaderAccessor headerAccessor) {
+        if (principal == null) {
+            log.debug("Ubicación ignorada: sesión WebSocket {} sin usuario", headerAccessor.getSessionId());
+            return;
+        }
+        nearbyUserIndex.update(headerAccessor.getSessionId(), principal.getName(),
+                location.getLatitude(), location.getLongitude(), location.getRadiusKm());
+    }
+}
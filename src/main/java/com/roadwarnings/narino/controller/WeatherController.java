@@ -46,10 +46,20 @@ public class WeatherController {
             @RequestParam Double lon,
             @RequestParam(defaultValue = "3") Integer days) {
 
-        List<WeatherService.WeatherForecastDTO> forecast =
-                weatherService.getWeatherForecast(lat, lon, days);
+        WeatherService.WeatherForecastSnapshotDTO snapshot =
+                weatherService.getForecastSnapshot(lat, lon, days);
 
-        return ResponseEntity.ok(forecast);
+        if (snapshot == null) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        // Metadatos de antigüedad en cabeceras para no cambiar el cuerpo (lista)
+        return ResponseEntity.ok()
+                .header("X-Weather-Cell", snapshot.getCellId())
+                .header("X-Weather-Fetched-At", snapshot.getFetchedAt().toString())
+                .header("X-Weather-Age-Minutes", String.valueOf(snapshot.getAgeMinutes()))
+                .header("X-Weather-Stale", String.valueOf(snapshot.getStale()))
+                .body(snapshot.getForecasts());
     }
 
     /**
@@ -0,0 +1,64 @@
+package com.roadwarnings.narino.dto.request;
+
+import com.roadwarnings.narino.enums.AlertSeverity;
+import com.roadwarnings.narino.enums.AlertType;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Alerta de un feed oficial (INVÍAS, Policía de Carreteras...) para ingesta masiva
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertIngestItemDTO {
+
+    // ID de la alerta en el feed de origen (clave de deduplicación)
+    @NotBlank(message = "El ID externo es obligatorio")
+    @Size(max = 100, message = "El ID externo no puede exceder 100 caracteres")
+    private String externalId;
+
+    @NotNull(message = "El tipo de alerta es obligatorio")
+    private AlertType type;
+
+    @NotBlank(message = "El título es obligatorio")
+    @Size(min = 3, max = 100, message = "El título debe tener entre 3 y 100 caracteres")
+    private String title;
+
+    @Size(max = 1000, message = "La descripción no puede exceder 1000 caracteres")
+    private String description;
+
+    @NotNull(message = "La latitud es obligatoria")
+    @DecimalMin(value = "-90.0", message = "Latitud inválida")
+    @DecimalMax(value = "90.0", message = "Latitud inválida")
+    private Double latitude;
+
+    @NotNull(message = "La longitud es obligatoria")
+    @DecimalMin(value = "-180.0", message = "Longitud inválida")
+    @DecimalMax(value = "180.0", message = "Longitud inválida")
+    private Double longitude;
+
+    private String location;
+
+    private String municipality;
+
+    @NotNull(message = "La severidad es obligatoria")
+    private AlertSeverity severity;
+
+    private Integer estimatedDuration;
+
+    private LocalDateTime expiresAt;
+
+    private List<String> affectedRoads;
+}
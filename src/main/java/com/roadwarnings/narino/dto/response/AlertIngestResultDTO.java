@@ -0,0 +1,36 @@
+package com.roadwarnings.narino.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlertIngestResultDTO {
+
+    private String source;
+    private int received;
+    private int inserted;
+    private int duplicates;
+    private int invalid;
+    private int chunks;
+    private long durationMs;
+
+    // Solo se reportan los primeros errores
+    @Builder.Default
+    private List<ItemError> errors = new ArrayList<>();
+
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class ItemError {
+        private int index;
+        private String externalId;
+        private String message;
+    }
+}
@@ -43,4 +43,7 @@ public class AlertaResponseDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime expiresAt;
+
+    // true cuando el reporte se fusionó como confirmación de una alerta existente
+    private Boolean merged;
 }
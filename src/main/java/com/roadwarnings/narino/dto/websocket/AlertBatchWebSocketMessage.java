@@ -0,0 +1,26 @@
+package com.roadwarnings.narino.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Lote de alertas enviado en un solo mensaje: alertas nuevas de una ingesta de
+ * feeds oficiales o cambios (votos, estado) agrupados por AlertBroadcastCoalescer
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertBatchWebSocketMessage {
+
+    private String action; // BULK_CREATED, BATCH_UPDATE
+    private String source;
+    private Integer count;
+    private List<AlertWebSocketMessage> alerts;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,20 @@
+package com.roadwarnings.narino.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Posición que el cliente envía a /app/location para recibir alertas cercanas
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationUpdateMessage {
+
+    private Double latitude;
+    private Double longitude;
+    private Double radiusKm; // Opcional: websocket.nearby.default-radius-km
+}
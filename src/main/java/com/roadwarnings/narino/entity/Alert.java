@@ -15,7 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"source", "external_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,10 +38,9 @@ public class Alert {
     @Column(nullable = false, length = 1000)
     private String description;
 
-    @Column(nullable = false)
+    // null mientras se geocodifica una alerta creada solo con dirección
     private Double latitude;
 
-    @Column(nullable = false)
     private Double longitude;
 
     private String location;
@@ -73,11 +73,12 @@ public class Alert {
     @Builder.Default
     private List<String> affectedRoads = new ArrayList<>();
 
-    @Column(nullable = false)
+    // Solo los modifica VoteCounterService con UPDATE atómicos (upvotes = upvotes + ?)
+    @Column(nullable = false, updatable = false)
     @Builder.Default  // ← AGREGADO
     private Integer upvotes = 0;
 
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     @Builder.Default  // ← AGREGADO
     private Integer downvotes = 0;
 
@@ -89,6 +90,12 @@ public class Alert {
 
     private LocalDateTime expiresAt;
 
+    // Origen de alertas importadas de feeds oficiales (INVIAS, POLICIA...) y su ID en ese feed
+    private String source;
+
+    @Column(name = "external_id")
+    private String externalId;
+
     @OneToMany(mappedBy = "alert", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     @Builder.Default
     private List<AlertMedia> media = new ArrayList<>();
@@ -0,0 +1,59 @@
+package com.roadwarnings.narino.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado persistido de una consulta de geocodificación (directa o inversa).
+ * Evita repetir llamadas a Nominatim para la misma dirección o coordenada.
+ */
+@Entity
+@Table(name = "geocode_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GeocodeCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // "fwd:<dirección normalizada>" o "rev:<lat>,<lon>" cuantizados
+    @Column(nullable = false, unique = true, length = 500)
+    private String cacheKey;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    @Column(length = 1000)
+    private String location;
+
+    private String municipality;
+
+    // false = el proveedor no encontró resultados (caché negativa)
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean found = true;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public boolean isExpired(int ttlDays) {
+        return createdAt.isBefore(LocalDateTime.now().minusDays(ttlDays));
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (found == null) {
+            found = true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.roadwarnings.narino.entity;
+
+import com.roadwarnings.narino.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Evento del outbox transaccional.
+ * Se guarda en la misma transacción que el cambio de negocio (p. ej. la alerta)
+ * y los workers ejecutan después sus efectos secundarios, con reintentos.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Tipo de evento, p. ej. ALERT_CREATED
+    @Column(nullable = false, length = 50)
+    private String eventType;
+
+    // ID de la entidad de origen (alerta, voto...)
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    // Pasos ya ejecutados (separados por coma): no se repiten en un reintento
+    @Column(length = 500)
+    private String completedSteps;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime lockedAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public Set<String> getCompletedStepSet() {
+        Set<String> steps = new LinkedHashSet<>();
+        if (completedSteps != null && !completedSteps.isBlank()) {
+            steps.addAll(Arrays.asList(completedSteps.split(",")));
+        }
+        return steps;
+    }
+
+    public void markStepCompleted(String step) {
+        Set<String> steps = getCompletedStepSet();
+        steps.add(step);
+        completedSteps = String.join(",", steps);
+    }
+}
@@ -0,0 +1,7 @@
+package com.roadwarnings.narino.enums;
+
+public enum AlertTopicMode {
+    GLOBAL,  // Solo /topic/alerts (comportamiento anterior)
+    CELLS,   // Solo /topic/alerts/cell/{geohash}
+    BOTH     // Ambos, mientras los clientes migran a las celdas
+}
@@ -0,0 +1,26 @@
+package com.roadwarnings.narino.enums;
+
+/**
+ * Contribuciones que modifican las estadísticas de un usuario.
+ * Cada una incrementa un contador y otorga (o resta) puntos de reputación.
+ */
+public enum ContributionType {
+    ALERT_CREATED(10),
+    ALERT_UPVOTED(5),
+    ALERT_DOWNVOTED(-3),
+    COMMENT_POSTED(2),
+    ALERT_VERIFIED(15),
+    REPORT_SUBMITTED(0),
+    REPORT_VALIDATED(20),
+    REPORT_REJECTED(-10);
+
+    private final int reputationPoints;
+
+    ContributionType(int reputationPoints) {
+        this.reputationPoints = reputationPoints;
+    }
+
+    public int getReputationPoints() {
+        return reputationPoints;
+    }
+}
@@ -0,0 +1,8 @@
+package com.roadwarnings.narino.enums;
+
+public enum EmailStatus {
+    PENDING,  // En cola (o esperando reintento)
+    SENDING,  // Tomado por un worker
+    SENT,     // Aceptado por el servidor SMTP
+    FAILED    // Se agotaron los reintentos
+}
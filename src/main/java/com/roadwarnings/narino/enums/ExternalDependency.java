@@ -0,0 +1,23 @@
+package com.roadwarnings.narino.enums;
+
+/**
+ * Proveedores externos protegidos con circuit breaker y bulkhead.
+ * El nombre de instancia coincide con la configuración resilience4j.*.instances.
+ */
+public enum ExternalDependency {
+    OPENWEATHER("openweather"),
+    GOOGLE_MAPS("googleMaps"),
+    NOMINATIM("nominatim"),
+    CLOUDINARY("cloudinary"),
+    FCM("fcm");
+
+    private final String instanceName;
+
+    ExternalDependency(String instanceName) {
+        this.instanceName = instanceName;
+    }
+
+    public String getInstanceName() {
+        return instanceName;
+    }
+}
@@ -0,0 +1,8 @@
+package com.roadwarnings.narino.enums;
+
+public enum OutboxStatus {
+    PENDING,     // Esperando despacho (o reintento)
+    PROCESSING,  // Tomado por un worker
+    COMPLETED,   // Todos los pasos ejecutados
+    FAILED       // Se agotaron los reintentos
+}
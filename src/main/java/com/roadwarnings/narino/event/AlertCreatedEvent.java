@@ -0,0 +1,12 @@
+package com.roadwarnings.narino.event;
+
+import com.roadwarnings.narino.enums.AlertType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Alerta ciudadana creada con coordenadas (los listeners AFTER_COMMIT solo la ven si se confirmó)
+ */
+public record AlertCreatedEvent(Long alertId, AlertType type, double latitude, double longitude,
+                                LocalDateTime createdAt) {
+}
@@ -0,0 +1,18 @@
+package com.roadwarnings.narino.event;
+
+/**
+ * Publicado por el pipeline de enriquecimiento cuando termina de resolver
+ * la ubicación de una alerta. Los campos null no se modifican.
+ * Las coordenadas geocodificadas reemplazan a replacedLatitude/replacedLongitude
+ * (las que tenía la alerta al encolarse); si el cliente las cambió entretanto, se conservan.
+ */
+public record AlertLocationEnrichedEvent(
+        Long alertId,
+        Double latitude,
+        Double longitude,
+        Double replacedLatitude,
+        Double replacedLongitude,
+        String location,
+        String municipality
+) {
+}
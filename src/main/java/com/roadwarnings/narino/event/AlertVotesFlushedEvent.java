@@ -0,0 +1,8 @@
+package com.roadwarnings.narino.event;
+
+/**
+ * Votos de una alerta ya persistidos en un flush del acumulador.
+ * Dispara en segundo plano los efectos sobre el autor (estadísticas, reputación, badges).
+ */
+public record AlertVotesFlushedEvent(Long alertId, Long ownerId, long upvotes, long downvotes) {
+}
@@ -0,0 +1,9 @@
+package com.roadwarnings.narino.event;
+
+import java.util.List;
+
+/**
+ * Lote de alertas insertado (y confirmado) por la ingesta masiva de un feed
+ */
+public record AlertsIngestedEvent(String source, List<Long> alertIds) {
+}
@@ -0,0 +1,7 @@
+package com.roadwarnings.narino.event;
+
+/**
+ * Se publica al encolar emails; tras el commit despierta al MailDispatcher.
+ */
+public record EmailQueuedEvent(int count) {
+}
@@ -0,0 +1,7 @@
+package com.roadwarnings.narino.event;
+
+/**
+ * Suscripción de un usuario a una ruta favorita creada, modificada o eliminada
+ */
+public record FavoriteRouteChangedEvent(Long routeId, Long userId, String customName, boolean subscribed) {
+}
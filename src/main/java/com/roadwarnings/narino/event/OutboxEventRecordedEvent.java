@@ -0,0 +1,7 @@
+package com.roadwarnings.narino.event;
+
+/**
+ * Se publica al guardar un evento en el outbox; tras el commit dispara su despacho inmediato.
+ */
+public record OutboxEventRecordedEvent(Long outboxEventId) {
+}
@@ -0,0 +1,7 @@
+package com.roadwarnings.narino.event;
+
+/**
+ * Geometría o estado (activa/inactiva) de una ruta modificados
+ */
+public record RouteChangedEvent(Long routeId) {
+}
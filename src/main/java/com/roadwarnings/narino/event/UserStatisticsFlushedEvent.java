@@ -0,0 +1,10 @@
+package com.roadwarnings.narino.event;
+
+import java.util.Set;
+
+/**
+ * Usuarios cuyas estadísticas se persistieron en un flush del buffer.
+ * Nivel y badges se evalúan una sola vez por usuario y flush.
+ */
+public record UserStatisticsFlushedEvent(Set<Long> userIds) {
+}
@@ -6,7 +6,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +33,12 @@ public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long>
 
     @Query("SELECT dt.token FROM DeviceToken dt WHERE dt.user.id = :userId AND dt.isActive = true")
     List<String> findActiveTokensByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT dt.token FROM DeviceToken dt WHERE dt.user.id IN :userIds AND dt.isActive = true")
+    List<String> findActiveTokensByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DeviceToken dt SET dt.isActive = false WHERE dt.token IN :tokens")
+    int deactivateTokens(@Param("tokens") Collection<String> tokens);
 }
@@ -31,4 +31,7 @@ public interface FavoriteRouteRepository extends JpaRepository<FavoriteRoute, Lo
 
     @Query("SELECT fr FROM FavoriteRoute fr WHERE fr.user.id = :userId AND fr.notificationsEnabled = true")
     List<FavoriteRoute> findByUserIdAndNotificationsEnabled(@Param("userId") Long userId);
+
+    @Query("SELECT fr FROM FavoriteRoute fr JOIN FETCH fr.route WHERE fr.notificationsEnabled = true")
+    List<FavoriteRoute> findAllWithNotificationsEnabled();
 }
@@ -0,0 +1,13 @@
+package com.roadwarnings.narino.repository;
+
+import com.roadwarnings.narino.entity.GeocodeCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntry, Long> {
+
+    Optional<GeocodeCacheEntry> findByCacheKey(String cacheKey);
+}
@@ -0,0 +1,51 @@
+package com.roadwarnings.narino.repository;
+
+import com.roadwarnings.narino.entity.OutboundEmail;
+import com.roadwarnings.narino.enums.EmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+
+    @Query("SELECT e.id FROM OutboundEmail e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<Long> findDueIds(@Param("status") EmailStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(EmailStatus status);
+
+    /**
+     * Toma un lote para un worker: solo los que siguen PENDING quedan marcados con el token,
+     * de modo que dos workers (o dos instancias) nunca envían el mismo email.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundEmail e SET e.status = com.roadwarnings.narino.enums.EmailStatus.SENDING, e.lockedAt = :now, " +
+            "e.attempts = e.attempts + 1, e.claimToken = :token " +
+            "WHERE e.id IN :ids AND e.status = com.roadwarnings.narino.enums.EmailStatus.PENDING")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    List<OutboundEmail> findByClaimToken(String claimToken);
+
+    /**
+     * Devuelve a PENDING los emails de workers que murieron a mitad de envío
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundEmail e SET e.status = com.roadwarnings.narino.enums.EmailStatus.PENDING, e.lockedAt = null " +
+            "WHERE e.status = com.roadwarnings.narino.enums.EmailStatus.SENDING AND e.lockedAt < :lockedBefore")
+    int releaseStale(@Param("lockedBefore") LocalDateTime lockedBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboundEmail e WHERE e.status = com.roadwarnings.narino.enums.EmailStatus.SENT AND e.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
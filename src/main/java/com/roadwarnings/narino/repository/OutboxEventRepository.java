@@ -0,0 +1,47 @@
+package com.roadwarnings.narino.repository;
+
+import com.roadwarnings.narino.entity.OutboxEvent;
+import com.roadwarnings.narino.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(OutboxStatus status);
+
+    /**
+     * Toma el evento para un worker. Devuelve 1 solo si estaba PENDING,
+     * de modo que dos workers (o dos instancias) nunca procesan el mismo evento.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.status = com.roadwarnings.narino.enums.OutboxStatus.PROCESSING, e.lockedAt = :now, e.attempts = e.attempts + 1 " +
+            "WHERE e.id = :id AND e.status = com.roadwarnings.narino.enums.OutboxStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Devuelve a PENDING los eventos de workers que murieron a mitad de proceso
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.status = com.roadwarnings.narino.enums.OutboxStatus.PENDING, e.lockedAt = null " +
+            "WHERE e.status = com.roadwarnings.narino.enums.OutboxStatus.PROCESSING AND e.lockedAt < :lockedBefore")
+    int releaseStale(@Param("lockedBefore") LocalDateTime lockedBefore);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.roadwarnings.narino.enums.OutboxStatus.COMPLETED AND e.processedAt < :before")
+    int deleteCompletedBefore(@Param("before") LocalDateTime before);
+}
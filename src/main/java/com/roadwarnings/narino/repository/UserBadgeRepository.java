@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,12 @@ public interface UserBadgeRepository extends JpaRepository<UserBadge, Long> {
 
     boolean existsByUserIdAndBadgeType(Long userId, BadgeType badgeType);
 
+    /**
+     * Pares (userId, badgeType, id) de los badges de varios usuarios
+     */
+    @Query("SELECT ub.user.id, ub.badgeType, ub.id FROM UserBadge ub WHERE ub.user.id IN :userIds")
+    List<Object[]> findBadgeKeysByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT COUNT(ub) FROM UserBadge ub WHERE ub.user.id = :userId")
     Long countByUserId(@Param("userId") Long userId);
 }
@@ -4,9 +4,12 @@ import com.roadwarnings.narino.entity.UserStatistics;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +18,12 @@ public interface UserStatisticsRepository extends JpaRepository<UserStatistics,
 
     Optional<UserStatistics> findByUserId(Long userId);
 
+    List<UserStatistics> findByUserIdIn(Collection<Long> userIds);
+
+    @Modifying
+    @Query("UPDATE UserStatistics us SET us.level = :level WHERE us.id = :id")
+    int updateLevel(@Param("id") Long id, @Param("level") Integer level);
+
     @Query("SELECT us FROM UserStatistics us ORDER BY us.reputationPoints DESC")
     List<UserStatistics> findTopByReputationPoints(Pageable pageable);
 
@@ -0,0 +1,43 @@
+package com.roadwarnings.narino.scheduler;
+
+import com.roadwarnings.narino.repository.OutboundEmailRepository;
+import com.roadwarnings.narino.service.MailDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MailQueueScheduler {
+
+    private final MailDispatcher mailDispatcher;
+    private final OutboundEmailRepository outboundEmailRepository;
+
+    @Value("${mail.queue.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * Recoge reintentos vencidos y emails que no se pudieron despachar tras el commit
+     */
+    @Scheduled(fixedDelayString = "${mail.queue.poll.interval-ms:15000}")
+    public void dispatchPending() {
+        int submitted = mailDispatcher.dispatchPending();
+        if (submitted > 0) {
+            log.info("Cola de emails: {} emails pendientes encolados", submitted);
+        }
+    }
+
+    /**
+     * Ejecuta cada día a las 3:30 AM para purgar emails ya enviados
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        int deleted = outboundEmailRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        log.info("Cola de emails: {} emails enviados eliminados", deleted);
+    }
+}
@@ -0,0 +1,21 @@
+package com.roadwarnings.narino.scheduler;
+
+import com.roadwarnings.narino.service.NotificationRetentionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class NotificationRetentionScheduler {
+
+    private final NotificationRetentionService notificationRetentionService;
+
+    /**
+     * Ejecuta cada día (por defecto a las 4 AM) el archivado de notificaciones
+     */
+    @Scheduled(cron = "${notifications.retention.cron:0 0 4 * * *}")
+    public void archiveNotifications() {
+        notificationRetentionService.runRetention();
+    }
+}
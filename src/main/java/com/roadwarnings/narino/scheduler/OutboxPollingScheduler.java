@@ -0,0 +1,43 @@
+package com.roadwarnings.narino.scheduler;
+
+import com.roadwarnings.narino.repository.OutboxEventRepository;
+import com.roadwarnings.narino.service.OutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxPollingScheduler {
+
+    private final OutboxDispatcher outboxDispatcher;
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Value("${outbox.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * Recoge reintentos vencidos y eventos que no se pudieron despachar tras el commit
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll.interval-ms:10000}")
+    public void dispatchPending() {
+        int submitted = outboxDispatcher.dispatchPending();
+        if (submitted > 0) {
+            log.info("Outbox: {} eventos pendientes encolados", submitted);
+        }
+    }
+
+    /**
+     * Ejecuta cada día a las 3 AM para purgar eventos ya completados
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void purgeCompleted() {
+        int deleted = outboxEventRepository.deleteCompletedBefore(LocalDateTime.now().minusDays(retentionDays));
+        log.info("Outbox: {} eventos completados eliminados", deleted);
+    }
+}
@@ -0,0 +1,53 @@
+package com.roadwarnings.narino.scheduler;
+
+import com.roadwarnings.narino.service.WeatherService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantiene caliente la tabla de celdas de clima de Nariño.
+ * Las consultas de usuarios nunca llaman a OpenWeather: leen lo que este job dejó en memoria.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WeatherGridPrefetcher {
+
+    private final WeatherService weatherService;
+
+    /**
+     * Clima actual de todas las celdas (por defecto cada 15 minutos)
+     */
+    @Scheduled(initialDelayString = "${weather.prefetch.initial-delay-ms:5000}",
+            fixedDelayString = "${weather.prefetch.current-interval-ms:900000}")
+    public void refreshCurrentConditions() {
+        if (!weatherService.isConfigured()) {
+            log.debug("API Key de clima no configurada, se omite el prefetch");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int refreshed = weatherService.refreshCurrentConditions();
+        log.info("Prefetch de clima actual: {}/{} celdas en {} ms",
+                refreshed, weatherService.getCellCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Pronóstico de 5 días de todas las celdas (por defecto cada 3 horas,
+     * que es la resolución del pronóstico de OpenWeather)
+     */
+    @Scheduled(initialDelayString = "${weather.prefetch.forecast-initial-delay-ms:60000}",
+            fixedDelayString = "${weather.prefetch.forecast-interval-ms:10800000}")
+    public void refreshForecasts() {
+        if (!weatherService.isConfigured()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int refreshed = weatherService.refreshForecasts();
+        log.info("Prefetch de pronóstico: {}/{} celdas en {} ms",
+                refreshed, weatherService.getCellCount(), System.currentTimeMillis() - start);
+    }
+}
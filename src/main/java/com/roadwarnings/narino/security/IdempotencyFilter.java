@@ -0,0 +1,313 @@
+package com.roadwarnings.narino.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.service.IdempotencyRecord;
+import com.roadwarnings.narino.service.IdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Soporte del header Idempotency-Key para creación de alertas y votos.
+ * La primera petición con una clave se ejecuta y su respuesta se guarda; los
+ * reintentos con la misma clave reciben la respuesta guardada sin volver a ejecutar
+ * el controlador, y los duplicados concurrentes esperan a que termine la primera.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${idempotency.paths:/alert,/alert/*/upvote,/alert/*/downvote}")
+    private String[] paths;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-flight-ttl-seconds:60}")
+    private long inFlightTtlSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equalsIgnoreCase(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+
+        String path = urlPathHelper.getPathWithinApplication(request);
+        for (String pattern : paths) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key inválida (máximo " + MAX_KEY_LENGTH + " caracteres)");
+            return;
+        }
+
+        InputStream in = request.getInputStream();
+        byte[] body = in.readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            // Cuerpo demasiado grande para guardar: se ejecuta sin idempotencia
+            log.debug("Cuerpo mayor a {} bytes, se ignora Idempotency-Key", maxBodyBytes);
+            filterChain.doFilter(new CachedBodyRequest(request, body, in), response);
+            return;
+        }
+
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body, null);
+        String path = urlPathHelper.getPathWithinApplication(request);
+        String storeKey = clientIdentifier(request) + ":" + key;
+        String fingerprint = fingerprint(request.getMethod(), path, body);
+        Duration inFlightTtl = Duration.ofSeconds(inFlightTtlSeconds);
+
+        IdempotencyRecord existing = idempotencyStore.tryReserve(storeKey, fingerprint, inFlightTtl);
+
+        if (existing != null && !existing.completed() && existing.fingerprint().equals(fingerprint)) {
+            // Duplicado concurrente: espera a la primera ejecución
+            existing = awaitCompletion(storeKey);
+            if (existing == null) {
+                // La primera ejecución falló y liberó la clave: este reintento puede ejecutarse
+                existing = idempotencyStore.tryReserve(storeKey, fingerprint, inFlightTtl);
+                if (existing != null && !existing.completed()) {
+                    writeError(response, HttpStatus.CONFLICT,
+                            "Hay una solicitud con la misma Idempotency-Key en curso");
+                    return;
+                }
+            }
+        }
+
+        if (existing == null) {
+            execute(cachedRequest, response, filterChain, storeKey, fingerprint);
+            return;
+        }
+
+        if (!existing.fingerprint().equals(fingerprint)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La Idempotency-Key ya se usó con una solicitud diferente");
+            return;
+        }
+
+        replay(response, existing);
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String storeKey, String fingerprint) throws ServletException, IOException {
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+
+        try {
+            filterChain.doFilter(request, cachingResponse);
+
+            int status = cachingResponse.getStatus();
+            if (isStorable(status)) {
+                idempotencyStore.complete(storeKey, IdempotencyRecord.completed(
+                        fingerprint, status, cachingResponse.getContentType(),
+                        cachingResponse.getContentAsByteArray()), Duration.ofHours(ttlHours));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                // Errores transitorios (5xx, 429...) no se guardan: el reintento vuelve a ejecutarse
+                idempotencyStore.release(storeKey);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private IdempotencyRecord awaitCompletion(String storeKey) {
+        try {
+            return idempotencyStore.awaitCompletion(storeKey, Duration.ofMillis(waitTimeoutMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Respuestas deterministas: éxito y errores de validación / recurso inexistente
+     */
+    private boolean isStorable(int status) {
+        return (status >= 200 && status < 300)
+                || status == HttpStatus.BAD_REQUEST.value()
+                || status == HttpStatus.NOT_FOUND.value();
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyRecord stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.body() != null && stored.body().length > 0) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Las claves son por usuario (o IP para invitados): dos clientes no comparten claves
+     */
+    private String clientIdentifier(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated() &&
+            !"anonymousUser".equals(authentication.getPrincipal())) {
+            return "user:" + authentication.getName();
+        }
+
+        String clientIP = request.getHeader("X-Forwarded-For");
+        if (clientIP == null || clientIP.isEmpty()) {
+            clientIP = request.getRemoteAddr();
+        }
+
+        return "ip:" + clientIP;
+    }
+
+    private static String fingerprint(String method, String path, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + " " + path + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Petición con el cuerpo ya leído, para poder volver a leerlo en el controlador
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final InputStream remaining;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body, InputStream remaining) {
+            super(request);
+            this.body = body;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            InputStream source = remaining != null
+                    ? new SequenceInputStream(new ByteArrayInputStream(body), remaining)
+                    : new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = source.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    int n = source.read(buffer, off, len);
+                    finished = n < 0;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Lectura asíncrona no soportada");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), java.nio.charset.Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa los broadcasts de votos y cambios de estado. Dentro de cada ventana solo
+ * se conserva el último estado por alerta y tipo de cambio; al cerrarla se envía un
+ * único frame BATCH_UPDATE (por topic) con todas las alertas que cambiaron.
+ * <p>
+ * UPDATED y DELETED no se agrupan, pero pasan por aquí para descartar antes los
+ * cambios pendientes de la alerta: un frame retrasado no puede llegar después y
+ * revertirla ni hacerla reaparecer en los clientes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertBroadcastCoalescer {
+
+    private final WebSocketService webSocketService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${websocket.coalesce.enabled:true}")
+    private boolean enabled;
+
+    private final Map<String, AlertWebSocketMessage> pending = new ConcurrentHashMap<>();
+    private final LongAdder received = new LongAdder();
+
+    private Counter updatesCounter;
+    private Counter framesCounter;
+    private Counter framesSavedCounter;
+
+    @PostConstruct
+    public void init() {
+        updatesCounter = Counter.builder("websocket.coalescer.updates")
+                .description("Cambios de votos/estado recibidos para broadcast")
+                .register(meterRegistry);
+        framesCounter = Counter.builder("websocket.coalescer.frames")
+                .description("Frames BATCH_UPDATE enviados")
+                .register(meterRegistry);
+        framesSavedCounter = Counter.builder("websocket.coalescer.frames.saved")
+                .description("Frames evitados al agrupar cambios")
+                .register(meterRegistry);
+    }
+
+    public void voteUpdated(Long alertId, Double latitude, Double longitude, Integer upvotes, Integer downvotes) {
+        if (!enabled) {
+            webSocketService.broadcastAlertVoteUpdate(alertId, latitude, longitude, upvotes, downvotes);
+            return;
+        }
+        submit(webSocketService.voteUpdateMessage(alertId, latitude, longitude, upvotes, downvotes));
+    }
+
+    public void statusChanged(AlertaResponseDTO alert) {
+        if (!enabled) {
+            webSocketService.broadcastAlertStatusChange(alert);
+            return;
+        }
+        submit(webSocketService.statusChangeMessage(alert));
+    }
+
+    /**
+     * Envía la alerta completa al instante; ya incluye los votos y el estado pendientes
+     */
+    public synchronized void alertUpdated(AlertaResponseDTO alert) {
+        discardPending(alert.getId());
+        webSocketService.broadcastAlertUpdate(alert);
+    }
+
+    public synchronized void alertDeleted(Long alertId, Double latitude, Double longitude) {
+        discardPending(alertId);
+        webSocketService.broadcastAlertDeletion(alertId, latitude, longitude);
+    }
+
+    /**
+     * Cierra la ventana: envía lo acumulado en un solo frame por topic
+     */
+    @Scheduled(fixedDelayString = "${websocket.coalesce.window-ms:250}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // remove() por clave: un cambio que llegue durante el flush queda para la siguiente ventana
+        List<AlertWebSocketMessage> changes = new ArrayList<>(pending.size());
+        for (String key : List.copyOf(pending.keySet())) {
+            AlertWebSocketMessage change = pending.remove(key);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        long updates = received.sumThenReset();
+        int frames = webSocketService.broadcastAlertChanges(changes);
+
+        framesCounter.increment(frames);
+        framesSavedCounter.increment(Math.max(0, updates - frames));
+        log.debug("{} cambios de {} alertas enviados en {} frames", updates, changes.size(), frames);
+    }
+
+    private void discardPending(Long alertId) {
+        pending.remove(key(alertId, WebSocketService.ACTION_VOTE_UPDATE));
+        pending.remove(key(alertId, WebSocketService.ACTION_STATUS_CHANGED));
+    }
+
+    private void submit(AlertWebSocketMessage change) {
+        pending.put(key(change.getAlertId(), change.getAction()), change);
+        received.increment();
+        updatesCounter.increment();
+    }
+
+    private static String key(Long alertId, String action) {
+        return alertId + ":" + action;
+    }
+}
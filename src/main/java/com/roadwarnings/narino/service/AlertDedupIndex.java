@@ -0,0 +1,216 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.Alert;
+import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.enums.AlertType;
+import com.roadwarnings.narino.event.AlertCreatedEvent;
+import com.roadwarnings.narino.repository.AlertRepository;
+import com.roadwarnings.narino.util.Geohash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Índice en memoria de alertas recientes por (tipo, celda geohash, ventana de tiempo).
+ * Permite detectar en O(1) un reporte casi duplicado al crear una alerta: se revisan
+ * la celda del punto y sus 8 vecinas en la ventana actual y la anterior, y se toma la
+ * alerta más cercana dentro del radio configurado.
+ * <p>
+ * El índice es local a cada instancia y se reconstruye al arrancar con las alertas
+ * activas de la última ventana. Las alertas nuevas entran tras el commit, de modo que
+ * un rollback no deja en el índice alertas que no existen.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertDedupIndex {
+
+    private final AlertRepository alertRepository;
+
+    @Value("${alerts.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${alerts.dedup.geohash-precision:6}")
+    private int precision;
+
+    @Value("${alerts.dedup.radius-meters:300}")
+    private double radiusMeters;
+
+    @Value("${alerts.dedup.window-minutes:30}")
+    private long windowMinutes;
+
+    private final Map<CellKey, Queue<Entry>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, CellKey> keysByAlert = new ConcurrentHashMap<>();
+    // Usuarios cuyo reporte ya contó como confirmación de cada alerta indexada
+    private final Map<Long, Set<Long>> confirmationsByAlert = new ConcurrentHashMap<>();
+
+    /**
+     * Reconstruye el índice con las alertas activas recientes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        List<Alert> recent = alertRepository.findRecentAlerts(AlertStatus.ACTIVE,
+                LocalDateTime.now().minusMinutes(windowMinutes));
+        recent.forEach(this::register);
+        log.info("Índice de duplicados inicializado con {} alertas recientes", recent.size());
+    }
+
+    /**
+     * Alerta activa del mismo tipo, dentro del radio y de la ventana de tiempo, más cercana al punto
+     */
+    public Optional<Long> findDuplicate(AlertType type, double latitude, double longitude) {
+        if (!enabled || type == null) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        long windowMillis = windowMillis();
+        long bucket = now / windowMillis;
+
+        Long closestId = null;
+        double closestDistance = Double.MAX_VALUE;
+
+        for (String cell : Geohash.cellWithNeighbors(latitude, longitude, precision)) {
+            for (long b = bucket - 1; b <= bucket; b++) {
+                Queue<Entry> entries = cells.get(new CellKey(type, cell, b));
+                if (entries == null) {
+                    continue;
+                }
+                for (Entry entry : entries) {
+                    if (now - entry.createdAtMillis() > windowMillis) {
+                        continue;
+                    }
+                    double distance = distanceMeters(latitude, longitude, entry.latitude(), entry.longitude());
+                    if (distance <= radiusMeters && distance < closestDistance) {
+                        closestId = entry.alertId();
+                        closestDistance = distance;
+                    }
+                }
+            }
+        }
+
+        return Optional.ofNullable(closestId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertCreated(AlertCreatedEvent event) {
+        register(event.alertId(), event.type(), event.latitude(), event.longitude(), event.createdAt());
+    }
+
+    /**
+     * Registra la confirmación de un usuario; false si ya había confirmado la alerta
+     */
+    public boolean recordConfirmation(Long alertId, Long userId) {
+        if (!keysByAlert.containsKey(alertId)) {
+            return false;
+        }
+        return confirmationsByAlert.computeIfAbsent(alertId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+    }
+
+    /**
+     * Registra una alerta guardada. Las que aún esperan geocodificación (o cuya
+     * geocodificación falló) no tienen coordenadas y no se indexan; entran con
+     * AlertCreatedEvent cuando reciben su primera ubicación.
+     */
+    public void register(Alert alert) {
+        if (alert.getLatitude() == null || alert.getLongitude() == null) {
+            return;
+        }
+        register(alert.getId(), alert.getType(), alert.getLatitude(), alert.getLongitude(), alert.getCreatedAt());
+    }
+
+    public void register(Long alertId, AlertType type, double latitude, double longitude, LocalDateTime createdAt) {
+        if (!enabled || alertId == null || type == null) {
+            return;
+        }
+
+        long createdAtMillis = createdAt != null
+                ? createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+
+        CellKey key = new CellKey(type, Geohash.encode(latitude, longitude, precision),
+                createdAtMillis / windowMillis());
+
+        cells.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>())
+                .add(new Entry(alertId, latitude, longitude, createdAtMillis));
+        keysByAlert.put(alertId, key);
+    }
+
+    /**
+     * Quita una alerta que dejó de estar activa (resuelta, expirada o eliminada)
+     */
+    public void remove(Long alertId) {
+        confirmationsByAlert.remove(alertId);
+        CellKey key = keysByAlert.remove(alertId);
+        if (key == null) {
+            return;
+        }
+        cells.computeIfPresent(key, (k, entries) -> {
+            entries.removeIf(entry -> entry.alertId().equals(alertId));
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    /**
+     * Descarta las ventanas que ya no pueden coincidir con reportes nuevos
+     */
+    @Scheduled(fixedDelayString = "${alerts.dedup.cleanup-interval-ms:300000}")
+    public void purgeExpired() {
+        long oldestBucket = System.currentTimeMillis() / windowMillis() - 1;
+
+        cells.entrySet().removeIf(e -> {
+            if (e.getKey().bucket() >= oldestBucket) {
+                return false;
+            }
+            e.getValue().forEach(entry -> {
+                keysByAlert.remove(entry.alertId());
+                confirmationsByAlert.remove(entry.alertId());
+            });
+            return true;
+        });
+    }
+
+    public int size() {
+        return keysByAlert.size();
+    }
+
+    private long windowMillis() {
+        return windowMinutes * 60_000L;
+    }
+
+    private static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        return 6_371_000 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private record CellKey(AlertType type, String cell, long bucket) {
+    }
+
+    private record Entry(Long alertId, double latitude, double longitude, long createdAtMillis) {
+    }
+}
@@ -0,0 +1,443 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertSeverity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stream SSE de eventos de alertas (GET /alert/stream) para clientes que no usan
+ * STOMP (emisoras, tableros municipales). Cada evento lleva un id creciente y se
+ * guarda en un buffer circular: un cliente que reconecta con Last-Event-ID recibe
+ * lo que se perdió; si ese id ya salió del buffer recibe un evento "reset" y debe
+ * recargar el estado por REST.
+ * <p>
+ * Las conexiones inactivas no ocupan hilos (petición asíncrona). Las escrituras van
+ * en sseExecutor con una cola acotada por cliente: quien publica nunca espera a un
+ * cliente lento, y el que acumula más de max-pending eventos se desconecta (al
+ * reconectar retoma desde el buffer).
+ * <p>
+ * La escritura al socket (SseEmitter.send) es bloqueante: un cliente con la ventana
+ * TCP llena retiene un worker de sseExecutor. Si un envío lleva más de write-timeout-ms
+ * bloqueado, el cliente se desconecta en el siguiente evento o heartbeat y no se le
+ * encola nada más; el worker queda libre cuando el contenedor aborta la escritura
+ * (server.tomcat.connection-timeout). Por eso alerts.sse.workers debe superar el número
+ * de clientes atascados a la vez que se quiera tolerar: con todos los workers
+ * bloqueados el resto de streams espera hasta esos timeouts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertEventStreamService {
+
+    static final String RESET_EVENT = "reset";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ClusterMessageBus> clusterMessageBus;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("sseExecutor")
+    private final TaskExecutor sseExecutor;
+
+    @Value("${alerts.sse.buffer-size:1000}")
+    private int bufferSize;
+
+    @Value("${alerts.sse.max-connections:5000}")
+    private int maxConnections;
+
+    @Value("${alerts.sse.max-pending:200}")
+    private int maxPending;
+
+    @Value("${alerts.sse.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    @Value("${alerts.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${alerts.sse.retry-ms:5000}")
+    private long retryMs;
+
+    @Value("${alerts.sse.channel:alerts:sse}")
+    private String channel;
+
+    private final AtomicLong lastId = new AtomicLong();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Buffer circular de eventos recientes (protegido por ringLock)
+    private final Object ringLock = new Object();
+    private StreamEvent[] ring;
+    private int ringNext;
+    private int ringCount;
+    // Ids menores pueden haberse perdido (arranque o eventos expulsados del buffer)
+    private long horizon;
+
+    private Map<Long, AlertSeverity> knownSeverities;
+    private Counter slowDisconnects;
+
+    /**
+     * Evento ya serializado. El id lo asigna la instancia que publica
+     * (epoch micros, creciente) para que sea el mismo en todas las instancias.
+     */
+    public record StreamEvent(long id, String action, Long alertId, Double latitude, Double longitude,
+                              AlertSeverity severity, String json) {
+    }
+
+    /**
+     * Filtros opcionales de una conexión: rectángulo (bbox) y severidades.
+     * Los eventos sin coordenadas o sin severidad conocida pasan el filtro
+     * correspondiente (p. ej. DELETED de una alerta que el cliente ya tiene).
+     */
+    public record StreamFilter(Double minLatitude, Double maxLatitude, Double minLongitude, Double maxLongitude,
+                               Set<AlertSeverity> severities) {
+
+        boolean matches(StreamEvent event) {
+            if (severities != null && !severities.isEmpty() && event.severity() != null
+                    && !severities.contains(event.severity())) {
+                return false;
+            }
+            if (minLatitude == null || event.latitude() == null || event.longitude() == null) {
+                return true;
+            }
+            return event.latitude() >= minLatitude && event.latitude() <= maxLatitude
+                    && event.longitude() >= minLongitude && event.longitude() <= maxLongitude;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        ring = new StreamEvent[Math.max(1, bufferSize)];
+        horizon = System.currentTimeMillis() * 1000;
+        lastId.set(horizon);
+        knownSeverities = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AlertSeverity> eldest) {
+                return size() > 10_000;
+            }
+        });
+        slowDisconnects = Counter.builder("alerts.sse.slow.disconnects")
+                .description("Clientes SSE desconectados por acumular eventos sin enviar")
+                .register(meterRegistry);
+        Gauge.builder("alerts.sse.connections", subscribers, Set::size)
+                .description("Conexiones SSE abiertas")
+                .register(meterRegistry);
+        clusterMessageBus.ifAvailable(bus -> bus.subscribe(channel, this::onClusterEvents));
+    }
+
+    /**
+     * Abre un stream; null si se alcanzó el máximo de conexiones
+     */
+    public SseEmitter open(StreamFilter filter, String lastEventId) {
+        if (subscribers.size() >= maxConnections) {
+            return null;
+        }
+
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        List<SseEventBuilder> initial = new ArrayList<>();
+        initial.add(SseEmitter.event().reconnectTime(retryMs).comment("conectado"));
+        Long resumeFrom = parseEventId(lastEventId);
+
+        // Réplica y alta bajo el mismo lock: ningún evento queda entre ambas
+        // (como mucho uno llega repetido, con el mismo id)
+        synchronized (ringLock) {
+            if (resumeFrom != null) {
+                initial.addAll(replay(resumeFrom, filter));
+            }
+            subscribers.add(subscriber);
+            subscriber.offerAll(initial);
+        }
+        return emitter;
+    }
+
+    /**
+     * Publica eventos de alertas (los mismos que salen por WebSocket). Con
+     * websocket.cluster.mode=redis se reparten por el bus y cada instancia los
+     * guarda y entrega a sus propios clientes.
+     */
+    public void publish(List<AlertWebSocketMessage> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        List<StreamEvent> events = new ArrayList<>(alerts.size());
+        try {
+            for (AlertWebSocketMessage alert : alerts) {
+                events.add(new StreamEvent(nextId(), alert.getAction(), alert.getAlertId(), alert.getLatitude(),
+                        alert.getLongitude(), alert.getSeverity(), objectMapper.writeValueAsString(alert)));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar el evento SSE de alertas: {}", e.getMessage());
+            return;
+        }
+
+        ClusterMessageBus bus = clusterMessageBus.getIfAvailable();
+        if (bus == null) {
+            append(events);
+            return;
+        }
+        try {
+            // El bus también entrega el mensaje a esta instancia
+            bus.publish(channel, objectMapper.writeValueAsString(events));
+        } catch (JsonProcessingException e) {
+            append(events);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        // Mantiene abiertos los proxies y detecta conexiones muertas
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    public int getConnectionCount() {
+        return subscribers.size();
+    }
+
+    void append(List<StreamEvent> events) {
+        List<StreamEvent> accepted = new ArrayList<>(events.size());
+        synchronized (ringLock) {
+            for (StreamEvent event : events) {
+                StreamEvent withSeverity = withKnownSeverity(event);
+                StreamEvent evicted = ring[ringNext];
+                if (evicted != null) {
+                    horizon = Math.max(horizon, evicted.id());
+                }
+                ring[ringNext] = withSeverity;
+                ringNext = (ringNext + 1) % ring.length;
+                ringCount = Math.min(ringCount + 1, ring.length);
+                accepted.add(withSeverity);
+            }
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            for (StreamEvent event : accepted) {
+                if (subscriber.filter.matches(event)) {
+                    subscriber.offer(toSse(event));
+                }
+            }
+        }
+    }
+
+    /**
+     * Eventos del buffer posteriores a lastEventId, o un "reset" si pudo haber huecos.
+     * También se envía "reset" si la réplica supera la mitad de max-pending: el resto
+     * de la cola queda para los eventos en vivo que llegan mientras se envía la réplica.
+     */
+    List<SseEventBuilder> replay(long lastEventId, StreamFilter filter) {
+        List<StreamEvent> missed = new ArrayList<>();
+        long currentHorizon;
+        synchronized (ringLock) {
+            currentHorizon = horizon;
+            for (int i = 0; i < ringCount; i++) {
+                StreamEvent event = ring[(ringNext - ringCount + i + ring.length) % ring.length];
+                if (event.id() > lastEventId) {
+                    missed.add(event);
+                }
+            }
+        }
+
+        if (lastEventId < currentHorizon) {
+            return List.of(SseEmitter.event().name(RESET_EVENT).data("{}"));
+        }
+
+        // Con varias instancias el orden de llegada puede no coincidir con el de los ids
+        missed.sort(Comparator.comparingLong(StreamEvent::id));
+        List<SseEventBuilder> builders = new ArrayList<>(missed.size());
+        for (StreamEvent event : missed) {
+            if (filter.matches(event)) {
+                builders.add(toSse(event));
+            }
+        }
+        if (builders.size() > maxReplay()) {
+            return List.of(SseEmitter.event().name(RESET_EVENT).data("{}"));
+        }
+        return builders;
+    }
+
+    private int maxReplay() {
+        return Math.max(1, maxPending / 2);
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private StreamEvent withKnownSeverity(StreamEvent event) {
+        if (event.alertId() == null) {
+            return event;
+        }
+        if ("DELETED".equals(event.action())) {
+            AlertSeverity severity = knownSeverities.remove(event.alertId());
+            return severity != null && event.severity() == null ? copyWithSeverity(event, severity) : event;
+        }
+        if (event.severity() != null) {
+            knownSeverities.put(event.alertId(), event.severity());
+            return event;
+        }
+        AlertSeverity known = knownSeverities.get(event.alertId());
+        return known != null ? copyWithSeverity(event, known) : event;
+    }
+
+    private static StreamEvent copyWithSeverity(StreamEvent event, AlertSeverity severity) {
+        return new StreamEvent(event.id(), event.action(), event.alertId(), event.latitude(), event.longitude(),
+                severity, event.json());
+    }
+
+    private static SseEventBuilder toSse(StreamEvent event) {
+        SseEventBuilder builder = SseEmitter.event().id(String.valueOf(event.id())).data(event.json());
+        return event.action() != null ? builder.name(event.action()) : builder;
+    }
+
+    private long nextId() {
+        return lastId.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis() * 1000));
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void onClusterEvents(String json) {
+        try {
+            append(objectMapper.readValue(json, new TypeReference<List<StreamEvent>>() {
+            }));
+        } catch (JsonProcessingException e) {
+            log.warn("Eventos SSE inválidos en el canal {}: {}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * Conexión SSE con su cola de envío. Un solo worker a la vez vacía la cola.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final StreamFilter filter;
+        private final Queue<SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedAt;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, StreamFilter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        void offer(SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            long startedAt = sendStartedAt;
+            if (startedAt > 0 && System.currentTimeMillis() - startedAt > writeTimeoutMs) {
+                slowDisconnects.increment();
+                log.debug("Cliente SSE desconectado: envío bloqueado {} ms", System.currentTimeMillis() - startedAt);
+                close();
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                slowDisconnects.increment();
+                log.debug("Cliente SSE desconectado: {} eventos sin enviar", pendingCount.get());
+                close();
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        /**
+         * Sin comprobar el límite: replay() ya acota la réplica inicial por debajo de max-pending
+         */
+        void offerAll(List<SseEventBuilder> events) {
+            pendingCount.addAndGet(events.size());
+            pending.addAll(events);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sseExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    sendStartedAt = System.currentTimeMillis();
+                    emitter.send(event);
+                    sendStartedAt = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            pending.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Ya completado
+            }
+        }
+    }
+}
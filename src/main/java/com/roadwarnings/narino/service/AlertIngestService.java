@@ -0,0 +1,320 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.request.AlertIngestItemDTO;
+import com.roadwarnings.narino.dto.response.AlertIngestResultDTO;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.event.AlertsIngestedEvent;
+import com.roadwarnings.narino.exception.BadRequestException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ingesta masiva de alertas de feeds oficiales (INVÍAS, Policía de Carreteras...).
+ * Las alertas se validan y deduplican (por fuente + ID externo) y se insertan en
+ * lotes JDBC, una transacción por lote. Los efectos derivados se actualizan una vez
+ * por lote y los clientes reciben un único broadcast agregado al final.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertIngestService {
+
+    private static final String INSERT_ALERT_SQL = """
+            INSERT INTO alerts (type, title, description, latitude, longitude, location, municipality,
+                                severity, status, estimated_duration, upvotes, downvotes, created_at,
+                                expires_at, source, external_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?, ?, ?)
+            ON CONFLICT (source, external_id) DO NOTHING""";
+
+    private static final int[] INSERT_ALERT_TYPES = {
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR
+    };
+
+    private static final String SELECT_IDS_SQL =
+            "SELECT id, external_id FROM alerts WHERE source = :source AND external_id IN (:externalIds)";
+
+    private static final String INSERT_ROAD_SQL = "INSERT INTO alert_affected_roads (alert_id, road) VALUES (?, ?)";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final MunicipalityGazetteerService gazetteerService;
+    private final LocationEnrichmentService locationEnrichmentService;
+    private final AlertDedupIndex alertDedupIndex;
+    private final WebSocketService webSocketService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${alerts.ingest.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${alerts.ingest.max-items:20000}")
+    private int maxItems;
+
+    /**
+     * Procesa un arreglo JSON o un flujo NDJSON de alertas, elemento a elemento
+     */
+    public AlertIngestResultDTO ingest(String source, MappingIterator<JsonNode> items) {
+        long start = System.currentTimeMillis();
+        String feed = normalizeSource(source);
+
+        AlertIngestResultDTO result = AlertIngestResultDTO.builder().source(feed).build();
+        Set<String> seenIds = new HashSet<>();
+        List<AlertIngestItemDTO> chunk = new ArrayList<>(chunkSize);
+        List<AlertWebSocketMessage> ingested = new ArrayList<>();
+        int accepted = 0;
+
+        try {
+            while (items.hasNextValue()) {
+                JsonNode node = items.nextValue();
+                int index = result.getReceived();
+                result.setReceived(index + 1);
+
+                if (index >= maxItems) {
+                    addError(result, index, null, "Se superó el máximo de " + maxItems + " alertas por solicitud");
+                    result.setReceived(index);
+                    break;
+                }
+
+                AlertIngestItemDTO item;
+                try {
+                    item = objectMapper.treeToValue(node, AlertIngestItemDTO.class);
+                } catch (JsonProcessingException e) {
+                    result.setInvalid(result.getInvalid() + 1);
+                    addError(result, index, node.path("externalId").asText(null), "Formato inválido: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = validate(item);
+                if (error != null) {
+                    result.setInvalid(result.getInvalid() + 1);
+                    addError(result, index, item.getExternalId(), error);
+                    continue;
+                }
+
+                item.setExternalId(item.getExternalId().trim());
+                if (!seenIds.add(item.getExternalId())) {
+                    result.setDuplicates(result.getDuplicates() + 1);
+                    continue;
+                }
+
+                chunk.add(item);
+                accepted++;
+                if (chunk.size() >= chunkSize) {
+                    ingested.addAll(insertChunk(feed, chunk));
+                    result.setChunks(result.getChunks() + 1);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // JSON mal formado: se conserva lo ya insertado y se reporta la posición
+            addError(result, result.getReceived(), null, "JSON inválido: " + e.getMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            ingested.addAll(insertChunk(feed, chunk));
+            result.setChunks(result.getChunks() + 1);
+        }
+
+        result.setInserted(ingested.size());
+        // Los aceptados que no se insertaron ya existían en la BD
+        result.setDuplicates(result.getDuplicates() + accepted - ingested.size());
+        result.setDurationMs(System.currentTimeMillis() - start);
+
+        if (!ingested.isEmpty()) {
+            webSocketService.broadcastAlertBatch(feed, ingested);
+        }
+
+        log.info("Ingesta {}: {} recibidas, {} insertadas, {} duplicadas, {} inválidas en {} ms",
+                feed, result.getReceived(), result.getInserted(), result.getDuplicates(),
+                result.getInvalid(), result.getDurationMs());
+
+        return result;
+    }
+
+    /**
+     * Inserta un lote en su propia transacción y devuelve las alertas realmente creadas
+     */
+    private List<AlertWebSocketMessage> insertChunk(String source, List<AlertIngestItemDTO> chunk) {
+        List<IngestedAlert> inserted = transactionTemplate.execute(status -> insertRows(source, chunk));
+        if (inserted == null || inserted.isEmpty()) {
+            return List.of();
+        }
+
+        for (IngestedAlert alert : inserted) {
+            // Reportes ciudadanos posteriores se fusionan con la alerta oficial
+            alertDedupIndex.register(alert.id(), alert.message().getType(),
+                    alert.message().getLatitude(), alert.message().getLongitude(), alert.message().getTimestamp());
+
+            if (alert.message().getLocation() == null) {
+                // Texto de ubicación pendiente: se completa en segundo plano como en createAlert
+                locationEnrichmentService.enqueue(alert.id(), null,
+                        alert.message().getLatitude(), alert.message().getLongitude(), false, true, false);
+            }
+        }
+
+        // Efectos derivados (conteos de rutas, índices) una vez por lote
+        eventPublisher.publishEvent(new AlertsIngestedEvent(source,
+                inserted.stream().map(IngestedAlert::id).toList()));
+
+        return inserted.stream().map(IngestedAlert::message).toList();
+    }
+
+    private List<IngestedAlert> insertRows(String source, List<AlertIngestItemDTO> chunk) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        List<String> municipalities = new ArrayList<>(chunk.size());
+
+        for (AlertIngestItemDTO item : chunk) {
+            String municipality = normalizeOptionalText(item.getMunicipality());
+            if (municipality == null) {
+                municipality = gazetteerService.resolveMunicipality(item.getLatitude(), item.getLongitude());
+            }
+            municipalities.add(municipality);
+
+            rows.add(new Object[]{
+                    item.getType().name(),
+                    item.getTitle().trim(),
+                    item.getDescription() != null ? item.getDescription() : "",
+                    item.getLatitude(),
+                    item.getLongitude(),
+                    normalizeOptionalText(item.getLocation()),
+                    municipality,
+                    item.getSeverity().name(),
+                    AlertStatus.ACTIVE.name(),
+                    item.getEstimatedDuration(),
+                    now,
+                    item.getExpiresAt() != null ? Timestamp.valueOf(item.getExpiresAt()) : null,
+                    source,
+                    item.getExternalId()
+            });
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_ALERT_SQL, rows, INSERT_ALERT_TYPES);
+
+        List<String> insertedIds = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            // 0 = conflicto (ya existía); SUCCESS_NO_INFO se trata como insertada
+            if (i >= counts.length || counts[i] != 0) {
+                insertedIds.add(chunk.get(i).getExternalId());
+            }
+        }
+        if (insertedIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Long> alertIds = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_IDS_SQL,
+                new MapSqlParameterSource("source", source).addValue("externalIds", insertedIds),
+                rs -> {
+                    alertIds.put(rs.getString("external_id"), rs.getLong("id"));
+                });
+
+        Set<String> inserted = new HashSet<>(insertedIds);
+        List<Object[]> roads = new ArrayList<>();
+        List<IngestedAlert> created = new ArrayList<>(insertedIds.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            AlertIngestItemDTO item = chunk.get(i);
+            Long alertId = alertIds.get(item.getExternalId());
+            if (alertId == null || !inserted.contains(item.getExternalId())) {
+                continue;
+            }
+
+            if (item.getAffectedRoads() != null) {
+                for (String road : item.getAffectedRoads()) {
+                    if (road != null && !road.isBlank()) {
+                        roads.add(new Object[]{alertId, road.trim()});
+                    }
+                }
+            }
+
+            created.add(new IngestedAlert(alertId, AlertWebSocketMessage.builder()
+                    .action("CREATED")
+                    .alertId(alertId)
+                    .type(item.getType())
+                    .title(item.getTitle().trim())
+                    .description(item.getDescription())
+                    .latitude(item.getLatitude())
+                    .longitude(item.getLongitude())
+                    .location(normalizeOptionalText(item.getLocation()))
+                    .severity(item.getSeverity())
+                    .status(AlertStatus.ACTIVE)
+                    .upvotes(0)
+                    .downvotes(0)
+                    .timestamp(now.toLocalDateTime())
+                    .build()));
+        }
+
+        if (!roads.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ROAD_SQL, roads);
+        }
+
+        return created;
+    }
+
+    private String validate(AlertIngestItemDTO item) {
+        Set<ConstraintViolation<AlertIngestItemDTO>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void addError(AlertIngestResultDTO result, int index, String externalId, String message) {
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new AlertIngestResultDTO.ItemError(index, externalId, message));
+        }
+    }
+
+    private String normalizeSource(String source) {
+        if (source == null || source.isBlank()) {
+            throw new BadRequestException("La fuente del feed es obligatoria");
+        }
+        return source.trim().toUpperCase();
+    }
+
+    private String normalizeOptionalText(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private record IngestedAlert(Long id, AlertWebSocketMessage message) {
+    }
+}
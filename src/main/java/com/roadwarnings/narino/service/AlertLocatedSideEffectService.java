@@ -0,0 +1,34 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Efectos de una alerta creada solo con dirección cuando recibe sus primeras
+ * coordenadas (evento ALERT_LOCATED del outbox). Son los pasos de ALERT_CREATED
+ * que dependen de la ubicación y que en ese momento se omitieron.
+ */
+@Service
+@RequiredArgsConstructor
+public class AlertLocatedSideEffectService implements OutboxEventHandler {
+
+    private final AlertSideEffectService alertSideEffectService;
+
+    @Override
+    public String getEventType() {
+        return OutboxService.ALERT_LOCATED;
+    }
+
+    @Override
+    public List<String> getSteps() {
+        return AlertSideEffectService.LOCATION_STEPS;
+    }
+
+    @Override
+    public void handleStep(OutboxEvent event, String step) {
+        alertSideEffectService.handleStep(event, step);
+    }
+}
@@ -1,36 +1,33 @@
 package com.roadwarnings.narino.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.roadwarnings.narino.dto.request.AlertaRequestDTO;
 import com.roadwarnings.narino.dto.request.AlertFilterDTO;
 import com.roadwarnings.narino.dto.response.AlertMediaDTO;
 import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
 import com.roadwarnings.narino.entity.Alert;
 import com.roadwarnings.narino.entity.AlertMedia;
-import com.roadwarnings.narino.entity.FavoriteRoute;
 import com.roadwarnings.narino.entity.User;
 import com.roadwarnings.narino.enums.AlertStatus;
 import com.roadwarnings.narino.enums.MediaType;
+import com.roadwarnings.narino.event.AlertCreatedEvent;
+import com.roadwarnings.narino.event.AlertLocationEnrichedEvent;
 import com.roadwarnings.narino.exception.UnauthorizedException;
 import com.roadwarnings.narino.repository.AlertRepository;
-import com.roadwarnings.narino.repository.FavoriteRouteRepository;
-import com.roadwarnings.narino.repository.RouteRepository;
 import com.roadwarnings.narino.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.util.UriComponentsBuilder;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -42,19 +39,18 @@ public class AlertService {
 
     private final AlertRepository alertRepository;
     private final UserRepository userRepository;
-    private final WebSocketService webSocketService;
-    private final UserStatisticsService statisticsService;
-    private final BadgeService badgeService;
-    private final RouteRepository routeRepository;
-    private final FavoriteRouteRepository favoriteRouteRepository;
-    private final ReputationService reputationService;
-    private final SmartNotificationService smartNotificationService;
-    private final PushNotificationService pushNotificationService;
     private final ImageUploadService imageUploadService;
+    private final MunicipalityGazetteerService gazetteerService;
+    private final LocationEnrichmentService locationEnrichmentService;
+    private final OutboxService outboxService;
+    private final VoteCounterService voteCounterService;
+    private final AlertDedupIndex alertDedupIndex;
+    private final AlertBroadcastCoalescer alertBroadcastCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
     private static final String ALERT_NOT_FOUND = "Alerta no encontrada";
     private static final String USER_NOT_FOUND = "Usuario no encontrado";
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Imágenes por URL (sin subida propia a Cloudinary)
+    private static final String EXTERNAL_MEDIA_ID = "external";
 
     /**
      * Crear alerta.
@@ -68,35 +64,25 @@ public class AlertService {
         Double lat = request.getLatitude();
         Double lon = request.getLongitude();
 
-        // Si llega sin lat/lon pero con dirección, intentamos geocodificar (defensivo)
-        if ((lat == null || lon == null)
-                && request.getLocation() != null
-                && !request.getLocation().isBlank()) {
-
-            double[] coords = geocodeAddress(request.getLocation());
-            if (coords.length == 2) {
-                lat = coords[0];
-                lon = coords[1];
-                log.info("Geocodificada ubicación '{}' -> {}, {}", request.getLocation(), lat, lon);
-            } else {
-                log.warn("No se pudo geocodificar '{}', usando 0,0", request.getLocation());
-                lat = 0.0;
-                lon = 0.0;
-            }
-        }
-
         String location = normalizeOptionalText(request.getLocation());
         String municipality = normalizeOptionalText(request.getMunicipality());
 
-        if (location == null && municipality == null && lat != null && lon != null) {
-            ReverseGeocodeResult reverse = reverseGeocode(lat, lon);
-            if (reverse != null) {
-                if (location == null) {
-                    location = reverse.location();
-                }
-                if (municipality == null) {
-                    municipality = reverse.municipality();
-                }
+        // Si llega sin lat/lon pero con dirección, se guarda sin coordenadas y se geocodifica en segundo plano
+        boolean geocodeCoordinates = (lat == null || lon == null) && location != null;
+        if (geocodeCoordinates) {
+            lat = null;
+            lon = null;
+        } else if (municipality == null) {
+            // Municipio resuelto localmente con el gazetteer (sin red)
+            municipality = gazetteerService.resolveMunicipality(lat, lon);
+        }
+
+        // Reporte casi duplicado (mismo tipo, lugar y ventana de tiempo): se registra
+        // como confirmación de la alerta existente en lugar de crear otra
+        if (!geocodeCoordinates) {
+            Optional<AlertaResponseDTO> confirmation = confirmDuplicate(request, lat, lon, user);
+            if (confirmation.isPresent()) {
+                return confirmation.get();
             }
         }
 
@@ -119,29 +105,76 @@ public class AlertService {
         alert = alertRepository.save(alert);
         log.info("Alerta creada con ID: {}", alert.getId());
 
-        // Actualizar estadísticas del usuario
-        if (user != null) {
-            statisticsService.incrementAlertCreated(user.getId());
-            badgeService.checkAndAwardBadges(user.getId());
+        if (!geocodeCoordinates) {
+            // El índice de duplicados la incorpora tras el commit
+            eventPublisher.publishEvent(new AlertCreatedEvent(alert.getId(), alert.getType(),
+                    alert.getLatitude(), alert.getLongitude(), alert.getCreatedAt()));
+        }
+
+        // Dirección / municipio / coordenadas faltantes se completan de forma asíncrona
+        locationEnrichmentService.enqueue(alert.getId(), location, lat, lon,
+                geocodeCoordinates, location == null, municipality == null);
+
+        // Estadísticas, badges, reputación, notificaciones y broadcast se despachan
+        // tras el commit desde el outbox (misma transacción que la alerta). Sin coordenadas,
+        // los pasos que dependen de la ubicación se ejecutan con ALERT_LOCATED al geocodificar
+        outboxService.record(OutboxService.ALERT_CREATED, alert.getId(),
+                geocodeCoordinates ? OutboxService.PENDING_LOCATION : null);
+
+        return mapToResponseDTO(alert);
+    }
 
-            // Otorgar puntos de reputación
-            reputationService.onAlertCreated(user.getId());
+    /**
+     * Fusiona el reporte con una alerta activa equivalente: su imagen se agrega a la
+     * alerta y, si lo envía un usuario autenticado distinto del autor, cuenta como un
+     * upvote (una vez por usuario). No se repiten notificaciones ni conteos de rutas.
+     */
+    private Optional<AlertaResponseDTO> confirmDuplicate(AlertaRequestDTO request, Double lat, Double lon,
+                                                         User user) {
+        Optional<Long> duplicateId = alertDedupIndex.findDuplicate(request.getType(), lat, lon);
+        if (duplicateId.isEmpty()) {
+            return Optional.empty();
         }
 
-        // Enviar notificaciones inteligentes a usuarios con rutas favoritas
-        smartNotificationService.onNewAlert(alert);
+        Alert existing = alertRepository.findById(duplicateId.get()).orElse(null);
+        if (existing == null || existing.getStatus() != AlertStatus.ACTIVE) {
+            alertDedupIndex.remove(duplicateId.get());
+            return Optional.empty();
+        }
 
-        // Actualizar contador de alertas en rutas cercanas
-        updateNearbyRoutesAlertCount(alert.getLatitude(), alert.getLongitude());
+        String imageUrl = normalizeOptionalText(request.getImageUrl());
+        if (imageUrl != null && existing.getMedia().stream().noneMatch(m -> imageUrl.equals(m.getUrl()))) {
+            if (existing.getImageUrl() == null) {
+                existing.setImageUrl(imageUrl);
+            }
+            existing.getMedia().add(AlertMedia.builder()
+                    .alert(existing)
+                    .url(imageUrl)
+                    .publicId(EXTERNAL_MEDIA_ID)
+                    .type(MediaType.IMAGE)
+                    .position(existing.getMedia().size())
+                    .build());
+            existing = alertRepository.save(existing);
+        }
 
-        // Notificar a usuarios con rutas favoritas cercanas
-        notifyUsersWithNearbyFavoriteRoutes(alert);
+        // Como /alert/{id}/upvote, solo cuenta si hay usuario autenticado; el autor no se confirma a sí mismo
+        boolean isAuthor = existing.getUser() != null && user != null
+                && existing.getUser().getId().equals(user.getId());
+        if (user == null || isAuthor || !alertDedupIndex.recordConfirmation(existing.getId(), user.getId())) {
+            log.info("Reporte {} fusionado con la alerta {} sin contar como voto",
+                    user != null ? "de " + user.getUsername() : "anónimo", existing.getId());
+            AlertaResponseDTO response = mapWithCurrentVotes(existing);
+            response.setMerged(true);
+            return Optional.of(response);
+        }
 
-        // Broadcast a través de WebSocket
-        AlertaResponseDTO response = mapToResponseDTO(alert);
-        webSocketService.broadcastNewAlert(response);
+        VoteCounterService.VoteTotals totals = voteCounterService.upvote(existing);
+        log.info("Reporte de {} fusionado como confirmación de la alerta {} (upvotes: {})",
+                user.getUsername(), existing.getId(), totals.upvotes());
 
-        return response;
+        AlertaResponseDTO response = toVoteResponse(existing, totals);
+        response.setMerged(true);
+        return Optional.of(response);
     }
 
     public List<AlertaResponseDTO> getAllAlerts() {
@@ -198,36 +231,96 @@ public class AlertService {
         Double lat = request.getLatitude();
         Double lon = request.getLongitude();
 
-        if ((lat == null || lon == null)
+        // Sin coordenadas pero con dirección: se mantienen las anteriores y se geocodifica en segundo plano
+        boolean geocodeCoordinates = (lat == null || lon == null)
                 && request.getLocation() != null
-                && !request.getLocation().isBlank()) {
-
-            double[] coords = geocodeAddress(request.getLocation());
-            if (coords.length == 2) {
-                lat = coords[0];
-                lon = coords[1];
-                log.info("Geocodificada ubicación (update) '{}' -> {}, {}",
-                        request.getLocation(), lat, lon);
-            } else {
-                log.warn("No se pudo geocodificar en update '{}', se mantienen coords anteriores",
-                        request.getLocation());
-                lat = alert.getLatitude();
-                lon = alert.getLongitude();
-            }
-        }
+                && !request.getLocation().isBlank();
 
+        boolean firstCoordinates = alert.getLatitude() == null && lat != null && lon != null;
         if (lat != null) alert.setLatitude(lat);
         if (lon != null) alert.setLongitude(lon);
 
         alert = alertRepository.save(alert);
 
+        if (firstCoordinates) {
+            // El autor ubicó la alerta antes de que terminara el geocodificado
+            onFirstCoordinates(alert);
+        }
+
+        if (geocodeCoordinates) {
+            locationEnrichmentService.enqueue(alert.getId(), request.getLocation(),
+                    alert.getLatitude(), alert.getLongitude(), true, false, false);
+        }
+
         // Broadcast actualización a través de WebSocket
-        AlertaResponseDTO response = mapToResponseDTO(alert);
-        webSocketService.broadcastAlertUpdate(response);
+        AlertaResponseDTO response = mapWithCurrentVotes(alert);
+        alertBroadcastCoalescer.alertUpdated(response);
 
         return response;
     }
 
+    /**
+     * Aplica el resultado del enriquecimiento asíncrono de ubicación
+     * y difunde la alerta actualizada (evento UPDATED).
+     */
+    @EventListener
+    public void onAlertLocationEnriched(AlertLocationEnrichedEvent event) {
+        Optional<Alert> existing = alertRepository.findById(event.alertId());
+        if (existing.isEmpty()) {
+            log.debug("Alerta {} eliminada antes de completar su enriquecimiento", event.alertId());
+            return;
+        }
+
+        Alert alert = existing.get();
+
+        boolean coordinatesUnchanged = Objects.equals(alert.getLatitude(), event.replacedLatitude())
+                && Objects.equals(alert.getLongitude(), event.replacedLongitude());
+
+        if (event.latitude() != null && event.longitude() != null && !coordinatesUnchanged) {
+            // El cliente envió coordenadas mientras se geocodificaba: prevalecen las suyas
+            log.info("Coordenadas de alerta {} cambiadas durante el geocodificado, se conservan", alert.getId());
+            return;
+        }
+
+        boolean firstCoordinates = false;
+        if (event.latitude() != null && event.longitude() != null) {
+            firstCoordinates = alert.getLatitude() == null;
+            alert.setLatitude(event.latitude());
+            alert.setLongitude(event.longitude());
+            if (event.municipality() != null) {
+                alert.setMunicipality(event.municipality());
+            }
+        } else if (event.municipality() != null && alert.getMunicipality() == null) {
+            alert.setMunicipality(event.municipality());
+        }
+
+        // No sobrescribir una dirección que el usuario haya editado mientras tanto
+        if (event.location() != null && alert.getLocation() == null) {
+            alert.setLocation(event.location());
+        }
+
+        alert = alertRepository.save(alert);
+        log.info("Ubicación de alerta {} enriquecida", alert.getId());
+
+        if (firstCoordinates) {
+            onFirstCoordinates(alert);
+        }
+
+        alertBroadcastCoalescer.alertUpdated(mapWithCurrentVotes(alert));
+    }
+
+    /**
+     * Alerta creada solo con dirección que acaba de recibir coordenadas: entra al índice
+     * de duplicados y se ejecutan los efectos que dependen de la ubicación (push cercano,
+     * notificaciones de rutas favoritas, contadores de rutas), igual que si se hubiera
+     * creado con ellas.
+     */
+    private void onFirstCoordinates(Alert alert) {
+        eventPublisher.publishEvent(new AlertCreatedEvent(alert.getId(), alert.getType(),
+                alert.getLatitude(), alert.getLongitude(), alert.getCreatedAt()));
+        outboxService.record(OutboxService.ALERT_LOCATED, alert.getId(), null);
+    }
+
     public void deleteAlert(Long id, String username) {
         Alert alert = alertRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(ALERT_NOT_FOUND));
@@ -235,9 +328,10 @@ public class AlertService {
         validateOwnership(alert, username);
 
         alertRepository.delete(alert);
+        alertDedupIndex.remove(id);
 
         // Broadcast eliminación a través de WebSocket
-        webSocketService.broadcastAlertDeletion(id);
+        alertBroadcastCoalescer.alertDeleted(id, alert.getLatitude(), alert.getLongitude());
     }
 
     /**
@@ -252,7 +346,8 @@ public class AlertService {
         // Si la alerta no tiene usuario, cualquiera puede eliminarla
         if (alert.getUser() == null) {
             alertRepository.delete(alert);
-            webSocketService.broadcastAlertDeletion(id);
+            alertDedupIndex.remove(id);
+            alertBroadcastCoalescer.alertDeleted(id, alert.getLatitude(), alert.getLongitude());
             log.info("Alerta {} sin usuario eliminada por {}", id, username);
             return;
         }
@@ -263,7 +358,8 @@ public class AlertService {
         }
 
         alertRepository.delete(alert);
-        webSocketService.broadcastAlertDeletion(id);
+        alertDedupIndex.remove(id);
+        alertBroadcastCoalescer.alertDeleted(id, alert.getLatitude(), alert.getLongitude());
         log.info("Alerta {} eliminada por su creador {}", id, username);
     }
 
@@ -274,58 +370,57 @@ public class AlertService {
         alert.setStatus(status);
         alert = alertRepository.save(alert);
 
+        if (status != AlertStatus.ACTIVE) {
+            alertDedupIndex.remove(id);
+        }
+
         // Broadcast cambio de estado a través de WebSocket
         AlertaResponseDTO response = mapToResponseDTO(alert);
-        webSocketService.broadcastAlertStatusChange(response);
+        alertBroadcastCoalescer.statusChanged(response);
 
         return response;
     }
 
+    /**
+     * Registra un upvote en el acumulador en memoria; el conteo se persiste en el
+     * siguiente flush y la reputación del autor se actualiza en segundo plano.
+     */
+    @Transactional(readOnly = true)
     public AlertaResponseDTO upvoteAlert(Long id) {
         Alert alert = alertRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(ALERT_NOT_FOUND));
 
-        alert.setUpvotes(alert.getUpvotes() + 1);
-        alert = alertRepository.save(alert);
-
-        log.info("Alerta {} recibió upvote. Total: {}", id, alert.getUpvotes());
-
-        // Actualizar estadísticas del creador de la alerta
-        if (alert.getUser() != null) {
-            statisticsService.incrementUpvoteReceived(alert.getUser().getId());
-            badgeService.checkAndAwardBadges(alert.getUser().getId());
-
-            // Otorgar puntos de reputación
-            reputationService.onAlertUpvoted(alert.getUser().getId());
-        }
+        VoteCounterService.VoteTotals totals = voteCounterService.upvote(alert);
 
-        // Broadcast actualización de votos a través de WebSocket
-        webSocketService.broadcastAlertVoteUpdate(id, alert.getUpvotes(), alert.getDownvotes());
+        log.debug("Alerta {} recibió upvote. Total: {}", id, totals.upvotes());
 
-        return mapToResponseDTO(alert);
+        return toVoteResponse(alert, totals);
     }
 
+    /**
+     * Registra un downvote en el acumulador en memoria
+     */
+    @Transactional(readOnly = true)
     public AlertaResponseDTO downvoteAlert(Long id) {
         Alert alert = alertRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException(ALERT_NOT_FOUND));
 
-        alert.setDownvotes(alert.getDownvotes() + 1);
-        alert = alertRepository.save(alert);
-
-        log.info("Alerta {} recibió downvote. Total: {}", id, alert.getDownvotes());
+        VoteCounterService.VoteTotals totals = voteCounterService.downvote(alert);
 
-        // Actualizar estadísticas del creador de la alerta
-        if (alert.getUser() != null) {
-            statisticsService.incrementDownvoteReceived(alert.getUser().getId());
+        log.debug("Alerta {} recibió downvote. Total: {}", id, totals.downvotes());
 
-            // Restar puntos de reputación
-            reputationService.onAlertDownvoted(alert.getUser().getId());
-        }
+        return toVoteResponse(alert, totals);
+    }
 
+    private AlertaResponseDTO toVoteResponse(Alert alert, VoteCounterService.VoteTotals totals) {
         // Broadcast actualización de votos a través de WebSocket
-        webSocketService.broadcastAlertVoteUpdate(id, alert.getUpvotes(), alert.getDownvotes());
+        alertBroadcastCoalescer.voteUpdated(alert.getId(), alert.getLatitude(), alert.getLongitude(),
+                totals.upvotes(), totals.downvotes());
 
-        return mapToResponseDTO(alert);
+        AlertaResponseDTO response = mapToResponseDTO(alert);
+        response.setUpvotes(totals.upvotes());
+        response.setDownvotes(totals.downvotes());
+        return response;
     }
 
     /**
@@ -390,10 +485,11 @@ public class AlertService {
         alert.setStatus(AlertStatus.EXPIRED);
         alert.setExpiresAt(LocalDateTime.now());
         alert = alertRepository.save(alert);
+        alertDedupIndex.remove(id);
 
         // Broadcast cambio de estado a través de WebSocket
         AlertaResponseDTO response = mapToResponseDTO(alert);
-        webSocketService.broadcastAlertStatusChange(response);
+        alertBroadcastCoalescer.statusChanged(response);
 
         log.info("Alerta {} expirada manualmente por {}", id, username);
 
@@ -478,66 +574,15 @@ public class AlertService {
         return (value == null || value.isBlank()) ? null : value;
     }
 
-    private ReverseGeocodeResult reverseGeocode(double latitude, double longitude) {
-        try {
-            String url = UriComponentsBuilder
-                    .fromHttpUrl("https://nominatim.openstreetmap.org/reverse")
-                    .queryParam("format", "json")
-                    .queryParam("lat", latitude)
-                    .queryParam("lon", longitude)
-                    .queryParam("zoom", 14)
-                    .queryParam("addressdetails", 1)
-                    .toUriString();
-
-            RestTemplate restTemplate = new RestTemplate();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "roadwarnings-narino/1.0");
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    String.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                log.warn("Reverse geocoding respondió con código no exitoso: {}", response.getStatusCode());
-                return null;
-            }
-
-            JsonNode root = objectMapper.readTree(response.getBody());
-
-            String displayName = root.hasNonNull("display_name") ? root.get("display_name").asText() : null;
-            String municipality = null;
-
-            if (root.has("address")) {
-                JsonNode addr = root.get("address");
-                if (addr.hasNonNull("city")) {
-                    municipality = addr.get("city").asText();
-                } else if (addr.hasNonNull("town")) {
-                    municipality = addr.get("town").asText();
-                } else if (addr.hasNonNull("village")) {
-                    municipality = addr.get("village").asText();
-                } else if (addr.hasNonNull("municipality")) {
-                    municipality = addr.get("municipality").asText();
-                } else if (addr.hasNonNull("county")) {
-                    municipality = addr.get("county").asText();
-                }
-            }
-
-            if (displayName == null && municipality == null) {
-                return null;
-            }
-
-            return new ReverseGeocodeResult(displayName, municipality);
-
-        } catch (Exception e) {
-            log.error("Error en reverse geocoding para {}, {}: {}", latitude, longitude, e.getMessage());
-            return null;
-        }
+    /**
+     * Con los votos aún sin persistir: un UPDATED reemplaza los VOTE_UPDATE pendientes
+     */
+    private AlertaResponseDTO mapWithCurrentVotes(Alert alert) {
+        AlertaResponseDTO response = mapToResponseDTO(alert);
+        VoteCounterService.VoteTotals totals = voteCounterService.totals(alert);
+        response.setUpvotes(totals.upvotes());
+        response.setDownvotes(totals.downvotes());
+        return response;
     }
 
     private AlertaResponseDTO mapToResponseDTO(Alert alert) {
@@ -613,7 +658,12 @@ public class AlertService {
         return mapToResponseDTO(saved);
     }
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    private double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+        // Alertas sin coordenadas (geocodificado pendiente) nunca quedan dentro del radio
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) {
+            return Double.MAX_VALUE;
+        }
+
         final int EARTH_RADIUS = 6371; // km
 
         double latDistance = Math.toRadians(lat2 - lat1);
@@ -627,142 +677,4 @@ public class AlertService {
 
         return EARTH_RADIUS * c;
     }
-
-    /**
-     * Geocodifica una dirección usando Nominatim (OpenStreetMap).
-     * Devuelve [lat, lon] o array vacío si falla.
-     */
-    private double[] geocodeAddress(String address) {
-        try {
-            String url = UriComponentsBuilder
-                    .fromHttpUrl("https://nominatim.openstreetmap.org/search")
-                    .queryParam("format", "json")
-                    .queryParam("limit", 1)
-                    .queryParam("q", address)
-                    .toUriString();
-
-            RestTemplate restTemplate = new RestTemplate();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", "roadwarnings-narino/1.0");
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    String.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                log.warn("Nominatim respondió con código no exitoso: {}", response.getStatusCode());
-                return new double[0];
-            }
-
-            JsonNode root = objectMapper.readTree(response.getBody());
-            if (root.isArray() && root.size() > 0) {
-                JsonNode first = root.get(0);
-                double lat = first.get("lat").asDouble();
-                double lon = first.get("lon").asDouble();
-                return new double[]{lat, lon};
-            }
-
-            log.warn("Nominatim no encontró resultados para '{}'", address);
-            return new double[0];
-
-        } catch (Exception e) {
-            log.error("Error geocodificando dirección '{}': {}", address, e.getMessage());
-            return new double[0];
-        }
-    }
-
-    /**
-     * Notifica a usuarios que tienen rutas favoritas cerca de una alerta
-     */
-    private void notifyUsersWithNearbyFavoriteRoutes(Alert alert) {
-        if (alert.getLatitude() == null || alert.getLongitude() == null) {
-            return;
-        }
-
-        double radiusKm = 10.0;
-
-        // Obtener todas las rutas favoritas con notificaciones habilitadas
-        favoriteRouteRepository.findAll().stream()
-            .filter(FavoriteRoute::getNotificationsEnabled)
-            .forEach(favRoute -> {
-                // Calcular distancia desde la alerta al punto medio de la ruta
-                double routeMidLat = (favRoute.getRoute().getOriginLatitude() +
-                                     favRoute.getRoute().getDestinationLatitude()) / 2;
-                double routeMidLon = (favRoute.getRoute().getOriginLongitude() +
-                                     favRoute.getRoute().getDestinationLongitude()) / 2;
-
-                double distance = calculateDistance(
-                    alert.getLatitude(), alert.getLongitude(),
-                    routeMidLat, routeMidLon
-                );
-
-                if (distance <= radiusKm) {
-                    // Enviar notificación push al usuario
-                    String title = "⚠️ Nueva alerta en tu ruta";
-                    String message = String.format("%s cerca de %s",
-                        alert.getTitle(),
-                        favRoute.getRoute().getName());
-
-                    java.util.Map<String, String> data = new java.util.HashMap<>();
-                    data.put("alertId", alert.getId().toString());
-                    data.put("routeId", favRoute.getRoute().getId().toString());
-                    data.put("type", "ALERT_NEARBY_ROUTE");
-
-                    pushNotificationService.sendNotificationToUser(
-                        favRoute.getUser().getId(),
-                        title,
-                        message,
-                        data
-                    );
-
-                    log.info("Notificación enviada a usuario {} por alerta en ruta {}",
-                        favRoute.getUser().getUsername(),
-                        favRoute.getRoute().getName());
-                }
-            });
-    }
-
-    /**
-     * Actualiza el contador de alertas activas en rutas cercanas a una ubicación
-     */
-    private void updateNearbyRoutesAlertCount(Double latitude, Double longitude) {
-        if (latitude == null || longitude == null) {
-            return;
-        }
-
-        // Buscar rutas dentro de un radio de 10km
-        double radiusKm = 10.0;
-
-        routeRepository.findAll().forEach(route -> {
-            // Calcular distancia desde la alerta a la ruta (usando punto medio de origen-destino)
-            double routeMidLat = (route.getOriginLatitude() + route.getDestinationLatitude()) / 2;
-            double routeMidLon = (route.getOriginLongitude() + route.getDestinationLongitude()) / 2;
-
-            double distance = calculateDistance(latitude, longitude, routeMidLat, routeMidLon);
-
-            if (distance <= radiusKm) {
-                // Contar alertas activas cerca de esta ruta
-                long activeAlertsCount = alertRepository.findByStatus(AlertStatus.ACTIVE).stream()
-                    .filter(alert -> {
-                        double distToRoute = calculateDistance(
-                            alert.getLatitude(), alert.getLongitude(),
-                            routeMidLat, routeMidLon
-                        );
-                        return distToRoute <= radiusKm;
-                    })
-                    .count();
-
-                route.setActiveAlertsCount((int) activeAlertsCount);
-                routeRepository.save(route);
-
-                log.debug("Ruta {} actualizada con {} alertas activas", route.getId(), activeAlertsCount);
-            }
-        });
-    }
 }
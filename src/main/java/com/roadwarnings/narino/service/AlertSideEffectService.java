@@ -0,0 +1,204 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.Alert;
+import com.roadwarnings.narino.entity.OutboxEvent;
+import com.roadwarnings.narino.entity.Route;
+import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.event.AlertsIngestedEvent;
+import com.roadwarnings.narino.repository.AlertRepository;
+import com.roadwarnings.narino.repository.RouteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Efectos secundarios de la creación de una alerta (evento ALERT_CREATED del outbox).
+ * Se ejecutan en los workers del outbox, fuera de la petición que creó la alerta;
+ * cada paso corre en su propia transacción y se reintenta de forma independiente.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class AlertSideEffectService implements OutboxEventHandler {
+
+    // El broadcast va primero: es lo que ven los clientes conectados
+    static final String STEP_BROADCAST = "BROADCAST";
+    static final String STEP_NEARBY_PUSH = "NEARBY_PUSH";
+    static final String STEP_USER_STATS = "USER_STATS";
+    static final String STEP_SMART_NOTIFICATIONS = "SMART_NOTIFICATIONS";
+    static final String STEP_ROUTE_ALERT_COUNTS = "ROUTE_ALERT_COUNTS";
+
+    private static final List<String> STEPS = List.of(
+            STEP_BROADCAST,
+            STEP_NEARBY_PUSH,
+            STEP_USER_STATS,
+            STEP_SMART_NOTIFICATIONS,
+            STEP_ROUTE_ALERT_COUNTS
+    );
+
+    // Pasos que necesitan coordenadas; AlertLocatedSideEffectService los repite con ALERT_LOCATED
+    static final List<String> LOCATION_STEPS = List.of(
+            STEP_NEARBY_PUSH,
+            STEP_SMART_NOTIFICATIONS,
+            STEP_ROUTE_ALERT_COUNTS
+    );
+
+    private final AlertRepository alertRepository;
+    private final AlertService alertService;
+    private final RouteRepository routeRepository;
+    private final WebSocketService webSocketService;
+    private final ReputationService reputationService;
+    private final SmartNotificationService smartNotificationService;
+    private final NearbyAlertPushService nearbyAlertPushService;
+
+    @Override
+    public String getEventType() {
+        return OutboxService.ALERT_CREATED;
+    }
+
+    @Override
+    public List<String> getSteps() {
+        return STEPS;
+    }
+
+    @Override
+    public void handleStep(OutboxEvent event, String step) {
+        Alert alert = alertRepository.findById(event.getAggregateId()).orElse(null);
+        if (alert == null) {
+            log.debug("Alerta {} eliminada antes de procesar el paso {}", event.getAggregateId(), step);
+            return;
+        }
+
+        if (OutboxService.ALERT_CREATED.equals(event.getEventType())
+                && OutboxService.PENDING_LOCATION.equals(event.getPayload())
+                && LOCATION_STEPS.contains(step)) {
+            // Creada solo con dirección: el paso se ejecuta una sola vez, con ALERT_LOCATED
+            log.debug("Alerta {} sin coordenadas al crearse, paso {} diferido", alert.getId(), step);
+            return;
+        }
+
+        switch (step) {
+            case STEP_BROADCAST ->
+                    // Broadcast a través de WebSocket
+                    webSocketService.broadcastNewAlert(alertService.getAlertById(alert.getId()));
+            // Push a los usuarios conectados cuya posición (/app/location) está cerca
+            case STEP_NEARBY_PUSH -> nearbyAlertPushService.onNewAlert(alertService.getAlertById(alert.getId()));
+            case STEP_USER_STATS -> {
+                // Estadísticas y puntos de reputación del usuario
+                if (alert.getUser() != null) {
+                    reputationService.onAlertCreated(alert.getUser().getId());
+                }
+            }
+            // Notificaciones en app y push a usuarios con rutas favoritas cercanas (con ventana de resumen)
+            case STEP_SMART_NOTIFICATIONS -> smartNotificationService.onNewAlert(alert);
+            // Actualizar contador de alertas en rutas cercanas
+            case STEP_ROUTE_ALERT_COUNTS -> updateNearbyRoutesAlertCount(alert.getLatitude(), alert.getLongitude());
+            default -> throw new IllegalArgumentException("Paso desconocido: " + step);
+        }
+    }
+
+    /**
+     * Ingesta masiva: recalcula una sola vez por lote el contador de alertas
+     * de las rutas cercanas a cualquiera de las alertas insertadas y avisa a los
+     * usuarios con rutas favoritas cercanas, igual que con una alerta ciudadana
+     */
+    @EventListener
+    public void onAlertsIngested(AlertsIngestedEvent event) {
+        List<Alert> ingested = alertRepository.findAllById(event.alertIds());
+        if (ingested.isEmpty()) {
+            return;
+        }
+
+        double radiusKm = 10.0;
+        List<Alert> activeAlerts = alertRepository.findByStatus(AlertStatus.ACTIVE);
+        int updatedRoutes = 0;
+
+        for (Route route : routeRepository.findAll()) {
+            double routeMidLat = (route.getOriginLatitude() + route.getDestinationLatitude()) / 2;
+            double routeMidLon = (route.getOriginLongitude() + route.getDestinationLongitude()) / 2;
+
+            boolean affected = ingested.stream().anyMatch(alert ->
+                    calculateDistance(alert.getLatitude(), alert.getLongitude(), routeMidLat, routeMidLon) <= radiusKm);
+            if (!affected) {
+                continue;
+            }
+
+            long activeAlertsCount = activeAlerts.stream()
+                    .filter(alert -> calculateDistance(
+                            alert.getLatitude(), alert.getLongitude(), routeMidLat, routeMidLon) <= radiusKm)
+                    .count();
+
+            route.setActiveAlertsCount((int) activeAlertsCount);
+            routeRepository.save(route);
+            updatedRoutes++;
+        }
+
+        log.debug("Ingesta {}: {} alertas, {} rutas actualizadas", event.source(), ingested.size(), updatedRoutes);
+
+        // Mismo camino que el paso SMART_NOTIFICATIONS: la ventana de resumen agrupa las de cada usuario
+        ingested.forEach(smartNotificationService::onNewAlert);
+    }
+
+    /**
+     * Actualiza el contador de alertas activas en rutas cercanas a una ubicación
+     */
+    private void updateNearbyRoutesAlertCount(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return;
+        }
+
+        // Buscar rutas dentro de un radio de 10km
+        double radiusKm = 10.0;
+
+        routeRepository.findAll().forEach(route -> {
+            // Calcular distancia desde la alerta a la ruta (usando punto medio de origen-destino)
+            double routeMidLat = (route.getOriginLatitude() + route.getDestinationLatitude()) / 2;
+            double routeMidLon = (route.getOriginLongitude() + route.getDestinationLongitude()) / 2;
+
+            double distance = calculateDistance(latitude, longitude, routeMidLat, routeMidLon);
+
+            if (distance <= radiusKm) {
+                // Contar alertas activas cerca de esta ruta
+                long activeAlertsCount = alertRepository.findByStatus(AlertStatus.ACTIVE).stream()
+                    .filter(alert -> {
+                        double distToRoute = calculateDistance(
+                            alert.getLatitude(), alert.getLongitude(),
+                            routeMidLat, routeMidLon
+                        );
+                        return distToRoute <= radiusKm;
+                    })
+                    .count();
+
+                route.setActiveAlertsCount((int) activeAlertsCount);
+                routeRepository.save(route);
+
+                log.debug("Ruta {} actualizada con {} alertas activas", route.getId(), activeAlertsCount);
+            }
+        });
+    }
+
+    private double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+        // Alertas sin coordenadas (geocodificado pendiente) nunca quedan dentro del radio
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) {
+            return Double.MAX_VALUE;
+        }
+
+        final int EARTH_RADIUS = 6371; // km
+
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS * c;
+    }
+}
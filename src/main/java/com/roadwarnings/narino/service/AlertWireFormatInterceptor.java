@@ -0,0 +1,404 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.roadwarnings.narino.util.AlertWireCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Negociación del formato de los eventos de alertas por suscripción STOMP.
+ * Por defecto el cliente recibe el JSON completo de siempre; si en el SUBSCRIBE
+ * manda el header accept con:
+ * - application/vnd.roadwarnings.alert-delta+json: JSON compacto (AlertWireCodec)
+ *   con deltas por campo: de cada alerta solo viajan las propiedades que cambiaron
+ *   desde el último evento de ese topic
+ * - application/cbor: el mismo formato compacto en CBOR, como frame binario
+ *   (content-type application/octet-stream). Requiere el endpoint /ws-native;
+ *   por SockJS no hay frames binarios y se usa el JSON compacto.
+ *
+ * El frame de cada codificación se construye una sola vez por evento y topic y se
+ * comparte entre todos los suscriptores al día (caché por destino + payload publicado).
+ * Cada suscripción recuerda qué versión de cada alerta recibió: si el delta no parte
+ * de esa versión (se suscribió a mitad de camino o perdió un frame) recibe el estado
+ * completo conocido de la alerta en lugar del delta.
+ * Un cliente que recibe una alerta que no conoce con campos incompletos la pide por REST.
+ * <p>
+ * Los deltas se calculan en el orden en que preSend ve los frames de cada sesión;
+ * WebSocketConfig activa preservePublishOrder para que ese sea también el orden en
+ * que llegan a la sesión pese al pool del canal de salida.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertWireFormatInterceptor implements ChannelInterceptor {
+
+    public static final MimeType DELTA_JSON = MimeType.valueOf("application/vnd.roadwarnings.alert-delta+json");
+    public static final MimeType CBOR = MimeType.valueOf("application/cbor");
+
+    // Atributo de sesión que marca las conexiones WebSocket nativas (sin SockJS)
+    public static final String NATIVE_TRANSPORT_ATTRIBUTE = "nativeWebSocket";
+
+    // Atributo de sesión: hay suscripciones con deltas, perder un frame desincroniza al cliente
+    public static final String DELTA_SUBSCRIPTIONS_ATTRIBUTE = "alertDeltaSubscriptions";
+
+    enum Encoding {
+        DELTA_JSON, BINARY
+    }
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    @Value("${spring.jackson.time-zone:America/Bogota}")
+    private String timeZone;
+
+    @Value("${websocket.wire.frame-cache-size:1024}")
+    private int frameCacheSize;
+
+    @Value("${websocket.wire.delta-state-size:20000}")
+    private int deltaStateSize;
+
+    @Value("${websocket.wire.subscriber-baseline-size:500}")
+    private int subscriberBaselineSize;
+
+    // sesión -> (suscripción -> codificación y versiones recibidas); las de JSON completo no se guardan
+    private final Map<String, Map<String, Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    private Map<FrameKey, EncodedFrame> frames;
+    private Map<String, AlertState> alertState;
+    private ZoneId zone;
+
+    /**
+     * Un evento publicado en un topic. El contenido del payload (no su identidad)
+     * forma parte de la clave: con el relay cada suscriptor recibe su propia copia.
+     */
+    record FrameKey(String destination, ByteBuffer payload) {
+    }
+
+    @PostConstruct
+    public void init() {
+        zone = ZoneId.of(timeZone);
+        frames = boundedMap(frameCacheSize);
+        alertState = boundedMap(deltaStateSize);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (type == null) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        switch (type) {
+            case MESSAGE -> {
+                return encode(message, sessionId);
+            }
+            case SUBSCRIBE -> register(message, sessionId);
+            case UNSUBSCRIBE -> {
+                Map<String, Subscription> session = sessionId != null ? subscriptions.get(sessionId) : null;
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+                if (session != null && subscriptionId != null) {
+                    session.remove(subscriptionId);
+                }
+            }
+            case DISCONNECT -> {
+                if (sessionId != null) {
+                    subscriptions.remove(sessionId);
+                }
+            }
+            default -> {
+                // Sin efecto en el resto de frames
+            }
+        }
+        return message;
+    }
+
+    int subscriptionCount() {
+        return subscriptions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void register(Message<?> message, String sessionId) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (sessionId == null || subscriptionId == null || !isAlertTopic(destination)) {
+            return;
+        }
+
+        String accept = StompHeaderAccessor.wrap(message).getFirstNativeHeader("accept");
+        Encoding encoding = negotiate(accept, isNativeTransport(message.getHeaders()));
+        if (encoding != null) {
+            subscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                    .put(subscriptionId, new Subscription(encoding, boundedMap(subscriberBaselineSize)));
+            Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+            if (attributes != null) {
+                attributes.put(DELTA_SUBSCRIPTIONS_ATTRIBUTE, Boolean.TRUE);
+            }
+        }
+    }
+
+    static Encoding negotiate(String accept, boolean nativeTransport) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+
+        boolean delta = false;
+        for (MimeType mimeType : MimeTypeUtils.parseMimeTypes(accept)) {
+            if (CBOR.equalsTypeAndSubtype(mimeType) || MimeTypeUtils.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(mimeType)) {
+                return nativeTransport ? Encoding.BINARY : Encoding.DELTA_JSON;
+            }
+            delta |= DELTA_JSON.equalsTypeAndSubtype(mimeType);
+        }
+        return delta ? Encoding.DELTA_JSON : null;
+    }
+
+    private Message<?> encode(Message<?> message, String sessionId) {
+        Map<String, Subscription> session = sessionId != null ? subscriptions.get(sessionId) : null;
+        if (session == null || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        Subscription subscription = subscriptionId != null ? session.get(subscriptionId) : null;
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (subscription == null || !isAlertTopic(destination)) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        ObjectMapper mapper = subscription.encoding() == Encoding.BINARY ? cborMapper : objectMapper;
+        byte[] encoded;
+        try {
+            EncodedFrame frame = frames.computeIfAbsent(new FrameKey(destination, ByteBuffer.wrap(payload)),
+                    key -> compact(destination, payload));
+            ObjectNode resync = frame.forSubscriber(subscription.baselines());
+            if (resync != null) {
+                encoded = EncodedFrame.serialize(mapper, resync);
+            } else if (subscription.encoding() == Encoding.BINARY) {
+                encoded = frame.binary(cborMapper);
+            } else {
+                encoded = frame.json(objectMapper);
+            }
+        } catch (IllegalStateException e) {
+            log.warn("No se pudo codificar el evento de {}: {}", destination, e.getMessage());
+            return message;
+        }
+        accessor.setContentType(subscription.encoding() == Encoding.BINARY
+                ? MimeTypeUtils.APPLICATION_OCTET_STREAM : DELTA_JSON);
+        return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Traduce un evento al formato compacto y calcula los deltas contra el último
+     * estado conocido de cada alerta en ese topic (una sola vez por evento)
+     */
+    private EncodedFrame compact(String destination, byte[] payload) {
+        JsonNode full;
+        try {
+            full = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException("payload no es JSON", e);
+        }
+
+        if (!AlertWireCodec.isBatch(full)) {
+            return new EncodedFrame(null, List.of(applyDelta(destination, AlertWireCodec.toCompact(full, zone))));
+        }
+
+        List<FrameItem> items = new ArrayList<>();
+        for (JsonNode alert : full.get("alerts")) {
+            ObjectNode compact = AlertWireCodec.toCompact(alert, zone);
+            // Dentro del lote el timestamp ya va en la cabecera
+            compact.remove(AlertWireCodec.TIMESTAMP);
+            items.add(applyDelta(destination, compact));
+        }
+        return new EncodedFrame(AlertWireCodec.batchHeader(full, zone), items);
+    }
+
+    private FrameItem applyDelta(String destination, ObjectNode compact) {
+        JsonNode alertId = compact.get(AlertWireCodec.ALERT_ID);
+        if (alertId == null) {
+            return new FrameItem(null, 0, 0, compact, compact, false);
+        }
+
+        String key = destination + '|' + alertId.asText();
+        int action = compact.path(AlertWireCodec.ACTION).asInt();
+        if (action == AlertWireCodec.DELETED) {
+            alertState.remove(key);
+            return new FrameItem(alertId.asText(), 0, 0, compact, compact, true);
+        }
+
+        AlertState previous = alertState.get(key);
+        boolean full = previous == null || action == AlertWireCodec.CREATED;
+        ObjectNode delta = full ? compact : AlertWireCodec.delta(previous.state(), compact);
+        ObjectNode state = full ? compact.objectNode() : previous.state();
+        AlertWireCodec.merge(state, compact);
+
+        long version = versions.incrementAndGet();
+        alertState.put(key, new AlertState(state, version));
+        if (full) {
+            return new FrameItem(alertId.asText(), version, 0, compact, compact, false);
+        }
+
+        // Estado completo para quien no tiene la versión anterior
+        ObjectNode snapshot = compact.objectNode();
+        snapshot.set(AlertWireCodec.ACTION, compact.get(AlertWireCodec.ACTION));
+        snapshot.setAll(state.deepCopy());
+        if (compact.has(AlertWireCodec.TIMESTAMP)) {
+            snapshot.set(AlertWireCodec.TIMESTAMP, compact.get(AlertWireCodec.TIMESTAMP));
+        }
+        return new FrameItem(alertId.asText(), version, previous.version(), delta, snapshot, false);
+    }
+
+    private static boolean isAlertTopic(String destination) {
+        return WebSocketService.GLOBAL_ALERTS_TOPIC.equals(destination)
+                || (destination != null && destination.startsWith(WebSocketService.CELL_TOPIC_PREFIX));
+    }
+
+    private static boolean isNativeTransport(MessageHeaders headers) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(headers);
+        return attributes != null && Boolean.TRUE.equals(attributes.get(NATIVE_TRANSPORT_ATTRIBUTE));
+    }
+
+    private static <K, V> Map<K, V> boundedMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Último estado acumulado de una alerta en un topic y su versión
+     */
+    private record AlertState(ObjectNode state, long version) {
+    }
+
+    /**
+     * Codificación de una suscripción y versión de cada alerta que ya recibió
+     */
+    private record Subscription(Encoding encoding, Map<String, Long> baselines) {
+    }
+
+    /**
+     * Una alerta dentro de un evento: el delta desde previousVersion (0 = el delta ya
+     * es completo) y el estado completo para quien no tiene esa versión
+     */
+    record FrameItem(String alertId, long version, long previousVersion, ObjectNode delta, ObjectNode snapshot,
+                     boolean deleted) {
+    }
+
+    /**
+     * Evento ya compactado; cada codificación compartida se serializa la primera vez que se pide
+     */
+    static final class EncodedFrame {
+
+        private final ObjectNode header;
+        private final List<FrameItem> items;
+        private volatile byte[] json;
+        private volatile byte[] binary;
+
+        EncodedFrame(ObjectNode header, List<FrameItem> items) {
+            this.header = header;
+            this.items = items;
+        }
+
+        byte[] json(ObjectMapper mapper) {
+            byte[] bytes = json;
+            if (bytes == null) {
+                bytes = serialize(mapper, build(null));
+                json = bytes;
+            }
+            return bytes;
+        }
+
+        byte[] binary(CBORMapper mapper) {
+            byte[] bytes = binary;
+            if (bytes == null) {
+                bytes = serialize(mapper, build(null));
+                binary = bytes;
+            }
+            return bytes;
+        }
+
+        /**
+         * Actualiza las versiones de la suscripción. Devuelve null si puede recibir el
+         * frame compartido, o el frame propio con el estado completo de las alertas
+         * cuyo delta no sabría aplicar.
+         */
+        ObjectNode forSubscriber(Map<String, Long> baselines) {
+            boolean[] resync = null;
+            synchronized (baselines) {
+                for (int i = 0; i < items.size(); i++) {
+                    FrameItem item = items.get(i);
+                    if (item.alertId() == null) {
+                        continue;
+                    }
+                    if (item.previousVersion() != 0 && !Long.valueOf(item.previousVersion()).equals(baselines.get(item.alertId()))) {
+                        if (resync == null) {
+                            resync = new boolean[items.size()];
+                        }
+                        resync[i] = true;
+                    }
+                    if (item.deleted()) {
+                        baselines.remove(item.alertId());
+                    } else {
+                        baselines.put(item.alertId(), item.version());
+                    }
+                }
+            }
+            return resync != null ? build(resync) : null;
+        }
+
+        private ObjectNode build(boolean[] resync) {
+            if (header == null) {
+                FrameItem item = items.get(0);
+                return resync != null && resync[0] ? item.snapshot() : item.delta();
+            }
+            ObjectNode batch = header.deepCopy();
+            ArrayNode alerts = batch.putArray(AlertWireCodec.ALERTS);
+            for (int i = 0; i < items.size(); i++) {
+                alerts.add(resync != null && resync[i] ? items.get(i).snapshot() : items.get(i).delta());
+            }
+            batch.put(AlertWireCodec.COUNT, alerts.size());
+            return batch;
+        }
+
+        static byte[] serialize(ObjectMapper mapper, ObjectNode node) {
+            try {
+                return mapper.writeValueAsBytes(node);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.UserStatistics;
+import com.roadwarnings.narino.enums.BadgeType;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reglas de badges evaluadas en una sola pasada sobre las estadísticas de un usuario.
+ * El resultado es una máscara de bits (bit = ordinal del BadgeType) que se compara
+ * directamente con la máscara de badges que el usuario ya tiene.
+ */
+@Service
+public class BadgeRuleEngine {
+
+    private static final List<BadgeRule> RULES = List.of(
+            // Primera alerta y cantidad de alertas
+            new BadgeRule(BadgeType.FIRST_ALERT, UserStatistics::getAlertsCreated, 1),
+            new BadgeRule(BadgeType.ALERTS_10, UserStatistics::getAlertsCreated, 10),
+            new BadgeRule(BadgeType.ALERTS_50, UserStatistics::getAlertsCreated, 50),
+            new BadgeRule(BadgeType.ALERTS_100, UserStatistics::getAlertsCreated, 100),
+            // Reportes útiles
+            new BadgeRule(BadgeType.HELPFUL_REPORTER, UserStatistics::getValidReports, 5),
+            // Usuario confiable y héroe de la comunidad (alta reputación)
+            new BadgeRule(BadgeType.TRUSTED_USER, UserStatistics::getReputationPoints, 500),
+            new BadgeRule(BadgeType.COMMUNITY_HERO, UserStatistics::getReputationPoints, 2000),
+            // Alertas verificadas
+            new BadgeRule(BadgeType.VERIFIED_ALERTS, UserStatistics::getAlertsVerified, 10),
+            // Comentarista activo
+            new BadgeRule(BadgeType.ACTIVE_COMMENTER, UserStatistics::getCommentsPosted, 50),
+            // Experto en rutas (muchas alertas con upvotes)
+            new BadgeRule(BadgeType.ROUTE_EXPERT, UserStatistics::getUpvotesReceived, 100)
+    );
+
+    /**
+     * Máscara de todos los badges cuyas reglas cumple el usuario
+     */
+    public long evaluate(UserStatistics stats) {
+        long earned = 0L;
+        for (BadgeRule rule : RULES) {
+            if (rule.metric().applyAsInt(stats) >= rule.threshold()) {
+                earned |= mask(rule.badgeType());
+            }
+        }
+        return earned;
+    }
+
+    public static long mask(BadgeType badgeType) {
+        return 1L << badgeType.ordinal();
+    }
+
+    public static EnumSet<BadgeType> toSet(long mask) {
+        EnumSet<BadgeType> badges = EnumSet.noneOf(BadgeType.class);
+        for (BadgeType badgeType : BadgeType.values()) {
+            if ((mask & mask(badgeType)) != 0) {
+                badges.add(badgeType);
+            }
+        }
+        return badges;
+    }
+
+    private record BadgeRule(BadgeType badgeType, ToIntFunction<UserStatistics> metric, int threshold) {
+    }
+}
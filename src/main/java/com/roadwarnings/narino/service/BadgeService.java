@@ -12,12 +12,20 @@ import com.roadwarnings.narino.repository.UserRepository;
 import com.roadwarnings.narino.repository.UserStatisticsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -29,9 +37,22 @@ public class BadgeService {
     private final UserRepository userRepository;
     private final UserStatisticsRepository statisticsRepository;
     private final NotificationService notificationService;
+    private final BadgeRuleEngine badgeRuleEngine;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${badges.owned-cache.max-users:10000}")
+    private int ownedCacheMaxUsers;
 
     private static final String USER_NOT_FOUND = "Usuario no encontrado";
 
+    // La restricción única (user_id, badge_type) descarta badges ya otorgados por otra instancia
+    private static final String INSERT_BADGE_SQL =
+            "INSERT INTO user_badges (user_id, badge_type, earned_at) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (user_id, badge_type) DO NOTHING";
+
+    // Badges de cada usuario como máscara de bits (ordinal de BadgeType), cargada una vez por usuario
+    private final Map<Long, Long> ownedBadges = new ConcurrentHashMap<>();
+
     private static final Map<BadgeType, String> BADGE_NAMES = new HashMap<>();
     private static final Map<BadgeType, String> BADGE_DESCRIPTIONS = new HashMap<>();
 
@@ -77,62 +98,64 @@ public class BadgeService {
     }
 
     public void checkAndAwardBadges(Long userId) {
-        UserStatistics stats = statisticsRepository.findByUserId(userId)
-                .orElse(null);
+        statisticsRepository.findByUserId(userId)
+                .ifPresent(stats -> checkAndAwardBadges(List.of(stats)));
+    }
 
-        if (stats == null) {
+    /**
+     * Evalúa todas las reglas de badges de varios usuarios en una pasada.
+     * Solo los umbrales recién cruzados llegan a la BD, en un único INSERT por batch.
+     */
+    public void checkAndAwardBadges(Collection<UserStatistics> statistics) {
+        if (statistics.isEmpty()) {
             return;
         }
 
-        // Verificar badge de primera alerta
-        if (stats.getAlertsCreated() >= 1) {
-            awardBadgeIfNotExists(userId, BadgeType.FIRST_ALERT);
-        }
-
-        // Verificar badges por cantidad de alertas
-        if (stats.getAlertsCreated() >= 10) {
-            awardBadgeIfNotExists(userId, BadgeType.ALERTS_10);
-        }
-        if (stats.getAlertsCreated() >= 50) {
-            awardBadgeIfNotExists(userId, BadgeType.ALERTS_50);
-        }
-        if (stats.getAlertsCreated() >= 100) {
-            awardBadgeIfNotExists(userId, BadgeType.ALERTS_100);
-        }
-
-        // Badge de reportes útiles
-        if (stats.getValidReports() >= 5) {
-            awardBadgeIfNotExists(userId, BadgeType.HELPFUL_REPORTER);
-        }
-
-        // Badge de usuario confiable (alta reputación)
-        if (stats.getReputationPoints() >= 500) {
-            awardBadgeIfNotExists(userId, BadgeType.TRUSTED_USER);
-        }
-
-        // Badge de héroe de la comunidad
-        if (stats.getReputationPoints() >= 2000) {
-            awardBadgeIfNotExists(userId, BadgeType.COMMUNITY_HERO);
+        Map<Long, Long> owned = getOwnedBadges(statistics.stream()
+                .map(stats -> stats.getUser().getId())
+                .toList());
+
+        List<Object[]> batchArgs = new ArrayList<>();
+        Map<Long, Long> newBadges = new HashMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (UserStatistics stats : statistics) {
+            Long userId = stats.getUser().getId();
+            long missing = badgeRuleEngine.evaluate(stats) & ~owned.getOrDefault(userId, 0L);
+            if (missing == 0) {
+                continue;
+            }
+            newBadges.put(userId, missing);
+            for (BadgeType badgeType : BadgeRuleEngine.toSet(missing)) {
+                batchArgs.add(new Object[]{userId, badgeType.name(), now});
+            }
         }
 
-        // Badge de alertas verificadas
-        if (stats.getAlertsVerified() >= 10) {
-            awardBadgeIfNotExists(userId, BadgeType.VERIFIED_ALERTS);
-        }
-
-        // Badge de comentarista activo
-        if (stats.getCommentsPosted() >= 50) {
-            awardBadgeIfNotExists(userId, BadgeType.ACTIVE_COMMENTER);
+        if (batchArgs.isEmpty()) {
+            return;
         }
 
-        // Badge de experto en rutas (muchas alertas con upvotes)
-        if (stats.getUpvotesReceived() >= 100) {
-            awardBadgeIfNotExists(userId, BadgeType.ROUTE_EXPERT);
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_BADGE_SQL, batchArgs);
+        newBadges.forEach((userId, mask) -> ownedBadges.merge(userId, mask, (a, b) -> a | b));
+
+        // Notificar solo los badges realmente insertados (otra instancia pudo adelantarse)
+        Map<Long, Map<BadgeType, Long>> badgeIds = loadBadgeIds(newBadges.keySet());
+        List<NotificationService.NotificationDraft> notifications = new ArrayList<>();
+        for (int i = 0; i < batchArgs.size(); i++) {
+            if (i < inserted.length && inserted[i] == 0) {
+                continue;
+            }
+            Long userId = (Long) batchArgs.get(i)[0];
+            BadgeType badgeType = BadgeType.valueOf((String) batchArgs.get(i)[1]);
+            log.info("Badge {} otorgado a usuario {}", badgeType, userId);
+            notifications.add(badgeEarnedNotification(userId, badgeType,
+                    badgeIds.getOrDefault(userId, Map.of()).get(badgeType)));
         }
+        notificationService.createNotifications(notifications);
     }
 
     public void awardBadgeIfNotExists(Long userId, BadgeType badgeType) {
-        if (!badgeRepository.existsByUserIdAndBadgeType(userId, badgeType)) {
+        if (!hasBadge(userId, badgeType)) {
             awardBadge(userId, badgeType);
         }
     }
@@ -144,6 +167,7 @@ public class BadgeService {
         // Verificar si ya tiene el badge
         if (badgeRepository.existsByUserIdAndBadgeType(userId, badgeType)) {
             log.info("Usuario {} ya tiene el badge {}", userId, badgeType);
+            ownedBadges.merge(userId, BadgeRuleEngine.mask(badgeType), (a, b) -> a | b);
             return null;
         }
 
@@ -153,25 +177,75 @@ public class BadgeService {
                 .build();
 
         badge = badgeRepository.save(badge);
+        ownedBadges.merge(userId, BadgeRuleEngine.mask(badgeType), (a, b) -> a | b);
         log.info("Badge {} otorgado a usuario {}", badgeType, userId);
 
-        // Enviar notificación al usuario
+        notificationService.createNotifications(List.of(badgeEarnedNotification(userId, badgeType, badge.getId())));
+
+        return mapToResponseDTO(badge);
+    }
+
+    public boolean hasBadge(Long userId, BadgeType badgeType) {
+        long owned = getOwnedBadges(List.of(userId)).getOrDefault(userId, 0L);
+        return (owned & BadgeRuleEngine.mask(badgeType)) != 0;
+    }
+
+    /**
+     * Máscara de badges de cada usuario; los que no están en caché se cargan en una sola consulta
+     */
+    private Map<Long, Long> getOwnedBadges(Collection<Long> userIds) {
+        Map<Long, Long> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            Long mask = ownedBadges.get(userId);
+            if (mask != null) {
+                result.put(userId, mask);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        for (Long userId : missing) {
+            result.put(userId, 0L);
+        }
+        for (Object[] row : badgeRepository.findBadgeKeysByUserIdIn(missing)) {
+            result.merge((Long) row[0], BadgeRuleEngine.mask((BadgeType) row[1]), (a, b) -> a | b);
+        }
+
+        if (ownedBadges.size() + missing.size() > ownedCacheMaxUsers) {
+            log.debug("Caché de badges llena ({} usuarios), se vacía", ownedBadges.size());
+            ownedBadges.clear();
+        }
+        for (Long userId : missing) {
+            ownedBadges.merge(userId, result.get(userId), (a, b) -> a | b);
+        }
+        return result;
+    }
+
+    private Map<Long, Map<BadgeType, Long>> loadBadgeIds(Collection<Long> userIds) {
+        Map<Long, Map<BadgeType, Long>> ids = new HashMap<>();
+        for (Object[] row : badgeRepository.findBadgeKeysByUserIdIn(userIds)) {
+            ids.computeIfAbsent((Long) row[0], id -> new EnumMap<>(BadgeType.class))
+                    .put((BadgeType) row[1], (Long) row[2]);
+        }
+        return ids;
+    }
+
+    private NotificationService.NotificationDraft badgeEarnedNotification(Long userId, BadgeType badgeType, Long badgeId) {
         String badgeName = BADGE_NAMES.getOrDefault(badgeType, badgeType.toString());
         String badgeDescription = BADGE_DESCRIPTIONS.getOrDefault(badgeType, "Nuevo logro desbloqueado");
 
-        notificationService.createNotification(
+        return new NotificationService.NotificationDraft(
                 userId,
                 NotificationType.BADGE_EARNED,
                 "¡Nuevo logro desbloqueado!",
                 "Has ganado el logro: " + badgeName + " - " + badgeDescription,
-                badge.getId()
+                badgeId
         );
-
-        return mapToResponseDTO(badge);
-    }
-
-    public boolean hasBadge(Long userId, BadgeType badgeType) {
-        return badgeRepository.existsByUserIdAndBadgeType(userId, badgeType);
     }
 
     private UserBadgeResponseDTO mapToResponseDTO(UserBadge badge) {
@@ -0,0 +1,242 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.service.WebSocketSessionMonitor.OverflowPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sesión WebSocket con cola de envío propia y acotada. sendMessage solo encola y
+ * vuelve; un worker de websocketSendExecutor vacía la cola hacia el socket, así un
+ * cliente lento no retiene los hilos del canal de salida ni del broker.
+ * - Si un envío lleva más de sendTimeLimit ms bloqueado, la sesión se cierra
+ * - Si la cola supera bufferSizeLimit bytes: DROP_OLDEST descarta los frames MESSAGE
+ *   más antiguos, DISCONNECT cierra la sesión
+ * DROP_OLDEST nunca descarta frames de control STOMP (CONNECTED, RECEIPT, ERROR) y
+ * cierra la sesión si tiene suscripciones con deltas (AlertWireFormatInterceptor):
+ * los frames siguientes ya se calcularon sobre el descartado y el cliente quedaría
+ * desincronizado. Al reconectar recibe de nuevo el estado completo.
+ */
+@Slf4j
+final class BoundedSendSession extends WebSocketSessionDecorator {
+
+    private static final String MESSAGE_COMMAND = "MESSAGE\n";
+    private static final byte[] MESSAGE_COMMAND_BYTES = MESSAGE_COMMAND.getBytes(StandardCharsets.US_ASCII);
+
+    private final Deque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+    private final Executor sendExecutor;
+    private final WebSocketSessionMonitor monitor;
+    private final int sendTimeLimit;
+    private final int bufferSizeLimit;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Protegidos por queue
+    private int queuedBytes;
+    private boolean flushing;
+
+    private volatile long sendStartedAt;
+    private volatile boolean closing;
+
+    BoundedSendSession(WebSocketSession delegate, Executor sendExecutor, WebSocketSessionMonitor monitor,
+                       int sendTimeLimit, int bufferSizeLimit, OverflowPolicy overflowPolicy) {
+        super(delegate);
+        this.sendExecutor = sendExecutor;
+        this.monitor = monitor;
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing) {
+            return;
+        }
+
+        String limitExceeded = null;
+        int droppedNow = 0;
+        boolean startFlush = false;
+
+        synchronized (queue) {
+            queue.addLast(message);
+            queuedBytes += message.getPayloadLength();
+
+            long sendingFor = sendingForMs();
+            if (sendingFor > sendTimeLimit) {
+                limitExceeded = "envío bloqueado " + sendingFor + " ms";
+            } else if (queuedBytes > bufferSizeLimit) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT || hasDeltaSubscriptions()) {
+                    limitExceeded = "cola de " + queuedBytes + " bytes";
+                } else {
+                    droppedNow = dropOldestMessages();
+                    if (queuedBytes > bufferSizeLimit && queue.size() > 1) {
+                        // Lo que queda por delante son frames de control
+                        limitExceeded = "cola de " + queuedBytes + " bytes sin frames descartables";
+                    }
+                }
+            }
+
+            if (limitExceeded == null && !flushing) {
+                flushing = true;
+                startFlush = true;
+            }
+        }
+
+        if (droppedNow > 0) {
+            dropped.addAndGet(droppedNow);
+            monitor.onDropped(this, droppedNow);
+        }
+        if (limitExceeded != null) {
+            closeSlowConsumer(limitExceeded);
+            return;
+        }
+        if (startFlush) {
+            try {
+                sendExecutor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Pool saturado: este hilo vacía la cola (comportamiento previo)
+                flush();
+            }
+        }
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        closing = true;
+        clearQueue();
+        super.close(status);
+    }
+
+    int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    int getQueuedBytes() {
+        synchronized (queue) {
+            return queuedBytes;
+        }
+    }
+
+    long getSentMessages() {
+        return sent.get();
+    }
+
+    long getDroppedMessages() {
+        return dropped.get();
+    }
+
+    long sendingForMs() {
+        long startedAt = sendStartedAt;
+        return startedAt > 0 ? System.currentTimeMillis() - startedAt : 0;
+    }
+
+    private void flush() {
+        while (true) {
+            WebSocketMessage<?> message;
+            synchronized (queue) {
+                message = closing ? null : queue.pollFirst();
+                if (message == null) {
+                    flushing = false;
+                    return;
+                }
+                queuedBytes -= message.getPayloadLength();
+            }
+
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                getDelegate().sendMessage(message);
+                sent.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Fallo enviando a la sesión WebSocket {}: {}", getId(), e.getMessage());
+                closing = true;
+                clearQueue();
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+    }
+
+    /**
+     * Descarta los frames MESSAGE más antiguos hasta volver bajo el límite; se
+     * conserva al menos el frame recién encolado. Llamar con el lock de queue.
+     */
+    private int dropOldestMessages() {
+        int droppedNow = 0;
+        Iterator<WebSocketMessage<?>> it = queue.iterator();
+        for (int remaining = queue.size() - 1; remaining > 0 && queuedBytes > bufferSizeLimit; remaining--) {
+            WebSocketMessage<?> queued = it.next();
+            if (isStompMessageFrame(queued)) {
+                it.remove();
+                queuedBytes -= queued.getPayloadLength();
+                droppedNow++;
+            }
+        }
+        return droppedNow;
+    }
+
+    private boolean hasDeltaSubscriptions() {
+        Map<String, Object> attributes = getAttributes();
+        return attributes != null
+                && Boolean.TRUE.equals(attributes.get(AlertWireFormatInterceptor.DELTA_SUBSCRIPTIONS_ATTRIBUTE));
+    }
+
+    static boolean isStompMessageFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.getPayload().startsWith(MESSAGE_COMMAND);
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            if (payload.remaining() < MESSAGE_COMMAND_BYTES.length) {
+                return false;
+            }
+            for (byte expected : MESSAGE_COMMAND_BYTES) {
+                if (payload.get() != expected) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void closeSlowConsumer(String reason) {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        clearQueue();
+        monitor.onLimitExceeded(this, reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Error cerrando la sesión WebSocket {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    private void clearQueue() {
+        synchronized (queue) {
+            queue.clear();
+            queuedBytes = 0;
+        }
+    }
+}
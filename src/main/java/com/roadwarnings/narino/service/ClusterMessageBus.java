@@ -0,0 +1,13 @@
+package com.roadwarnings.narino.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal publicar/suscribir entre instancias (Redis pub/sub en producción)
+ */
+public interface ClusterMessageBus {
+
+    void publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
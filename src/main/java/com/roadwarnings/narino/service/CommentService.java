@@ -28,8 +28,6 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final AlertRepository alertRepository;
     private final UserRepository userRepository;
-    private final UserStatisticsService statisticsService;
-    private final BadgeService badgeService;
     private final WebSocketService webSocketService;
     private final ReputationService reputationService;
 
@@ -56,11 +54,7 @@ public class CommentService {
         comment = commentRepository.save(comment);
         log.info("Comentario creado con ID: {}", comment.getId());
 
-        // Actualizar estadísticas del usuario
-        statisticsService.incrementCommentPosted(user.getId());
-        badgeService.checkAndAwardBadges(user.getId());
-
-        // Otorgar puntos de reputación
+        // Estadísticas y puntos de reputación (se persisten en el siguiente flush)
         reputationService.onCommentCreated(user.getId());
 
         // Broadcast a través de WebSocket
@@ -1,146 +1,144 @@
 package com.roadwarnings.narino.service;
 
+import com.roadwarnings.narino.entity.OutboundEmail;
+import com.roadwarnings.narino.event.EmailQueuedEvent;
+import com.roadwarnings.narino.repository.OutboundEmailRepository;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Compone los emails y los deja en la cola de salida (outbound_emails).
+ * Nada se envía en el hilo de la petición: el MailDispatcher los manda tras el commit.
+ */
 @Service
+@RequiredArgsConstructor
+@Transactional
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-    private final SpringTemplateEngine templateEngine;
+    private static final String WELCOME_TEMPLATE = "welcome-email";
+    private static final String PASSWORD_RESET_TEMPLATE = "password-reset-email";
+    private static final List<String> TEMPLATES = List.of(WELCOME_TEMPLATE, PASSWORD_RESET_TEMPLATE);
 
-    public EmailService(
-            @org.springframework.beans.factory.annotation.Autowired(required = false) JavaMailSender mailSender,
-            SpringTemplateEngine templateEngine
-    ) {
-        this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
-        if (mailSender == null) {
-            log.warn("JavaMailSender no configurado. Los emails no serán enviados.");
-        }
-    }
+    private final OutboundEmailRepository outboundEmailRepository;
+    private final SpringTemplateEngine templateEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${spring.mail.username:noreply@roadwarnings.com}")
-    private String fromEmail;
+    // Plantillas que compilaron en el arranque; las demás van directo al texto plano
+    private final Set<String> availableTemplates = ConcurrentHashMap.newKeySet();
 
     @Value("${app.name:RoadWarnings Nariño}")
     private String appName;
 
-    @Async
-    public void sendSimpleEmail(String to, String subject, String text) {
-        if (mailSender == null) {
-            log.warn("Email no enviado (JavaMailSender no configurado) - To: {}, Subject: {}", to, subject);
-            return;
-        }
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-
-            mailSender.send(message);
-            log.info("Email simple enviado a: {}", to);
-        } catch (Exception e) {
-            log.error("Error al enviar email simple a {}: {}", to, e.getMessage());
-        }
+    @Value("${app.frontend.url:http://localhost:4200}")
+    private String frontendUrl;
+
+    /**
+     * Destinatario de un email de alerta enviado en lote
+     */
+    public record AlertEmailRecipient(String email, String username) {
     }
 
-    @Async
-    public void sendHtmlEmail(String to, String subject, String htmlContent) {
-        if (mailSender == null) {
-            log.warn("Email HTML no enviado (JavaMailSender no configurado) - To: {}, Subject: {}", to, subject);
-            return;
-        }
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("Email HTML enviado a: {}", to);
-        } catch (MessagingException e) {
-            log.error("Error al enviar email HTML a {}: {}", to, e.getMessage());
+    /**
+     * Compila cada plantilla una vez al arrancar; con spring.thymeleaf.cache
+     * activo el motor reutiliza la plantilla ya parseada en cada envío
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpTemplates() {
+        for (String template : TEMPLATES) {
+            try {
+                templateEngine.process(template, new Context());
+                availableTemplates.add(template);
+            } catch (Exception e) {
+                log.warn("Plantilla de email {} no disponible, se usará texto plano: {}", template, e.getMessage());
+            }
         }
     }
 
-    @Async
-    public void sendWelcomeEmail(String to, String username) {
-        try {
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("appName", appName);
+    public void sendSimpleEmail(String to, String subject, String text) {
+        enqueue(List.of(email(to, subject, text, false)));
+    }
 
-            String htmlContent = templateEngine.process("welcome-email", context);
+    public void sendHtmlEmail(String to, String subject, String htmlContent) {
+        enqueue(List.of(email(to, subject, htmlContent, true)));
+    }
 
-            sendHtmlEmail(to, "Bienvenido a " + appName, htmlContent);
-        } catch (Exception e) {
-            log.error("Error al enviar email de bienvenida a {}: {}", to, e.getMessage());
-            // Fallback a email simple
-            sendSimpleEmail(to, "Bienvenido a " + appName,
+    public void sendWelcomeEmail(String to, String username) {
+        String subject = "Bienvenido a " + appName;
+        String htmlContent = render(WELCOME_TEMPLATE, Map.of(
+                "username", username,
+                "appName", appName));
+
+        if (htmlContent != null) {
+            sendHtmlEmail(to, subject, htmlContent);
+        } else {
+            sendSimpleEmail(to, subject,
                     "Hola " + username + ",\n\nBienvenido a " + appName + "!\n\nGracias por registrarte.");
         }
     }
 
-    @Async
     public void sendPasswordResetEmail(String to, String username, String resetToken) {
-        try {
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("resetToken", resetToken);
-            context.setVariable("appName", appName);
-
-            String htmlContent = templateEngine.process("password-reset-email", context);
-
-            sendHtmlEmail(to, "Recuperación de Contraseña - " + appName, htmlContent);
-        } catch (Exception e) {
-            log.error("Error al enviar email de recuperación a {}: {}", to, e.getMessage());
-            // Fallback a email simple
-            String resetLink = "http://yourapp.com/reset-password?token=" + resetToken;
-            sendSimpleEmail(to, "Recuperación de Contraseña - " + appName,
+        String subject = "Recuperación de Contraseña - " + appName;
+        String resetLink = frontendUrl + "/reset-password?token=" + resetToken;
+        String htmlContent = render(PASSWORD_RESET_TEMPLATE, Map.of(
+                "username", username,
+                "resetToken", resetToken,
+                "resetLink", resetLink,
+                "appName", appName));
+
+        if (htmlContent != null) {
+            sendHtmlEmail(to, subject, htmlContent);
+        } else {
+            sendSimpleEmail(to, subject,
                     "Hola " + username + ",\n\nPara resetear tu contraseña, haz clic en el siguiente enlace:\n" +
                     resetLink + "\n\nEste enlace expira en 24 horas.");
         }
     }
 
-    @Async
     public void sendAlertNotificationEmail(String to, String username, String alertTitle, String alertLocation) {
-        String subject = "Nueva alerta cerca de tu ruta - " + appName;
-        String text = (
-                """
-                Hola %s,
-                
-                Se ha reportado una nueva alerta cerca de una de tus rutas favoritas:
-                
-                Título: %s
-                Ubicación: %s
-                
-                Visita la app para más detalles.
-                
-                Saludos,
-                %s""").formatted(
-                username, alertTitle, alertLocation, appName
-        );
+        sendAlertNotificationEmails(List.of(new AlertEmailRecipient(to, username)), alertTitle, alertLocation);
+    }
 
-        sendSimpleEmail(to, subject, text);
+    /**
+     * Encola el aviso de una alerta para muchos destinatarios; el dispatcher los
+     * agrupa en lotes que comparten conexión SMTP
+     */
+    public void sendAlertNotificationEmails(List<AlertEmailRecipient> recipients, String alertTitle, String alertLocation) {
+        String subject = "Nueva alerta cerca de tu ruta - " + appName;
+        List<OutboundEmail> emails = recipients.stream()
+                .map(recipient -> email(recipient.email(), subject, (
+                        """
+                        Hola %s,
+                        
+                        Se ha reportado una nueva alerta cerca de una de tus rutas favoritas:
+                        
+                        Título: %s
+                        Ubicación: %s
+                        
+                        Visita la app para más detalles.
+                        
+                        Saludos,
+                        %s""").formatted(
+                        recipient.username(), alertTitle, alertLocation, appName
+                ), false))
+                .toList();
+
+        enqueue(emails);
     }
 
-    @Async
     public void sendAlertResolvedEmail(String to, String username, String alertTitle) {
         String subject = "Alerta resuelta - " + appName;
         String text = (
@@ -161,7 +159,6 @@ public class EmailService {
         sendSimpleEmail(to, subject, text);
     }
 
-    @Async
     public void sendBadgeEarnedEmail(String to, String username, String badgeName, String badgeDescription) {
         String subject = "¡Nuevo logro desbloqueado! - " + appName;
         String text = (
@@ -181,4 +178,36 @@ public class EmailService {
 
         sendSimpleEmail(to, subject, text);
     }
+
+    private String render(String template, Map<String, Object> variables) {
+        if (!availableTemplates.contains(template)) {
+            return null;
+        }
+        try {
+            Context context = new Context();
+            context.setVariables(variables);
+            return templateEngine.process(template, context);
+        } catch (Exception e) {
+            log.error("Error al procesar la plantilla {}: {}", template, e.getMessage());
+            return null;
+        }
+    }
+
+    private static OutboundEmail email(String to, String subject, String body, boolean html) {
+        return OutboundEmail.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .html(html)
+                .build();
+    }
+
+    private void enqueue(List<OutboundEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        outboundEmailRepository.saveAll(emails);
+        eventPublisher.publishEvent(new EmailQueuedEvent(emails.size()));
+        log.info("{} emails encolados", emails.size());
+    }
 }
@@ -0,0 +1,82 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.enums.ExternalDependency;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Punto único de salida hacia proveedores externos.
+ * Cada dependencia tiene su propio circuit breaker (falla rápido cuando el proveedor
+ * está degradado) y un bulkhead de concurrencia acotada (un proveedor lento no puede
+ * acaparar los hilos de Tomcat). Estado y rechazos se publican en actuator.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExternalCallGuard {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<ExternalDependency, CircuitBreaker> circuitBreakers = new EnumMap<>(ExternalDependency.class);
+    private final Map<ExternalDependency, Bulkhead> bulkheads = new EnumMap<>(ExternalDependency.class);
+    private final Map<ExternalDependency, Counter> rejections = new EnumMap<>(ExternalDependency.class);
+
+    @PostConstruct
+    public void init() {
+        for (ExternalDependency dependency : ExternalDependency.values()) {
+            String name = dependency.getInstanceName();
+            circuitBreakers.put(dependency, circuitBreakerRegistry.circuitBreaker(name));
+            bulkheads.put(dependency, bulkheadRegistry.bulkhead(name));
+            rejections.put(dependency, Counter.builder("external.calls.rejected")
+                    .description("Llamadas a proveedores externos rechazadas sin ejecutarse")
+                    .tag("dependency", name)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Ejecuta la llamada protegida. Cualquier excepción de la llamada cuenta como
+     * fallo para el circuit breaker; si el circuito está abierto, el bulkhead está
+     * lleno o la llamada falla, se devuelve el resultado del fallback.
+     */
+    public <T> T execute(ExternalDependency dependency, Callable<T> call, Function<Exception, T> fallback) {
+        Callable<T> guarded = CircuitBreaker.decorateCallable(circuitBreakers.get(dependency),
+                Bulkhead.decorateCallable(bulkheads.get(dependency), call));
+
+        try {
+            return guarded.call();
+        } catch (CallNotPermittedException e) {
+            rejections.get(dependency).increment();
+            log.debug("Circuito abierto para {}, usando fallback", dependency.getInstanceName());
+            return fallback.apply(e);
+        } catch (BulkheadFullException e) {
+            rejections.get(dependency).increment();
+            log.warn("Bulkhead lleno para {}, usando fallback", dependency.getInstanceName());
+            return fallback.apply(e);
+        } catch (Exception e) {
+            log.warn("Fallo en llamada a {}: {}", dependency.getInstanceName(), e.getMessage());
+            return fallback.apply(e);
+        }
+    }
+
+    public CircuitBreaker.State getState(ExternalDependency dependency) {
+        return circuitBreakers.get(dependency).getState();
+    }
+}
@@ -4,10 +4,12 @@ import com.roadwarnings.narino.dto.request.FavoriteRouteRequestDTO;
 import com.roadwarnings.narino.dto.response.FavoriteAlertResponseDTO;
 import com.roadwarnings.narino.dto.response.FavoriteRouteResponseDTO;
 import com.roadwarnings.narino.entity.*;
+import com.roadwarnings.narino.event.FavoriteRouteChangedEvent;
 import com.roadwarnings.narino.exception.ResourceNotFoundException;
 import com.roadwarnings.narino.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ public class FavoriteService {
     private final UserRepository userRepository;
     private final RouteRepository routeRepository;
     private final AlertRepository alertRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String USER_NOT_FOUND = "Usuario no encontrado";
     private static final String ROUTE_NOT_FOUND = "Ruta no encontrada";
@@ -56,6 +59,10 @@ public class FavoriteService {
         favoriteRoute = favoriteRouteRepository.save(favoriteRoute);
         log.info("Ruta {} agregada a favoritos por usuario {}", route.getId(), username);
 
+        // Índice de suscriptores para notificaciones de alertas en la ruta
+        eventPublisher.publishEvent(new FavoriteRouteChangedEvent(route.getId(), user.getId(),
+                favoriteRoute.getCustomName(), favoriteRoute.getNotificationsEnabled()));
+
         return mapFavoriteRouteToDTO(favoriteRoute);
     }
 
@@ -69,6 +76,8 @@ public class FavoriteService {
 
         favoriteRouteRepository.deleteByUserIdAndRouteId(user.getId(), routeId);
         log.info("Ruta {} removida de favoritos por usuario {}", routeId, username);
+
+        eventPublisher.publishEvent(new FavoriteRouteChangedEvent(routeId, user.getId(), null, false));
     }
 
     public List<FavoriteRouteResponseDTO> getUserFavoriteRoutes(String username) {
@@ -0,0 +1,32 @@
+package com.roadwarnings.narino.service;
+
+import java.util.List;
+
+/**
+ * Envío multicast a Firebase Cloud Messaging. La implementación real usa el SDK de
+ * Firebase; LocalFcmGateway la reemplaza en desarrollo y pruebas.
+ */
+public interface FcmGateway {
+
+    /**
+     * Máximo de tokens por mensaje multicast aceptado por FCM
+     */
+    int MAX_MULTICAST_TOKENS = 500;
+
+    enum Outcome {
+        SUCCESS,
+        // Token no registrado o inválido: se desactiva
+        INVALID_TOKEN,
+        // Error transitorio (cuota, servicio no disponible): se reintenta
+        RETRYABLE,
+        FAILED
+    }
+
+    boolean isAvailable();
+
+    /**
+     * Envía el mensaje a los tokens (como máximo MAX_MULTICAST_TOKENS) y devuelve un
+     * resultado por token, en el mismo orden. Lanza excepción si falla el envío completo.
+     */
+    List<Outcome> sendMulticast(PushMessage message, List<String> tokens) throws Exception;
+}
@@ -0,0 +1,64 @@
+package com.roadwarnings.narino.service;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "push.gateway", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseFcmGateway implements FcmGateway {
+
+    @Override
+    public boolean isAvailable() {
+        return !FirebaseApp.getApps().isEmpty();
+    }
+
+    @Override
+    public List<Outcome> sendMulticast(PushMessage message, List<String> tokens) throws Exception {
+        MulticastMessage.Builder builder = MulticastMessage.builder()
+                .setNotification(Notification.builder()
+                        .setTitle(message.title())
+                        .setBody(message.body())
+                        .build())
+                .addAllTokens(tokens);
+
+        if (message.data() != null && !message.data().isEmpty()) {
+            builder.putAllData(message.data());
+        }
+
+        BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(builder.build());
+
+        List<Outcome> outcomes = new ArrayList<>(tokens.size());
+        for (SendResponse sendResponse : response.getResponses()) {
+            outcomes.add(sendResponse.isSuccessful() ? Outcome.SUCCESS : classify(sendResponse.getException()));
+        }
+        return outcomes;
+    }
+
+    private static Outcome classify(FirebaseMessagingException exception) {
+        if (exception == null) {
+            return Outcome.FAILED;
+        }
+
+        MessagingErrorCode code = exception.getMessagingErrorCode();
+        if (code == null) {
+            return Outcome.FAILED;
+        }
+
+        return switch (code) {
+            case UNREGISTERED, INVALID_ARGUMENT, SENDER_ID_MISMATCH -> Outcome.INVALID_TOKEN;
+            case QUOTA_EXCEEDED, UNAVAILABLE, INTERNAL -> Outcome.RETRYABLE;
+            default -> Outcome.FAILED;
+        };
+    }
+}
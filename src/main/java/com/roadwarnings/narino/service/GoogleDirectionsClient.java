@@ -0,0 +1,59 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.dto.response.RouteCalculationResponseDTO;
+import com.roadwarnings.narino.enums.ExternalDependency;
+import com.roadwarnings.narino.util.DirectionsResponseParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import static com.roadwarnings.narino.config.CacheConfig.DIRECTIONS_CACHE;
+
+/**
+ * Cliente de Google Directions API con caché.
+ * Las coordenadas llegan ya cuantizadas desde GoogleMapsService, de modo que
+ * peticiones de puntos muy cercanos (mismo trayecto diario) comparten entrada.
+ * La respuesta se parsea en streaming directamente del cuerpo HTTP.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GoogleDirectionsClient {
+
+    private static final String DIRECTIONS_API_URL = "https://maps.googleapis.com/maps/api/directions/json";
+
+    private final RestTemplate restTemplate;
+    private final ExternalCallGuard externalCallGuard;
+
+    @Value("${google.maps.api.key:}")
+    private String googleMapsApiKey;
+
+    /**
+     * Rutas entre origen y destino ("lat,lng"), sin tráfico ni conteo de alertas.
+     * Devuelve null si el proveedor falla (no se cachea).
+     */
+    @Cacheable(value = DIRECTIONS_CACHE, key = "#origin + '|' + #destination + '|' + #alternatives",
+            unless = "#result == null || #result.routes.isEmpty()")
+    public RouteCalculationResponseDTO fetchRoutes(String origin, String destination, boolean alternatives) {
+        String url = UriComponentsBuilder.fromHttpUrl(DIRECTIONS_API_URL)
+                .queryParam("origin", origin)
+                .queryParam("destination", destination)
+                .queryParam("alternatives", alternatives)
+                .queryParam("key", googleMapsApiKey)
+                .toUriString();
+
+        log.debug("Consultando Google Directions: {} -> {}", origin, destination);
+
+        return externalCallGuard.execute(ExternalDependency.GOOGLE_MAPS,
+                () -> restTemplate.execute(url, HttpMethod.GET, null,
+                        response -> RouteCalculationResponseDTO.builder()
+                                .routes(DirectionsResponseParser.parse(response.getBody()))
+                                .build()),
+                e -> null);
+    }
+}
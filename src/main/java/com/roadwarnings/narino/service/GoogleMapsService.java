@@ -8,6 +8,7 @@ import com.roadwarnings.narino.dto.response.PlaceSearchResultDTO;
 import com.roadwarnings.narino.dto.response.RouteCalculationResponseDTO;
 import com.roadwarnings.narino.entity.Alert;
 import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.enums.ExternalDependency;
 import com.roadwarnings.narino.repository.AlertRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +20,7 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +28,9 @@ import java.util.List;
 public class GoogleMapsService {
 
     private final AlertRepository alertRepository;
+    private final RestTemplate restTemplate;
+    private final ExternalCallGuard externalCallGuard;
+    private final GoogleDirectionsClient directionsClient;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${google.maps.api.key:}")
@@ -33,7 +38,6 @@ public class GoogleMapsService {
 
     private static final String PLACES_API_URL = "https://maps.googleapis.com/maps/api/place/textsearch/json";
     private static final String PLACE_DETAILS_API_URL = "https://maps.googleapis.com/maps/api/place/details/json";
-    private static final String DIRECTIONS_API_URL = "https://maps.googleapis.com/maps/api/directions/json";
 
     /**
      * Buscar lugares usando Google Places API
@@ -52,15 +56,12 @@ public class GoogleMapsService {
                     .queryParam("key", googleMapsApiKey)
                     .toUriString();
 
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                log.error("Error en Google Places API: {}", response.getStatusCode());
+            String body = fetch(url);
+            if (body == null) {
                 return new ArrayList<>();
             }
 
-            JsonNode root = objectMapper.readTree(response.getBody());
+            JsonNode root = objectMapper.readTree(body);
             JsonNode results = root.get("results");
 
             List<PlaceSearchResultDTO> places = new ArrayList<>();
@@ -110,14 +111,12 @@ public class GoogleMapsService {
                     .queryParam("key", googleMapsApiKey)
                     .toUriString();
 
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new RuntimeException("Error obteniendo detalles del lugar");
+            String body = fetch(url);
+            if (body == null) {
+                throw new RuntimeException("Servicio de mapas no disponible");
             }
 
-            JsonNode root = objectMapper.readTree(response.getBody());
+            JsonNode root = objectMapper.readTree(body);
             JsonNode result = root.get("result");
 
             if (result == null) {
@@ -157,7 +156,9 @@ public class GoogleMapsService {
     }
 
     /**
-     * Calcular rutas usando Google Directions API
+     * Calcular rutas usando Google Directions API.
+     * Las rutas se cachean por origen/destino cuantizados; el conteo de alertas
+     * y el nivel de tráfico se calculan en cada petición.
      */
     public RouteCalculationResponseDTO calculateRoutes(RouteCalculationRequestDTO request) {
         if (googleMapsApiKey == null || googleMapsApiKey.isBlank()) {
@@ -165,83 +166,35 @@ public class GoogleMapsService {
         }
 
         try {
-            String origin = request.getOrigin().getLat() + "," + request.getOrigin().getLng();
-            String destination = request.getDestination().getLat() + "," + request.getDestination().getLng();
+            String origin = quantize(request.getOrigin().getLat(), request.getOrigin().getLng());
+            String destination = quantize(request.getDestination().getLat(), request.getDestination().getLng());
+            boolean alternatives = !Boolean.FALSE.equals(request.getAlternatives());
 
-            String url = UriComponentsBuilder.fromHttpUrl(DIRECTIONS_API_URL)
-                    .queryParam("origin", origin)
-                    .queryParam("destination", destination)
-                    .queryParam("alternatives", request.getAlternatives())
-                    .queryParam("key", googleMapsApiKey)
-                    .toUriString();
+            RouteCalculationResponseDTO directions = directionsClient.fetchRoutes(origin, destination, alternatives);
 
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-
-            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
-                throw new RuntimeException("Error calculando rutas");
+            if (directions == null) {
+                throw new RuntimeException("Servicio de mapas no disponible");
             }
 
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode routes = root.get("routes");
-
-            if (routes == null || routes.isEmpty()) {
+            if (directions.getRoutes() == null || directions.getRoutes().isEmpty()) {
                 throw new RuntimeException("No se encontraron rutas");
             }
 
             List<RouteCalculationResponseDTO.RouteOption> routeOptions = new ArrayList<>();
 
-            for (int i = 0; i < routes.size(); i++) {
-                JsonNode route = routes.get(i);
-                JsonNode leg = route.get("legs").get(0);
-
-                double distanceMeters = leg.path("distance").path("value").asDouble();
-                double distanceKm = distanceMeters / 1000.0;
-                int durationSeconds = leg.path("duration").path("value").asInt();
-                int durationMinutes = durationSeconds / 60;
-
-                String polyline = route.path("overview_polyline").path("points").asText();
-
-                // Contar alertas en la ruta
-                int alertCount = countAlertsInRoute(polyline);
-
-                // Calcular nivel de tráfico basado en duración
-                String traffic = calculateTrafficLevel(durationMinutes, distanceKm);
-
-                // Extraer pasos
-                List<RouteCalculationResponseDTO.RouteStep> steps = new ArrayList<>();
-                JsonNode stepsNode = leg.get("steps");
-
-                if (stepsNode != null && stepsNode.isArray()) {
-                    for (JsonNode step : stepsNode) {
-                        JsonNode startLocation = step.path("start_location");
-                        double stepDistanceMeters = step.path("distance").path("value").asDouble();
-                        int stepDurationSeconds = step.path("duration").path("value").asInt();
-
-                        RouteCalculationResponseDTO.RouteStep routeStep = RouteCalculationResponseDTO.RouteStep.builder()
-                                .instruction(step.path("html_instructions").asText().replaceAll("<[^>]*>", ""))
-                                .distance(stepDistanceMeters / 1000.0)
-                                .duration(stepDurationSeconds / 60)
-                                .lat(startLocation.path("lat").asDouble())
-                                .lng(startLocation.path("lng").asDouble())
-                                .build();
-
-                        steps.add(routeStep);
-                    }
-                }
-
-                RouteCalculationResponseDTO.RouteOption routeOption = RouteCalculationResponseDTO.RouteOption.builder()
-                        .id("route-" + (i + 1))
-                        .name(route.path("summary").asText("Ruta " + (i + 1)))
-                        .distance(distanceKm)
-                        .duration(durationMinutes)
-                        .traffic(traffic)
-                        .alerts(alertCount)
-                        .polyline(polyline)
-                        .steps(steps)
-                        .build();
-
-                routeOptions.add(routeOption);
+            for (RouteCalculationResponseDTO.RouteOption route : directions.getRoutes()) {
+                routeOptions.add(RouteCalculationResponseDTO.RouteOption.builder()
+                        .id(route.getId())
+                        .name(route.getName())
+                        .distance(route.getDistance())
+                        .duration(route.getDuration())
+                        // Calcular nivel de tráfico basado en duración
+                        .traffic(calculateTrafficLevel(route.getDuration(), route.getDistance()))
+                        // Contar alertas en la ruta
+                        .alerts(countAlertsInRoute(route.getPolyline()))
+                        .polyline(route.getPolyline())
+                        .steps(route.getSteps())
+                        .build());
             }
 
             return RouteCalculationResponseDTO.builder()
@@ -256,6 +209,28 @@ public class GoogleMapsService {
 
     // ==== Helpers ====
 
+    /**
+     * Redondea a 3 decimales (~110 m) para que trayectos equivalentes compartan caché
+     */
+    private String quantize(double lat, double lng) {
+        return String.format(Locale.ROOT, "%.3f,%.3f", lat, lng);
+    }
+
+    /**
+     * GET protegido por el circuit breaker/bulkhead de Google. Devuelve null si
+     * el proveedor falla o está degradado.
+     */
+    private String fetch(String url) {
+        return externalCallGuard.execute(ExternalDependency.GOOGLE_MAPS, () -> {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new IllegalStateException("Google Maps respondió: " + response.getStatusCode());
+            }
+            return response.getBody();
+        }, e -> null);
+    }
+
     private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
         final int EARTH_RADIUS = 6371; // km
 
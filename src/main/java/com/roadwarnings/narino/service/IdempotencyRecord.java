@@ -0,0 +1,20 @@
+package com.roadwarnings.narino.service;
+
+/**
+ * Estado de una clave Idempotency-Key: en curso o con la respuesta ya almacenada
+ */
+public record IdempotencyRecord(
+        String fingerprint,
+        boolean completed,
+        int status,
+        String contentType,
+        byte[] body) {
+
+    public static IdempotencyRecord inProgress(String fingerprint) {
+        return new IdempotencyRecord(fingerprint, false, 0, null, null);
+    }
+
+    public static IdempotencyRecord completed(String fingerprint, int status, String contentType, byte[] body) {
+        return new IdempotencyRecord(fingerprint, true, status, contentType, body);
+    }
+}
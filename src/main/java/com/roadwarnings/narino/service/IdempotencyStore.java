@@ -0,0 +1,32 @@
+package com.roadwarnings.narino.service;
+
+import java.time.Duration;
+
+/**
+ * Almacén de claves Idempotency-Key con expiración.
+ * Implementaciones: en memoria (por defecto, una instancia) y Redis (varias instancias).
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Reserva la clave para la petición actual.
+     * Devuelve null si se reservó; si ya existía, devuelve su registro.
+     */
+    IdempotencyRecord tryReserve(String key, String fingerprint, Duration inFlightTtl);
+
+    /**
+     * Guarda la respuesta de la primera ejecución y despierta a los duplicados en espera
+     */
+    void complete(String key, IdempotencyRecord response, Duration ttl);
+
+    /**
+     * Libera una reserva cuya ejecución falló, para que un reintento pueda ejecutarse
+     */
+    void release(String key);
+
+    /**
+     * Espera a que termine la ejecución en curso de la clave.
+     * Devuelve el registro completado, o null si se liberó o se agotó la espera.
+     */
+    IdempotencyRecord awaitCompletion(String key, Duration timeout) throws InterruptedException;
+}
@@ -3,6 +3,7 @@ package com.roadwarnings.narino.service;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import com.roadwarnings.narino.dto.response.ImageUploadResponseDTO;
+import com.roadwarnings.narino.enums.ExternalDependency;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,7 @@ import java.util.UUID;
 public class ImageUploadService {
 
     private final Cloudinary cloudinary;
+    private final ExternalCallGuard externalCallGuard;
 
     public ImageUploadResponseDTO uploadImage(MultipartFile file) throws IOException {
         return uploadImage(file, "road-warnings");
@@ -34,7 +36,7 @@ public class ImageUploadService {
                             .width(1200).height(1200).crop("limit").quality("auto")
             );
 
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), uploadParams);
+            Map<?, ?> uploadResult = upload(file.getBytes(), uploadParams);
 
             log.info("Imagen subida exitosamente: {}", uploadResult.get("public_id"));
 
@@ -67,7 +69,7 @@ public class ImageUploadService {
                             .width(1200).height(1200).crop("limit").quality("auto")
             );
 
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(base64Image, uploadParams);
+            Map<?, ?> uploadResult = upload(base64Image, uploadParams);
 
             log.info("Imagen base64 subida exitosamente: {}", uploadResult.get("public_id"));
 
@@ -87,13 +89,31 @@ public class ImageUploadService {
     }
 
     public void deleteImage(String publicId) {
-        try {
-            log.info("Eliminando imagen de Cloudinary: {}", publicId);
-            Map<?, ?> result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+        log.info("Eliminando imagen de Cloudinary: {}", publicId);
+        Map<?, ?> result = externalCallGuard.execute(ExternalDependency.CLOUDINARY,
+                () -> cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap()),
+                e -> null);
+
+        if (result != null) {
             log.info("Imagen eliminada: {}", result.get("result"));
-        } catch (IOException e) {
-            log.error("Error al eliminar imagen de Cloudinary: {}", e.getMessage());
+        } else {
+            log.error("No se pudo eliminar la imagen de Cloudinary: {}", publicId);
+        }
+    }
+
+    /**
+     * Subida protegida por el circuit breaker/bulkhead de Cloudinary.
+     * Falla rápido si el proveedor está degradado.
+     */
+    private Map<?, ?> upload(Object source, Map<String, Object> uploadParams) throws IOException {
+        Map<?, ?> result = externalCallGuard.execute(ExternalDependency.CLOUDINARY,
+                () -> cloudinary.uploader().upload(source, uploadParams),
+                e -> null);
+
+        if (result == null) {
+            throw new IOException("Servicio de imágenes no disponible");
         }
+        return result;
     }
 
     public String extractPublicIdFromUrl(String imageUrl) {
@@ -0,0 +1,139 @@
+package com.roadwarnings.narino.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Almacén de idempotencia en memoria, acotado y con expiración.
+ * Los duplicados concurrentes esperan sobre el CompletableFuture de la primera ejecución.
+ */
+@Service
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    @Value("${idempotency.memory.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public IdempotencyRecord tryReserve(String key, String fingerprint, Duration inFlightTtl) {
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+
+        Entry reserved = new Entry(IdempotencyRecord.inProgress(fingerprint), expiry(inFlightTtl));
+        Entry existing = entries.compute(key, (k, current) ->
+                current == null || current.isExpired() ? reserved : current);
+
+        return existing == reserved ? null : existing.record;
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord response, Duration ttl) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.record = response;
+        entry.expiresAt = expiry(ttl);
+        entry.done.complete(response);
+    }
+
+    @Override
+    public void release(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.done.complete(null);
+        }
+    }
+
+    @Override
+    public IdempotencyRecord awaitCompletion(String key, Duration timeout) throws InterruptedException {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return entry.done.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Limpieza periódica de claves expiradas
+     */
+    @Scheduled(fixedDelayString = "${idempotency.memory.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        entries.entrySet().removeIf(e -> {
+            if (!e.getValue().isExpired()) {
+                return false;
+            }
+            // Reserva en curso que superó su TTL: los duplicados en espera dejan de esperar
+            e.getValue().done.complete(null);
+            return true;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Con el almacén lleno: primero las expiradas y, si no basta, el 10% de las
+     * respuestas completadas que expiran antes. Las claves en curso nunca se desalojan.
+     */
+    private synchronized void evict() {
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        purgeExpired();
+        if (entries.size() < maxEntries) {
+            return;
+        }
+
+        int toEvict = Math.max(1, maxEntries / 10);
+        entries.entrySet().stream()
+                .filter(e -> e.getValue().record.completed())
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+
+        log.warn("Almacén de idempotencia lleno ({} claves), desalojadas las más antiguas", maxEntries);
+    }
+
+    private static long expiry(Duration ttl) {
+        return System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    private static final class Entry {
+        private volatile IdempotencyRecord record;
+        private volatile long expiresAt;
+        private final CompletableFuture<IdempotencyRecord> done = new CompletableFuture<>();
+
+        private Entry(IdempotencyRecord record, long expiresAt) {
+            this.record = record;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
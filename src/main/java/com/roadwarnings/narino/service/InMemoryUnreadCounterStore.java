@@ -0,0 +1,98 @@
+package com.roadwarnings.narino.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contadores de no leídas en memoria. Cada operación es un compute() sobre la clave del
+ * usuario, así que un cambio no se pierde entre el COUNT y la inicialización: invalida
+ * el valor contado. Los contadores expiran igual que en Redis, por lo que cualquier
+ * desvío se corrige con el COUNT de la siguiente lectura.
+ */
+@Service
+@ConditionalOnProperty(name = "notifications.unread-counter.store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryUnreadCounterStore implements UnreadCounterStore {
+
+    @Value("${notifications.unread-counter.max-users:50000}")
+    private int maxUsers;
+
+    @Value("${notifications.unread-counter.ttl-hours:24}")
+    private long ttlHours;
+
+    private enum State { COUNTING, STALE, READY }
+
+    private record Counter(State state, long value, long expiresAt) {
+
+        boolean isReady(long now) {
+            return state == State.READY && expiresAt > now;
+        }
+    }
+
+    private static final Counter COUNTING = new Counter(State.COUNTING, 0, 0);
+    private static final Counter STALE = new Counter(State.STALE, 0, 0);
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public Long get(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter == null || !counter.isReady(System.currentTimeMillis())) {
+            return null;
+        }
+        return counter.value();
+    }
+
+    @Override
+    public void beginInitialize(Long userId) {
+        if (counters.size() >= maxUsers) {
+            // Se vuelven a contar bajo demanda
+            counters.clear();
+            log.debug("Contadores de no leídas descartados al superar {} usuarios", maxUsers);
+        }
+        long now = System.currentTimeMillis();
+        counters.compute(userId, (id, current) -> current != null && current.isReady(now) ? current : COUNTING);
+    }
+
+    @Override
+    public void initialize(Long userId, long count) {
+        long expiresAt = System.currentTimeMillis() + ttlHours * 3_600_000L;
+        counters.compute(userId, (id, current) -> {
+            if (current == null || current.state() == State.STALE) {
+                // Descartado o con cambios durante el COUNT: la siguiente lectura vuelve a contar
+                return null;
+            }
+            return current.state() == State.COUNTING
+                    ? new Counter(State.READY, Math.max(0, count), expiresAt)
+                    : current;
+        });
+    }
+
+    @Override
+    public void increment(Long userId, long delta) {
+        counters.computeIfPresent(userId, (id, current) -> current.state() == State.READY
+                ? new Counter(State.READY, Math.max(0, current.value() + delta), current.expiresAt())
+                : STALE);
+    }
+
+    @Override
+    public void reset(Long userId) {
+        counters.computeIfPresent(userId, (id, current) -> current.state() == State.READY
+                ? new Counter(State.READY, 0, current.expiresAt())
+                : STALE);
+    }
+
+    @Override
+    public void evict(Long userId) {
+        counters.remove(userId);
+    }
+
+    public int size() {
+        return counters.size();
+    }
+}
@@ -0,0 +1,95 @@
+package com.roadwarnings.narino.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sustituto local de FCM (push.gateway=local) para desarrollo y pruebas.
+ * Registra los envíos en memoria y permite simular tokens inválidos y caídas del servicio.
+ */
+@Component
+@ConditionalOnProperty(name = "push.gateway", havingValue = "local")
+@Slf4j
+public class LocalFcmGateway implements FcmGateway {
+
+    public record SentMulticast(PushMessage message, List<String> tokens) {
+    }
+
+    private final List<SentMulticast> sent = new CopyOnWriteArrayList<>();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final Set<String> invalidTokens = ConcurrentHashMap.newKeySet();
+    private final Set<String> unavailableTokens = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger failuresToSimulate = new AtomicInteger();
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public List<Outcome> sendMulticast(PushMessage message, List<String> tokens) throws IOException {
+        if (tokens.size() > MAX_MULTICAST_TOKENS) {
+            throw new IllegalArgumentException("Multicast con más de " + MAX_MULTICAST_TOKENS + " tokens");
+        }
+        if (failuresToSimulate.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new IOException("FCM local: fallo simulado");
+        }
+
+        sent.add(new SentMulticast(message, List.copyOf(tokens)));
+        log.debug("FCM local: '{}' enviado a {} tokens", message.title(), tokens.size());
+
+        return tokens.stream()
+                .map(token -> {
+                    if (invalidTokens.contains(token)) {
+                        return Outcome.INVALID_TOKEN;
+                    }
+                    // Falla una sola vez por token (error transitorio)
+                    if (unavailableTokens.remove(token)) {
+                        return Outcome.RETRYABLE;
+                    }
+                    delivered.add(token);
+                    return Outcome.SUCCESS;
+                })
+                .toList();
+    }
+
+    public void markInvalid(String... tokens) {
+        invalidTokens.addAll(Arrays.asList(tokens));
+    }
+
+    public void markUnavailableOnce(String... tokens) {
+        unavailableTokens.addAll(Arrays.asList(tokens));
+    }
+
+    /**
+     * Los próximos n envíos fallan por completo
+     */
+    public void failNextCalls(int n) {
+        failuresToSimulate.set(n);
+    }
+
+    public List<SentMulticast> getSent() {
+        return List.copyOf(sent);
+    }
+
+    public List<String> getDeliveredTokens() {
+        return List.copyOf(delivered);
+    }
+
+    public void reset() {
+        sent.clear();
+        delivered.clear();
+        invalidTokens.clear();
+        unavailableTokens.clear();
+        failuresToSimulate.set(0);
+    }
+}
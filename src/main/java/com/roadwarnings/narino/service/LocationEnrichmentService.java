@@ -0,0 +1,173 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.event.AlertLocationEnrichedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pipeline asíncrono de enriquecimiento de ubicación para alertas.
+ * Las alertas se guardan y se difunden de inmediato; este servicio completa
+ * coordenadas, dirección y municipio en segundo plano (cola acotada, un worker
+ * limitado a la cuota de Nominatim) y publica un AlertLocationEnrichedEvent al terminar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationEnrichmentService {
+
+    private final NominatimGeocodingService geocodingService;
+    private final MunicipalityGazetteerService gazetteerService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${geocoding.enrichment.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${geocoding.reverse.enabled:true}")
+    private boolean reverseGeocodingEnabled;
+
+    private BlockingQueue<EnrichmentTask> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::processQueue, "location-enrichment");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Encola el enriquecimiento de una alerta recién guardada.
+     * Si hay una transacción activa, la tarea se encola al confirmarse (commit).
+     *
+     * @param address   dirección textual a geocodificar (si geocodeCoordinates)
+     * @param latitude  coordenadas actuales de la alerta (null si aún no tiene)
+     * @param geocodeCoordinates   la alerta llegó sin coordenadas
+     * @param resolveLocation      la alerta llegó sin dirección textual
+     * @param resolveMunicipality  la alerta quedó sin municipio
+     */
+    public void enqueue(Long alertId, String address, Double latitude, Double longitude,
+                        boolean geocodeCoordinates, boolean resolveLocation, boolean resolveMunicipality) {
+
+        boolean needsNetwork = geocodeCoordinates || (reverseGeocodingEnabled && (resolveLocation || resolveMunicipality));
+        if (!needsNetwork) {
+            return;
+        }
+
+        EnrichmentTask task = new EnrichmentTask(alertId, address, latitude, longitude,
+                geocodeCoordinates, resolveLocation, resolveMunicipality);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(task);
+                }
+            });
+        } else {
+            offer(task);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void offer(EnrichmentTask task) {
+        if (!queue.offer(task)) {
+            log.warn("Cola de enriquecimiento llena ({}), se descarta la alerta {}", queueCapacity, task.alertId());
+        }
+    }
+
+    private void processQueue() {
+        while (running) {
+            try {
+                EnrichmentTask task = queue.take();
+                enrich(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error en el enriquecimiento de ubicación: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void enrich(EnrichmentTask task) {
+        Double lat = task.latitude();
+        Double lon = task.longitude();
+        Double replacedLat = lat;
+        Double replacedLon = lon;
+        Double resolvedLat = null;
+        Double resolvedLon = null;
+
+        if (task.geocodeCoordinates()) {
+            double[] coords = geocodingService.geocodeAddress(task.address());
+            if (coords.length != 2) {
+                log.warn("No se pudo geocodificar '{}' para la alerta {}", task.address(), task.alertId());
+                return;
+            }
+            lat = resolvedLat = coords[0];
+            lon = resolvedLon = coords[1];
+            log.info("Geocodificada ubicación '{}' -> {}, {}", task.address(), lat, lon);
+        }
+
+        if (lat == null || lon == null) {
+            return;
+        }
+
+        String municipality = null;
+        if (task.resolveMunicipality() || task.geocodeCoordinates()) {
+            municipality = gazetteerService.resolveMunicipality(lat, lon);
+        }
+
+        String location = null;
+        if (reverseGeocodingEnabled && (task.resolveLocation() || (task.resolveMunicipality() && municipality == null))) {
+            ReverseGeocodeResult reverse = geocodingService.reverseGeocode(lat, lon);
+            if (reverse != null) {
+                if (task.resolveLocation()) {
+                    location = reverse.location();
+                }
+                if (municipality == null) {
+                    municipality = reverse.municipality();
+                }
+            }
+        }
+
+        if (resolvedLat == null && location == null && municipality == null) {
+            return;
+        }
+
+        eventPublisher.publishEvent(new AlertLocationEnrichedEvent(
+                task.alertId(), resolvedLat, resolvedLon, replacedLat, replacedLon, location, municipality));
+    }
+
+    private record EnrichmentTask(
+            Long alertId,
+            String address,
+            Double latitude,
+            Double longitude,
+            boolean geocodeCoordinates,
+            boolean resolveLocation,
+            boolean resolveMunicipality
+    ) {
+    }
+}
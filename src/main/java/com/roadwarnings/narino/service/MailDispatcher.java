@@ -0,0 +1,239 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboundEmail;
+import com.roadwarnings.narino.enums.EmailStatus;
+import com.roadwarnings.narino.event.EmailQueuedEvent;
+import com.roadwarnings.narino.repository.OutboundEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Envía la cola de emails (outbound_emails) en el pool mailExecutor.
+ * Cada worker toma un lote y lo manda por una sola conexión SMTP; los fallos
+ * se reintentan con backoff exponencial. El poller (MailQueueScheduler) recoge
+ * los reintentos y lo que no se pudo encolar tras el commit.
+ */
+@Service
+@Slf4j
+public class MailDispatcher {
+
+    private static final String DEFAULT_FROM = "noreply@roadwarnings.com";
+
+    private final OutboundEmailRepository outboundEmailRepository;
+    private final JavaMailSender mailSender;
+    private final TaskExecutor mailExecutor;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    @Value("${spring.mail.username:" + DEFAULT_FROM + "}")
+    private String fromEmail;
+
+    @Value("${mail.queue.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.queue.poll.batch-limit:500}")
+    private int pollLimit;
+
+    @Value("${mail.queue.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${mail.queue.retry.base-delay-seconds:60}")
+    private long baseDelaySeconds;
+
+    @Value("${mail.queue.processing-timeout-minutes:5}")
+    private long processingTimeoutMinutes;
+
+    public MailDispatcher(
+            OutboundEmailRepository outboundEmailRepository,
+            @Autowired(required = false) JavaMailSender mailSender,
+            @Qualifier("mailExecutor") TaskExecutor mailExecutor,
+            MeterRegistry meterRegistry
+    ) {
+        this.outboundEmailRepository = outboundEmailRepository;
+        this.mailSender = mailSender;
+        this.mailExecutor = mailExecutor;
+        this.sentCounter = meterRegistry.counter("mail.queue.messages", "outcome", "sent");
+        this.retriedCounter = meterRegistry.counter("mail.queue.messages", "outcome", "retried");
+        this.failedCounter = meterRegistry.counter("mail.queue.messages", "outcome", "failed");
+        if (mailSender == null) {
+            log.warn("JavaMailSender no configurado. Los emails en cola no serán enviados.");
+        }
+    }
+
+    /**
+     * Tras el commit de quien encoló: una sola pasada de drenado a la vez
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        if (!drainRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mailExecutor.execute(() -> {
+                drainRequested.set(false);
+                dispatchPending();
+            });
+        } catch (TaskRejectedException e) {
+            // Quedan PENDING: los recoge el siguiente ciclo del poller
+            drainRequested.set(false);
+            log.warn("Pool de emails saturado, {} emails diferidos", event.count());
+        }
+    }
+
+    /**
+     * Reparte los emails vencidos en lotes y los encola en el pool
+     */
+    public int dispatchPending() {
+        int released = outboundEmailRepository.releaseStale(
+                LocalDateTime.now().minusMinutes(processingTimeoutMinutes));
+        if (released > 0) {
+            log.warn("{} emails liberados tras quedar bloqueados en SENDING", released);
+        }
+
+        List<Long> dueIds = outboundEmailRepository.findDueIds(
+                EmailStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, pollLimit));
+
+        int submitted = 0;
+        for (int from = 0; from < dueIds.size(); from += batchSize) {
+            List<Long> batch = List.copyOf(dueIds.subList(from, Math.min(from + batchSize, dueIds.size())));
+            try {
+                mailExecutor.execute(() -> sendBatch(batch));
+                submitted += batch.size();
+            } catch (TaskRejectedException e) {
+                log.warn("Pool de emails saturado, {} emails diferidos", dueIds.size() - submitted);
+                break;
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * Toma el lote y lo envía por una sola conexión SMTP
+     */
+    void sendBatch(List<Long> ids) {
+        String token = UUID.randomUUID().toString();
+        if (outboundEmailRepository.claim(ids, token, LocalDateTime.now()) == 0) {
+            return; // Otro worker los tomó o ya fueron enviados
+        }
+
+        List<OutboundEmail> emails = outboundEmailRepository.findByClaimToken(token);
+        if (emails.isEmpty()) {
+            return;
+        }
+
+        if (mailSender == null) {
+            emails.forEach(email -> fail(email, "JavaMailSender no configurado", true));
+            outboundEmailRepository.saveAll(emails);
+            return;
+        }
+
+        Map<MimeMessage, OutboundEmail> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        for (OutboundEmail email : emails) {
+            try {
+                MimeMessage message = toMimeMessage(email);
+                byMessage.put(message, email);
+                messages.add(message);
+            } catch (MessagingException e) {
+                // Dirección o contenido inválido: no tiene sentido reintentar
+                fail(email, e.getMessage(), true);
+            }
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+                if (failures.isEmpty()) {
+                    // Falló la conexión: ningún mensaje salió
+                    failures = allFailed(messages, e);
+                }
+            } catch (MailException e) {
+                failures = allFailed(messages, e);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (MimeMessage message : messages) {
+            OutboundEmail email = byMessage.get(message);
+            Exception error = failures.get(message);
+            if (error == null) {
+                email.setStatus(EmailStatus.SENT);
+                email.setSentAt(now);
+                email.setLockedAt(null);
+                email.setLastError(null);
+                sentCounter.increment();
+            } else {
+                log.warn("Error al enviar email {} a {} (intento {}): {}",
+                        email.getId(), email.getRecipient(), email.getAttempts(), error.getMessage());
+                fail(email, error.getMessage(), false);
+            }
+        }
+
+        outboundEmailRepository.saveAll(emails);
+        log.info("Lote de {} emails procesado ({} con error)", emails.size(), failures.size());
+    }
+
+    private MimeMessage toMimeMessage(OutboundEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom(fromEmail == null || fromEmail.isBlank() ? DEFAULT_FROM : fromEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), Boolean.TRUE.equals(email.getHtml()));
+        return message;
+    }
+
+    private static Map<Object, Exception> allFailed(List<MimeMessage> messages, Exception error) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.forEach(message -> failures.put(message, error));
+        return failures;
+    }
+
+    private void fail(OutboundEmail email, String error, boolean permanent) {
+        email.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        email.setLockedAt(null);
+
+        if (permanent || email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            failedCounter.increment();
+            log.error("Email {} a {} marcado como FAILED tras {} intentos",
+                    email.getId(), email.getRecipient(), email.getAttempts());
+        } else {
+            // Backoff exponencial: base, 2x base, 4x base...
+            long delay = baseDelaySeconds * (1L << Math.min(email.getAttempts() - 1, 10));
+            email.setStatus(EmailStatus.PENDING);
+            email.setNextAttemptAt(LocalDateTime.now().plusSeconds(delay));
+            retriedCounter.increment();
+        }
+    }
+}
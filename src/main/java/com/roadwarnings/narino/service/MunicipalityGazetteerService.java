@@ -0,0 +1,162 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gazetteer offline de los municipios de Nariño.
+ * Resuelve el municipio de un punto (lat, lon) en memoria, sin llamadas de red,
+ * usando un índice de polígonos con prefiltro por bounding box.
+ * Las celdas municipales son una aproximación que solo está acotada por el bounding box
+ * del departamento; el contorno ("outline") descarta antes los puntos de Ecuador, Cauca,
+ * Putumayo o el mar que caen dentro de ese rectángulo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MunicipalityGazetteerService {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${geocoding.gazetteer.file:geo/narino-municipios.json}")
+    private String gazetteerFile;
+
+    private volatile List<MunicipalityPolygon> polygons = List.of();
+    private volatile MunicipalityPolygon outline;
+    private volatile List<double[]> seats = List.of();
+
+    @PostConstruct
+    public void load() {
+        try (InputStream in = new ClassPathResource(gazetteerFile).getInputStream()) {
+            JsonNode root = objectMapper.readTree(in);
+            List<MunicipalityPolygon> loaded = new ArrayList<>();
+            List<double[]> loadedSeats = new ArrayList<>();
+
+            for (JsonNode municipality : root.path("municipalities")) {
+                JsonNode seat = municipality.path("seat");
+                if (seat.size() == 2) {
+                    loadedSeats.add(new double[]{seat.get(1).asDouble(), seat.get(0).asDouble()});
+                }
+
+                MunicipalityPolygon polygon = toPolygon(municipality.path("name").asText(), municipality.path("ring"));
+                if (polygon != null) {
+                    loaded.add(polygon);
+                }
+            }
+
+            polygons = List.copyOf(loaded);
+            seats = List.copyOf(loadedSeats);
+            // Opcional: con polígonos oficiales el contorno del departamento ya no hace falta
+            outline = toPolygon(root.path("department").asText(), root.path("outline"));
+            log.info("Gazetteer de municipios cargado: {} polígonos desde {} (contorno: {})",
+                    polygons.size(), gazetteerFile, outline != null ? "sí" : "no");
+
+        } catch (Exception e) {
+            log.error("No se pudo cargar el gazetteer de municipios '{}': {}", gazetteerFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve el municipio que contiene el punto, o null si está fuera de Nariño.
+     */
+    public String resolveMunicipality(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+
+        double lat = latitude;
+        double lon = longitude;
+
+        MunicipalityPolygon department = outline;
+        if (department != null && !(department.boundingBoxContains(lat, lon) && department.contains(lat, lon))) {
+            return null;
+        }
+
+        for (MunicipalityPolygon polygon : polygons) {
+            if (polygon.boundingBoxContains(lat, lon) && polygon.contains(lat, lon)) {
+                return polygon.name();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Coordenadas [lat, lon] de las cabeceras municipales (nodos de la red vial)
+     */
+    public List<double[]> getSeatCoordinates() {
+        return seats;
+    }
+
+    public int size() {
+        return polygons.size();
+    }
+
+    /**
+     * Construye un polígono a partir de un anillo [[lon, lat], ...]; null si no tiene al menos 3 vértices
+     */
+    private static MunicipalityPolygon toPolygon(String name, JsonNode ring) {
+        int size = ring.size();
+        if (size < 3) {
+            return null;
+        }
+
+        double[] lons = new double[size];
+        double[] lats = new double[size];
+        for (int i = 0; i < size; i++) {
+            lons[i] = ring.get(i).get(0).asDouble();
+            lats[i] = ring.get(i).get(1).asDouble();
+        }
+        return new MunicipalityPolygon(name, lats, lons);
+    }
+
+    /**
+     * Polígono de un municipio con su bounding box precalculado.
+     */
+    private record MunicipalityPolygon(String name, double[] lats, double[] lons,
+                                       double minLat, double maxLat, double minLon, double maxLon) {
+
+        MunicipalityPolygon(String name, double[] lats, double[] lons) {
+            this(name, lats, lons, min(lats), max(lats), min(lons), max(lons));
+        }
+
+        boolean boundingBoxContains(double lat, double lon) {
+            return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+        }
+
+        /**
+         * Ray casting: cuenta cruces de un rayo horizontal con los bordes del anillo
+         */
+        boolean contains(double lat, double lon) {
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lon < (lons[j] - lons[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        private static double min(double[] values) {
+            double result = Double.MAX_VALUE;
+            for (double v : values) result = Math.min(result, v);
+            return result;
+        }
+
+        private static double max(double[] values) {
+            double result = -Double.MAX_VALUE;
+            for (double v : values) result = Math.max(result, v);
+            return result;
+        }
+    }
+}
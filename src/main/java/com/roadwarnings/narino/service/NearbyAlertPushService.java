@@ -0,0 +1,88 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+
+/**
+ * Push de alertas nuevas a /user/queue/nearby-alerts de los usuarios conectados
+ * cuya última posición (NearbyUserIndex) está dentro de su radio. El trabajo por
+ * alerta es proporcional a los usuarios que coinciden, no a los conectados.
+ * <p>
+ * Con varias instancias (websocket.cluster.mode=redis o relay) cada una solo indexa
+ * sus propias sesiones: la alerta se reparte por el ClusterMessageBus (Redis, necesario
+ * también con el relay) y cada instancia busca en su índice y envía a sus usuarios.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NearbyAlertPushService {
+
+    private final NearbyUserIndex nearbyUserIndex;
+    private final WebSocketService webSocketService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ClusterMessageBus> clusterMessageBus;
+
+    @Value("${websocket.nearby.enabled:true}")
+    private boolean enabled;
+
+    @Value("${websocket.nearby.channel:websocket:nearby-alerts}")
+    private String channel;
+
+    @PostConstruct
+    public void init() {
+        clusterMessageBus.ifAvailable(bus -> bus.subscribe(channel, this::onClusterAlert));
+    }
+
+    public void onNewAlert(AlertaResponseDTO alert) {
+        if (!enabled || alert.getLatitude() == null || alert.getLongitude() == null) {
+            return;
+        }
+
+        ClusterMessageBus bus = clusterMessageBus.getIfAvailable();
+        if (bus == null) {
+            pushToNearbyUsers(alert);
+            return;
+        }
+
+        // El bus también entrega el mensaje a esta instancia
+        try {
+            bus.publish(channel, objectMapper.writeValueAsString(alert));
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo publicar la alerta {} para push cercano: {}", alert.getId(), e.getMessage());
+            pushToNearbyUsers(alert);
+        }
+    }
+
+    int pushToNearbyUsers(AlertaResponseDTO alert) {
+        Set<String> users = nearbyUserIndex.findUsers(alert.getLatitude(), alert.getLongitude());
+        int pushed = 0;
+        for (String username : users) {
+            if (username.equals(alert.getUsername())) {
+                continue; // El autor ya conoce su alerta
+            }
+            webSocketService.sendNearbyAlertsToUser(username, alert);
+            pushed++;
+        }
+        if (pushed > 0) {
+            log.debug("Alerta {} enviada a {} usuarios cercanos", alert.getId(), pushed);
+        }
+        return pushed;
+    }
+
+    private void onClusterAlert(String json) {
+        try {
+            pushToNearbyUsers(objectMapper.readValue(json, AlertaResponseDTO.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Alerta inválida en el canal {}: {}", channel, e.getMessage());
+        }
+    }
+}
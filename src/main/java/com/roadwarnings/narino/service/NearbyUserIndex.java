@@ -0,0 +1,203 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.util.Geohash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice espacial en memoria de las sesiones WebSocket que reportan su posición
+ * (/app/location): celda geohash → sesiones cuyo radio alcanza la celda. Una alerta
+ * nueva resuelve sus destinatarios con una búsqueda por su celda y una verificación
+ * exacta de distancia sobre las pocas sesiones candidatas.
+ * <p>
+ * Las sesiones salen del índice al desconectarse o si dejan de reportar posición.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NearbyUserIndex {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    @Value("${websocket.nearby.geohash-precision:5}")
+    private int precision;
+
+    @Value("${websocket.nearby.default-radius-km:5.0}")
+    private double defaultRadiusKm;
+
+    @Value("${websocket.nearby.max-radius-km:20.0}")
+    private double maxRadiusKm;
+
+    @Value("${websocket.nearby.min-move-meters:200}")
+    private double minMoveMeters;
+
+    @Value("${websocket.nearby.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private final Map<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionsByCell = new ConcurrentHashMap<>();
+
+    /**
+     * Registra o mueve la posición de una sesión. Desplazamientos menores a
+     * min-move-meters con el mismo radio no recalculan las celdas.
+     */
+    public void update(String sessionId, String username, Double latitude, Double longitude, Double radiusKm) {
+        if (sessionId == null || !isValid(latitude, longitude)) {
+            log.debug("Ubicación inválida de la sesión {} ignorada", sessionId);
+            return;
+        }
+
+        double radius = radiusKm != null && radiusKm > 0 ? Math.min(radiusKm, maxRadiusKm) : defaultRadiusKm;
+        long now = System.currentTimeMillis();
+
+        TrackedSession previous = sessions.get(sessionId);
+        if (previous != null && previous.radiusKm == radius && previous.username.equals(username)
+                && haversineKm(previous.anchorLat, previous.anchorLon, latitude, longitude) * 1000 < minMoveMeters) {
+            // Sin resucitar una sesión que se desconectó entre tanto
+            sessions.computeIfPresent(sessionId, (id, current) ->
+                    current == previous ? previous.moveTo(latitude, longitude, now) : current);
+            return;
+        }
+
+        TrackedSession tracked = new TrackedSession(username, latitude, longitude, latitude, longitude, radius,
+                coveredCells(latitude, longitude, radius), now);
+        synchronized (this) {
+            TrackedSession replaced = sessions.put(sessionId, tracked);
+            if (replaced != null) {
+                unindex(sessionId, replaced.cells);
+            }
+            for (String cell : tracked.cells) {
+                sessionsByCell.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            }
+        }
+    }
+
+    public synchronized void remove(String sessionId) {
+        TrackedSession removed = sessions.remove(sessionId);
+        if (removed != null) {
+            unindex(sessionId, removed.cells);
+        }
+    }
+
+    /**
+     * Usuarios (sin repetir) con alguna sesión cuyo radio incluye la ubicación
+     */
+    public Set<String> findUsers(double latitude, double longitude) {
+        Set<String> candidates = sessionsByCell.get(Geohash.encode(latitude, longitude, precision));
+        if (candidates == null || candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<String> users = new LinkedHashSet<>();
+        for (String sessionId : candidates) {
+            TrackedSession tracked = sessions.get(sessionId);
+            if (tracked != null && haversineKm(tracked.latitude, tracked.longitude, latitude, longitude) <= tracked.radiusKm) {
+                users.add(tracked.username);
+            }
+        }
+        return users;
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        remove(event.getSessionId());
+    }
+
+    @Scheduled(fixedDelayString = "${websocket.nearby.evict-interval-ms:300000}")
+    public void evictStale() {
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        int evicted = 0;
+        for (Map.Entry<String, TrackedSession> entry : sessions.entrySet()) {
+            if (entry.getValue().updatedAt < cutoff) {
+                remove(entry.getKey());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("{} ubicaciones WebSocket sin actualizar eliminadas del índice", evicted);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void unindex(String sessionId, Set<String> cells) {
+        for (String cell : cells) {
+            sessionsByCell.computeIfPresent(cell, (c, ids) -> {
+                ids.remove(sessionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Celdas cuyo centro está a menos de (radio + desplazamiento tolerado + media
+     * diagonal de celda) de la posición: cualquier punto dentro del radio cae en alguna
+     */
+    private Set<String> coveredCells(double latitude, double longitude, double radiusKm) {
+        double cellHeight = Geohash.cellHeight(precision);
+        double cellWidth = Geohash.cellWidth(precision);
+        double reachKm = radiusKm + minMoveMeters / 1000;
+
+        double latMargin = reachKm / KM_PER_DEGREE;
+        double lonMargin = reachKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        double halfDiagonalKm = Math.hypot(cellHeight * KM_PER_DEGREE,
+                cellWidth * KM_PER_DEGREE * Math.cos(Math.toRadians(latitude))) / 2;
+
+        Set<String> cells = new HashSet<>();
+        for (double lat = snap(latitude - latMargin, cellHeight, 90); lat <= latitude + latMargin + cellHeight; lat += cellHeight) {
+            for (double lon = snap(longitude - lonMargin, cellWidth, 180); lon <= longitude + lonMargin + cellWidth; lon += cellWidth) {
+                if (haversineKm(latitude, longitude, lat, lon) <= reachKm + halfDiagonalKm) {
+                    cells.add(Geohash.encode(lat, lon, precision));
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Centro de la celda que contiene la coordenada
+     */
+    private static double snap(double value, double size, double offset) {
+        return (Math.floor((value + offset) / size) + 0.5) * size - offset;
+    }
+
+    private static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Última posición de una sesión. anchorLat/anchorLon es la posición con la que
+     * se calcularon sus celdas.
+     */
+    private record TrackedSession(String username, double latitude, double longitude,
+                                  double anchorLat, double anchorLon, double radiusKm,
+                                  Set<String> cells, long updatedAt) {
+
+        TrackedSession moveTo(double newLatitude, double newLongitude, long now) {
+            return new TrackedSession(username, newLatitude, newLongitude, anchorLat, anchorLon, radiusKm, cells, now);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.entity.GeocodeCacheEntry;
+import com.roadwarnings.narino.enums.ExternalDependency;
+import com.roadwarnings.narino.repository.GeocodeCacheRepository;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Cliente de Nominatim (OpenStreetMap) para geocodificación directa e inversa.
+ * Respeta la cuota del proveedor con un rate limiter y guarda los resultados
+ * en una caché persistente (tabla geocode_cache).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NominatimGeocodingService {
+
+    private static final String SEARCH_URL = "https://nominatim.openstreetmap.org/search";
+    private static final String REVERSE_URL = "https://nominatim.openstreetmap.org/reverse";
+    private static final String USER_AGENT = "roadwarnings-narino/1.0";
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final GeocodeCacheRepository cacheRepository;
+    private final ExternalCallGuard externalCallGuard;
+
+    @Value("${geocoding.nominatim.requests-per-second:1}")
+    private int requestsPerSecond;
+
+    @Value("${geocoding.cache.ttl-days:30}")
+    private int cacheTtlDays;
+
+    private Bucket rateLimiter;
+
+    @PostConstruct
+    void initRateLimiter() {
+        rateLimiter = Bucket.builder()
+                .addLimit(Bandwidth.classic(requestsPerSecond,
+                        Refill.intervally(requestsPerSecond, Duration.ofSeconds(1))))
+                .build();
+    }
+
+    /**
+     * Geocodifica una dirección.
+     * Devuelve [lat, lon] o array vacío si no hay resultado.
+     */
+    public double[] geocodeAddress(String address) {
+        String key = "fwd:" + address.trim().toLowerCase(Locale.ROOT);
+
+        Optional<GeocodeCacheEntry> cached = findFresh(key);
+        if (cached.isPresent()) {
+            GeocodeCacheEntry entry = cached.get();
+            return Boolean.TRUE.equals(entry.getFound())
+                    ? new double[]{entry.getLatitude(), entry.getLongitude()}
+                    : new double[0];
+        }
+
+        String url = UriComponentsBuilder
+                .fromHttpUrl(SEARCH_URL)
+                .queryParam("format", "json")
+                .queryParam("limit", 1)
+                .queryParam("q", address)
+                .toUriString();
+
+        try {
+            String body = fetch(url);
+            if (body == null) {
+                return new double[0];
+            }
+
+            JsonNode root = objectMapper.readTree(body);
+            if (root.isArray() && root.size() > 0) {
+                JsonNode first = root.get(0);
+                double lat = first.get("lat").asDouble();
+                double lon = first.get("lon").asDouble();
+                store(key, GeocodeCacheEntry.builder().latitude(lat).longitude(lon).found(true));
+                return new double[]{lat, lon};
+            }
+
+            log.warn("Nominatim no encontró resultados para '{}'", address);
+            store(key, GeocodeCacheEntry.builder().found(false));
+            return new double[0];
+
+        } catch (Exception e) {
+            log.error("Error geocodificando dirección '{}': {}", address, e.getMessage());
+            return new double[0];
+        }
+    }
+
+    /**
+     * Reverse geocoding de una coordenada.
+     * Devuelve null si no hay resultado.
+     */
+    public ReverseGeocodeResult reverseGeocode(double latitude, double longitude) {
+        // ~11 m de precisión: suficiente para reutilizar resultados de puntos vecinos
+        String key = String.format(Locale.ROOT, "rev:%.4f,%.4f", latitude, longitude);
+
+        Optional<GeocodeCacheEntry> cached = findFresh(key);
+        if (cached.isPresent()) {
+            GeocodeCacheEntry entry = cached.get();
+            return Boolean.TRUE.equals(entry.getFound())
+                    ? new ReverseGeocodeResult(entry.getLocation(), entry.getMunicipality())
+                    : null;
+        }
+
+        String url = UriComponentsBuilder
+                .fromHttpUrl(REVERSE_URL)
+                .queryParam("format", "json")
+                .queryParam("lat", latitude)
+                .queryParam("lon", longitude)
+                .queryParam("zoom", 14)
+                .queryParam("addressdetails", 1)
+                .toUriString();
+
+        try {
+            String body = fetch(url);
+            if (body == null) {
+                return null;
+            }
+
+            JsonNode root = objectMapper.readTree(body);
+
+            String displayName = root.hasNonNull("display_name") ? root.get("display_name").asText() : null;
+            String municipality = null;
+
+            if (root.has("address")) {
+                JsonNode addr = root.get("address");
+                if (addr.hasNonNull("city")) {
+                    municipality = addr.get("city").asText();
+                } else if (addr.hasNonNull("town")) {
+                    municipality = addr.get("town").asText();
+                } else if (addr.hasNonNull("village")) {
+                    municipality = addr.get("village").asText();
+                } else if (addr.hasNonNull("municipality")) {
+                    municipality = addr.get("municipality").asText();
+                } else if (addr.hasNonNull("county")) {
+                    municipality = addr.get("county").asText();
+                }
+            }
+
+            if (displayName == null && municipality == null) {
+                store(key, GeocodeCacheEntry.builder().found(false));
+                return null;
+            }
+
+            store(key, GeocodeCacheEntry.builder()
+                    .latitude(latitude)
+                    .longitude(longitude)
+                    .location(displayName)
+                    .municipality(municipality)
+                    .found(true));
+            return new ReverseGeocodeResult(displayName, municipality);
+
+        } catch (Exception e) {
+            log.error("Error en reverse geocoding para {}, {}: {}", latitude, longitude, e.getMessage());
+            return null;
+        }
+    }
+
+    // ==== Helpers ====
+
+    /**
+     * Ejecuta la petición respetando la cuota del proveedor (bloquea hasta tener permiso).
+     */
+    private String fetch(String url) throws InterruptedException {
+        rateLimiter.asBlocking().consume(1);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("User-Agent", USER_AGENT);
+
+        // Fallback: sin respuesta se omite el enriquecimiento (no se guarda en caché)
+        return externalCallGuard.execute(ExternalDependency.NOMINATIM, () -> {
+            ResponseEntity<String> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    String.class
+            );
+
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new IllegalStateException("Nominatim respondió con código no exitoso: " + response.getStatusCode());
+            }
+            return response.getBody();
+        }, e -> null);
+    }
+
+    private Optional<GeocodeCacheEntry> findFresh(String key) {
+        return cacheRepository.findByCacheKey(key)
+                .filter(entry -> !entry.isExpired(cacheTtlDays));
+    }
+
+    private void store(String key, GeocodeCacheEntry.GeocodeCacheEntryBuilder builder) {
+        try {
+            GeocodeCacheEntry entry = builder.cacheKey(key).build();
+            // Reemplaza la entrada expirada si existe
+            cacheRepository.findByCacheKey(key).ifPresent(existing -> entry.setId(existing.getId()));
+            cacheRepository.save(entry);
+        } catch (Exception e) {
+            log.warn("No se pudo guardar en caché de geocodificación '{}': {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.enums.NotificationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Agrupa por usuario las alertas de rutas favoritas (notificación en app + push).
+ * La primera alerta de un usuario sale al momento y abre una ventana; las que llegan
+ * dentro de la ventana se entregan juntas en un solo resumen al cerrarla. Las alertas
+ * CRITICAL no esperan nunca.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDigestService {
+
+    private static final int DIGEST_PREVIEW_LINES = 5;
+
+    private final NotificationService notificationService;
+    private final PushNotificationService pushNotificationService;
+
+    @Value("${notifications.digest.window-ms:60000}")
+    private long windowMs;
+
+    private final Map<Long, DigestWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Alerta en una ruta favorita, pendiente de entregar a un usuario
+     */
+    public record RouteAlert(Long userId, Long alertId, Long routeId, String routeName,
+                             String alertTitle, String summary, boolean critical) {
+    }
+
+    /**
+     * Entrega ahora lo que no tiene ventana abierta (o es CRITICAL) y acumula el resto
+     */
+    public void submit(List<RouteAlert> alerts) {
+        long now = System.currentTimeMillis();
+        List<RouteAlert> immediate = new ArrayList<>();
+
+        for (RouteAlert alert : alerts) {
+            if (windowMs <= 0 || alert.critical()) {
+                immediate.add(alert);
+                continue;
+            }
+
+            boolean[] opened = {false};
+            windows.compute(alert.userId(), (userId, window) -> {
+                if (window == null) {
+                    opened[0] = true;
+                    DigestWindow opening = new DigestWindow(now + windowMs);
+                    opening.delivered.add(alert.alertId());
+                    return opening;
+                }
+                // Un reintento de la misma alerta no se vuelve a entregar
+                if (!window.delivered.contains(alert.alertId())) {
+                    window.pending.putIfAbsent(alert.alertId(), alert);
+                }
+                return window;
+            });
+            if (opened[0]) {
+                immediate.add(alert);
+            }
+        }
+
+        deliverSingles(immediate);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.digest.flush-interval-ms:5000}")
+    public void flushDue() {
+        flush(System.currentTimeMillis());
+    }
+
+    /**
+     * Cierra las ventanas vencidas. Si acumularon alertas se envía el resumen y la
+     * ventana se reabre, de modo que un usuario recibe como mucho un aviso por ventana.
+     */
+    void flush(long now) {
+        List<RouteAlert> singles = new ArrayList<>();
+        Map<Long, List<RouteAlert>> digests = new HashMap<>();
+
+        for (Long userId : List.copyOf(windows.keySet())) {
+            windows.computeIfPresent(userId, (id, window) -> {
+                if (window.closesAt > now) {
+                    return window;
+                }
+                if (window.pending.isEmpty()) {
+                    return null;
+                }
+                List<RouteAlert> pending = List.copyOf(window.pending.values());
+                if (pending.size() == 1) {
+                    singles.add(pending.get(0));
+                } else {
+                    digests.put(id, pending);
+                }
+                DigestWindow reopened = new DigestWindow(now + windowMs);
+                reopened.delivered.addAll(window.pending.keySet());
+                return reopened;
+            });
+        }
+
+        deliverSingles(singles);
+        deliverDigests(digests);
+    }
+
+    public int getOpenWindows() {
+        return windows.size();
+    }
+
+    private void deliverSingles(List<RouteAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        notificationService.createNotifications(alerts.stream()
+                .map(alert -> new NotificationService.NotificationDraft(
+                        alert.userId(),
+                        NotificationType.ROUTE_ALERT,
+                        "Alerta en tu ruta: " + alert.routeName(),
+                        alert.summary(),
+                        alert.alertId()))
+                .toList());
+
+        // Un envío por alerta y ruta, no uno por usuario
+        Map<String, List<RouteAlert>> byRoute = alerts.stream()
+                .collect(Collectors.groupingBy(a -> a.alertId() + ":" + a.routeId() + ":" + a.routeName(),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        for (List<RouteAlert> group : byRoute.values()) {
+            RouteAlert first = group.get(0);
+
+            Map<String, String> data = new HashMap<>();
+            data.put("alertId", first.alertId().toString());
+            data.put("routeId", first.routeId().toString());
+            data.put("type", "ALERT_NEARBY_ROUTE");
+
+            pushNotificationService.sendNotificationToUsers(
+                    group.stream().map(RouteAlert::userId).toList(),
+                    "⚠️ Nueva alerta en tu ruta",
+                    String.format("%s cerca de %s", first.alertTitle(), first.routeName()),
+                    data);
+        }
+    }
+
+    private void deliverDigests(Map<Long, List<RouteAlert>> digests) {
+        if (digests.isEmpty()) {
+            return;
+        }
+
+        List<NotificationService.NotificationDraft> drafts = new ArrayList<>(digests.size());
+        digests.forEach((userId, alerts) -> {
+            String title = alerts.size() + " alertas nuevas en tus rutas";
+            RouteAlert latest = alerts.get(alerts.size() - 1);
+
+            drafts.add(new NotificationService.NotificationDraft(
+                    userId,
+                    NotificationType.ROUTE_ALERT,
+                    title,
+                    preview(alerts, a -> a.summary() + " (" + a.routeName() + ")", "\n"),
+                    latest.alertId()));
+
+            Map<String, String> data = new HashMap<>();
+            data.put("alertIds", alerts.stream().map(a -> a.alertId().toString()).collect(Collectors.joining(",")));
+            data.put("type", "ROUTE_ALERT_DIGEST");
+
+            pushNotificationService.sendNotificationToUsers(
+                    List.of(userId),
+                    "⚠️ " + title,
+                    preview(alerts, RouteAlert::alertTitle, ", "),
+                    data);
+        });
+
+        notificationService.createNotifications(drafts);
+        log.info("Resúmenes de alertas enviados a {} usuarios", digests.size());
+    }
+
+    private static String preview(List<RouteAlert> alerts, Function<RouteAlert, String> line,
+                                  String separator) {
+        String text = alerts.stream()
+                .limit(DIGEST_PREVIEW_LINES)
+                .map(line)
+                .collect(Collectors.joining(separator));
+        int remaining = alerts.size() - DIGEST_PREVIEW_LINES;
+        return remaining > 0 ? text + separator + "y " + remaining + " más" : text;
+    }
+
+    /**
+     * Ventana abierta de un usuario: alertas ya entregadas y las acumuladas
+     */
+    private static final class DigestWindow {
+        private final long closesAt;
+        private final Set<Long> delivered = new HashSet<>();
+        private final Map<Long, RouteAlert> pending = new LinkedHashMap<>();
+
+        private DigestWindow(long closesAt) {
+            this.closesAt = closesAt;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.roadwarnings.narino.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retención de notificaciones: mueve a notifications_archive las leídas antiguas y
+ * el exceso sobre el tope por usuario, en bloques de una sentencia cada uno
+ * (DELETE ... RETURNING + INSERT), para que las consultas por usuario trabajen
+ * sobre un conjunto pequeño.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    private static final String ARCHIVE_COLUMNS =
+            "id, user_id, type, title, message, related_entity_id, is_read, created_at, read_at";
+
+    private static final String ARCHIVE_READ_SQL = """
+            WITH moved AS (
+                DELETE FROM notifications WHERE id IN (
+                    SELECT id FROM notifications
+                    WHERE is_read = true AND COALESCE(read_at, created_at) < ?
+                    ORDER BY id LIMIT ?)
+                RETURNING %1$s)
+            INSERT INTO notifications_archive (%1$s, archived_at)
+            SELECT %1$s, ? FROM moved""".formatted(ARCHIVE_COLUMNS);
+
+    // Las más antiguas por encima del tope de cada usuario, sean leídas o no
+    private static final String ARCHIVE_OVER_CAP_SQL = """
+            WITH excess AS (
+                SELECT id FROM (
+                    SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY created_at DESC, id DESC) AS rn
+                    FROM notifications
+                    WHERE user_id IN (SELECT user_id FROM notifications GROUP BY user_id HAVING COUNT(*) > ?)
+                ) ranked
+                WHERE rn > ?
+                LIMIT ?),
+            moved AS (
+                DELETE FROM notifications WHERE id IN (SELECT id FROM excess)
+                RETURNING %1$s)
+            INSERT INTO notifications_archive (%1$s, archived_at)
+            SELECT %1$s, ? FROM moved
+            RETURNING user_id, is_read""".formatted(ARCHIVE_COLUMNS);
+
+    private static final String PURGE_ARCHIVE_SQL = """
+            DELETE FROM notifications_archive WHERE id IN (
+                SELECT id FROM notifications_archive WHERE archived_at < ? LIMIT ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadCounterStore unreadCounterStore;
+
+    @Value("${notifications.retention.read-days:30}")
+    private int readRetentionDays;
+
+    @Value("${notifications.retention.per-user-cap:200}")
+    private int perUserCap;
+
+    @Value("${notifications.retention.archive-days:365}")
+    private int archiveRetentionDays;
+
+    @Value("${notifications.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${notifications.retention.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    /**
+     * Ejecuta las tres fases; cada bloque confirma por separado, así que un fallo
+     * a mitad de camino deja lo ya movido consistente y el resto para la siguiente ejecución
+     */
+    public void runRetention() {
+        int archivedRead = archiveReadNotifications(LocalDateTime.now().minusDays(readRetentionDays));
+        int archivedOverCap = enforcePerUserCap();
+        int purged = purgeArchive(LocalDateTime.now().minusDays(archiveRetentionDays));
+
+        log.info("Retención de notificaciones: {} leídas archivadas, {} por tope de usuario, {} purgadas del archivo",
+                archivedRead, archivedOverCap, purged);
+    }
+
+    /**
+     * Archiva las notificaciones leídas antes del corte
+     */
+    public int archiveReadNotifications(LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int total = 0;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int moved = jdbcTemplate.update(ARCHIVE_READ_SQL, before, chunkSize, Timestamp.valueOf(LocalDateTime.now()));
+            total += moved;
+            if (moved < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Deja a cada usuario con como máximo perUserCap notificaciones. Las no leídas
+     * archivadas se descuentan del contador de no leídas.
+     */
+    public int enforcePerUserCap() {
+        int total = 0;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Map<Long, Long> unreadRemoved = new HashMap<>();
+            int[] moved = {0};
+
+            jdbcTemplate.query(ARCHIVE_OVER_CAP_SQL, rs -> {
+                moved[0]++;
+                if (!rs.getBoolean("is_read")) {
+                    unreadRemoved.merge(rs.getLong("user_id"), 1L, Long::sum);
+                }
+            }, perUserCap, perUserCap, chunkSize, Timestamp.valueOf(LocalDateTime.now()));
+
+            unreadRemoved.forEach((userId, count) -> unreadCounterStore.increment(userId, -count));
+            total += moved[0];
+            if (moved[0] < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Elimina definitivamente lo archivado antes del corte
+     */
+    public int purgeArchive(LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        int total = 0;
+
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int deleted = jdbcTemplate.update(PURGE_ARCHIVE_SQL, before, chunkSize);
+            total += deleted;
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
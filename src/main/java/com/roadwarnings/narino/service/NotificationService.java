@@ -11,11 +11,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,9 +33,19 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadCounterStore unreadCounterStore;
+
+    private static final String INSERT_NOTIFICATION_SQL =
+            "INSERT INTO notifications (user_id, type, title, message, related_entity_id, is_read, created_at) VALUES ";
+
+    private static final String INSERT_NOTIFICATION_ROW = "(?, ?, ?, ?, ?, false, ?)";
+    private static final int INSERT_NOTIFICATION_COLUMNS = 6;
+
+    @Value("${notifications.insert.chunk-size:500}")
+    private int insertChunkSize;
 
     private static final String NOTIFICATION_NOT_FOUND = "Notificación no encontrada";
-    private static final String USER_NOT_FOUND = "Usuario no encontrado";
 
     public NotificationResponseDTO createNotification(
             Long userId,
@@ -36,8 +54,8 @@ public class NotificationService {
             String message,
             Long relatedEntityId) {
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+        // Referencia sin SELECT: la FK valida que el usuario exista
+        User user = userRepository.getReferenceById(userId);
 
         Notification notification = Notification.builder()
                 .user(user)
@@ -49,11 +67,53 @@ public class NotificationService {
                 .build();
 
         notification = notificationRepository.save(notification);
+        adjustUnreadCountAfterCommit(userId, 1);
         log.info("Notificación creada para usuario {}: {}", userId, title);
 
         return mapToResponseDTO(notification);
     }
 
+    /**
+     * Notificación pendiente de crear para un usuario (creación en lote)
+     */
+    public record NotificationDraft(Long userId, NotificationType type, String title, String message,
+                                    Long relatedEntityId) {
+    }
+
+    /**
+     * Crea muchas notificaciones con INSERT multi-fila (una sentencia por bloque),
+     * sin cargar los usuarios
+     */
+    public int createNotifications(List<NotificationDraft> drafts) {
+        if (drafts.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int chunkSize = Math.max(1, insertChunkSize);
+
+        for (int from = 0; from < drafts.size(); from += chunkSize) {
+            List<NotificationDraft> chunk = drafts.subList(from, Math.min(from + chunkSize, drafts.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * INSERT_NOTIFICATION_COLUMNS);
+            for (NotificationDraft draft : chunk) {
+                args.add(draft.userId());
+                args.add(draft.type().name());
+                args.add(draft.title());
+                args.add(draft.message());
+                args.add(draft.relatedEntityId());
+                args.add(now);
+            }
+            jdbcTemplate.update(insertSql(chunk.size()), args.toArray());
+        }
+
+        Map<Long, Long> perUser = drafts.stream()
+                .collect(Collectors.groupingBy(NotificationDraft::userId, Collectors.counting()));
+        perUser.forEach(this::adjustUnreadCountAfterCommit);
+
+        log.info("{} notificaciones creadas en lote", drafts.size());
+        return drafts.size();
+    }
+
     public List<NotificationResponseDTO> getUserNotifications(Long userId) {
         return notificationRepository.findByUserId(userId).stream()
                 .map(this::mapToResponseDTO)
@@ -76,24 +136,43 @@ public class NotificationService {
                 .map(this::mapToResponseDTO);
     }
 
+    /**
+     * Contador del badge: se sirve del UnreadCounterStore y solo cuenta en la BD
+     * cuando el usuario no tiene contador cacheado
+     */
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countUnreadByUserId(userId);
+        Long cached = unreadCounterStore.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Un cambio que confirme durante el COUNT invalida el valor y se vuelve a contar después
+        unreadCounterStore.beginInitialize(userId);
+        Long count = notificationRepository.countUnreadByUserId(userId);
+        unreadCounterStore.initialize(userId, count);
+        return count;
     }
 
     public NotificationResponseDTO markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceNotFoundException(NOTIFICATION_NOT_FOUND));
 
+        boolean wasUnread = !Boolean.TRUE.equals(notification.getIsRead());
         notification.setIsRead(true);
         notification.setReadAt(LocalDateTime.now());
         notification = notificationRepository.save(notification);
 
+        if (wasUnread) {
+            adjustUnreadCountAfterCommit(notification.getUser().getId(), -1);
+        }
+
         log.info("Notificación {} marcada como leída", notificationId);
         return mapToResponseDTO(notification);
     }
 
     public void markAllAsRead(Long userId) {
         notificationRepository.markAllAsReadByUserId(userId);
+        afterCommit(() -> unreadCounterStore.reset(userId));
         log.info("Todas las notificaciones del usuario {} marcadas como leídas", userId);
     }
 
@@ -106,6 +185,9 @@ public class NotificationService {
         }
 
         notificationRepository.delete(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            adjustUnreadCountAfterCommit(userId, -1);
+        }
         log.info("Notificación {} eliminada", notificationId);
     }
 
@@ -114,6 +196,38 @@ public class NotificationService {
         log.info("Notificaciones leídas del usuario {} eliminadas", userId);
     }
 
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_NOTIFICATION_SQL.length() + rows * (INSERT_NOTIFICATION_ROW.length() + 2))
+                .append(INSERT_NOTIFICATION_SQL);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(INSERT_NOTIFICATION_ROW);
+        }
+        return sql.toString();
+    }
+
+    private void adjustUnreadCountAfterCommit(Long userId, long delta) {
+        afterCommit(() -> unreadCounterStore.increment(userId, delta));
+    }
+
+    /**
+     * Los contadores se tocan solo si la transacción confirma; un rollback no los desvía
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     private NotificationResponseDTO mapToResponseDTO(Notification notification) {
         return NotificationResponseDTO.builder()
                 .id(notification.getId())
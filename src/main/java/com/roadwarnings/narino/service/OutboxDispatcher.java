@@ -0,0 +1,163 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboxEvent;
+import com.roadwarnings.narino.enums.OutboxStatus;
+import com.roadwarnings.narino.event.OutboxEventRecordedEvent;
+import com.roadwarnings.narino.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Despacha los eventos del outbox en el pool outboxExecutor.
+ * Cada evento se despacha justo después del commit que lo creó; el poller
+ * (OutboxPollingScheduler) recoge los reintentos y lo que no se pudo encolar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+
+    @Qualifier("outboxExecutor")
+    private final TaskExecutor outboxExecutor;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry.base-delay-seconds:30}")
+    private long baseDelaySeconds;
+
+    @Value("${outbox.poll.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.processing-timeout-minutes:5}")
+    private long processingTimeoutMinutes;
+
+    private Map<String, OutboxEventHandler> handlersByType;
+
+    @PostConstruct
+    public void init() {
+        handlersByType = handlers.stream()
+                .collect(Collectors.toMap(OutboxEventHandler::getEventType, Function.identity()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventRecorded(OutboxEventRecordedEvent event) {
+        submit(event.outboxEventId());
+    }
+
+    /**
+     * Encola los eventos pendientes cuyo reintento ya venció
+     */
+    public int dispatchPending() {
+        int released = outboxEventRepository.releaseStale(
+                LocalDateTime.now().minusMinutes(processingTimeoutMinutes));
+        if (released > 0) {
+            log.warn("{} eventos del outbox liberados tras quedar bloqueados en PROCESSING", released);
+        }
+
+        List<Long> dueIds = outboxEventRepository.findDueIds(
+                OutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+
+        int submitted = 0;
+        for (Long id : dueIds) {
+            if (!submit(id)) {
+                break;
+            }
+            submitted++;
+        }
+        return submitted;
+    }
+
+    private boolean submit(Long outboxEventId) {
+        try {
+            outboxExecutor.execute(() -> process(outboxEventId));
+            return true;
+        } catch (TaskRejectedException e) {
+            // Queda PENDING: lo recoge el siguiente ciclo del poller
+            log.warn("Pool del outbox saturado, evento {} diferido", outboxEventId);
+            return false;
+        }
+    }
+
+    /**
+     * Procesa un evento: lo toma (si sigue PENDING) y ejecuta los pasos no completados.
+     */
+    void process(Long outboxEventId) {
+        if (outboxEventRepository.claim(outboxEventId, LocalDateTime.now()) == 0) {
+            return; // Otro worker lo tomó o ya fue procesado
+        }
+
+        OutboxEvent event = outboxEventRepository.findById(outboxEventId).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        OutboxEventHandler handler = handlersByType.get(event.getEventType());
+        if (handler == null) {
+            log.error("No hay manejador para eventos {} (outbox {})", event.getEventType(), event.getId());
+            fail(event, "Tipo de evento sin manejador", true);
+            return;
+        }
+
+        Set<String> completed = event.getCompletedStepSet();
+
+        for (String step : handler.getSteps()) {
+            if (completed.contains(step)) {
+                continue;
+            }
+
+            try {
+                handler.handleStep(event, step);
+                event.markStepCompleted(step);
+                outboxEventRepository.save(event);
+            } catch (Exception e) {
+                log.error("Error en paso {} del evento {} (intento {}): {}",
+                        step, event.getId(), event.getAttempts(), e.getMessage());
+                fail(event, step + ": " + e.getMessage(), false);
+                return;
+            }
+        }
+
+        event.setStatus(OutboxStatus.COMPLETED);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLockedAt(null);
+        event.setLastError(null);
+        outboxEventRepository.save(event);
+    }
+
+    private void fail(OutboxEvent event, String error, boolean permanent) {
+        event.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        event.setLockedAt(null);
+
+        if (permanent || event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            log.error("Evento {} del outbox marcado como FAILED tras {} intentos", event.getId(), event.getAttempts());
+        } else {
+            // Backoff exponencial: base, 2x base, 4x base...
+            long delay = baseDelaySeconds * (1L << Math.min(event.getAttempts() - 1, 10));
+            event.setStatus(OutboxStatus.PENDING);
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(delay));
+        }
+
+        outboxEventRepository.save(event);
+    }
+}
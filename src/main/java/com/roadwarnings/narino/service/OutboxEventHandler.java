@@ -0,0 +1,19 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Manejador de un tipo de evento del outbox.
+ * Cada paso se ejecuta y se marca como completado por separado, de modo que
+ * un reintento solo repite los pasos que fallaron.
+ */
+public interface OutboxEventHandler {
+
+    String getEventType();
+
+    List<String> getSteps();
+
+    void handleStep(OutboxEvent event, String step);
+}
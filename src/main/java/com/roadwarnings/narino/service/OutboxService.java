@@ -0,0 +1,47 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboxEvent;
+import com.roadwarnings.narino.event.OutboxEventRecordedEvent;
+import com.roadwarnings.narino.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Registro de eventos en el outbox transaccional.
+ * El evento se guarda en la transacción del llamador: si la transacción
+ * hace rollback, el evento tampoco existe.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    public static final String ALERT_CREATED = "ALERT_CREATED";
+    // Primeras coordenadas de una alerta creada solo con dirección
+    public static final String ALERT_LOCATED = "ALERT_LOCATED";
+
+    // Payload de ALERT_CREATED: los pasos que dependen de la ubicación esperan a ALERT_LOCATED
+    public static final String PENDING_LOCATION = "PENDING_LOCATION";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent record(String eventType, Long aggregateId, String payload) {
+        OutboxEvent event = outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .aggregateId(aggregateId)
+                .payload(payload)
+                .build());
+
+        log.debug("Evento {} registrado en outbox para {}", eventType, aggregateId);
+
+        // OutboxDispatcher lo despacha tras el commit
+        eventPublisher.publishEvent(new OutboxEventRecordedEvent(event.getId()));
+        return event;
+    }
+}
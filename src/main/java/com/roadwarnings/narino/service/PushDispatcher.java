@@ -0,0 +1,202 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.enums.ExternalDependency;
+import com.roadwarnings.narino.repository.DeviceTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Envío asíncrono de notificaciones push.
+ * Los tokens de todos los destinatarios se obtienen con una sola consulta y se agrupan
+ * en mensajes multicast de hasta 500 tokens; cada lote se envía en el pool pushExecutor
+ * (concurrencia acotada), con reintentos y backoff exponencial para los errores
+ * transitorios. Los tokens inválidos de un lote se desactivan con un solo UPDATE.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PushDispatcher {
+
+    private static final int TOKEN_QUERY_CHUNK = 1000;
+
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final FcmGateway fcmGateway;
+    private final ExternalCallGuard externalCallGuard;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("pushExecutor")
+    private final TaskExecutor pushExecutor;
+
+    @Value("${push.fcm.multicast-size:500}")
+    private int multicastSize;
+
+    @Value("${push.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${push.retry.base-delay-ms:1000}")
+    private long baseDelayMs;
+
+    private Counter delivered;
+    private Counter invalid;
+    private Counter failed;
+    private Counter retried;
+
+    @PostConstruct
+    public void init() {
+        delivered = counter("delivered");
+        invalid = counter("invalid");
+        failed = counter("failed");
+        retried = counter("retried");
+    }
+
+    /**
+     * Encola el envío a todos los dispositivos activos de los usuarios
+     */
+    public void dispatchToUsers(Collection<Long> userIds, PushMessage message) {
+        if (userIds.isEmpty() || !isAvailable()) {
+            return;
+        }
+
+        List<Long> recipients = List.copyOf(new LinkedHashSet<>(userIds));
+        submit(() -> {
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < recipients.size(); i += TOKEN_QUERY_CHUNK) {
+                tokens.addAll(deviceTokenRepository.findActiveTokensByUserIdIn(
+                        recipients.subList(i, Math.min(i + TOKEN_QUERY_CHUNK, recipients.size()))));
+            }
+
+            if (tokens.isEmpty()) {
+                log.debug("No hay tokens activos para {} usuarios", recipients.size());
+                return;
+            }
+            sendInChunks(tokens, message);
+        }, "consulta de tokens");
+    }
+
+    /**
+     * Encola el envío a una lista de tokens
+     */
+    public void dispatchToTokens(Collection<String> tokens, PushMessage message) {
+        if (tokens.isEmpty() || !isAvailable()) {
+            return;
+        }
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(tokens));
+        submit(() -> sendInChunks(distinct, message), "envío a tokens");
+    }
+
+    public boolean isAvailable() {
+        if (!fcmGateway.isAvailable()) {
+            log.warn("Firebase no está inicializado. No se pueden enviar notificaciones push.");
+            return false;
+        }
+        return true;
+    }
+
+    private void sendInChunks(List<String> tokens, PushMessage message) {
+        int size = Math.min(multicastSize, FcmGateway.MAX_MULTICAST_TOKENS);
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(tokens));
+
+        for (int i = 0; i < distinct.size(); i += size) {
+            List<String> chunk = distinct.subList(i, Math.min(i + size, distinct.size()));
+            Batch batch = new Batch(message, List.copyOf(chunk), 1);
+            submit(() -> send(batch), "lote de " + chunk.size() + " tokens");
+        }
+    }
+
+    void send(Batch batch) {
+        List<FcmGateway.Outcome> outcomes = externalCallGuard.execute(ExternalDependency.FCM,
+                () -> fcmGateway.sendMulticast(batch.message(), batch.tokens()),
+                e -> null);
+
+        if (outcomes == null) {
+            // Circuito abierto, bulkhead lleno o fallo del envío completo
+            retry(batch, batch.tokens());
+            return;
+        }
+
+        List<String> invalidTokens = new ArrayList<>();
+        List<String> retryTokens = new ArrayList<>();
+        int ok = 0;
+
+        for (int i = 0; i < batch.tokens().size(); i++) {
+            FcmGateway.Outcome outcome = i < outcomes.size() ? outcomes.get(i) : FcmGateway.Outcome.FAILED;
+            switch (outcome) {
+                case SUCCESS -> ok++;
+                case INVALID_TOKEN -> invalidTokens.add(batch.tokens().get(i));
+                case RETRYABLE -> retryTokens.add(batch.tokens().get(i));
+                case FAILED -> failed.increment();
+            }
+        }
+
+        delivered.increment(ok);
+        log.info("Notificaciones push enviadas: {} de {} (intento {})", ok, batch.tokens().size(), batch.attempt());
+
+        if (!invalidTokens.isEmpty()) {
+            int deactivated = deviceTokenRepository.deactivateTokens(invalidTokens);
+            invalid.increment(invalidTokens.size());
+            log.info("{} tokens inválidos desactivados", deactivated);
+        }
+
+        if (!retryTokens.isEmpty()) {
+            retry(batch, retryTokens);
+        }
+    }
+
+    private void retry(Batch batch, List<String> tokens) {
+        if (batch.attempt() >= maxAttempts) {
+            failed.increment(tokens.size());
+            log.warn("Se descartan {} notificaciones push tras {} intentos", tokens.size(), batch.attempt());
+            return;
+        }
+
+        // Backoff exponencial con jitter: base, 2x base, 4x base...
+        long delay = baseDelayMs * (1L << Math.min(batch.attempt() - 1, 10));
+        delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+        Batch next = new Batch(batch.message(), tokens, batch.attempt() + 1);
+        retried.increment(tokens.size());
+        taskScheduler.schedule(() -> submit(() -> send(next), "reintento"), Instant.now().plusMillis(delay));
+    }
+
+    private void submit(Runnable task, String description) {
+        try {
+            pushExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Error en {} de notificaciones push: {}", description, e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Cola de notificaciones push llena, se descarta {}", description);
+            failed.increment();
+        }
+    }
+
+    private Counter counter(String result) {
+        return Counter.builder("push.notifications")
+                .description("Notificaciones push por resultado")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    record Batch(PushMessage message, List<String> tokens, int attempt) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.roadwarnings.narino.service;
+
+import java.util.Map;
+
+/**
+ * Contenido de una notificación push (igual para todos los tokens de un envío)
+ */
+public record PushMessage(String title, String body, Map<String, String> data) {
+}
@@ -6,6 +6,7 @@ import com.roadwarnings.narino.dto.request.DeviceTokenRequestDTO;
 import com.roadwarnings.narino.dto.response.DeviceTokenResponseDTO;
 import com.roadwarnings.narino.entity.DeviceToken;
 import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.enums.ExternalDependency;
 import com.roadwarnings.narino.exception.ResourceNotFoundException;
 import com.roadwarnings.narino.repository.DeviceTokenRepository;
 import com.roadwarnings.narino.repository.UserRepository;
@@ -25,6 +26,8 @@ public class PushNotificationService {
 
     private final DeviceTokenRepository deviceTokenRepository;
     private final UserRepository userRepository;
+    private final ExternalCallGuard externalCallGuard;
+    private final PushDispatcher pushDispatcher;
 
     private static final String USER_NOT_FOUND = "Usuario no encontrado";
 
@@ -65,87 +68,23 @@ public class PushNotificationService {
                 .toList();
     }
 
+    /**
+     * Encola el push para todos los dispositivos activos del usuario (envío asíncrono)
+     */
     public void sendNotificationToUser(Long userId, String title, String body, Map<String, String> data) {
-        if (FirebaseApp.getApps().isEmpty()) {
-            log.warn("Firebase no está inicializado. No se pueden enviar notificaciones push.");
-            return;
-        }
-
-        List<String> tokens = deviceTokenRepository.findActiveTokensByUserId(userId);
-
-        if (tokens.isEmpty()) {
-            log.info("No hay tokens activos para el usuario {}", userId);
-            return;
-        }
-
-        sendMulticastNotification(tokens, title, body, data);
+        pushDispatcher.dispatchToUsers(List.of(userId), new PushMessage(title, body, data));
     }
 
+    /**
+     * Encola el push para varios usuarios: una sola consulta de tokens y mensajes
+     * multicast compartidos entre usuarios
+     */
     public void sendNotificationToUsers(List<Long> userIds, String title, String body, Map<String, String> data) {
-        if (FirebaseApp.getApps().isEmpty()) {
-            log.warn("Firebase no está inicializado. No se pueden enviar notificaciones push.");
-            return;
-        }
-
-        for (Long userId : userIds) {
-            sendNotificationToUser(userId, title, body, data);
-        }
+        pushDispatcher.dispatchToUsers(userIds, new PushMessage(title, body, data));
     }
 
     public void sendMulticastNotification(List<String> tokens, String title, String body, Map<String, String> data) {
-        if (FirebaseApp.getApps().isEmpty()) {
-            log.warn("Firebase no está inicializado. No se pueden enviar notificaciones push.");
-            return;
-        }
-
-        if (tokens.isEmpty()) {
-            return;
-        }
-
-        try {
-            Notification notification = Notification.builder()
-                    .setTitle(title)
-                    .setBody(body)
-                    .build();
-
-            MulticastMessage.Builder messageBuilder = MulticastMessage.builder()
-                    .setNotification(notification)
-                    .addAllTokens(tokens);
-
-            if (data != null && !data.isEmpty()) {
-                messageBuilder.putAllData(data);
-            }
-
-            MulticastMessage message = messageBuilder.build();
-
-            BatchResponse response = FirebaseMessaging.getInstance().sendMulticast(message);
-
-            log.info("Notificaciones enviadas exitosamente: {} de {}",
-                    response.getSuccessCount(), tokens.size());
-
-            if (response.getFailureCount() > 0) {
-                List<SendResponse> responses = response.getResponses();
-                for (int i = 0; i < responses.size(); i++) {
-                    if (!responses.get(i).isSuccessful()) {
-                        String token = tokens.get(i);
-                        Exception exception = responses.get(i).getException();
-                        log.error("Error al enviar notificación al token {}: {}",
-                                token, exception.getMessage());
-
-                        // Si el token es inválido, desactivarlo
-                        if (exception instanceof FirebaseMessagingException fme && ("invalid-registration-token".equals(fme.getErrorCode()) ||
-                                "registration-token-not-registered".equals(fme.getErrorCode()))) {
-                                deviceTokenRepository.deactivateToken(token);
-                                log.info("Token inválido desactivado: {}", token);
-                            }
-                        
-                    }
-                }
-            }
-
-        } catch (FirebaseMessagingException e) {
-            log.error("Error al enviar notificaciones push: {}", e.getMessage());
-        }
+        pushDispatcher.dispatchToTokens(tokens, new PushMessage(title, body, data));
     }
 
     public void sendNotificationToTopic(String topic, String title, String body, Map<String, String> data) {
@@ -154,23 +93,26 @@ public class PushNotificationService {
             return;
         }
 
-        try {
-            Message.Builder messageBuilder = Message.builder()
-                    .setNotification(Notification.builder()
-                            .setTitle(title)
-                            .setBody(body)
-                            .build())
-                    .setTopic(topic);
+        Message.Builder messageBuilder = Message.builder()
+                .setNotification(Notification.builder()
+                        .setTitle(title)
+                        .setBody(body)
+                        .build())
+                .setTopic(topic);
 
-            if (data != null && !data.isEmpty()) {
-                messageBuilder.putAllData(data);
-            }
+        if (data != null && !data.isEmpty()) {
+            messageBuilder.putAllData(data);
+        }
 
-            String response = FirebaseMessaging.getInstance().send(messageBuilder.build());
-            log.info("Notificación enviada al topic {}: {}", topic, response);
+        Message message = messageBuilder.build();
+        String response = externalCallGuard.execute(ExternalDependency.FCM,
+                () -> FirebaseMessaging.getInstance().send(message),
+                e -> null);
 
-        } catch (FirebaseMessagingException e) {
-            log.error("Error al enviar notificación al topic {}: {}", topic, e.getMessage());
+        if (response != null) {
+            log.info("Notificación enviada al topic {}: {}", topic, response);
+        } else {
+            log.error("No se pudo enviar la notificación al topic {}", topic);
         }
     }
 
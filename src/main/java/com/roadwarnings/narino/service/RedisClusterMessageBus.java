@@ -0,0 +1,61 @@
+package com.roadwarnings.narino.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Bus entre instancias sobre Redis pub/sub. Se activa en los modos redis y relay: con
+ * el relay los topics viajan por el broker externo, pero los índices locales (posición
+ * de usuarios cercanos) y el stream SSE siguen necesitando repartir entre instancias.
+ */
+@Service
+@ConditionalOnExpression("'${websocket.cluster.mode:none}'.equalsIgnoreCase('redis') "
+        + "or '${websocket.cluster.mode:none}'.equalsIgnoreCase('relay')")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisClusterMessageBus implements ClusterMessageBus {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    @PostConstruct
+    public void init() {
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.destroy();
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        container.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.warn("Error procesando mensaje del canal {}: {}", channel, e.getMessage());
+            }
+        }, new ChannelTopic(channel));
+    }
+}
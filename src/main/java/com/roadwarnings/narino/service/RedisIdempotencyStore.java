@@ -0,0 +1,92 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Almacén de idempotencia en Redis, compartido entre instancias.
+ * La reserva es un SET NX con TTL; los duplicados en otra instancia consultan
+ * la clave periódicamente hasta que la primera ejecución guarda su respuesta.
+ */
+@Service
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public IdempotencyRecord tryReserve(String key, String fingerprint, Duration inFlightTtl) {
+        String value = write(IdempotencyRecord.inProgress(fingerprint));
+        Boolean reserved = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, value, inFlightTtl);
+        if (Boolean.TRUE.equals(reserved)) {
+            return null;
+        }
+
+        IdempotencyRecord existing = read(redisTemplate.opsForValue().get(KEY_PREFIX + key));
+        if (existing == null) {
+            // Expiró entre ambas operaciones: se reintenta la reserva una vez
+            reserved = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, value, inFlightTtl);
+            return Boolean.TRUE.equals(reserved) ? null : IdempotencyRecord.inProgress(fingerprint);
+        }
+        return existing;
+    }
+
+    @Override
+    public void complete(String key, IdempotencyRecord response, Duration ttl) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + key, write(response), ttl);
+    }
+
+    @Override
+    public void release(String key) {
+        redisTemplate.delete(KEY_PREFIX + key);
+    }
+
+    @Override
+    public IdempotencyRecord awaitCompletion(String key, Duration timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            IdempotencyRecord record = read(redisTemplate.opsForValue().get(KEY_PREFIX + key));
+            if (record == null) {
+                return null;
+            }
+            if (record.completed()) {
+                return record;
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        return null;
+    }
+
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta idempotente", e);
+        }
+    }
+
+    private IdempotencyRecord read(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Registro de idempotencia ilegible en Redis: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.roadwarnings.narino.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Contadores de no leídas en Redis, compartidos entre instancias.
+ * Las claves expiran: un contador desviado se corrige con el COUNT de la siguiente lectura.
+ * Mientras se cuenta existe una marca; un cambio sobre un usuario sin contador la borra
+ * y el valor contado ya no se guarda.
+ */
+@Service
+@ConditionalOnProperty(name = "notifications.unread-counter.store", havingValue = "redis")
+public class RedisUnreadCounterStore implements UnreadCounterStore {
+
+    private static final String KEY_PREFIX = "notifications:unread:";
+    private static final String COUNTING_PREFIX = "notifications:unread:counting:";
+    private static final Duration COUNTING_TTL = Duration.ofMinutes(1);
+
+    // INCRBY solo sobre claves existentes y sin bajar de 0; si no existe se invalida el COUNT en curso
+    private static final RedisScript<Long> INCREMENT_IF_PRESENT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then redis.call('DEL', KEYS[2]) return nil end
+            local value = redis.call('INCRBY', KEYS[1], ARGV[1])
+            if value < 0 then redis.call('SET', KEYS[1], 0, 'KEEPTTL') return 0 end
+            return value""", Long.class);
+
+    // Guarda el valor contado solo si la marca sigue en pie (sin cambios durante el COUNT)
+    private static final RedisScript<Long> INITIALIZE_IF_COUNTING = new DefaultRedisScript<>("""
+            if redis.call('DEL', KEYS[2]) == 0 then return 0 end
+            if redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2], 'NX') then return 1 end
+            return 0""", Long.class);
+
+    // Fija 0 sobre claves existentes; si no existe se invalida el COUNT en curso
+    private static final RedisScript<Long> RESET_IF_PRESENT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then redis.call('DEL', KEYS[2]) return 0 end
+            redis.call('SET', KEYS[1], 0, 'KEEPTTL')
+            return 1""", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public RedisUnreadCounterStore(StringRedisTemplate redisTemplate,
+                                   @Value("${notifications.unread-counter.ttl-hours:24}") long ttlHours) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    @Override
+    public Long get(Long userId) {
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    @Override
+    public void beginInitialize(Long userId) {
+        redisTemplate.opsForValue().set(COUNTING_PREFIX + userId, "1", COUNTING_TTL);
+    }
+
+    @Override
+    public void initialize(Long userId, long count) {
+        redisTemplate.execute(INITIALIZE_IF_COUNTING, keys(userId),
+                String.valueOf(Math.max(0, count)), String.valueOf(ttl.toSeconds()));
+    }
+
+    @Override
+    public void increment(Long userId, long delta) {
+        redisTemplate.execute(INCREMENT_IF_PRESENT, keys(userId), String.valueOf(delta));
+    }
+
+    @Override
+    public void reset(Long userId) {
+        redisTemplate.execute(RESET_IF_PRESENT, keys(userId));
+    }
+
+    @Override
+    public void evict(Long userId) {
+        redisTemplate.delete(KEY_PREFIX + userId);
+    }
+
+    private static List<String> keys(Long userId) {
+        return List.of(KEY_PREFIX + userId, COUNTING_PREFIX + userId);
+    }
+}
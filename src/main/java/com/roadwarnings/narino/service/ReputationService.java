@@ -1,14 +1,19 @@
 package com.roadwarnings.narino.service;
 
 import com.roadwarnings.narino.entity.UserStatistics;
-import com.roadwarnings.narino.enums.BadgeType;
+import com.roadwarnings.narino.enums.ContributionType;
 import com.roadwarnings.narino.enums.NotificationType;
+import com.roadwarnings.narino.event.UserStatisticsFlushedEvent;
 import com.roadwarnings.narino.repository.UserStatisticsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Servicio para gestionar el sistema de reputación y niveles de usuarios
  */
@@ -21,15 +26,7 @@ public class ReputationService {
     private final UserStatisticsRepository statisticsRepository;
     private final BadgeService badgeService;
     private final NotificationService notificationService;
-
-    // Constantes de puntos de reputación
-    private static final int POINTS_ALERT_CREATED = 10;
-    private static final int POINTS_ALERT_UPVOTED = 5;
-    private static final int POINTS_ALERT_DOWNVOTED = -3;
-    private static final int POINTS_COMMENT_CREATED = 2;
-    private static final int POINTS_ALERT_VERIFIED = 15;
-    private static final int POINTS_ALERT_REPORTED_VALID = 20;
-    private static final int POINTS_ALERT_REPORTED_INVALID = -10;
+    private final UserStatisticsWriteBuffer statisticsBuffer;
 
     // Constantes de niveles
     private static final int[] LEVEL_THRESHOLDS = {
@@ -48,95 +45,80 @@ public class ReputationService {
      * Otorga puntos cuando un usuario crea una alerta
      */
     public void onAlertCreated(Long userId) {
-        UserStatistics stats = getOrCreateStatistics(userId);
-        stats.setAlertsCreated(stats.getAlertsCreated() + 1);
-        addReputationPoints(stats, POINTS_ALERT_CREATED, "Alerta creada");
-        statisticsRepository.save(stats);
-        badgeService.checkAndAwardBadges(userId);
+        statisticsBuffer.record(userId, ContributionType.ALERT_CREATED, 1);
     }
 
     /**
-     * Otorga puntos cuando una alerta recibe upvote
+     * Otorga puntos cuando una alerta recibe upvotes
      */
-    public void onAlertUpvoted(Long alertOwnerId) {
-        UserStatistics stats = getOrCreateStatistics(alertOwnerId);
-        stats.setUpvotesReceived(stats.getUpvotesReceived() + 1);
-        addReputationPoints(stats, POINTS_ALERT_UPVOTED, "Tu alerta recibió un upvote");
-        statisticsRepository.save(stats);
-        badgeService.checkAndAwardBadges(alertOwnerId);
+    public void onAlertUpvoted(Long alertOwnerId, long count) {
+        statisticsBuffer.record(alertOwnerId, ContributionType.ALERT_UPVOTED, count);
     }
 
     /**
-     * Resta puntos cuando una alerta recibe downvote
+     * Resta puntos cuando una alerta recibe downvotes
      */
-    public void onAlertDownvoted(Long alertOwnerId) {
-        UserStatistics stats = getOrCreateStatistics(alertOwnerId);
-        stats.setDownvotesReceived(stats.getDownvotesReceived() + 1);
-        addReputationPoints(stats, POINTS_ALERT_DOWNVOTED, "Tu alerta recibió un downvote");
-        statisticsRepository.save(stats);
+    public void onAlertDownvoted(Long alertOwnerId, long count) {
+        statisticsBuffer.record(alertOwnerId, ContributionType.ALERT_DOWNVOTED, count);
     }
 
     /**
      * Otorga puntos cuando un usuario crea un comentario
      */
     public void onCommentCreated(Long userId) {
-        UserStatistics stats = getOrCreateStatistics(userId);
-        stats.setCommentsPosted(stats.getCommentsPosted() + 1);
-        addReputationPoints(stats, POINTS_COMMENT_CREATED, "Comentario creado");
-        statisticsRepository.save(stats);
-        badgeService.checkAndAwardBadges(userId);
+        statisticsBuffer.record(userId, ContributionType.COMMENT_POSTED, 1);
     }
 
     /**
      * Otorga puntos cuando una alerta es verificada por otros usuarios
      */
     public void onAlertVerified(Long alertOwnerId) {
-        UserStatistics stats = getOrCreateStatistics(alertOwnerId);
-        stats.setAlertsVerified(stats.getAlertsVerified() + 1);
-        addReputationPoints(stats, POINTS_ALERT_VERIFIED, "Tu alerta fue verificada");
-        statisticsRepository.save(stats);
-        badgeService.checkAndAwardBadges(alertOwnerId);
+        statisticsBuffer.record(alertOwnerId, ContributionType.ALERT_VERIFIED, 1);
     }
 
     /**
      * Otorga puntos cuando un reporte es validado
      */
     public void onReportValidated(Long reporterId) {
-        UserStatistics stats = getOrCreateStatistics(reporterId);
-        stats.setValidReports(stats.getValidReports() + 1);
-        addReputationPoints(stats, POINTS_ALERT_REPORTED_VALID, "Tu reporte fue validado");
-        statisticsRepository.save(stats);
-        badgeService.checkAndAwardBadges(reporterId);
+        statisticsBuffer.record(reporterId, ContributionType.REPORT_VALIDATED, 1);
     }
 
     /**
      * Resta puntos cuando un reporte es inválido
      */
     public void onReportRejected(Long reporterId) {
-        UserStatistics stats = getOrCreateStatistics(reporterId);
-        addReputationPoints(stats, POINTS_ALERT_REPORTED_INVALID, "Tu reporte fue rechazado");
-        statisticsRepository.save(stats);
+        statisticsBuffer.record(reporterId, ContributionType.REPORT_REJECTED, 1);
     }
 
     /**
-     * Añade puntos de reputación y verifica si sube de nivel
+     * Evalúa nivel y badges una sola vez por usuario tras cada flush del buffer
      */
-    private void addReputationPoints(UserStatistics stats, int points, String reason) {
-        int oldPoints = stats.getReputationPoints();
-        int newPoints = Math.max(0, oldPoints + points); // No permitir puntos negativos
-        int oldLevel = stats.getLevel();
-
-        stats.setReputationPoints(newPoints);
-        int newLevel = calculateLevel(newPoints);
-        stats.setLevel(newLevel);
+    @EventListener
+    public void onStatisticsFlushed(UserStatisticsFlushedEvent event) {
+        List<UserStatistics> flushed = statisticsRepository.findByUserIdIn(event.userIds());
+        List<NotificationService.NotificationDraft> levelUps = new ArrayList<>();
+
+        for (UserStatistics stats : flushed) {
+            Long userId = stats.getUser().getId();
+            int oldLevel = stats.getLevel();
+            int newLevel = calculateLevel(stats.getReputationPoints());
+
+            if (newLevel != oldLevel) {
+                // UPDATE puntual: guardar la entidad pisaría los contadores que escribe el buffer
+                statisticsRepository.updateLevel(stats.getId(), newLevel);
+
+                // Verificar si subió de nivel
+                if (newLevel > oldLevel) {
+                    levelUps.add(levelUpNotification(userId, oldLevel, newLevel));
+                }
+            }
+        }
 
-        log.info("Usuario {} ganó {} puntos de reputación ({}): {} -> {}",
-                stats.getUser().getId(), points, reason, oldPoints, newPoints);
+        // Las notificaciones de nivel de todo el flush en un solo INSERT multi-fila
+        notificationService.createNotifications(levelUps);
 
-        // Verificar si subió de nivel
-        if (newLevel > oldLevel) {
-            onLevelUp(stats.getUser().getId(), oldLevel, newLevel);
-        }
+        // Una sola evaluación de badges para todos los usuarios del flush
+        badgeService.checkAndAwardBadges(flushed);
     }
 
     /**
@@ -152,32 +134,18 @@ public class ReputationService {
     }
 
     /**
-     * Se ejecuta cuando un usuario sube de nivel
+     * Notificación para un usuario que subió de nivel
      */
-    private void onLevelUp(Long userId, int oldLevel, int newLevel) {
+    private NotificationService.NotificationDraft levelUpNotification(Long userId, int oldLevel, int newLevel) {
         log.info("¡Usuario {} subió de nivel! {} -> {}", userId, oldLevel, newLevel);
 
-        // Enviar notificación
-        notificationService.createNotification(
+        return new NotificationService.NotificationDraft(
                 userId,
                 NotificationType.REPUTATION_MILESTONE,
                 "¡Subiste de nivel!",
                 "¡Felicidades! Has alcanzado el nivel %d".formatted(newLevel),
                 Long.valueOf(newLevel)
         );
-
-        // Otorgar badges especiales por nivel
-        awardLevelBadges(userId, newLevel);
-    }
-
-    /**
-     * Otorga badges especiales al alcanzar ciertos niveles
-     */
-    private void awardLevelBadges(Long userId, int level) {
-        switch (level) {
-            case 5 -> badgeService.awardBadgeIfNotExists(userId, BadgeType.TRUSTED_USER);
-            case 8 -> badgeService.awardBadgeIfNotExists(userId, BadgeType.COMMUNITY_HERO);
-        }
     }
 
     /**
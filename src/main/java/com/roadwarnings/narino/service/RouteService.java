@@ -6,11 +6,13 @@ import com.roadwarnings.narino.dto.response.RouteResponseDTO;
 import com.roadwarnings.narino.entity.Alert;
 import com.roadwarnings.narino.entity.Route;
 import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.event.RouteChangedEvent;
 import com.roadwarnings.narino.exception.ResourceNotFoundException;
 import com.roadwarnings.narino.repository.AlertRepository;
 import com.roadwarnings.narino.repository.RouteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ public class RouteService {
 
     private final RouteRepository routeRepository;
     private final AlertRepository alertRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String ROUTE_NOT_FOUND = "Ruta no encontrada";
 
@@ -101,6 +104,8 @@ public class RouteService {
         route = routeRepository.save(route);
         log.info("Ruta {} actualizada", id);
 
+        eventPublisher.publishEvent(new RouteChangedEvent(id));
+
         return mapToResponseDTO(route);
     }
 
@@ -111,6 +116,8 @@ public class RouteService {
         route.setIsActive(false);
         routeRepository.save(route);
         log.info("Ruta {} desactivada", id);
+
+        eventPublisher.publishEvent(new RouteChangedEvent(id));
     }
 
     public RouteResponseDTO updateActiveAlertsCount(Long id, Integer count) {
@@ -161,7 +168,12 @@ public class RouteService {
                 .collect(Collectors.toList());
     }
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    private double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
+        // Alertas sin coordenadas (geocodificado pendiente) nunca quedan dentro del radio
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) {
+            return Double.MAX_VALUE;
+        }
+
         final int EARTH_RADIUS = 6371; // km
 
         double latDistance = Math.toRadians(lat2 - lat1);
@@ -0,0 +1,257 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.FavoriteRoute;
+import com.roadwarnings.narino.entity.Route;
+import com.roadwarnings.narino.event.FavoriteRouteChangedEvent;
+import com.roadwarnings.narino.event.RouteChangedEvent;
+import com.roadwarnings.narino.repository.FavoriteRouteRepository;
+import com.roadwarnings.narino.repository.RouteRepository;
+import com.roadwarnings.narino.util.Geohash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice invertido en memoria: celda geohash → rutas favoritas con suscriptores
+ * que tienen las notificaciones activadas. Una alerta resuelve sus destinatarios con
+ * una búsqueda por su celda y una verificación exacta de distancia sobre las pocas
+ * rutas candidatas, sin recorrer todas las rutas favoritas.
+ * <p>
+ * FavoriteService y RouteService publican los cambios y el índice se actualiza tras
+ * el commit; una reconstrucción periódica corrige cualquier desviación.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RouteSubscriberIndex {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final FavoriteRouteRepository favoriteRouteRepository;
+    private final RouteRepository routeRepository;
+
+    @Value("${notifications.route.radius-km:2.0}")
+    private double radiusKm;
+
+    @Value("${notifications.route.geohash-precision:5}")
+    private int precision;
+
+    private volatile Map<Long, IndexedRoute> routes = new ConcurrentHashMap<>();
+    private volatile Map<String, Set<Long>> routesByCell = new ConcurrentHashMap<>();
+
+    /**
+     * Ruta favorita de un usuario que cubre la ubicación de una alerta
+     */
+    public record RouteSubscriber(Long userId, Long routeId, String routeName) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${notifications.route-index.rebuild-interval-ms:900000}",
+               fixedDelayString = "${notifications.route-index.rebuild-interval-ms:900000}")
+    public synchronized void rebuild() {
+        Map<Long, IndexedRoute> newRoutes = new ConcurrentHashMap<>();
+        Map<String, Set<Long>> newCells = new ConcurrentHashMap<>();
+
+        for (FavoriteRoute favorite : favoriteRouteRepository.findAllWithNotificationsEnabled()) {
+            IndexedRoute indexed = newRoutes.computeIfAbsent(favorite.getRoute().getId(),
+                    id -> indexRoute(favorite.getRoute(), newCells));
+            indexed.subscribers.put(favorite.getUser().getId(), displayName(favorite.getCustomName()));
+        }
+
+        routes = newRoutes;
+        routesByCell = newCells;
+        log.info("Índice de suscriptores de rutas: {} rutas, {} celdas", newRoutes.size(), newCells.size());
+    }
+
+    /**
+     * Suscriptores (uno por usuario) de las rutas activas que pasan a menos del radio
+     * configurado de la ubicación. excludedUserId (el autor de la alerta) se omite.
+     */
+    public List<RouteSubscriber> findSubscribers(double latitude, double longitude, Long excludedUserId) {
+        Set<Long> candidates = routesByCell.get(Geohash.encode(latitude, longitude, precision));
+        if (candidates == null || candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, RouteSubscriber> byUser = new LinkedHashMap<>();
+        for (Long routeId : candidates) {
+            IndexedRoute route = routes.get(routeId);
+            if (route == null || !route.active || distanceToRouteKm(route, latitude, longitude) > radiusKm) {
+                continue;
+            }
+            route.subscribers.forEach((userId, customName) -> {
+                if (!userId.equals(excludedUserId)) {
+                    byUser.putIfAbsent(userId, new RouteSubscriber(userId, route.id,
+                            customName.isEmpty() ? route.name : customName));
+                }
+            });
+        }
+
+        return new ArrayList<>(byUser.values());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onFavoriteRouteChanged(FavoriteRouteChangedEvent event) {
+        IndexedRoute indexed = routes.get(event.routeId());
+
+        if (!event.subscribed()) {
+            if (indexed != null) {
+                indexed.subscribers.remove(event.userId());
+                if (indexed.subscribers.isEmpty()) {
+                    unindex(indexed);
+                }
+            }
+            return;
+        }
+
+        if (indexed == null) {
+            Route route = routeRepository.findById(event.routeId()).orElse(null);
+            if (route == null) {
+                return;
+            }
+            indexed = indexRoute(route, routesByCell);
+            routes.put(indexed.id, indexed);
+        }
+        indexed.subscribers.put(event.userId(), displayName(event.customName()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onRouteChanged(RouteChangedEvent event) {
+        IndexedRoute previous = routes.get(event.routeId());
+        if (previous == null) {
+            return; // Ruta sin suscriptores con notificaciones
+        }
+
+        unindex(previous);
+        routeRepository.findById(event.routeId()).ifPresent(route -> {
+            IndexedRoute updated = indexRoute(route, routesByCell);
+            updated.subscribers.putAll(previous.subscribers);
+            routes.put(updated.id, updated);
+        });
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    private IndexedRoute indexRoute(Route route, Map<String, Set<Long>> cells) {
+        IndexedRoute indexed = new IndexedRoute(route);
+        for (String cell : coveredCells(indexed)) {
+            cells.computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet()).add(indexed.id);
+            indexed.cells.add(cell);
+        }
+        return indexed;
+    }
+
+    private void unindex(IndexedRoute indexed) {
+        routes.remove(indexed.id);
+        for (String cell : indexed.cells) {
+            routesByCell.computeIfPresent(cell, (c, ids) -> {
+                ids.remove(indexed.id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Celdas cuyo centro está a menos de (radio + media diagonal de celda) del segmento
+     * origen-destino: cualquier punto a menos del radio cae en alguna de ellas
+     */
+    private Set<String> coveredCells(IndexedRoute route) {
+        double cellHeight = Geohash.cellHeight(precision);
+        double cellWidth = Geohash.cellWidth(precision);
+
+        double midLat = (route.originLat + route.destinationLat) / 2;
+        double latMargin = radiusKm / KM_PER_DEGREE;
+        double lonMargin = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(midLat))));
+        double halfDiagonalKm = Math.hypot(cellHeight * KM_PER_DEGREE,
+                cellWidth * KM_PER_DEGREE * Math.cos(Math.toRadians(midLat))) / 2;
+
+        double minLat = Math.min(route.originLat, route.destinationLat) - latMargin;
+        double maxLat = Math.max(route.originLat, route.destinationLat) + latMargin;
+        double minLon = Math.min(route.originLon, route.destinationLon) - lonMargin;
+        double maxLon = Math.max(route.originLon, route.destinationLon) + lonMargin;
+
+        Set<String> cells = new HashSet<>();
+        for (double lat = snap(minLat, cellHeight, 90); lat <= maxLat + cellHeight; lat += cellHeight) {
+            for (double lon = snap(minLon, cellWidth, 180); lon <= maxLon + cellWidth; lon += cellWidth) {
+                if (distanceToRouteKm(route, lat, lon) <= radiusKm + halfDiagonalKm) {
+                    cells.add(Geohash.encode(lat, lon, precision));
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Centro de la celda que contiene la coordenada
+     */
+    private static double snap(double value, double size, double offset) {
+        return (Math.floor((value + offset) / size) + 0.5) * size - offset;
+    }
+
+    /**
+     * Distancia de un punto a la ruta (origen, destino o segmento entre ambos, simplificado)
+     */
+    private static double distanceToRouteKm(IndexedRoute route, double latitude, double longitude) {
+        double dx = route.destinationLat - route.originLat;
+        double dy = route.destinationLon - route.originLon;
+        double lenSq = dx * dx + dy * dy;
+        double t = lenSq != 0
+                ? ((latitude - route.originLat) * dx + (longitude - route.originLon) * dy) / lenSq
+                : 0;
+        t = Math.max(0, Math.min(1, t));
+
+        return haversineKm(latitude, longitude, route.originLat + t * dx, route.originLon + t * dy);
+    }
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static String displayName(String customName) {
+        return customName == null || customName.isBlank() ? "" : customName;
+    }
+
+    private static final class IndexedRoute {
+        private final Long id;
+        private final String name;
+        private final double originLat;
+        private final double originLon;
+        private final double destinationLat;
+        private final double destinationLon;
+        private final boolean active;
+        private final Set<String> cells = new HashSet<>();
+        // userId → nombre personalizado de la ruta ("" si no tiene)
+        private final Map<Long, String> subscribers = new ConcurrentHashMap<>();
+
+        private IndexedRoute(Route route) {
+            this.id = route.getId();
+            this.name = route.getName();
+            this.originLat = route.getOriginLatitude();
+            this.originLon = route.getOriginLongitude();
+            this.destinationLat = route.getDestinationLatitude();
+            this.destinationLon = route.getDestinationLongitude();
+            this.active = Boolean.TRUE.equals(route.getIsActive());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.roadwarnings.narino.service;
+
+/**
+ * Contador de notificaciones no leídas por usuario, mantenido de forma incremental.
+ * Un usuario sin contador cacheado se inicializa con un COUNT en la primera lectura:
+ * {@link #beginInitialize} antes del COUNT y {@link #initialize} después. Si entre
+ * ambos llega un cambio, el valor contado puede no incluirlo y se descarta.
+ */
+public interface UnreadCounterStore {
+
+    /**
+     * Valor cacheado o null si el usuario no tiene contador
+     */
+    Long get(Long userId);
+
+    /**
+     * Marca que se va a contar en la BD; los cambios que lleguen hasta
+     * {@link #initialize} invalidan el valor contado
+     */
+    void beginInitialize(Long userId);
+
+    /**
+     * Guarda el valor contado en la BD, salvo que otro hilo ya lo haya inicializado
+     * o que haya llegado un cambio desde {@link #beginInitialize}
+     */
+    void initialize(Long userId, long count);
+
+    /**
+     * Suma delta (puede ser negativo, nunca baja de 0) solo si el contador existe
+     */
+    void increment(Long userId, long delta);
+
+    /**
+     * Fija el contador en 0 (todas leídas)
+     */
+    void reset(Long userId);
+
+    /**
+     * Descarta el contador: la siguiente lectura vuelve a contar en la BD
+     */
+    void evict(Long userId);
+}
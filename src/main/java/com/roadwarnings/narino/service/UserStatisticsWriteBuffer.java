@@ -0,0 +1,250 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.entity.UserStatistics;
+import com.roadwarnings.narino.enums.ContributionType;
+import com.roadwarnings.narino.event.UserStatisticsFlushedEvent;
+import com.roadwarnings.narino.repository.UserRepository;
+import com.roadwarnings.narino.repository.UserStatisticsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffer write-behind de estadísticas y reputación por usuario.
+ * Las contribuciones se acumulan en memoria como deltas y en cada flush se escribe
+ * la fila de cada usuario una sola vez, con un UPDATE relativo (col = col + ?),
+ * en vez de cargar y guardar la entidad por cada evento.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatisticsWriteBuffer {
+
+    private static final String FLUSH_SQL = """
+            UPDATE user_statistics SET
+                alerts_created = GREATEST(0, alerts_created + ?),
+                alerts_verified = GREATEST(0, alerts_verified + ?),
+                comments_posted = GREATEST(0, comments_posted + ?),
+                upvotes_received = GREATEST(0, upvotes_received + ?),
+                downvotes_received = GREATEST(0, downvotes_received + ?),
+                reports_submitted = GREATEST(0, reports_submitted + ?),
+                valid_reports = GREATEST(0, valid_reports + ?),
+                reputation_points = GREATEST(0, reputation_points + ?),
+                last_alert_at = COALESCE(?, last_alert_at),
+                last_comment_at = COALESCE(?, last_comment_at),
+                updated_at = ?
+            WHERE user_id = ?""";
+
+    private static final int[] FLUSH_ARG_TYPES = {
+            Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+            Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserStatisticsRepository statisticsRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${statistics.flush.batch-size:500}")
+    private int batchSize;
+
+    private final Map<Long, PendingStatistics> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Acumula una o varias contribuciones del mismo tipo para un usuario
+     */
+    public void record(Long userId, ContributionType type, long count) {
+        if (userId == null || count == 0) {
+            return;
+        }
+        // compute es atómico por clave: el flush retira el delta con remove
+        pending.compute(userId, (id, delta) -> {
+            PendingStatistics result = delta != null ? delta : new PendingStatistics();
+            result.add(type, count);
+            return result;
+        });
+    }
+
+    public int getPendingUsers() {
+        return pending.size();
+    }
+
+    /**
+     * Persiste los deltas acumulados: un UPDATE por usuario, enviados en batch
+     */
+    @Scheduled(fixedDelayString = "${statistics.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Set<Long> flushed = new HashSet<>();
+        List<Long> userIds = new ArrayList<>(pending.keySet());
+
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            flushChunk(chunk, flushed);
+        }
+
+        if (!flushed.isEmpty()) {
+            try {
+                eventPublisher.publishEvent(new UserStatisticsFlushedEvent(flushed));
+            } catch (Exception e) {
+                log.error("Error evaluando nivel y badges de {} usuarios: {}", flushed.size(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flushChunk(List<Long> userIds, Set<Long> flushed) {
+        List<Long> ids = new ArrayList<>(userIds.size());
+        List<PendingStatistics> deltas = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            PendingStatistics delta = pending.remove(userId);
+            if (delta != null) {
+                ids.add(userId);
+                deltas.add(delta);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            batchArgs.add(deltas.get(i).toArgs(ids.get(i), now));
+        }
+
+        int[] updated;
+        try {
+            updated = jdbcTemplate.batchUpdate(FLUSH_SQL, batchArgs, FLUSH_ARG_TYPES);
+        } catch (Exception e) {
+            log.error("Error persistiendo estadísticas de {} usuarios, se reintenta en el siguiente flush: {}",
+                    ids.size(), e.getMessage());
+            for (int i = 0; i < ids.size(); i++) {
+                requeue(ids.get(i), deltas.get(i));
+            }
+            return;
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            Long userId = ids.get(i);
+            if (i < updated.length && updated[i] == 0) {
+                // El usuario aún no tiene fila de estadísticas
+                if (!createStatistics(userId)) {
+                    continue;
+                }
+                requeue(userId, deltas.get(i));
+                continue;
+            }
+            flushed.add(userId);
+        }
+    }
+
+    private boolean createStatistics(Long userId) {
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isEmpty()) {
+            log.warn("Usuario {} no existe, se descartan sus estadísticas pendientes", userId);
+            return false;
+        }
+        try {
+            statisticsRepository.save(UserStatistics.builder().user(user.get()).build());
+            log.info("Estadísticas creadas para usuario {}", userId);
+        } catch (Exception e) {
+            // Otra instancia la creó al mismo tiempo (user_id es único)
+            log.debug("Estadísticas del usuario {} ya creadas: {}", userId, e.getMessage());
+        }
+        return true;
+    }
+
+    private void requeue(Long userId, PendingStatistics delta) {
+        pending.merge(userId, delta, PendingStatistics::merge);
+    }
+
+    /**
+     * Deltas acumulados de un usuario desde el último flush
+     */
+    private static final class PendingStatistics {
+        private long alertsCreated;
+        private long alertsVerified;
+        private long commentsPosted;
+        private long upvotesReceived;
+        private long downvotesReceived;
+        private long reportsSubmitted;
+        private long validReports;
+        private long reputationPoints;
+        private LocalDateTime lastAlertAt;
+        private LocalDateTime lastCommentAt;
+
+        private void add(ContributionType type, long count) {
+            switch (type) {
+                case ALERT_CREATED -> {
+                    alertsCreated += count;
+                    lastAlertAt = LocalDateTime.now();
+                }
+                case ALERT_UPVOTED -> upvotesReceived += count;
+                case ALERT_DOWNVOTED -> downvotesReceived += count;
+                case COMMENT_POSTED -> {
+                    commentsPosted += count;
+                    lastCommentAt = LocalDateTime.now();
+                }
+                case ALERT_VERIFIED -> alertsVerified += count;
+                case REPORT_SUBMITTED -> reportsSubmitted += count;
+                case REPORT_VALIDATED -> validReports += count;
+                case REPORT_REJECTED -> {
+                    // Solo resta reputación
+                }
+            }
+            reputationPoints += type.getReputationPoints() * count;
+        }
+
+        private PendingStatistics merge(PendingStatistics other) {
+            alertsCreated += other.alertsCreated;
+            alertsVerified += other.alertsVerified;
+            commentsPosted += other.commentsPosted;
+            upvotesReceived += other.upvotesReceived;
+            downvotesReceived += other.downvotesReceived;
+            reportsSubmitted += other.reportsSubmitted;
+            validReports += other.validReports;
+            reputationPoints += other.reputationPoints;
+            lastAlertAt = latest(lastAlertAt, other.lastAlertAt);
+            lastCommentAt = latest(lastCommentAt, other.lastCommentAt);
+            return this;
+        }
+
+        private Object[] toArgs(Long userId, Timestamp now) {
+            return new Object[]{
+                    alertsCreated, alertsVerified, commentsPosted, upvotesReceived, downvotesReceived,
+                    reportsSubmitted, validReports, reputationPoints,
+                    lastAlertAt != null ? Timestamp.valueOf(lastAlertAt) : null,
+                    lastCommentAt != null ? Timestamp.valueOf(lastCommentAt) : null,
+                    now, userId
+            };
+        }
+
+        private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            return a.isAfter(b) ? a : b;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.Alert;
+import com.roadwarnings.narino.event.AlertVotesFlushedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumulador en memoria de votos por alerta.
+ * Los votos se suman en LongAdders (sin locks ni lecturas/escrituras de la entidad)
+ * y se sirven los totales al instante. Cada pocos cientos de ms los deltas se
+ * persisten con un único batch de UPDATE atómicos (upvotes = upvotes + ?), de modo
+ * que votos concurrentes nunca se pierden.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VoteCounterService {
+
+    private static final String FLUSH_SQL =
+            "UPDATE alerts SET upvotes = upvotes + ?, downvotes = downvotes + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${votes.cache.idle-minutes:10}")
+    private long idleMinutes;
+
+    private final Map<Long, AlertVotes> votes = new ConcurrentHashMap<>();
+
+    // Entradas desalojadas: se drenan una vez más en el siguiente flush por si
+    // un voto concurrente llegó justo durante el desalojo
+    private List<AlertVotes> retired = new ArrayList<>();
+
+    public VoteTotals upvote(Alert alert) {
+        AlertVotes entry = entry(alert);
+        entry.pendingUp.increment();
+        return entry.totals();
+    }
+
+    public VoteTotals downvote(Alert alert) {
+        AlertVotes entry = entry(alert);
+        entry.pendingDown.increment();
+        return entry.totals();
+    }
+
+    /**
+     * Totales actuales sin registrar un voto
+     */
+    public VoteTotals totals(Alert alert) {
+        AlertVotes entry = votes.get(alert.getId());
+        return entry != null ? entry.totals() : new VoteTotals(alert.getUpvotes(), alert.getDownvotes());
+    }
+
+    /**
+     * Persiste los deltas acumulados con un batch de UPDATE atómicos
+     */
+    @Scheduled(fixedDelayString = "${votes.flush-interval-ms:250}")
+    public synchronized void flush() {
+        long idleBefore = System.currentTimeMillis() - idleMinutes * 60_000;
+
+        List<AlertVotes> candidates = new ArrayList<>(votes.values());
+        candidates.addAll(retired);
+        retired = new ArrayList<>();
+
+        List<Delta> deltas = new ArrayList<>();
+        for (AlertVotes entry : candidates) {
+            long up = entry.pendingUp.sumThenReset();
+            long down = entry.pendingDown.sumThenReset();
+
+            if (up != 0 || down != 0) {
+                // Se suma a la base antes de escribir para que los totales servidos no retrocedan
+                entry.baseUp.addAndGet(up);
+                entry.baseDown.addAndGet(down);
+                deltas.add(new Delta(entry, up, down));
+            } else if (!entry.retired && entry.lastVoteAt < idleBefore && votes.remove(entry.alertId, entry)) {
+                entry.retired = true;
+                retired.add(entry);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        int[] updated;
+        try {
+            updated = jdbcTemplate.batchUpdate(FLUSH_SQL, deltas.stream()
+                    .map(delta -> new Object[]{delta.upvotes(), delta.downvotes(), delta.entry().alertId})
+                    .toList());
+        } catch (Exception e) {
+            log.error("Error persistiendo {} deltas de votos, se reintentan en el siguiente flush: {}",
+                    deltas.size(), e.getMessage());
+            for (Delta delta : deltas) {
+                delta.entry().baseUp.addAndGet(-delta.upvotes());
+                delta.entry().baseDown.addAndGet(-delta.downvotes());
+                delta.entry().pendingUp.add(delta.upvotes());
+                delta.entry().pendingDown.add(delta.downvotes());
+                if (delta.entry().retired) {
+                    retired.add(delta.entry());
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < deltas.size(); i++) {
+            AlertVotes entry = deltas.get(i).entry();
+            if (i < updated.length && updated[i] == 0) {
+                // La alerta fue eliminada: se descartan sus votos
+                log.debug("Alerta {} ya no existe, se descartan sus votos pendientes", entry.alertId);
+                votes.remove(entry.alertId, entry);
+                continue;
+            }
+            if (entry.retired) {
+                retired.add(entry);
+            }
+            if (entry.ownerId != null) {
+                eventPublisher.publishEvent(new AlertVotesFlushedEvent(
+                        entry.alertId, entry.ownerId, deltas.get(i).upvotes(), deltas.get(i).downvotes()));
+            }
+        }
+    }
+
+    public int getTrackedAlerts() {
+        return votes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private AlertVotes entry(Alert alert) {
+        AlertVotes entry = votes.computeIfAbsent(alert.getId(), id -> new AlertVotes(
+                id,
+                alert.getUser() != null ? alert.getUser().getId() : null,
+                alert.getUpvotes(),
+                alert.getDownvotes()));
+        entry.lastVoteAt = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * Contadores de una alerta: base persistida + deltas pendientes
+     */
+    private static final class AlertVotes {
+        private final Long alertId;
+        private final Long ownerId;
+        private final AtomicLong baseUp;
+        private final AtomicLong baseDown;
+        private final LongAdder pendingUp = new LongAdder();
+        private final LongAdder pendingDown = new LongAdder();
+        private volatile long lastVoteAt;
+        private volatile boolean retired;
+
+        private AlertVotes(Long alertId, Long ownerId, long upvotes, long downvotes) {
+            this.alertId = alertId;
+            this.ownerId = ownerId;
+            this.baseUp = new AtomicLong(upvotes);
+            this.baseDown = new AtomicLong(downvotes);
+        }
+
+        private VoteTotals totals() {
+            return new VoteTotals(
+                    (int) (baseUp.get() + pendingUp.sum()),
+                    (int) (baseDown.get() + pendingDown.sum()));
+        }
+    }
+
+    private record Delta(AlertVotes entry, long upvotes, long downvotes) {
+    }
+
+    public record VoteTotals(int upvotes, int downvotes) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.event.AlertVotesFlushedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Traslada los votos ya persistidos a la reputación del autor de la alerta.
+ * Solo acumula deltas en UserStatisticsWriteBuffer; nivel y badges se evalúan
+ * una vez por usuario en el flush del buffer.
+ */
+@Service
+@RequiredArgsConstructor
+public class VoteEffectsService {
+
+    private final ReputationService reputationService;
+
+    @EventListener
+    public void onVotesFlushed(AlertVotesFlushedEvent event) {
+        reputationService.onAlertUpvoted(event.ownerId(), event.upvotes());
+        reputationService.onAlertDownvoted(event.ownerId(), event.downvotes());
+    }
+}
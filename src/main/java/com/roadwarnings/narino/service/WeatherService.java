@@ -2,30 +2,49 @@ package com.roadwarnings.narino.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.enums.ExternalDependency;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Servicio para integración con OpenWeatherMap API
- * Proporciona información meteorológica para alertas y rutas
+ * Proporciona información meteorológica para alertas y rutas.
+ *
+ * El departamento se divide en una grilla fija de celdas (las que contienen una
+ * cabecera municipal, es decir, los nodos de la red vial). WeatherGridPrefetcher
+ * refresca periódicamente cada celda dentro de la cuota del proveedor y las consultas
+ * son búsquedas en memoria sobre esa tabla, con metadatos de antigüedad.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WeatherService {
 
+    // OpenWeather entrega el pronóstico en intervalos de 3 horas, hasta 5 días
+    private static final int FORECAST_STEPS_PER_DAY = 8;
+    private static final int MAX_FORECAST_DAYS = 5;
+
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final MunicipalityGazetteerService gazetteerService;
+    private final ExternalCallGuard externalCallGuard;
 
     @Value("${weather.api.key:#{null}}")
     private String apiKey;
@@ -33,73 +52,100 @@ public class WeatherService {
     @Value("${weather.api.url:https://api.openweathermap.org/data/2.5}")
     private String apiUrl;
 
-    /**
-     * Obtiene el clima actual para una ubicación
-     */
-    @Cacheable(value = "weather", key = "#latitude + '_' + #longitude", unless = "#result == null")
-    public WeatherDataDTO getCurrentWeather(Double latitude, Double longitude) {
-        if (apiKey == null || apiKey.isEmpty()) {
-            log.warn("API Key de clima no configurada");
-            return null;
+    @Value("${weather.api.requests-per-minute:50}")
+    private int requestsPerMinute;
+
+    @Value("${weather.grid.cell-size-degrees:0.2}")
+    private double cellSizeDegrees;
+
+    @Value("${weather.grid.max-lookup-distance-km:30}")
+    private double maxLookupDistanceKm;
+
+    @Value("${weather.grid.current-stale-after-minutes:30}")
+    private long currentStaleAfterMinutes;
+
+    @Value("${weather.grid.forecast-stale-after-minutes:360}")
+    private long forecastStaleAfterMinutes;
+
+    private final Map<String, WeatherCell> cells = new ConcurrentHashMap<>();
+    private Bucket quota;
+
+    @PostConstruct
+    public void initGrid() {
+        quota = Bucket.builder()
+                .addLimit(Bandwidth.classic(requestsPerMinute,
+                        Refill.greedy(requestsPerMinute, Duration.ofMinutes(1))))
+                .build();
+
+        for (double[] seat : gazetteerService.getSeatCoordinates()) {
+            int row = (int) Math.floor(seat[0] / cellSizeDegrees);
+            int col = (int) Math.floor(seat[1] / cellSizeDegrees);
+            cells.computeIfAbsent(cellId(row, col), id -> new WeatherCell(id,
+                    (row + 0.5) * cellSizeDegrees,
+                    (col + 0.5) * cellSizeDegrees));
         }
 
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(apiUrl + "/weather")
-                    .queryParam("lat", latitude)
-                    .queryParam("lon", longitude)
-                    .queryParam("appid", apiKey)
-                    .queryParam("units", "metric")
-                    .queryParam("lang", "es")
-                    .toUriString();
+        log.info("Grilla de clima inicializada: {} celdas de {}°", cells.size(), cellSizeDegrees);
+    }
 
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isEmpty();
+    }
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return parseWeatherResponse(response.getBody());
-            }
+    public int getCellCount() {
+        return cells.size();
+    }
 
-            log.error("Error al obtener clima: {}", response.getStatusCode());
-            return null;
+    // ==================== CONSULTAS (EN MEMORIA) ====================
 
-        } catch (Exception e) {
-            log.error("Error al consultar API de clima: {}", e.getMessage());
+    /**
+     * Obtiene el clima actual para una ubicación desde la celda de la grilla
+     * que la cubre. Devuelve null si la ubicación está fuera de la grilla o la
+     * celda aún no tiene datos.
+     */
+    public WeatherDataDTO getCurrentWeather(Double latitude, Double longitude) {
+        WeatherCell cell = findCell(latitude, longitude);
+        if (cell == null || cell.current == null) {
             return null;
         }
+
+        long ageMinutes = ageMinutes(cell.currentFetchedAt);
+        return cell.current.toBuilder()
+                .cellId(cell.id)
+                .ageMinutes(ageMinutes)
+                .stale(ageMinutes > currentStaleAfterMinutes)
+                .build();
     }
 
     /**
      * Obtiene pronóstico del clima para los próximos días
      */
-    @Cacheable(value = "weather-forecast", key = "#latitude + '_' + #longitude", unless = "#result == null")
     public List<WeatherForecastDTO> getWeatherForecast(Double latitude, Double longitude, Integer days) {
-        if (apiKey == null || apiKey.isEmpty()) {
-            log.warn("API Key de clima no configurada");
-            return new ArrayList<>();
-        }
-
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(apiUrl + "/forecast")
-                    .queryParam("lat", latitude)
-                    .queryParam("lon", longitude)
-                    .queryParam("appid", apiKey)
-                    .queryParam("units", "metric")
-                    .queryParam("lang", "es")
-                    .queryParam("cnt", days != null ? days * 8 : 24) // 8 intervalos por día (cada 3 horas)
-                    .toUriString();
-
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return parseForecastResponse(response.getBody());
-            }
-
-            log.error("Error al obtener pronóstico: {}", response.getStatusCode());
-            return new ArrayList<>();
+        WeatherForecastSnapshotDTO snapshot = getForecastSnapshot(latitude, longitude, days);
+        return snapshot != null ? snapshot.getForecasts() : new ArrayList<>();
+    }
 
-        } catch (Exception e) {
-            log.error("Error al consultar pronóstico: {}", e.getMessage());
-            return new ArrayList<>();
+    /**
+     * Pronóstico de la celda junto con su antigüedad. Devuelve null si no hay datos.
+     */
+    public WeatherForecastSnapshotDTO getForecastSnapshot(Double latitude, Double longitude, Integer days) {
+        WeatherCell cell = findCell(latitude, longitude);
+        if (cell == null || cell.forecast == null) {
+            return null;
         }
+
+        int requestedDays = days != null ? Math.max(1, Math.min(days, MAX_FORECAST_DAYS)) : 3;
+        List<WeatherForecastDTO> forecast = cell.forecast;
+        int limit = Math.min(forecast.size(), requestedDays * FORECAST_STEPS_PER_DAY);
+
+        long ageMinutes = ageMinutes(cell.forecastFetchedAt);
+        return WeatherForecastSnapshotDTO.builder()
+                .cellId(cell.id)
+                .fetchedAt(cell.forecastFetchedAt)
+                .ageMinutes(ageMinutes)
+                .stale(ageMinutes > forecastStaleAfterMinutes)
+                .forecasts(new ArrayList<>(forecast.subList(0, limit)))
+                .build();
     }
 
     /**
@@ -159,9 +205,159 @@ public class WeatherService {
                 .hazards(hazards)
                 .temperature(weather.getTemperature())
                 .condition(weather.getCondition())
+                .fetchedAt(weather.getTimestamp())
+                .ageMinutes(weather.getAgeMinutes())
+                .stale(weather.getStale())
                 .build();
     }
 
+    // ==================== REFRESCO DE LA GRILLA ====================
+
+    /**
+     * Refresca el clima actual de todas las celdas respetando la cuota del proveedor.
+     * Si una celda falla conserva su último valor (queda marcada como stale).
+     *
+     * @return número de celdas actualizadas
+     */
+    public int refreshCurrentConditions() {
+        int refreshed = 0;
+        for (WeatherCell cell : cells.values()) {
+            if (!acquireQuota()) {
+                break;
+            }
+            WeatherDataDTO data = fetchCurrentWeather(cell.latitude, cell.longitude);
+            if (data != null) {
+                cell.current = data;
+                cell.currentFetchedAt = data.getTimestamp();
+                refreshed++;
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Refresca el pronóstico completo (5 días) de todas las celdas.
+     *
+     * @return número de celdas actualizadas
+     */
+    public int refreshForecasts() {
+        int refreshed = 0;
+        for (WeatherCell cell : cells.values()) {
+            if (!acquireQuota()) {
+                break;
+            }
+            List<WeatherForecastDTO> forecast = fetchForecast(cell.latitude, cell.longitude);
+            if (forecast != null && !forecast.isEmpty()) {
+                cell.forecast = List.copyOf(forecast);
+                cell.forecastFetchedAt = LocalDateTime.now();
+                refreshed++;
+            }
+        }
+        return refreshed;
+    }
+
+    private WeatherDataDTO fetchCurrentWeather(double latitude, double longitude) {
+        String url = UriComponentsBuilder.fromHttpUrl(apiUrl + "/weather")
+                .queryParam("lat", latitude)
+                .queryParam("lon", longitude)
+                .queryParam("appid", apiKey)
+                .queryParam("units", "metric")
+                .queryParam("lang", "es")
+                .toUriString();
+
+        // Fallback: la celda conserva su último valor y queda marcada como stale
+        return externalCallGuard.execute(ExternalDependency.OPENWEATHER, () -> {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new IllegalStateException("Error al obtener clima: " + response.getStatusCode());
+            }
+            return parseWeatherResponse(response.getBody());
+        }, e -> null);
+    }
+
+    private List<WeatherForecastDTO> fetchForecast(double latitude, double longitude) {
+        String url = UriComponentsBuilder.fromHttpUrl(apiUrl + "/forecast")
+                .queryParam("lat", latitude)
+                .queryParam("lon", longitude)
+                .queryParam("appid", apiKey)
+                .queryParam("units", "metric")
+                .queryParam("lang", "es")
+                .queryParam("cnt", MAX_FORECAST_DAYS * FORECAST_STEPS_PER_DAY)
+                .toUriString();
+
+        return externalCallGuard.execute(ExternalDependency.OPENWEATHER, () -> {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new IllegalStateException("Error al obtener pronóstico: " + response.getStatusCode());
+            }
+            return parseForecastResponse(response.getBody());
+        }, e -> null);
+    }
+
+    /**
+     * Bloquea hasta tener permiso de la cuota por minuto del proveedor
+     */
+    private boolean acquireQuota() {
+        try {
+            quota.asBlocking().consume(1);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ==================== GRILLA ====================
+
+    /**
+     * Celda que contiene el punto o, si no está en la grilla, la más cercana
+     * dentro del radio máximo de búsqueda.
+     */
+    private WeatherCell findCell(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+
+        int row = (int) Math.floor(latitude / cellSizeDegrees);
+        int col = (int) Math.floor(longitude / cellSizeDegrees);
+        WeatherCell exact = cells.get(cellId(row, col));
+        if (exact != null) {
+            return exact;
+        }
+
+        WeatherCell nearest = null;
+        double nearestDistance = maxLookupDistanceKm;
+        for (WeatherCell cell : cells.values()) {
+            double distance = calculateDistance(latitude, longitude, cell.latitude, cell.longitude);
+            if (distance <= nearestDistance) {
+                nearest = cell;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    private static String cellId(int row, int col) {
+        return String.format(Locale.ROOT, "%d:%d", row, col);
+    }
+
+    private static long ageMinutes(LocalDateTime fetchedAt) {
+        return fetchedAt != null ? Duration.between(fetchedAt, LocalDateTime.now()).toMinutes() : -1;
+    }
+
+    private static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371; // Radio de la Tierra en km
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return R * c;
+    }
+
     private WeatherDataDTO parseWeatherResponse(String json) {
         try {
             JsonNode root = objectMapper.readTree(json);
@@ -222,10 +418,30 @@ public class WeatherService {
         return forecasts;
     }
 
+
+    /**
+     * Entrada de la tabla de celdas. Los datos se reemplazan completos en cada refresco.
+     */
+    private static final class WeatherCell {
+        private final String id;
+        private final double latitude;
+        private final double longitude;
+        private volatile WeatherDataDTO current;
+        private volatile LocalDateTime currentFetchedAt;
+        private volatile List<WeatherForecastDTO> forecast;
+        private volatile LocalDateTime forecastFetchedAt;
+
+        private WeatherCell(String id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
     // ==================== DTOs ====================
 
     @lombok.Data
-    @lombok.Builder
+    @lombok.Builder(toBuilder = true)
     public static class WeatherDataDTO {
         private Double temperature;
         private Double feelsLike;
@@ -238,7 +454,10 @@ public class WeatherService {
         private Integer visibility;
         private Double rainfall1h;
         private Double snowfall1h;
-        private LocalDateTime timestamp;
+        private LocalDateTime timestamp; // Momento en que se obtuvo del proveedor
+        private String cellId;
+        private Long ageMinutes;
+        private Boolean stale;
     }
 
     @lombok.Data
@@ -251,6 +470,16 @@ public class WeatherService {
         private Double rainfall3h;
     }
 
+    @lombok.Data
+    @lombok.Builder
+    public static class WeatherForecastSnapshotDTO {
+        private String cellId;
+        private LocalDateTime fetchedAt;
+        private Long ageMinutes;
+        private Boolean stale;
+        private List<WeatherForecastDTO> forecasts;
+    }
+
     @lombok.Data
     @lombok.Builder
     public static class WeatherAlertDTO {
@@ -259,5 +488,8 @@ public class WeatherService {
         private List<String> hazards;
         private Double temperature;
         private String condition;
+        private LocalDateTime fetchedAt;
+        private Long ageMinutes;
+        private Boolean stale;
     }
 }
@@ -0,0 +1,143 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Puente del broker STOMP entre instancias sobre un ClusterMessageBus.
+ * Intercepta en el brokerChannel los mensajes a /topic y /user generados en esta
+ * instancia, los publica en el bus y re-inyecta en el broker local los que llegan
+ * de otras. Cada mensaje lleva un id: se ignoran los propios y los ya vistos.
+ */
+@Service
+@ConditionalOnProperty(name = "websocket.cluster.mode", havingValue = "redis")
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketClusterBridge implements ChannelInterceptor {
+
+    // Marca los mensajes re-inyectados para no volver a publicarlos
+    static final String ORIGIN_HEADER = "clusterOrigin";
+
+    private final ClusterMessageBus clusterMessageBus;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${websocket.cluster.channel:websocket:broadcast}")
+    private String channel;
+
+    @Value("${websocket.cluster.dedup-window:10000}")
+    private int dedupWindow;
+
+    private Map<String, Boolean> seenIds;
+
+    /**
+     * Mensaje tal como viaja por el bus (payload ya serializado)
+     */
+    public record Envelope(String id, String origin, String destination, String contentType, byte[] payload) {
+    }
+
+    @PostConstruct
+    public void init() {
+        seenIds = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupWindow;
+            }
+        });
+        clusterMessageBus.subscribe(channel, this::onClusterMessage);
+        log.info("Puente WebSocket entre instancias activo (nodo {})", nodeId);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (headers.containsKey(ORIGIN_HEADER) || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        // Los /queue ya resueltos apuntan a sesiones locales
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))) {
+            return message;
+        }
+
+        byte[] payload = toBytes(message.getPayload());
+        if (payload == null) {
+            return message;
+        }
+
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        Envelope envelope = new Envelope(UUID.randomUUID().toString(), nodeId, destination,
+                contentType != null ? contentType.toString() : null, payload);
+        try {
+            clusterMessageBus.publish(this.channel, objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            // La entrega local sigue; solo se pierde la réplica en otras instancias
+            log.warn("No se pudo publicar el mensaje WebSocket {} en el bus: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    void onClusterMessage(String json) {
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(json, Envelope.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Mensaje inválido en el bus WebSocket: {}", e.getMessage());
+            return;
+        }
+
+        if (nodeId.equals(envelope.origin()) || seenIds.putIfAbsent(envelope.id(), Boolean.TRUE) != null) {
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.destination());
+        if (envelope.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+        }
+        accessor.setHeader(ORIGIN_HEADER, envelope.origin());
+        accessor.setLeaveMutable(true);
+
+        messagingTemplate.getObject().send(envelope.destination(),
+                MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders()));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static byte[] toBytes(Object payload) {
+        if (payload instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (payload instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+}
@@ -2,20 +2,48 @@ package com.roadwarnings.narino.service;
 
 import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
 import com.roadwarnings.narino.dto.response.CommentResponseDTO;
+import com.roadwarnings.narino.dto.websocket.AlertBatchWebSocketMessage;
 import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertTopicMode;
+import com.roadwarnings.narino.util.Geohash;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Eventos de alertas por WebSocket. Cada evento va al topic de la celda geohash
+ * donde cae la alerta (/topic/alerts/cell/{geohash}); los clientes se suscriben a
+ * las celdas que cubren su vista. Según websocket.alerts.topic-mode también se
+ * publica (o solo se publica) en el topic global /topic/alerts. Los mismos eventos
+ * alimentan el stream SSE (AlertEventStreamService).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketService {
 
+    public static final String GLOBAL_ALERTS_TOPIC = "/topic/alerts";
+    public static final String CELL_TOPIC_PREFIX = "/topic/alerts/cell/";
+    public static final String ACTION_STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String ACTION_VOTE_UPDATE = "VOTE_UPDATE";
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final AlertEventStreamService alertEventStreamService;
+
+    @Value("${websocket.alerts.topic-mode:BOTH}")
+    private AlertTopicMode topicMode;
+
+    @Value("${websocket.alerts.cell-precision:5}")
+    private int cellPrecision;
 
     /**
      * Envía una nueva alerta a todos los usuarios conectados
@@ -38,7 +66,7 @@ public class WebSocketService {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/alerts", message);
+        publish(alert.getLatitude(), alert.getLongitude(), message);
         log.info("Nueva alerta broadcast a WebSocket: {}", alert.getId());
     }
 
@@ -63,21 +91,23 @@ public class WebSocketService {
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/alerts", message);
+        publish(alert.getLatitude(), alert.getLongitude(), message);
         log.info("Actualización de alerta broadcast a WebSocket: {}", alert.getId());
     }
 
     /**
      * Envía eliminación de una alerta a todos los usuarios conectados
      */
-    public void broadcastAlertDeletion(Long alertId) {
+    public void broadcastAlertDeletion(Long alertId, Double latitude, Double longitude) {
         AlertWebSocketMessage message = AlertWebSocketMessage.builder()
                 .action("DELETED")
                 .alertId(alertId)
+                .latitude(latitude)
+                .longitude(longitude)
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        messagingTemplate.convertAndSend("/topic/alerts", message);
+        publish(latitude, longitude, message);
         log.info("Eliminación de alerta broadcast a WebSocket: {}", alertId);
     }
 
@@ -85,31 +115,68 @@ public class WebSocketService {
      * Envía cambio de estado de una alerta a todos los usuarios conectados
      */
     public void broadcastAlertStatusChange(AlertaResponseDTO alert) {
-        AlertWebSocketMessage message = AlertWebSocketMessage.builder()
-                .action("STATUS_CHANGED")
-                .alertId(alert.getId())
-                .status(alert.getStatus())
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        messagingTemplate.convertAndSend("/topic/alerts", message);
+        publish(alert.getLatitude(), alert.getLongitude(), statusChangeMessage(alert));
         log.info("Cambio de estado de alerta broadcast a WebSocket: {}", alert.getId());
     }
 
     /**
      * Envía actualización de votos de una alerta
      */
-    public void broadcastAlertVoteUpdate(Long alertId, Integer upvotes, Integer downvotes) {
-        AlertWebSocketMessage message = AlertWebSocketMessage.builder()
-                .action("VOTE_UPDATE")
+    public void broadcastAlertVoteUpdate(Long alertId, Double latitude, Double longitude,
+                                         Integer upvotes, Integer downvotes) {
+        publish(latitude, longitude, voteUpdateMessage(alertId, latitude, longitude, upvotes, downvotes));
+        log.info("Actualización de votos broadcast a WebSocket: alerta {}", alertId);
+    }
+
+    public AlertWebSocketMessage statusChangeMessage(AlertaResponseDTO alert) {
+        return AlertWebSocketMessage.builder()
+                .action(ACTION_STATUS_CHANGED)
+                .alertId(alert.getId())
+                .latitude(alert.getLatitude())
+                .longitude(alert.getLongitude())
+                .status(alert.getStatus())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    public AlertWebSocketMessage voteUpdateMessage(Long alertId, Double latitude, Double longitude,
+                                                   Integer upvotes, Integer downvotes) {
+        return AlertWebSocketMessage.builder()
+                .action(ACTION_VOTE_UPDATE)
                 .alertId(alertId)
+                .latitude(latitude)
+                .longitude(longitude)
                 .upvotes(upvotes)
                 .downvotes(downvotes)
                 .timestamp(LocalDateTime.now())
                 .build();
+    }
 
-        messagingTemplate.convertAndSend("/topic/alerts", message);
-        log.info("Actualización de votos broadcast a WebSocket: alerta {}", alertId);
+    /**
+     * Envía en un único mensaje las alertas creadas por una ingesta masiva
+     * (y en el modo por celdas, un mensaje por celda con solo sus alertas)
+     */
+    public void broadcastAlertBatch(String source, List<AlertWebSocketMessage> alerts) {
+        publishBatch("BULK_CREATED", source, alerts);
+        log.info("Lote de {} alertas ({}) broadcast a WebSocket", alerts.size(), source);
+    }
+
+    /**
+     * Envía en un solo frame (por topic) los cambios acumulados de varias alertas
+     * (votos, estado). Devuelve el número de frames enviados.
+     */
+    public int broadcastAlertChanges(List<AlertWebSocketMessage> changes) {
+        return publishBatch("BATCH_UPDATE", null, changes);
+    }
+
+    /**
+     * Celda geohash (topic) en la que cae un punto, o null sin coordenadas
+     */
+    public String cellOf(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return null;
+        }
+        return Geohash.encode(latitude, longitude, cellPrecision);
     }
 
     /**
@@ -125,7 +192,7 @@ public class WebSocketService {
      */
     public void sendNearbyAlertsToUser(String username, AlertaResponseDTO alert) {
         messagingTemplate.convertAndSendToUser(username, "/queue/nearby-alerts", alert);
-        log.info("Alerta cercana enviada a usuario {}: {}", username, alert.getId());
+        log.debug("Alerta cercana enviada a usuario {}: {}", username, alert.getId());
     }
 
     /**
@@ -135,4 +202,68 @@ public class WebSocketService {
         messagingTemplate.convertAndSendToUser(username, "/queue/notifications", message);
         log.info("Notificación personal enviada a usuario: {}", username);
     }
+
+    /**
+     * Publica el evento en los topics que correspondan al modo configurado.
+     * Con más de un destino el payload se serializa una sola vez.
+     */
+    private void publish(Double latitude, Double longitude, AlertWebSocketMessage payload) {
+        alertEventStreamService.publish(List.of(payload));
+
+        List<String> destinations = new ArrayList<>(2);
+        if (topicMode != AlertTopicMode.CELLS) {
+            destinations.add(GLOBAL_ALERTS_TOPIC);
+        }
+        String cell = topicMode != AlertTopicMode.GLOBAL ? cellOf(latitude, longitude) : null;
+        if (cell != null) {
+            destinations.add(CELL_TOPIC_PREFIX + cell);
+        }
+
+        if (destinations.isEmpty()) {
+            log.debug("Evento de alerta sin coordenadas descartado en modo {}", topicMode);
+        } else if (destinations.size() == 1) {
+            messagingTemplate.convertAndSend(destinations.get(0), payload);
+        } else {
+            Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, null);
+            if (message == null) {
+                destinations.forEach(destination -> messagingTemplate.convertAndSend(destination, payload));
+                return;
+            }
+            destinations.forEach(destination -> messagingTemplate.send(destination, message));
+        }
+    }
+
+    private int publishBatch(String action, String source, List<AlertWebSocketMessage> alerts) {
+        alertEventStreamService.publish(alerts);
+
+        int frames = 0;
+        if (topicMode != AlertTopicMode.CELLS) {
+            messagingTemplate.convertAndSend(GLOBAL_ALERTS_TOPIC, batchMessage(action, source, alerts));
+            frames++;
+        }
+
+        if (topicMode != AlertTopicMode.GLOBAL) {
+            Map<String, List<AlertWebSocketMessage>> byCell = new LinkedHashMap<>();
+            for (AlertWebSocketMessage alert : alerts) {
+                String cell = cellOf(alert.getLatitude(), alert.getLongitude());
+                if (cell != null) {
+                    byCell.computeIfAbsent(cell, c -> new ArrayList<>()).add(alert);
+                }
+            }
+            byCell.forEach((cell, cellAlerts) ->
+                    messagingTemplate.convertAndSend(CELL_TOPIC_PREFIX + cell, batchMessage(action, source, cellAlerts)));
+            frames += byCell.size();
+        }
+        return frames;
+    }
+
+    private static AlertBatchWebSocketMessage batchMessage(String action, String source, List<AlertWebSocketMessage> alerts) {
+        return AlertBatchWebSocketMessage.builder()
+                .action(action)
+                .source(source)
+                .count(alerts.size())
+                .alerts(alerts)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
 }
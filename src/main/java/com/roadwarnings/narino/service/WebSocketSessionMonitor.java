@@ -0,0 +1,143 @@
+package com.roadwarnings.narino.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.security.Principal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Protección frente a clientes lentos (2G en zonas rurales). Cada sesión STOMP se
+ * envuelve en una BoundedSendSession con límites de tiempo de envío y de cola;
+ * aquí se llevan las sesiones activas y las métricas de cola y descartes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketSessionMonitor {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, DISCONNECT
+    }
+
+    @Qualifier("websocketSendExecutor")
+    private final TaskExecutor websocketSendExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${websocket.send.time-limit-ms:15000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.send.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Value("${websocket.send.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    private final Map<String, BoundedSendSession> sessions = new ConcurrentHashMap<>();
+
+    private Counter droppedCounter;
+    private Counter disconnectedCounter;
+
+    @PostConstruct
+    public void init() {
+        droppedCounter = Counter.builder("websocket.session.dropped")
+                .description("Frames descartados por cola llena (DROP_OLDEST)")
+                .register(meterRegistry);
+        disconnectedCounter = Counter.builder("websocket.session.disconnected")
+                .description("Sesiones cerradas por superar los límites de envío")
+                .register(meterRegistry);
+        Gauge.builder("websocket.sessions", sessions, Map::size)
+                .description("Sesiones WebSocket activas")
+                .register(meterRegistry);
+        Gauge.builder("websocket.session.queue.depth.total", this, monitor -> monitor.queueDepths().sum())
+                .description("Frames pendientes de envío en todas las sesiones")
+                .register(meterRegistry);
+        Gauge.builder("websocket.session.queue.depth.max", this, monitor -> monitor.queueDepths().max().orElse(0))
+                .description("Frames pendientes de la sesión más atrasada")
+                .register(meterRegistry);
+    }
+
+    public int getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    public int getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    public WebSocketSession decorate(WebSocketSession session) {
+        BoundedSendSession bounded = new BoundedSendSession(session, websocketSendExecutor, this,
+                sendTimeLimit, bufferSizeLimit, overflowPolicy);
+        sessions.put(session.getId(), bounded);
+        return bounded;
+    }
+
+    public void release(String sessionId) {
+        BoundedSendSession session = sessions.remove(sessionId);
+        if (session != null && session.getDroppedMessages() > 0) {
+            log.info("Sesión WebSocket {} cerrada con {} frames descartados", sessionId, session.getDroppedMessages());
+        }
+    }
+
+    /**
+     * Estado de envío por sesión, de la más atrasada a la menos
+     */
+    public List<SessionStats> getSessionStats() {
+        return sessions.values().stream()
+                .map(WebSocketSessionMonitor::toStats)
+                .sorted(Comparator.comparingInt(SessionStats::getQueueDepth).reversed())
+                .toList();
+    }
+
+    void onDropped(BoundedSendSession session, int count) {
+        droppedCounter.increment(count);
+        log.debug("Sesión WebSocket {}: {} frames descartados por cola llena", session.getId(), count);
+    }
+
+    void onLimitExceeded(BoundedSendSession session, String reason) {
+        disconnectedCounter.increment();
+        log.warn("Sesión WebSocket {} cerrada por cliente lento: {}", session.getId(), reason);
+    }
+
+    private IntStream queueDepths() {
+        return sessions.values().stream().mapToInt(BoundedSendSession::getQueueDepth);
+    }
+
+    private static SessionStats toStats(BoundedSendSession session) {
+        Principal principal = session.getPrincipal();
+        return SessionStats.builder()
+                .sessionId(session.getId())
+                .username(principal != null ? principal.getName() : null)
+                .queueDepth(session.getQueueDepth())
+                .queuedBytes(session.getQueuedBytes())
+                .sentMessages(session.getSentMessages())
+                .droppedMessages(session.getDroppedMessages())
+                .sendingForMs(session.sendingForMs())
+                .build();
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class SessionStats {
+        private String sessionId;
+        private String username;
+        private int queueDepth;
+        private int queuedBytes;
+        private long sentMessages;
+        private long droppedMessages;
+        private long sendingForMs;
+    }
+}
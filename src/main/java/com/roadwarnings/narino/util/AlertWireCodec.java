@@ -0,0 +1,164 @@
+package com.roadwarnings.narino.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Formato compacto de los eventos de alertas por WebSocket.
+ * Traduce el JSON completo de AlertWebSocketMessage / AlertBatchWebSocketMessage
+ * a objetos con ids numéricos cortos en lugar de nombres de campo, la acción como
+ * código entero y el timestamp en epoch millis:
+ *
+ * <pre>
+ * 0 acción   1 alertId   2 type      3 title     4 description  5 latitude
+ * 6 longitude 7 location 8 severity  9 status   10 username    11 upvotes
+ * 12 downvotes 13 timestamp 14 source 15 alerts (lote) 16 count (lote)
+ * </pre>
+ *
+ * Acciones: 1 CREATED, 2 UPDATED, 3 DELETED, 4 STATUS_CHANGED, 5 VOTE_UPDATE,
+ * 6 BULK_CREATED, 7 BATCH_UPDATE.
+ */
+public final class AlertWireCodec {
+
+    public static final String ACTION = "0";
+    public static final String ALERT_ID = "1";
+    public static final String TIMESTAMP = "13";
+    public static final String SOURCE = "14";
+    public static final String ALERTS = "15";
+    public static final String COUNT = "16";
+
+    public static final int CREATED = 1;
+    public static final int DELETED = 3;
+    public static final int BULK_CREATED = 6;
+    public static final int BATCH_UPDATE = 7;
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private static final Map<String, String> FIELD_IDS = Map.ofEntries(
+            Map.entry("alertId", ALERT_ID),
+            Map.entry("type", "2"),
+            Map.entry("title", "3"),
+            Map.entry("description", "4"),
+            Map.entry("latitude", "5"),
+            Map.entry("longitude", "6"),
+            Map.entry("location", "7"),
+            Map.entry("severity", "8"),
+            Map.entry("status", "9"),
+            Map.entry("username", "10"),
+            Map.entry("upvotes", "11"),
+            Map.entry("downvotes", "12"));
+
+    private static final Map<String, Integer> ACTION_CODES = Map.of(
+            "CREATED", CREATED,
+            "UPDATED", 2,
+            "DELETED", DELETED,
+            "STATUS_CHANGED", 4,
+            "VOTE_UPDATE", 5,
+            "BULK_CREATED", BULK_CREATED,
+            "BATCH_UPDATE", BATCH_UPDATE);
+
+    private AlertWireCodec() {
+    }
+
+    /**
+     * true si el JSON completo es un lote (AlertBatchWebSocketMessage)
+     */
+    public static boolean isBatch(JsonNode full) {
+        return full.path("alerts").isArray();
+    }
+
+    /**
+     * Convierte un evento de una alerta a su forma compacta completa (sin delta).
+     * Los campos nulos se omiten.
+     */
+    public static ObjectNode toCompact(JsonNode full, ZoneId zone) {
+        ObjectNode compact = NODES.objectNode();
+        compact.put(ACTION, actionCode(full.path("action").asText(null)));
+
+        Iterator<Map.Entry<String, JsonNode>> fields = full.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String id = FIELD_IDS.get(field.getKey());
+            if (id != null && !field.getValue().isNull()) {
+                compact.set(id, field.getValue());
+            }
+        }
+
+        putTimestamp(compact, full, zone);
+        return compact;
+    }
+
+    /**
+     * Cabecera compacta de un lote (sin las alertas, que se codifican una a una)
+     */
+    public static ObjectNode batchHeader(JsonNode full, ZoneId zone) {
+        ObjectNode compact = NODES.objectNode();
+        compact.put(ACTION, actionCode(full.path("action").asText(null)));
+        if (full.hasNonNull("source")) {
+            compact.set(SOURCE, full.get("source"));
+        }
+        putTimestamp(compact, full, zone);
+        return compact;
+    }
+
+    /**
+     * Solo los campos de current que cambian respecto a previous. La acción,
+     * el id y el timestamp van siempre.
+     */
+    public static ObjectNode delta(ObjectNode previous, ObjectNode current) {
+        ObjectNode delta = NODES.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String id = field.getKey();
+            if (isKeyField(id) || !field.getValue().equals(previous.get(id))) {
+                delta.set(id, field.getValue());
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Acumula en state los campos de un evento (sin acción ni timestamp)
+     */
+    public static void merge(ObjectNode state, ObjectNode compact) {
+        Iterator<Map.Entry<String, JsonNode>> fields = compact.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!ACTION.equals(field.getKey()) && !TIMESTAMP.equals(field.getKey())) {
+                state.set(field.getKey(), field.getValue());
+            }
+        }
+    }
+
+    private static boolean isKeyField(String id) {
+        return ACTION.equals(id) || ALERT_ID.equals(id) || TIMESTAMP.equals(id);
+    }
+
+    private static int actionCode(String action) {
+        return action != null ? ACTION_CODES.getOrDefault(action, 0) : 0;
+    }
+
+    private static void putTimestamp(ObjectNode compact, JsonNode full, ZoneId zone) {
+        JsonNode timestamp = full.get("timestamp");
+        if (timestamp == null || timestamp.isNull()) {
+            return;
+        }
+        if (timestamp.isNumber()) {
+            compact.put(TIMESTAMP, timestamp.asLong());
+            return;
+        }
+        try {
+            compact.put(TIMESTAMP, LocalDateTime.parse(timestamp.asText()).atZone(zone).toInstant().toEpochMilli());
+        } catch (DateTimeParseException e) {
+            compact.put(TIMESTAMP, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.roadwarnings.narino.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.roadwarnings.narino.dto.response.RouteCalculationResponseDTO.RouteOption;
+import com.roadwarnings.narino.dto.response.RouteCalculationResponseDTO.RouteStep;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Parser en streaming de respuestas de Google Directions API.
+ * Recorre el JSON token a token y solo materializa los campos que usamos
+ * (resumen, polyline, distancia/duración del primer tramo y sus pasos); el resto
+ * del documento (bounds, polylines por paso, waypoints...) se salta sin construir nodos.
+ */
+public final class DirectionsResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    private DirectionsResponseParser() {
+    }
+
+    /**
+     * Devuelve las rutas de la respuesta (sin tráfico ni conteo de alertas)
+     */
+    public static List<RouteOption> parse(InputStream body) throws IOException {
+        List<RouteOption> routes = new ArrayList<>();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return routes;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+
+                if ("routes".equals(field) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        routes.add(parseRoute(parser, routes.size() + 1));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * Elimina etiquetas HTML de las instrucciones de Google
+     */
+    public static String stripTags(String html) {
+        if (html.indexOf('<') < 0) {
+            return html;
+        }
+        return HTML_TAG.matcher(html).replaceAll("");
+    }
+
+    private static RouteOption parseRoute(JsonParser parser, int index) throws IOException {
+        String summary = null;
+        String polyline = "";
+        Leg leg = new Leg();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            switch (field) {
+                case "summary" -> summary = token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                case "overview_polyline" -> polyline = readString(parser, "points", "");
+                case "legs" -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        boolean first = true;
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+                                parseLeg(parser, leg);
+                                first = false;
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return RouteOption.builder()
+                .id("route-" + index)
+                .name(summary != null ? summary : "Ruta " + index)
+                .distance(leg.distanceMeters / 1000.0)
+                .duration(leg.durationSeconds / 60)
+                .polyline(polyline)
+                .steps(leg.steps)
+                .build();
+    }
+
+    private static void parseLeg(JsonParser parser, Leg leg) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            switch (field) {
+                case "distance" -> leg.distanceMeters = readNumber(parser, "value");
+                case "duration" -> leg.durationSeconds = (int) readNumber(parser, "value");
+                case "steps" -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            leg.steps.add(parseStep(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static RouteStep parseStep(JsonParser parser) throws IOException {
+        String instruction = "";
+        double distanceMeters = 0;
+        int durationSeconds = 0;
+        double lat = 0;
+        double lng = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            switch (field) {
+                case "html_instructions" -> instruction = token == JsonToken.VALUE_NULL ? "" : parser.getValueAsString("");
+                case "distance" -> distanceMeters = readNumber(parser, "value");
+                case "duration" -> durationSeconds = (int) readNumber(parser, "value");
+                case "start_location" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String coordinate = parser.currentName();
+                            parser.nextToken();
+                            if ("lat".equals(coordinate)) {
+                                lat = parser.getValueAsDouble();
+                            } else if ("lng".equals(coordinate)) {
+                                lng = parser.getValueAsDouble();
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return RouteStep.builder()
+                .instruction(stripTags(instruction))
+                .distance(distanceMeters / 1000.0)
+                .duration(durationSeconds / 60)
+                .lat(lat)
+                .lng(lng)
+                .build();
+    }
+
+    /**
+     * Lee un campo numérico de un objeto como {"text": "...", "value": 123}
+     */
+    private static double readNumber(JsonParser parser, String name) throws IOException {
+        double result = 0;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return result;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                result = parser.getValueAsDouble();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static String readString(JsonParser parser, String name, String defaultValue) throws IOException {
+        String result = defaultValue;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return result;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                result = parser.getValueAsString(defaultValue);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Datos acumulados del primer tramo (leg) de una ruta
+     */
+    private static final class Leg {
+        private double distanceMeters;
+        private int durationSeconds;
+        private final List<RouteStep> steps = new ArrayList<>();
+    }
+}
@@ -0,0 +1,111 @@
+package com.roadwarnings.narino.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codificación geohash (base32) para indexar alertas por celda.
+ * Tamaño aproximado de celda en Nariño: precisión 5 ~ 4.9 x 4.9 km,
+ * precisión 6 ~ 1.2 x 0.6 km, precisión 7 ~ 150 x 150 m.
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("Precisión de geohash fuera de rango: " + precision);
+        }
+
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+
+        for (int i = 0; i < precision; ) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    index = (index << 1) | 1;
+                    minLon = mid;
+                } else {
+                    index <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    index = (index << 1) | 1;
+                    minLat = mid;
+                } else {
+                    index <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash[i++] = BASE32[index];
+                bit = 0;
+                index = 0;
+            }
+        }
+
+        return new String(hash);
+    }
+
+    /**
+     * Celda del punto y sus 8 vecinas (sin duplicados), para búsquedas que
+     * no deben perder puntos cercanos al borde de la celda
+     */
+    public static List<String> cellWithNeighbors(double latitude, double longitude, int precision) {
+        double latHeight = cellHeight(precision);
+        double lonWidth = cellWidth(precision);
+
+        // Centro de la celda que contiene el punto
+        double centerLat = (Math.floor((latitude + 90) / latHeight) + 0.5) * latHeight - 90;
+        double centerLon = (Math.floor((longitude + 180) / lonWidth) + 0.5) * lonWidth - 180;
+
+        List<String> cells = new ArrayList<>(9);
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            double lat = centerLat + dLat * latHeight;
+            if (lat < -90 || lat > 90) {
+                continue;
+            }
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                double lon = centerLon + dLon * lonWidth;
+                if (lon >= 180) {
+                    lon -= 360;
+                } else if (lon < -180) {
+                    lon += 360;
+                }
+                String cell = encode(lat, lon, precision);
+                if (!cells.contains(cell)) {
+                    cells.add(cell);
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Alto de celda en grados de latitud
+     */
+    public static double cellHeight(int precision) {
+        int latBits = (5 * precision) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    /**
+     * Ancho de celda en grados de longitud
+     */
+    public static double cellWidth(int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+}
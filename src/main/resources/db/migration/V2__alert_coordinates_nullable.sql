@@ -0,0 +1,3 @@
+-- Sin Flyway: aplicar a mano en bases existentes (ddl-auto=update no elimina NOT NULL)
+ALTER TABLE alerts ALTER COLUMN latitude DROP NOT NULL;
+ALTER TABLE alerts ALTER COLUMN longitude DROP NOT NULL;
@@ -6,6 +6,8 @@ import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
 import com.roadwarnings.narino.enums.AlertSeverity;
 import com.roadwarnings.narino.enums.AlertStatus;
 import com.roadwarnings.narino.enums.AlertType;
+import com.roadwarnings.narino.service.AlertEventStreamService;
+import com.roadwarnings.narino.service.AlertSearchService;
 import com.roadwarnings.narino.service.AlertService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +39,12 @@ class AlertControllerTest {
     @MockBean
     private AlertService alertService;
 
+    @MockBean
+    private AlertSearchService alertSearchService;
+
+    @MockBean
+    private AlertEventStreamService alertEventStreamService;
+
     private AlertaRequestDTO requestDTO;
     private AlertaResponseDTO responseDTO;
 
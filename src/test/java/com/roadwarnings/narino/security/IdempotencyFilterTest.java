@@ -0,0 +1,142 @@
+package com.roadwarnings.narino.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.roadwarnings.narino.service.InMemoryIdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore();
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+
+        filter = new IdempotencyFilter(store, new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "paths", new String[]{"/alert", "/alert/*/upvote"});
+        ReflectionTestUtils.setField(filter, "ttlHours", 24L);
+        ReflectionTestUtils.setField(filter, "inFlightTtlSeconds", 60L);
+        ReflectionTestUtils.setField(filter, "waitTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 1024);
+
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void replay_ShouldReturnStoredResponseWithoutExecutingAgain() throws Exception {
+        MockHttpServletResponse first = perform("/alert", "k1", "{\"title\":\"Derrumbe\"}", countingChain(201));
+        MockHttpServletResponse second = perform("/alert", "k1", "{\"title\":\"Derrumbe\"}", countingChain(201));
+
+        assertEquals(1, executions.get());
+        assertEquals(201, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void sameKeyWithDifferentBody_ShouldReturn422() throws Exception {
+        perform("/alert", "k1", "{\"title\":\"Derrumbe\"}", countingChain(201));
+        MockHttpServletResponse second = perform("/alert", "k1", "{\"title\":\"Otro\"}", countingChain(201));
+
+        assertEquals(422, second.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void serverError_ShouldNotBeStored() throws Exception {
+        perform("/alert/1/upvote", "k1", "", countingChain(500));
+        MockHttpServletResponse retry = perform("/alert/1/upvote", "k1", "", countingChain(200));
+
+        assertEquals(2, executions.get());
+        assertEquals(200, retry.getStatus());
+    }
+
+    @Test
+    void concurrentDuplicate_ShouldWaitForFirstExecution() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        FilterChain slowChain = (req, res) -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((HttpServletResponse) res).setStatus(200);
+            res.getOutputStream().write("{\"upvotes\":1}".getBytes(StandardCharsets.UTF_8));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> perform("/alert/1/upvote", "k1", "", slowChain));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> duplicate = executor.submit(() -> perform("/alert/1/upvote", "k1", "", slowChain));
+
+            Thread.sleep(100);
+            assertFalse(duplicate.isDone());
+            release.countDown();
+
+            assertEquals("{\"upvotes\":1}", first.get(5, TimeUnit.SECONDS).getContentAsString());
+            MockHttpServletResponse replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals("{\"upvotes\":1}", replayed.getContentAsString());
+            assertEquals("true", replayed.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void requestWithoutKey_ShouldNotBeFiltered() throws Exception {
+        perform("/alert", null, "{}", countingChain(201));
+        perform("/alert", null, "{}", countingChain(201));
+
+        assertEquals(2, executions.get());
+    }
+
+    private FilterChain countingChain(int status) {
+        return (req, res) -> {
+            int n = executions.incrementAndGet();
+            // El cuerpo sigue disponible para el controlador
+            req.getInputStream().readAllBytes();
+            ((HttpServletResponse) res).setStatus(status);
+            res.setContentType("application/json");
+            res.getOutputStream().write(("{\"id\":" + n + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletResponse perform(String path, String key, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr("10.0.0.1");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
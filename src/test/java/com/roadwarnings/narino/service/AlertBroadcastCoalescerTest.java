@@ -0,0 +1,108 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertBroadcastCoalescerTest {
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AlertBroadcastCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new AlertBroadcastCoalescer(webSocketService, meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        coalescer.init();
+
+        lenient().when(webSocketService.voteUpdateMessage(anyLong(), any(), any(), any(), any())).thenCallRealMethod();
+        lenient().when(webSocketService.statusChangeMessage(any())).thenCallRealMethod();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldSendLatestStatePerAlertInOneFrame() {
+        when(webSocketService.broadcastAlertChanges(anyList())).thenReturn(1);
+
+        for (int i = 1; i <= 100; i++) {
+            coalescer.voteUpdated(1L, 1.21, -77.28, i, 0);
+        }
+        coalescer.statusChanged(AlertaResponseDTO.builder()
+                .id(2L).latitude(1.21).longitude(-77.28).status(AlertStatus.RESOLVED).build());
+
+        coalescer.flush();
+
+        ArgumentCaptor<List<AlertWebSocketMessage>> changes = ArgumentCaptor.forClass(List.class);
+        verify(webSocketService, times(1)).broadcastAlertChanges(changes.capture());
+        List<AlertWebSocketMessage> sent = changes.getValue().stream()
+                .sorted(Comparator.comparing(AlertWebSocketMessage::getAlertId))
+                .toList();
+        assertEquals(2, sent.size());
+        assertEquals(100, sent.get(0).getUpvotes());
+        assertEquals(AlertStatus.RESOLVED, sent.get(1).getStatus());
+        verify(webSocketService, never()).broadcastAlertVoteUpdate(any(), any(), any(), any(), any());
+
+        assertEquals(101, meterRegistry.counter("websocket.coalescer.updates").count());
+        assertEquals(100, meterRegistry.counter("websocket.coalescer.frames.saved").count());
+    }
+
+    @Test
+    void flush_WhenNothingChanged_ShouldSendNothing() {
+        coalescer.flush();
+
+        verify(webSocketService, never()).broadcastAlertChanges(anyList());
+    }
+
+    @Test
+    void whenDisabled_ShouldBroadcastImmediately() {
+        ReflectionTestUtils.setField(coalescer, "enabled", false);
+
+        coalescer.voteUpdated(1L, 1.21, -77.28, 5, 1);
+
+        verify(webSocketService).broadcastAlertVoteUpdate(1L, 1.21, -77.28, 5, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void alertUpdatedOrDeleted_ShouldDropPendingChangesOfThatAlert() {
+        when(webSocketService.broadcastAlertChanges(anyList())).thenReturn(1);
+        AlertaResponseDTO updated = AlertaResponseDTO.builder().id(1L).latitude(1.21).longitude(-77.28).build();
+
+        coalescer.voteUpdated(1L, 1.21, -77.28, 3, 0);
+        coalescer.statusChanged(AlertaResponseDTO.builder()
+                .id(2L).latitude(1.21).longitude(-77.28).status(AlertStatus.RESOLVED).build());
+        coalescer.voteUpdated(3L, 1.21, -77.28, 1, 0);
+
+        coalescer.alertUpdated(updated);
+        coalescer.alertDeleted(2L, 1.21, -77.28);
+        coalescer.flush();
+
+        verify(webSocketService).broadcastAlertUpdate(updated);
+        verify(webSocketService).broadcastAlertDeletion(2L, 1.21, -77.28);
+        ArgumentCaptor<List<AlertWebSocketMessage>> changes = ArgumentCaptor.forClass(List.class);
+        verify(webSocketService).broadcastAlertChanges(changes.capture());
+        assertEquals(List.of(3L), changes.getValue().stream().map(AlertWebSocketMessage::getAlertId).toList());
+    }
+}
@@ -0,0 +1,105 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.Alert;
+import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.enums.AlertType;
+import com.roadwarnings.narino.event.AlertCreatedEvent;
+import com.roadwarnings.narino.repository.AlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AlertDedupIndexTest {
+
+    private AlertRepository alertRepository;
+    private AlertDedupIndex index;
+
+    @BeforeEach
+    void setUp() {
+        alertRepository = mock(AlertRepository.class);
+        index = new AlertDedupIndex(alertRepository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "precision", 6);
+        ReflectionTestUtils.setField(index, "radiusMeters", 300.0);
+        ReflectionTestUtils.setField(index, "windowMinutes", 30L);
+    }
+
+    @Test
+    void findDuplicate_WhenSameTypeNearbyAndRecent_ShouldReturnClosestAlert() {
+        index.register(1L, AlertType.DERRUMBE, 1.2136, -77.2811, LocalDateTime.now().minusMinutes(5));
+        index.register(2L, AlertType.DERRUMBE, 1.2150, -77.2811, LocalDateTime.now());
+
+        // ~110 m de la alerta 1 y ~45 m de la alerta 2
+        assertEquals(Optional.of(2L), index.findDuplicate(AlertType.DERRUMBE, 1.2146, -77.2811));
+    }
+
+    @Test
+    void findDuplicate_WhenDifferentTypeOrFarAway_ShouldReturnEmpty() {
+        index.register(1L, AlertType.DERRUMBE, 1.2136, -77.2811, LocalDateTime.now());
+
+        assertTrue(index.findDuplicate(AlertType.ACCIDENTE, 1.2136, -77.2811).isEmpty());
+        // ~1.1 km al norte
+        assertTrue(index.findDuplicate(AlertType.DERRUMBE, 1.2236, -77.2811).isEmpty());
+    }
+
+    @Test
+    void findDuplicate_WhenOutsideTimeWindow_ShouldReturnEmpty() {
+        index.register(1L, AlertType.DERRUMBE, 1.2136, -77.2811, LocalDateTime.now().minusMinutes(45));
+
+        assertTrue(index.findDuplicate(AlertType.DERRUMBE, 1.2136, -77.2811).isEmpty());
+    }
+
+    @Test
+    void remove_ShouldStopMatchingAlert() {
+        index.register(1L, AlertType.DERRUMBE, 1.2136, -77.2811, LocalDateTime.now());
+
+        index.remove(1L);
+
+        assertTrue(index.findDuplicate(AlertType.DERRUMBE, 1.2136, -77.2811).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void onAlertCreated_ShouldIndexCommittedAlert() {
+        index.onAlertCreated(new AlertCreatedEvent(1L, AlertType.DERRUMBE, 1.2136, -77.2811, LocalDateTime.now()));
+
+        assertEquals(Optional.of(1L), index.findDuplicate(AlertType.DERRUMBE, 1.2137, -77.2811));
+    }
+
+    @Test
+    void recordConfirmation_ShouldCountEachUserOnce() {
+        index.register(1L, AlertType.DERRUMBE, 1.2136, -77.2811, LocalDateTime.now());
+
+        assertTrue(index.recordConfirmation(1L, 7L));
+        assertFalse(index.recordConfirmation(1L, 7L));
+        assertTrue(index.recordConfirmation(1L, 8L));
+        // Alerta fuera del índice: no se aceptan confirmaciones
+        assertFalse(index.recordConfirmation(2L, 7L));
+    }
+
+    @Test
+    void warmUp_ShouldSkipRecentAlertsStillWithoutCoordinates() {
+        Alert located = Alert.builder().id(1L).type(AlertType.DERRUMBE)
+                .latitude(1.2136).longitude(-77.2811).createdAt(LocalDateTime.now()).build();
+        // Creada solo con dirección: espera geocodificación (o esta falló)
+        Alert pending = Alert.builder().id(2L).type(AlertType.DERRUMBE)
+                .location("Calle 18 # 25-40, Pasto").createdAt(LocalDateTime.now()).build();
+        when(alertRepository.findRecentAlerts(eq(AlertStatus.ACTIVE), any(LocalDateTime.class)))
+                .thenReturn(List.of(located, pending));
+
+        index.warmUp();
+
+        assertEquals(1, index.size());
+        assertEquals(Optional.of(1L), index.findDuplicate(AlertType.DERRUMBE, 1.2136, -77.2811));
+    }
+}
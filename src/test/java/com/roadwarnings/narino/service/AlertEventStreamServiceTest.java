@@ -0,0 +1,200 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertSeverity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertEventStreamServiceTest {
+
+    private static final AlertEventStreamService.StreamFilter NO_FILTER =
+            new AlertEventStreamService.StreamFilter(null, null, null, null, null);
+
+    @Mock
+    private ObjectProvider<ClusterMessageBus> clusterMessageBus;
+
+    private AlertEventStreamService service;
+    private long horizon;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        service = new AlertEventStreamService(objectMapper, clusterMessageBus, new SimpleMeterRegistry(),
+                new SyncTaskExecutor());
+        ReflectionTestUtils.setField(service, "bufferSize", 3);
+        ReflectionTestUtils.setField(service, "maxPending", 10);
+        service.init();
+        horizon = (long) ReflectionTestUtils.getField(service, "horizon");
+
+        // Pasto (HIGH) e Ipiales (CRITICAL); luego votos de la alerta de Pasto sin severidad
+        service.publish(List.of(
+                alert("CREATED", 1L, 1.2136, -77.2811, AlertSeverity.HIGH),
+                alert("CREATED", 2L, 0.8302, -77.6443, AlertSeverity.CRITICAL),
+                alert("VOTE_UPDATE", 1L, 1.2136, -77.2811, null)));
+    }
+
+    @Test
+    void replay_ShouldReturnBufferedEventsAfterLastEventId() {
+        List<SseEventBuilder> missed = service.replay(horizon, NO_FILTER);
+
+        assertEquals(3, missed.size());
+        assertTrue(text(missed.get(0)).contains("event:CREATED"));
+        assertTrue(text(missed.get(2)).contains("event:VOTE_UPDATE"));
+    }
+
+    @Test
+    void replay_WithFilters_ShouldApplyBboxAndKnownSeverity() {
+        // Rectángulo alrededor de Pasto
+        AlertEventStreamService.StreamFilter pasto = new AlertEventStreamService.StreamFilter(
+                1.1, 1.3, -77.4, -77.2, null);
+        assertEquals(2, service.replay(horizon, pasto).size());
+
+        // El voto no trae severidad: se filtra por la de su alerta (HIGH)
+        AlertEventStreamService.StreamFilter critical = new AlertEventStreamService.StreamFilter(
+                null, null, null, null, Set.of(AlertSeverity.CRITICAL));
+        List<SseEventBuilder> criticalOnly = service.replay(horizon, critical);
+        assertEquals(1, criticalOnly.size());
+        assertTrue(text(criticalOnly.get(0)).contains("\"alertId\":2"));
+    }
+
+    @Test
+    void replay_WhenLastEventIdLeftTheBuffer_ShouldSendReset() {
+        // Un cuarto evento expulsa al primero del buffer (tamaño 3)
+        service.publish(List.of(alert("DELETED", 2L, 0.8302, -77.6443, null)));
+
+        List<SseEventBuilder> missed = service.replay(horizon, NO_FILTER);
+
+        assertEquals(1, missed.size());
+        assertTrue(text(missed.get(0)).contains("event:" + AlertEventStreamService.RESET_EVENT));
+    }
+
+    @Test
+    void replay_WhenMissedEventsExceedHalfOfMaxPending_ShouldSendReset() {
+        // Con max-pending = 4 la réplica admite como mucho 2 eventos
+        ReflectionTestUtils.setField(service, "maxPending", 4);
+
+        List<SseEventBuilder> missed = service.replay(horizon, NO_FILTER);
+
+        assertEquals(1, missed.size());
+        assertTrue(text(missed.get(0)).contains("event:" + AlertEventStreamService.RESET_EVENT));
+
+        // El límite se aplica tras filtrar: los 2 eventos de Pasto sí se reenvían
+        AlertEventStreamService.StreamFilter pasto = new AlertEventStreamService.StreamFilter(
+                1.1, 1.3, -77.4, -77.2, null);
+        assertEquals(2, service.replay(horizon, pasto).size());
+    }
+
+    @Test
+    void publish_WhenOneClientIsStalled_ShouldKeepStreamingToHealthyClients() throws Exception {
+        CountDownLatch stalledWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseStalledWrite = new CountDownLatch(1);
+        List<String> healthyReceived = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch healthyGotEvents = new CountDownLatch(3);
+
+        // Cliente con la ventana TCP llena: su primera escritura no vuelve
+        SseEmitter stalled = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                stalledWriteStarted.countDown();
+                try {
+                    releaseStalledWrite.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Broken pipe");
+            }
+        };
+        SseEmitter healthy = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                healthyReceived.add(text(builder));
+                healthyGotEvents.countDown();
+            }
+        };
+        List<SseEmitter> emitters = new ArrayList<>(List.of(stalled, healthy));
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.initialize();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AlertEventStreamService streams = new AlertEventStreamService(new ObjectMapper()
+                .registerModule(new JavaTimeModule()), clusterMessageBus, meterRegistry, executor) {
+            @Override
+            SseEmitter createEmitter() {
+                return emitters.remove(0);
+            }
+        };
+        ReflectionTestUtils.setField(streams, "bufferSize", 10);
+        ReflectionTestUtils.setField(streams, "maxConnections", 10);
+        ReflectionTestUtils.setField(streams, "maxPending", 10);
+        ReflectionTestUtils.setField(streams, "writeTimeoutMs", 50L);
+        streams.init();
+
+        try {
+            streams.open(NO_FILTER, null);
+            assertTrue(stalledWriteStarted.await(5, TimeUnit.SECONDS));
+            streams.open(NO_FILTER, null);
+
+            // Mientras la escritura del atascado sigue bloqueada, el otro recibe todo
+            streams.publish(List.of(alert("CREATED", 1L, 1.2136, -77.2811, AlertSeverity.HIGH)));
+            streams.publish(List.of(alert("CREATED", 2L, 0.8302, -77.6443, AlertSeverity.CRITICAL)));
+            assertTrue(healthyGotEvents.await(5, TimeUnit.SECONDS), "Recibido: " + healthyReceived);
+            assertTrue(healthyReceived.get(2).contains("\"alertId\":2"));
+
+            // Pasado write-timeout-ms, el siguiente heartbeat desconecta al atascado
+            Thread.sleep(100);
+            streams.heartbeat();
+
+            assertEquals(1, streams.getConnectionCount());
+            assertEquals(1.0, meterRegistry.get("alerts.sse.slow.disconnects").counter().count());
+        } finally {
+            releaseStalledWrite.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static AlertWebSocketMessage alert(String action, Long id, double lat, double lon, AlertSeverity severity) {
+        return AlertWebSocketMessage.builder()
+                .action(action)
+                .alertId(id)
+                .latitude(lat)
+                .longitude(lon)
+                .severity(severity)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static String text(SseEventBuilder builder) {
+        return builder.build().stream()
+                .map(data -> data.getData().toString())
+                .collect(Collectors.joining());
+    }
+}
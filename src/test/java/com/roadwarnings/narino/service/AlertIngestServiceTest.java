@@ -0,0 +1,203 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.response.AlertIngestResultDTO;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertType;
+import com.roadwarnings.narino.event.AlertsIngestedEvent;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertIngestServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private MunicipalityGazetteerService gazetteerService;
+
+    @Mock
+    private LocationEnrichmentService locationEnrichmentService;
+
+    @Mock
+    private AlertDedupIndex alertDedupIndex;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private AlertIngestService ingestService;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        ingestService = new AlertIngestService(jdbcTemplate, namedParameterJdbcTemplate, transactionTemplate,
+                objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), gazetteerService,
+                locationEnrichmentService, alertDedupIndex, webSocketService, eventPublisher);
+        ReflectionTestUtils.setField(ingestService, "chunkSize", 500);
+        ReflectionTestUtils.setField(ingestService, "maxItems", 100);
+        nextId = 10L;
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(gazetteerService.resolveMunicipality(anyDouble(), anyDouble())).thenReturn("Pasto");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingest_ShouldMapValidItemsSkipInvalidAndDuplicatedOnes() throws Exception {
+        stubInsertedRows();
+
+        AlertIngestResultDTO result = ingestService.ingest(" invias ", items("""
+                [
+                  {"externalId": " A-1 ", "type": "ACCIDENTE", "title": "  Choque km 12 ", "latitude": 1.21,
+                   "longitude": -77.28, "severity": "HIGH", "affectedRoads": ["Panamericana", " "]},
+                  {"externalId": "A-2", "type": "DERRUMBE", "title": "Derrumbe", "latitude": 1.5,
+                   "longitude": -77.5, "location": "Vía al mar", "municipality": "Tumaco", "severity": "CRITICAL"},
+                  {"externalId": "A-1", "type": "ACCIDENTE", "title": "Repetida", "latitude": 1.21,
+                   "longitude": -77.28, "severity": "HIGH"},
+                  {"externalId": "A-3", "type": "NO_EXISTE", "title": "Tipo inválido", "latitude": 1.0,
+                   "longitude": -77.0, "severity": "LOW"},
+                  {"externalId": "A-4", "type": "ACCIDENTE", "latitude": 1.0, "longitude": -77.0, "severity": "LOW"}
+                ]"""));
+
+        assertEquals("INVIAS", result.getSource());
+        assertEquals(5, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(2, result.getInvalid());
+        assertEquals(1, result.getChunks());
+        assertEquals(List.of(3, 4), result.getErrors().stream().map(AlertIngestResultDTO.ItemError::getIndex).toList());
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO alerts"), rows.capture(), any(int[].class));
+        Object[] first = rows.getValue().get(0);
+        assertEquals("ACCIDENTE", first[0]);
+        assertEquals("Choque km 12", first[1]);
+        assertEquals("", first[2]);
+        assertNull(first[5]);
+        // Municipio del feed si viene; si no, el del gazetteer
+        assertEquals("Pasto", first[6]);
+        assertEquals("Tumaco", rows.getValue().get(1)[6]);
+        assertEquals("INVIAS", first[12]);
+        assertEquals("A-1", first[13]);
+
+        ArgumentCaptor<List<Object[]>> roads = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("alert_affected_roads"), roads.capture());
+        assertEquals(1, roads.getValue().size());
+        assertArrayEquals(new Object[]{10L, "Panamericana"}, roads.getValue().get(0));
+
+        ArgumentCaptor<List<AlertWebSocketMessage>> broadcast = ArgumentCaptor.forClass(List.class);
+        verify(webSocketService).broadcastAlertBatch(eq("INVIAS"), broadcast.capture());
+        assertEquals(List.of(10L, 11L), broadcast.getValue().stream().map(AlertWebSocketMessage::getAlertId).toList());
+
+        verify(alertDedupIndex).register(eq(10L), eq(AlertType.ACCIDENTE), eq(1.21), eq(-77.28), any());
+        verify(alertDedupIndex).register(eq(11L), eq(AlertType.DERRUMBE), eq(1.5), eq(-77.5), any());
+        // Solo la alerta sin texto de ubicación se enriquece
+        verify(locationEnrichmentService).enqueue(10L, null, 1.21, -77.28, false, true, false);
+        verify(locationEnrichmentService, never()).enqueue(eq(11L), any(), any(), any(),
+                anyBoolean(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void ingest_ShouldPublishIngestedEventPerChunkForRouteCountsAndNotifications() throws Exception {
+        ReflectionTestUtils.setField(ingestService, "chunkSize", 2);
+        stubInsertedRows();
+
+        AlertIngestResultDTO result = ingestService.ingest("POLICIA", items("""
+                {"externalId": "P-1", "type": "ACCIDENTE", "title": "Uno", "latitude": 1.2, "longitude": -77.2, "location": "a", "severity": "LOW"}
+                {"externalId": "P-2", "type": "ACCIDENTE", "title": "Dos", "latitude": 1.2, "longitude": -77.2, "location": "b", "severity": "LOW"}
+                {"externalId": "P-3", "type": "ACCIDENTE", "title": "Tres", "latitude": 1.2, "longitude": -77.2, "location": "c", "severity": "LOW"}
+                """));
+
+        assertEquals(3, result.getInserted());
+        assertEquals(2, result.getChunks());
+
+        ArgumentCaptor<AlertsIngestedEvent> events = ArgumentCaptor.forClass(AlertsIngestedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(List.of(10L, 11L), events.getAllValues().get(0).alertIds());
+        assertEquals(List.of(12L), events.getAllValues().get(1).alertIds());
+        assertEquals("POLICIA", events.getAllValues().get(0).source());
+        verify(webSocketService, times(1)).broadcastAlertBatch(eq("POLICIA"), anyList());
+    }
+
+    @Test
+    void ingest_WhenAlreadyInDatabase_ShouldCountAsDuplicateWithoutSideEffects() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class))).thenReturn(new int[]{0});
+
+        AlertIngestResultDTO result = ingestService.ingest("INVIAS", items("""
+                [{"externalId": "A-1", "type": "ACCIDENTE", "title": "Choque", "latitude": 1.21,
+                  "longitude": -77.28, "severity": "HIGH"}]"""));
+
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        verifyNoInteractions(namedParameterJdbcTemplate, alertDedupIndex, eventPublisher, webSocketService);
+    }
+
+    /**
+     * Todas las filas del lote se insertan y reciben IDs consecutivos desde 10
+     */
+    private void stubInsertedRows() {
+        when(jdbcTemplate.batchUpdate(contains("INSERT INTO alerts"), anyList(), any(int[].class)))
+                .thenAnswer(invocation -> {
+                    int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+                    Arrays.fill(counts, 1);
+                    return counts;
+                });
+        doAnswer(invocation -> {
+            MapSqlParameterSource params = invocation.getArgument(1);
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Object externalId : (List<?>) params.getValue("externalIds")) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("external_id")).thenReturn((String) externalId);
+                when(rs.getLong("id")).thenReturn(nextId++);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(namedParameterJdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    private MappingIterator<JsonNode> items(String json) throws Exception {
+        return objectMapper.readerFor(JsonNode.class).readValues(json);
+    }
+}
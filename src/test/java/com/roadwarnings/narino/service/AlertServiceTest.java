@@ -8,6 +8,8 @@ import com.roadwarnings.narino.enums.AlertSeverity;
 import com.roadwarnings.narino.enums.AlertStatus;
 import com.roadwarnings.narino.enums.AlertType;
 import com.roadwarnings.narino.enums.UserRole;
+import com.roadwarnings.narino.event.AlertCreatedEvent;
+import com.roadwarnings.narino.event.AlertLocationEnrichedEvent;
 import com.roadwarnings.narino.exception.ResourceNotFoundException;
 import com.roadwarnings.narino.exception.UnauthorizedException;
 import com.roadwarnings.narino.repository.AlertRepository;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -25,6 +28,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -37,6 +41,30 @@ class AlertServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private MunicipalityGazetteerService gazetteerService;
+
+    @Mock
+    private LocationEnrichmentService locationEnrichmentService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private VoteCounterService voteCounterService;
+
+    @Mock
+    private AlertDedupIndex alertDedupIndex;
+
+    @Mock
+    private AlertBroadcastCoalescer alertBroadcastCoalescer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AlertService alertService;
 
@@ -75,6 +103,12 @@ class AlertServiceTest {
         requestDTO.setLongitude(-77.2812);
         requestDTO.setLocation("Pasto, Nariño");
         requestDTO.setSeverity(AlertSeverity.HIGH);
+
+        // Votos pendientes del contador en memoria superpuestos a los guardados
+        lenient().when(voteCounterService.totals(any(Alert.class))).thenAnswer(invocation -> {
+            Alert alert = invocation.getArgument(0);
+            return new VoteCounterService.VoteTotals(alert.getUpvotes(), alert.getDownvotes());
+        });
     }
 
     @Test
@@ -222,4 +256,163 @@ class AlertServiceTest {
         verify(alertRepository).findById(1L);
         verify(alertRepository).save(any(Alert.class));
     }
+
+    @Test
+    void createAlert_WhenDuplicateReportedByOtherUser_ShouldMergeAsUpvoteWithMedia() {
+        User reporter = User.builder().id(2L).username("otheruser").role(UserRole.USER).build();
+        requestDTO.setImageUrl("https://img.example.com/choque.jpg");
+
+        when(userRepository.findByUsername("otheruser")).thenReturn(Optional.of(reporter));
+        when(alertDedupIndex.findDuplicate(AlertType.ACCIDENTE, 1.2345, -77.2812)).thenReturn(Optional.of(1L));
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+        when(alertDedupIndex.recordConfirmation(1L, 2L)).thenReturn(true);
+        when(voteCounterService.upvote(testAlert)).thenReturn(new VoteCounterService.VoteTotals(1, 0));
+
+        AlertaResponseDTO result = alertService.createAlert(requestDTO, "otheruser");
+
+        assertTrue(result.getMerged());
+        assertEquals(1L, result.getId());
+        assertEquals(1, result.getUpvotes());
+        assertEquals(1, result.getMedia().size());
+        assertEquals("https://img.example.com/choque.jpg", result.getMedia().get(0).getUrl());
+        verify(alertBroadcastCoalescer).voteUpdated(1L, 1.2345, -77.2812, 1, 0);
+        verify(outboxService, never()).record(any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createAlert_WhenDuplicateReportedAnonymouslyOrByAuthor_ShouldMergeWithoutVote() {
+        when(alertDedupIndex.findDuplicate(AlertType.ACCIDENTE, 1.2345, -77.2812)).thenReturn(Optional.of(1L));
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+        when(voteCounterService.totals(testAlert)).thenReturn(new VoteCounterService.VoteTotals(3, 0));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        AlertaResponseDTO anonymous = alertService.createAlert(requestDTO, "public");
+        AlertaResponseDTO byAuthor = alertService.createAlert(requestDTO, "testuser");
+
+        assertTrue(anonymous.getMerged());
+        assertTrue(byAuthor.getMerged());
+        assertEquals(3, byAuthor.getUpvotes());
+        verify(voteCounterService, never()).upvote(any());
+        verify(alertDedupIndex, never()).recordConfirmation(any(), any());
+    }
+
+    @Test
+    void createAlert_WhenNotDuplicate_ShouldPublishCreatedEventForIndexAfterCommit() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(alertDedupIndex.findDuplicate(AlertType.ACCIDENTE, 1.2345, -77.2812)).thenReturn(Optional.empty());
+        when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+            Alert saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+
+        alertService.createAlert(requestDTO, "testuser");
+
+        // El índice no se toca dentro de la transacción
+        verify(alertDedupIndex, never()).register(any(Alert.class));
+        verify(eventPublisher).publishEvent(any(AlertCreatedEvent.class));
+        verify(outboxService).record(OutboxService.ALERT_CREATED, 5L, null);
+    }
+
+    @Test
+    void createAlert_WithOnlyAddress_ShouldSaveWithoutCoordinatesAndGeocodeLater() {
+        requestDTO.setLatitude(null);
+        requestDTO.setLongitude(null);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+            Alert saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+
+        AlertaResponseDTO result = alertService.createAlert(requestDTO, "testuser");
+
+        assertNull(result.getLatitude());
+        assertNull(result.getLongitude());
+        verify(locationEnrichmentService).enqueue(5L, "Pasto, Nariño", null, null, true, false, true);
+        verify(alertDedupIndex, never()).findDuplicate(any(), anyDouble(), anyDouble());
+        verify(eventPublisher, never()).publishEvent(any(AlertCreatedEvent.class));
+        // Los pasos que dependen de la ubicación esperan al geocodificado
+        verify(outboxService).record(OutboxService.ALERT_CREATED, 5L, OutboxService.PENDING_LOCATION);
+    }
+
+    @Test
+    void onAlertLocationEnriched_WhenAlertHasNoCoordinates_ShouldApplyGeocodedOnes() {
+        testAlert.setLatitude(null);
+        testAlert.setLongitude(null);
+        testAlert.setMunicipality(null);
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+
+        alertService.onAlertLocationEnriched(
+                new AlertLocationEnrichedEvent(1L, 1.2136, -77.2811, null, null, null, "Pasto"));
+
+        assertEquals(1.2136, testAlert.getLatitude());
+        assertEquals(-77.2811, testAlert.getLongitude());
+        assertEquals("Pasto", testAlert.getMunicipality());
+        verify(alertBroadcastCoalescer).alertUpdated(any(AlertaResponseDTO.class));
+        // Ya tiene coordenadas: entra al índice de duplicados tras el commit
+        verify(eventPublisher).publishEvent(any(AlertCreatedEvent.class));
+        // y se ejecutan los pasos diferidos (push cercano, notificaciones, contadores de rutas)
+        verify(outboxService).record(OutboxService.ALERT_LOCATED, 1L, null);
+    }
+
+    @Test
+    void onAlertLocationEnriched_WhenAlertAlreadyHadCoordinates_ShouldNotRecordLocatedEvent() {
+        // Dirección editada: se geocodifica con las coordenadas actuales como reemplazadas
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+
+        alertService.onAlertLocationEnriched(
+                new AlertLocationEnrichedEvent(1L, 1.2136, -77.2811, 1.2345, -77.2812, null, "Pasto"));
+
+        assertEquals(1.2136, testAlert.getLatitude());
+        verify(outboxService, never()).record(any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any(AlertCreatedEvent.class));
+    }
+
+    @Test
+    void updateAlert_WhenOwnerSendsFirstCoordinates_ShouldRunDeferredLocationSteps() {
+        testAlert.setLatitude(null);
+        testAlert.setLongitude(null);
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+
+        alertService.updateAlert(1L, requestDTO, "testuser");
+
+        assertEquals(1.2345, testAlert.getLatitude());
+        verify(eventPublisher).publishEvent(any(AlertCreatedEvent.class));
+        verify(outboxService).record(OutboxService.ALERT_LOCATED, 1L, null);
+    }
+
+    @Test
+    void onAlertLocationEnriched_WhenClientSentCoordinatesMeanwhile_ShouldKeepThem() {
+        // Creada solo con dirección; el cliente envió coordenadas antes de que terminara el geocodificado
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+
+        alertService.onAlertLocationEnriched(
+                new AlertLocationEnrichedEvent(1L, 1.2136, -77.2811, null, null, null, "Pasto"));
+
+        assertEquals(1.2345, testAlert.getLatitude());
+        assertEquals(-77.2812, testAlert.getLongitude());
+        verify(alertRepository, never()).save(any(Alert.class));
+        verify(alertBroadcastCoalescer, never()).alertUpdated(any());
+    }
+
+    @Test
+    void getNearbyAlerts_ShouldSkipAlertsPendingGeocoding() {
+        Alert pending = Alert.builder()
+                .id(2L)
+                .type(AlertType.ACCIDENTE)
+                .title("Pendiente")
+                .status(AlertStatus.ACTIVE)
+                .build();
+        when(alertRepository.findAll()).thenReturn(List.of(testAlert, pending));
+
+        List<AlertaResponseDTO> result = alertService.getNearbyAlerts(1.2345, -77.2812, 5.0);
+
+        assertEquals(List.of(1L), result.stream().map(AlertaResponseDTO::getId).toList());
+    }
 }
@@ -0,0 +1,145 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
+import com.roadwarnings.narino.entity.Alert;
+import com.roadwarnings.narino.entity.OutboxEvent;
+import com.roadwarnings.narino.entity.Route;
+import com.roadwarnings.narino.enums.AlertStatus;
+import com.roadwarnings.narino.enums.AlertType;
+import com.roadwarnings.narino.event.AlertsIngestedEvent;
+import com.roadwarnings.narino.repository.AlertRepository;
+import com.roadwarnings.narino.repository.RouteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertSideEffectServiceTest {
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private ReputationService reputationService;
+
+    @Mock
+    private SmartNotificationService smartNotificationService;
+
+    @Mock
+    private NearbyAlertPushService nearbyAlertPushService;
+
+    @InjectMocks
+    private AlertSideEffectService sideEffectService;
+
+    @Test
+    void onAlertsIngested_ShouldNotifyFavoriteRoutesAndUpdateRouteCountsOncePerChunk() {
+        Alert near = alert(10L, 1.2136, -77.2811);
+        Alert far = alert(11L, 4.60, -74.08);
+        Route route = Route.builder()
+                .id(1L)
+                .originLatitude(1.20).originLongitude(-77.28)
+                .destinationLatitude(1.22).destinationLongitude(-77.28)
+                .build();
+        when(alertRepository.findAllById(List.of(10L, 11L))).thenReturn(List.of(near, far));
+        when(alertRepository.findByStatus(AlertStatus.ACTIVE)).thenReturn(List.of(near, far));
+        when(routeRepository.findAll()).thenReturn(List.of(route));
+
+        sideEffectService.onAlertsIngested(new AlertsIngestedEvent("INVIAS", List.of(10L, 11L)));
+
+        // Mismo camino que las alertas ciudadanas (paso SMART_NOTIFICATIONS)
+        verify(smartNotificationService).onNewAlert(near);
+        verify(smartNotificationService).onNewAlert(far);
+        assertEquals(1, route.getActiveAlertsCount());
+        verify(routeRepository, times(1)).save(route);
+        verify(alertRepository, times(1)).findByStatus(AlertStatus.ACTIVE);
+    }
+
+    @Test
+    void onAlertsIngested_WhenAlertsWereDeleted_ShouldDoNothing() {
+        when(alertRepository.findAllById(List.of(10L))).thenReturn(List.of());
+
+        sideEffectService.onAlertsIngested(new AlertsIngestedEvent("INVIAS", List.of(10L)));
+
+        verify(smartNotificationService, never()).onNewAlert(any());
+        verifyNoInteractions(routeRepository);
+    }
+
+    @Test
+    void handleStep_WhenCreatedPendingLocation_ShouldDeferLocationStepsToLocatedEvent() {
+        Alert pending = alert(10L, 1.2136, -77.2811);
+        pending.setLatitude(null);
+        pending.setLongitude(null);
+        when(alertRepository.findById(10L)).thenReturn(Optional.of(pending));
+        when(alertService.getAlertById(10L)).thenReturn(AlertaResponseDTO.builder().id(10L).build());
+        OutboxEvent created = OutboxEvent.builder()
+                .eventType(OutboxService.ALERT_CREATED)
+                .aggregateId(10L)
+                .payload(OutboxService.PENDING_LOCATION)
+                .build();
+
+        for (String step : sideEffectService.getSteps()) {
+            sideEffectService.handleStep(created, step);
+        }
+
+        verify(webSocketService).broadcastNewAlert(any());
+        verify(nearbyAlertPushService, never()).onNewAlert(any());
+        verify(smartNotificationService, never()).onNewAlert(any());
+        verifyNoInteractions(routeRepository);
+
+        // Geocodificada: ALERT_LOCATED ejecuta solo los pasos diferidos, ya con coordenadas
+        pending.setLatitude(1.2136);
+        pending.setLongitude(-77.2811);
+        Route route = Route.builder()
+                .id(1L)
+                .originLatitude(1.20).originLongitude(-77.28)
+                .destinationLatitude(1.22).destinationLongitude(-77.28)
+                .build();
+        when(routeRepository.findAll()).thenReturn(List.of(route));
+        when(alertRepository.findByStatus(AlertStatus.ACTIVE)).thenReturn(List.of(pending));
+        AlertLocatedSideEffectService locatedHandler = new AlertLocatedSideEffectService(sideEffectService);
+        OutboxEvent located = OutboxEvent.builder()
+                .eventType(OutboxService.ALERT_LOCATED)
+                .aggregateId(10L)
+                .build();
+
+        for (String step : locatedHandler.getSteps()) {
+            locatedHandler.handleStep(located, step);
+        }
+
+        verify(nearbyAlertPushService).onNewAlert(any(AlertaResponseDTO.class));
+        verify(smartNotificationService).onNewAlert(pending);
+        assertEquals(1, route.getActiveAlertsCount());
+        // Broadcast y estadísticas no se repiten
+        verify(webSocketService, times(1)).broadcastNewAlert(any());
+        verify(reputationService, never()).onAlertCreated(any());
+    }
+
+    private static Alert alert(Long id, double latitude, double longitude) {
+        return Alert.builder()
+                .id(id)
+                .type(AlertType.ACCIDENTE)
+                .title("Oficial")
+                .latitude(latitude)
+                .longitude(longitude)
+                .status(AlertStatus.ACTIVE)
+                .build();
+    }
+}
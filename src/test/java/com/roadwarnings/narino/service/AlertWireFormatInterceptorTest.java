@@ -0,0 +1,260 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertSeverity;
+import com.roadwarnings.narino.util.AlertWireCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertWireFormatInterceptorTest {
+
+    private static final String TOPIC = WebSocketService.GLOBAL_ALERTS_TOPIC;
+
+    private ObjectMapper objectMapper;
+    private AlertWireFormatInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        interceptor = new AlertWireFormatInterceptor(objectMapper);
+        ReflectionTestUtils.setField(interceptor, "timeZone", "America/Bogota");
+        ReflectionTestUtils.setField(interceptor, "frameCacheSize", 16);
+        ReflectionTestUtils.setField(interceptor, "deltaStateSize", 16);
+        ReflectionTestUtils.setField(interceptor, "subscriberBaselineSize", 16);
+        interceptor.init();
+    }
+
+    @Test
+    void preSend_WithoutAccept_ShouldKeepFullJson() throws Exception {
+        subscribe("s1", null, false);
+        Message<?> message = message("s1", created());
+
+        assertSame(message, interceptor.preSend(message, null));
+        assertEquals(0, interceptor.subscriptionCount());
+    }
+
+    @Test
+    void preSend_DeltaJson_ShouldSendOnlyChangedFields() throws Exception {
+        subscribe("s1", AlertWireFormatInterceptor.DELTA_JSON.toString(), false);
+
+        JsonNode first = decode(interceptor.preSend(message("s1", created()), null));
+        assertEquals(AlertWireCodec.CREATED, first.get(AlertWireCodec.ACTION).asInt());
+        assertEquals("Derrumbe", first.get("3").asText());
+        assertTrue(first.get(AlertWireCodec.TIMESTAMP).isNumber());
+
+        AlertWebSocketMessage vote = AlertWebSocketMessage.builder()
+                .action("VOTE_UPDATE")
+                .alertId(7L)
+                .latitude(1.2136)
+                .longitude(-77.2811)
+                .upvotes(4)
+                .downvotes(0)
+                .timestamp(LocalDateTime.now())
+                .build();
+        Message<?> encoded = interceptor.preSend(message("s1", vote), null);
+        JsonNode delta = decode(encoded);
+
+        assertEquals(AlertWireFormatInterceptor.DELTA_JSON,
+                encoded.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertEquals(4, delta.get("11").asInt());
+        assertEquals(7L, delta.get(AlertWireCodec.ALERT_ID).asLong());
+        // Coordenadas y votos negativos no cambiaron
+        assertFalse(delta.has("5"));
+        assertFalse(delta.has("12"));
+    }
+
+    @Test
+    void preSend_DeltaJson_WhenSubscriberLacksPreviousVersion_ShouldSendFullState() throws Exception {
+        String delta = AlertWireFormatInterceptor.DELTA_JSON.toString();
+        subscribe("s1", delta, false);
+        byte[] created = objectMapper.writeValueAsBytes(created());
+        interceptor.preSend(message("s1", created), null);
+
+        // s2 se suscribe a mitad de camino
+        subscribe("s2", delta, false);
+        byte[] firstVote = objectMapper.writeValueAsBytes(vote(4));
+        JsonNode forS1 = decode(interceptor.preSend(message("s1", firstVote), null));
+        JsonNode forS2 = decode(interceptor.preSend(message("s2", firstVote), null));
+
+        assertFalse(forS1.has("3"));
+        assertEquals("Derrumbe", forS2.get("3").asText());
+        assertEquals(4, forS2.get("11").asInt());
+        assertEquals(5, forS2.get(AlertWireCodec.ACTION).asInt());
+
+        // s1 pierde un frame: el siguiente trae de nuevo el estado completo
+        byte[] lostVote = objectMapper.writeValueAsBytes(vote(5));
+        interceptor.preSend(message("s2", lostVote), null);
+        byte[] thirdVote = objectMapper.writeValueAsBytes(vote(6));
+        JsonNode resynced = decode(interceptor.preSend(message("s1", thirdVote), null));
+        JsonNode inSync = decode(interceptor.preSend(message("s2", thirdVote), null));
+
+        assertEquals("Derrumbe", resynced.get("3").asText());
+        assertEquals(6, resynced.get("11").asInt());
+        assertFalse(inSync.has("3"));
+    }
+
+    @Test
+    void preSend_WithOrderedOutboundPool_ShouldDeliverDeltasInPublishOrder() throws Exception {
+        // Canal de salida como en WebSocketConfig: pool de hilos + preservePublishOrder
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel(executor);
+        outbound.addInterceptor(interceptor);
+        OrderedMessageChannelDecorator.configureInterceptor(outbound, true);
+
+        int votes = 50;
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch delivered = new CountDownLatch(votes + 1);
+        outbound.subscribe(message -> {
+            try {
+                // Hilos de salida con tiempos distintos, como sesiones con carga variable
+                Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            JsonNode frame = decode(message);
+            if (frame.has("11")) {
+                received.add(frame.get("11").asInt());
+            }
+            delivered.countDown();
+        });
+
+        subscribe("s1", AlertWireFormatInterceptor.DELTA_JSON.toString(), false);
+        OrderedMessageChannelDecorator session = new OrderedMessageChannelDecorator(outbound,
+                LogFactory.getLog(AlertWireFormatInterceptorTest.class));
+        session.send(message("s1", created()));
+        for (int upvotes = 4; upvotes < 4 + votes; upvotes++) {
+            session.send(message("s1", vote(upvotes)));
+        }
+
+        try {
+            assertTrue(delivered.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        // Cada delta llega después del anterior: los votos nunca retroceden
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i) > received.get(i - 1), "Votos fuera de orden: " + received);
+        }
+        assertEquals(4 + votes - 1, received.get(received.size() - 1));
+    }
+
+    @Test
+    void preSend_Binary_ShouldShareEncodedFrameAcrossSubscribers() throws Exception {
+        subscribe("s1", "application/cbor", true);
+        subscribe("s2", "application/cbor", true);
+        byte[] payload = objectMapper.writeValueAsBytes(created());
+
+        Message<?> first = interceptor.preSend(message("s1", payload), null);
+        Message<?> second = interceptor.preSend(message("s2", payload), null);
+
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, first.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertSame(first.getPayload(), second.getPayload());
+        JsonNode decoded = new CBORMapper().readTree((byte[]) first.getPayload());
+        assertEquals(7L, decoded.get(AlertWireCodec.ALERT_ID).asLong());
+    }
+
+    @Test
+    void negotiate_BinaryOverSockJs_ShouldFallBackToDeltaJson() {
+        assertEquals(AlertWireFormatInterceptor.Encoding.DELTA_JSON,
+                AlertWireFormatInterceptor.negotiate("application/cbor", false));
+        assertEquals(AlertWireFormatInterceptor.Encoding.BINARY,
+                AlertWireFormatInterceptor.negotiate("application/cbor", true));
+        assertNull(AlertWireFormatInterceptor.negotiate("application/json", true));
+    }
+
+    private void subscribe(String sessionId, String accept, boolean nativeTransport) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + sessionId);
+        accessor.setDestination(TOPIC);
+        if (accept != null) {
+            accessor.setNativeHeader("accept", accept);
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeTransport) {
+            attributes.put(AlertWireFormatInterceptor.NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+        }
+        accessor.setSessionAttributes(attributes);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private Message<?> message(String sessionId, Object payload) throws Exception {
+        byte[] bytes = payload instanceof byte[] raw ? raw : objectMapper.writeValueAsBytes(payload);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + sessionId);
+        accessor.setDestination(TOPIC);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        // Como el broker: cabeceras mutables para que el canal ordenado añada su tarea
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(bytes, accessor.getMessageHeaders());
+    }
+
+    private JsonNode decode(Message<?> message) {
+        try {
+            return objectMapper.readTree((byte[]) message.getPayload());
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static AlertWebSocketMessage vote(int upvotes) {
+        return AlertWebSocketMessage.builder()
+                .action("VOTE_UPDATE")
+                .alertId(7L)
+                .latitude(1.2136)
+                .longitude(-77.2811)
+                .upvotes(upvotes)
+                .downvotes(0)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static AlertWebSocketMessage created() {
+        return AlertWebSocketMessage.builder()
+                .action("CREATED")
+                .alertId(7L)
+                .title("Derrumbe")
+                .latitude(1.2136)
+                .longitude(-77.2811)
+                .severity(AlertSeverity.HIGH)
+                .upvotes(3)
+                .downvotes(0)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.UserStatistics;
+import com.roadwarnings.narino.enums.BadgeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BadgeRuleEngineTest {
+
+    private final BadgeRuleEngine engine = new BadgeRuleEngine();
+
+    @Test
+    void evaluate_ShouldReturnEveryCrossedThresholdInOnePass() {
+        UserStatistics stats = UserStatistics.builder()
+                .alertsCreated(12)
+                .reputationPoints(600)
+                .upvotesReceived(100)
+                .build();
+
+        EnumSet<BadgeType> earned = BadgeRuleEngine.toSet(engine.evaluate(stats));
+
+        assertEquals(EnumSet.of(BadgeType.FIRST_ALERT, BadgeType.ALERTS_10,
+                BadgeType.TRUSTED_USER, BadgeType.ROUTE_EXPERT), earned);
+    }
+
+    @Test
+    void evaluate_ShouldOnlyReportBadgesNotAlreadyOwned() {
+        UserStatistics stats = UserStatistics.builder()
+                .alertsCreated(10)
+                .build();
+        long owned = BadgeRuleEngine.mask(BadgeType.FIRST_ALERT);
+
+        long missing = engine.evaluate(stats) & ~owned;
+
+        assertEquals(EnumSet.of(BadgeType.ALERTS_10), BadgeRuleEngine.toSet(missing));
+    }
+
+    @Test
+    void evaluate_WhenNoActivity_ShouldReturnEmptyMask() {
+        assertEquals(0L, engine.evaluate(UserStatistics.builder().build()));
+    }
+}
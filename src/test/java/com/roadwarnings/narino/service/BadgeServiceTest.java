@@ -0,0 +1,98 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.entity.UserStatistics;
+import com.roadwarnings.narino.enums.BadgeType;
+import com.roadwarnings.narino.enums.NotificationType;
+import com.roadwarnings.narino.repository.UserBadgeRepository;
+import com.roadwarnings.narino.repository.UserRepository;
+import com.roadwarnings.narino.repository.UserStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BadgeServiceTest {
+
+    @Mock
+    private UserBadgeRepository badgeRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserStatisticsRepository statisticsRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BadgeService badgeService;
+
+    @BeforeEach
+    void setUp() {
+        badgeService = new BadgeService(badgeRepository, userRepository, statisticsRepository,
+                notificationService, new BadgeRuleEngine(), jdbcTemplate);
+        ReflectionTestUtils.setField(badgeService, "ownedCacheMaxUsers", 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAndAwardBadges_ShouldNotifyAllNewBadgesInOneBatch() {
+        when(badgeRepository.findBadgeKeysByUserIdIn(any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(
+                        new Object[]{1L, BadgeType.FIRST_ALERT, 100L},
+                        new Object[]{2L, BadgeType.FIRST_ALERT, 101L}));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        badgeService.checkAndAwardBadges(List.of(firstAlert(1L), firstAlert(2L)));
+
+        ArgumentCaptor<List<NotificationService.NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(1)).createNotifications(drafts.capture());
+        verify(notificationService, never()).createNotification(any(), any(), any(), any(), any());
+        assertEquals(List.of(1L, 2L), drafts.getValue().stream().map(NotificationService.NotificationDraft::userId).toList());
+        assertEquals(List.of(100L, 101L),
+                drafts.getValue().stream().map(NotificationService.NotificationDraft::relatedEntityId).toList());
+        assertTrue(drafts.getValue().stream().allMatch(draft -> draft.type() == NotificationType.BADGE_EARNED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkAndAwardBadges_WhenAnotherInstanceAwardedFirst_ShouldNotNotifyTwice() {
+        when(badgeRepository.findBadgeKeysByUserIdIn(any())).thenReturn(List.of());
+        // La fila del usuario 2 chocó con la restricción única
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+
+        badgeService.checkAndAwardBadges(List.of(firstAlert(1L), firstAlert(2L)));
+
+        ArgumentCaptor<List<NotificationService.NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createNotifications(drafts.capture());
+        assertEquals(List.of(1L), drafts.getValue().stream().map(NotificationService.NotificationDraft::userId).toList());
+
+        // Ya están en la máscara en caché: otra evaluación no vuelve a insertar
+        badgeService.checkAndAwardBadges(List.of(firstAlert(1L), firstAlert(2L)));
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    private static UserStatistics firstAlert(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        return UserStatistics.builder().user(user).alertsCreated(1).build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.enums.ExternalDependency;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalCallGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExternalCallGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        // Misma semántica que application.properties, con ventanas pequeñas
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+        BulkheadConfig bulkheadConfig = BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new ExternalCallGuard(CircuitBreakerRegistry.of(circuitBreakerConfig),
+                BulkheadRegistry.of(bulkheadConfig), meterRegistry);
+        guard.init();
+    }
+
+    @Test
+    void execute_WhenCallSucceeds_ShouldReturnItsResult() {
+        assertEquals("ok", guard.execute(ExternalDependency.NOMINATIM, () -> "ok", e -> "fallback"));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState(ExternalDependency.NOMINATIM));
+    }
+
+    @Test
+    void execute_WhenProviderKeepsFailing_ShouldOpenCircuitAndStopCallingIt() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("fallback", guard.execute(ExternalDependency.OPENWEATHER, () -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("503");
+            }, e -> "fallback"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState(ExternalDependency.OPENWEATHER));
+
+        // Con el circuito abierto la llamada no se ejecuta y el fallback recibe el rechazo
+        Exception[] cause = new Exception[1];
+        guard.execute(ExternalDependency.OPENWEATHER, () -> calls.incrementAndGet(), e -> {
+            cause[0] = e;
+            return -1;
+        });
+        assertEquals(4, calls.get());
+        assertInstanceOf(CallNotPermittedException.class, cause[0]);
+        assertEquals(1.0, rejected(ExternalDependency.OPENWEATHER));
+
+        // Los circuitos son independientes por dependencia
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState(ExternalDependency.GOOGLE_MAPS));
+    }
+
+    @Test
+    void execute_WhenBulkheadIsFull_ShouldFailFastWithoutOpeningCircuit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slowCall = CompletableFuture.supplyAsync(() ->
+                guard.execute(ExternalDependency.CLOUDINARY, () -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "lenta";
+                }, e -> "fallback"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger executed = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("rechazada", guard.execute(ExternalDependency.CLOUDINARY,
+                    () -> "ejecutada-" + executed.incrementAndGet(), e -> "rechazada"));
+        }
+
+        release.countDown();
+        assertEquals("lenta", slowCall.get(5, TimeUnit.SECONDS));
+        assertEquals(0, executed.get());
+        assertEquals(5.0, rejected(ExternalDependency.CLOUDINARY));
+        // Los rechazos del bulkhead no cuentan como fallos del proveedor
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState(ExternalDependency.CLOUDINARY));
+    }
+
+    private double rejected(ExternalDependency dependency) {
+        return meterRegistry.get("external.calls.rejected")
+                .tag("dependency", dependency.getInstanceName())
+                .counter()
+                .count();
+    }
+}
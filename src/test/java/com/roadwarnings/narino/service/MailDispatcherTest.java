@@ -0,0 +1,132 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboundEmail;
+import com.roadwarnings.narino.enums.EmailStatus;
+import com.roadwarnings.narino.repository.OutboundEmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * MailDispatcher contra un servidor SMTP local
+ */
+@ExtendWith(MockitoExtension.class)
+class MailDispatcherTest {
+
+    private static final String REJECTED = "rechazado@example.com";
+
+    @Mock
+    private OutboundEmailRepository outboundEmailRepository;
+
+    private LocalSmtpServer smtpServer;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new LocalSmtpServer(Set.of(REJECTED));
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+
+        dispatcher = new MailDispatcher(outboundEmailRepository, mailSender, new SyncTaskExecutor(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "noreply@roadwarnings.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "pollLimit", 500);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "baseDelaySeconds", 60L);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void sendBatch_ShouldSendWholeBatchOverOneConnection() {
+        List<OutboundEmail> emails = LongStream.rangeClosed(1, 20)
+                .mapToObj(id -> email(id, "usuario" + id + "@example.com"))
+                .toList();
+        claimReturns(emails);
+
+        dispatcher.sendBatch(emails.stream().map(OutboundEmail::getId).toList());
+
+        assertEquals(1, smtpServer.getConnections());
+        assertEquals(20, smtpServer.getRecipients().size());
+        assertTrue(emails.stream().allMatch(email -> email.getStatus() == EmailStatus.SENT));
+        verify(outboundEmailRepository).saveAll(emails);
+    }
+
+    @Test
+    void sendBatch_WhenRecipientRejected_ShouldRetryOnlyThatEmail() {
+        OutboundEmail ok = email(1L, "ok@example.com");
+        OutboundEmail rejected = email(2L, REJECTED);
+        claimReturns(List.of(ok, rejected));
+
+        dispatcher.sendBatch(List.of(1L, 2L));
+
+        assertEquals(List.of("ok@example.com"), smtpServer.getRecipients());
+        assertEquals(EmailStatus.SENT, ok.getStatus());
+        assertEquals(EmailStatus.PENDING, rejected.getStatus());
+        assertTrue(rejected.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(rejected.getLastError());
+    }
+
+    @Test
+    void sendBatch_WhenAttemptsExhausted_ShouldMarkFailed() {
+        OutboundEmail rejected = email(1L, REJECTED);
+        rejected.setAttempts(3);
+        claimReturns(List.of(rejected));
+
+        dispatcher.sendBatch(List.of(1L));
+
+        assertEquals(EmailStatus.FAILED, rejected.getStatus());
+    }
+
+    @Test
+    void sendBatch_WhenAlreadyClaimed_ShouldSendNothing() {
+        when(outboundEmailRepository.claim(anyCollection(), anyString(), any(LocalDateTime.class))).thenReturn(0);
+
+        dispatcher.sendBatch(List.of(1L));
+
+        assertEquals(0, smtpServer.getConnections());
+        verify(outboundEmailRepository, never()).findByClaimToken(anyString());
+    }
+
+    private void claimReturns(List<OutboundEmail> emails) {
+        when(outboundEmailRepository.claim(anyCollection(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(emails.size());
+        when(outboundEmailRepository.findByClaimToken(anyString())).thenReturn(emails);
+    }
+
+    private static OutboundEmail email(Long id, String recipient) {
+        return OutboundEmail.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Nueva alerta cerca de tu ruta")
+                .body("Derrumbe en la vía Pasto - Ipiales")
+                .status(EmailStatus.SENDING)
+                .attempts(1)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MunicipalityGazetteerServiceTest {
+
+    private MunicipalityGazetteerService gazetteerService;
+
+    @BeforeEach
+    void setUp() {
+        gazetteerService = new MunicipalityGazetteerService(new ObjectMapper());
+        ReflectionTestUtils.setField(gazetteerService, "gazetteerFile", "geo/narino-municipios.json");
+        gazetteerService.load();
+    }
+
+    @Test
+    void load_ShouldIndexAllMunicipalities() {
+        assertEquals(64, gazetteerService.size());
+    }
+
+    @Test
+    void resolveMunicipality_WhenPointIsInsideNarino_ShouldReturnMunicipality() {
+        assertEquals("Pasto", gazetteerService.resolveMunicipality(1.2136, -77.2811));
+        assertEquals("Ipiales", gazetteerService.resolveMunicipality(0.8303, -77.6444));
+        assertEquals("Tumaco", gazetteerService.resolveMunicipality(1.8067, -78.7647));
+    }
+
+    @Test
+    void resolveMunicipality_WhenPointIsOutsideNarino_ShouldReturnNull() {
+        assertNull(gazetteerService.resolveMunicipality(4.6097, -74.0817));
+        assertNull(gazetteerService.resolveMunicipality(null, -77.2811));
+    }
+
+    @Test
+    void resolveMunicipality_WhenPointIsJustAcrossTheBorder_ShouldReturnNull() {
+        // Dentro del bounding box del departamento pero fuera de Nariño
+        assertNull(gazetteerService.resolveMunicipality(0.8117, -77.7172));  // Tulcán (Ecuador), a 8 km de Ipiales
+        assertNull(gazetteerService.resolveMunicipality(1.7942, -77.1672));  // Mercaderes (Cauca)
+        assertNull(gazetteerService.resolveMunicipality(2.6000, -78.9000));  // Océano Pacífico frente a Mosquera
+    }
+
+    @Test
+    void resolveMunicipality_ForEverySeat_ShouldReturnAMunicipality() {
+        for (double[] seat : gazetteerService.getSeatCoordinates()) {
+            assertNotNull(gazetteerService.resolveMunicipality(seat[0], seat[1]),
+                    "Cabecera fuera del contorno: " + seat[0] + ", " + seat[1]);
+        }
+        assertEquals(64, gazetteerService.getSeatCoordinates().size());
+    }
+}
@@ -0,0 +1,110 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.response.AlertaResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NearbyAlertPushServiceTest {
+
+    @Mock
+    private WebSocketService webSocketInstanceA;
+
+    @Mock
+    private WebSocketService webSocketInstanceB;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private NearbyUserIndex indexA;
+    private NearbyUserIndex indexB;
+
+    @BeforeEach
+    void setUp() {
+        indexA = index();
+        indexB = index();
+    }
+
+    @Test
+    void onNewAlert_WithClusterBus_ShouldReachUsersConnectedToOtherInstances() {
+        InMemoryClusterMessageBus bus = new InMemoryClusterMessageBus();
+        NearbyAlertPushService instanceA = service(indexA, webSocketInstanceA, bus);
+        service(indexB, webSocketInstanceB, bus);
+
+        // ana está conectada a la instancia A, luis a la B; ambos cerca de Pasto centro
+        indexA.update("s1", "ana", 1.2136, -77.2811, 5.0);
+        indexB.update("s2", "luis", 1.2150, -77.2800, 5.0);
+
+        instanceA.onNewAlert(alert("pedro"));
+
+        verify(webSocketInstanceA).sendNearbyAlertsToUser(eq("ana"), any(AlertaResponseDTO.class));
+        verify(webSocketInstanceB).sendNearbyAlertsToUser(eq("luis"), any(AlertaResponseDTO.class));
+    }
+
+    @Test
+    void onNewAlert_WithoutClusterBus_ShouldPushOnlyToLocalUsersExceptAuthor() {
+        NearbyAlertPushService service = service(indexA, webSocketInstanceA, null);
+        indexA.update("s1", "ana", 1.2136, -77.2811, 5.0);
+        indexA.update("s2", "pedro", 1.2140, -77.2810, 5.0);
+
+        service.onNewAlert(alert("pedro"));
+
+        verify(webSocketInstanceA).sendNearbyAlertsToUser(eq("ana"), any(AlertaResponseDTO.class));
+        verify(webSocketInstanceA, never()).sendNearbyAlertsToUser(eq("pedro"), any());
+    }
+
+    @Test
+    void onNewAlert_WithoutCoordinates_ShouldPushNothing() {
+        NearbyAlertPushService service = service(indexA, webSocketInstanceA, null);
+        indexA.update("s1", "ana", 1.2136, -77.2811, 5.0);
+
+        service.onNewAlert(AlertaResponseDTO.builder().id(9L).username("pedro").build());
+
+        verify(webSocketInstanceA, never()).sendNearbyAlertsToUser(anyString(), any());
+    }
+
+    private NearbyAlertPushService service(NearbyUserIndex index, WebSocketService webSocketService,
+                                           ClusterMessageBus bus) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (bus != null) {
+            beans.addBean("clusterMessageBus", bus);
+        }
+        ObjectProvider<ClusterMessageBus> provider = beans.getBeanProvider(ClusterMessageBus.class);
+
+        NearbyAlertPushService service = new NearbyAlertPushService(index, webSocketService, objectMapper, provider);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "channel", "websocket:nearby-alerts");
+        service.init();
+        return service;
+    }
+
+    private static NearbyUserIndex index() {
+        NearbyUserIndex index = new NearbyUserIndex();
+        ReflectionTestUtils.setField(index, "precision", 5);
+        ReflectionTestUtils.setField(index, "defaultRadiusKm", 5.0);
+        ReflectionTestUtils.setField(index, "maxRadiusKm", 20.0);
+        ReflectionTestUtils.setField(index, "minMoveMeters", 200.0);
+        ReflectionTestUtils.setField(index, "ttlMinutes", 30L);
+        return index;
+    }
+
+    private static AlertaResponseDTO alert(String author) {
+        return AlertaResponseDTO.builder()
+                .id(9L)
+                .title("Derrumbe")
+                .latitude(1.2140)
+                .longitude(-77.2815)
+                .username(author)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.roadwarnings.narino.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearbyUserIndexTest {
+
+    private NearbyUserIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearbyUserIndex();
+        ReflectionTestUtils.setField(index, "precision", 5);
+        ReflectionTestUtils.setField(index, "defaultRadiusKm", 5.0);
+        ReflectionTestUtils.setField(index, "maxRadiusKm", 20.0);
+        ReflectionTestUtils.setField(index, "minMoveMeters", 200.0);
+        ReflectionTestUtils.setField(index, "ttlMinutes", 30L);
+    }
+
+    @Test
+    void findUsers_ShouldReturnOnlySessionsWithinTheirRadius() {
+        // Pasto centro con 3 km, Ipiales con el radio por defecto
+        index.update("s1", "ana", 1.2136, -77.2811, 3.0);
+        index.update("s2", "luis", 0.8302, -77.6443, null);
+
+        // ~2.3 km de Pasto centro
+        assertEquals(Set.of("ana"), index.findUsers(1.2300, -77.2950));
+        // ~6 km de Pasto: fuera del radio de 3 km
+        assertTrue(index.findUsers(1.2650, -77.2811).isEmpty());
+    }
+
+    @Test
+    void update_WhenUserMovesFar_ShouldReindexSession() {
+        index.update("s1", "ana", 1.2136, -77.2811, 3.0);
+        index.update("s1", "ana", 0.8302, -77.6443, 3.0);
+
+        assertTrue(index.findUsers(1.2136, -77.2811).isEmpty());
+        assertEquals(Set.of("ana"), index.findUsers(0.8310, -77.6450));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void findUsers_WithSeveralSessionsOfSameUser_ShouldReturnUserOnce() {
+        index.update("s1", "ana", 1.2136, -77.2811, 5.0);
+        index.update("s2", "ana", 1.2150, -77.2800, 5.0);
+
+        assertEquals(Set.of("ana"), index.findUsers(1.2140, -77.2815));
+
+        index.remove("s1");
+        index.remove("s2");
+
+        assertTrue(index.findUsers(1.2140, -77.2815).isEmpty());
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,93 @@
+package com.roadwarnings.narino.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDigestServiceTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private PushNotificationService pushNotificationService;
+
+    private NotificationDigestService digestService;
+
+    @BeforeEach
+    void setUp() {
+        digestService = new NotificationDigestService(notificationService, pushNotificationService);
+        ReflectionTestUtils.setField(digestService, "windowMs", 60_000L);
+    }
+
+    @Test
+    void submit_FirstAlertShouldBeDeliveredImmediately() {
+        digestService.submit(List.of(alert(1L, 100L, false)));
+
+        verify(notificationService).createNotifications(anyList());
+        verify(pushNotificationService).sendNotificationToUsers(eq(List.of(1L)), anyString(), anyString(), anyMap());
+        assertEquals(1, digestService.getOpenWindows());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldMergeAlertsReceivedWithinWindowIntoOneDigest() {
+        digestService.submit(List.of(alert(1L, 100L, false)));
+        clearInvocations(notificationService, pushNotificationService);
+
+        digestService.submit(List.of(alert(1L, 101L, false)));
+        digestService.submit(List.of(alert(1L, 102L, false)));
+        digestService.submit(List.of(alert(1L, 102L, false)));
+        verifyNoInteractions(notificationService, pushNotificationService);
+
+        digestService.flush(System.currentTimeMillis() + 61_000);
+
+        ArgumentCaptor<List<NotificationService.NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).createNotifications(drafts.capture());
+        assertEquals(1, drafts.getValue().size());
+        assertEquals("2 alertas nuevas en tus rutas", drafts.getValue().get(0).title());
+        verify(pushNotificationService, times(1)).sendNotificationToUsers(anyList(), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void submit_CriticalAlertShouldBypassOpenWindow() {
+        digestService.submit(List.of(alert(1L, 100L, false)));
+        clearInvocations(notificationService, pushNotificationService);
+
+        digestService.submit(List.of(alert(1L, 101L, true)));
+
+        verify(notificationService).createNotifications(anyList());
+        verify(pushNotificationService).sendNotificationToUsers(anyList(), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void flush_WhenWindowExpiredWithoutAlerts_ShouldCloseIt() {
+        digestService.submit(List.of(alert(1L, 100L, false)));
+        clearInvocations(notificationService, pushNotificationService);
+
+        digestService.flush(System.currentTimeMillis() + 61_000);
+
+        assertEquals(0, digestService.getOpenWindows());
+        verify(notificationService, never()).createNotifications(any());
+    }
+
+    private static NotificationDigestService.RouteAlert alert(Long userId, Long alertId, boolean critical) {
+        return new NotificationDigestService.RouteAlert(userId, alertId, 7L, "Pasto - Ipiales",
+                "Derrumbe", "DERRUMBE - Km 12", critical);
+    }
+}
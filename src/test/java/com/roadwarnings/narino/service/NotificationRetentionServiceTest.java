@@ -0,0 +1,127 @@
+package com.roadwarnings.narino.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRetentionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InMemoryUnreadCounterStore counterStore;
+    private NotificationRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        counterStore = new InMemoryUnreadCounterStore();
+        ReflectionTestUtils.setField(counterStore, "maxUsers", 100);
+        ReflectionTestUtils.setField(counterStore, "ttlHours", 24L);
+
+        retentionService = new NotificationRetentionService(jdbcTemplate, counterStore);
+        ReflectionTestUtils.setField(retentionService, "readRetentionDays", 30);
+        ReflectionTestUtils.setField(retentionService, "perUserCap", 200);
+        ReflectionTestUtils.setField(retentionService, "archiveRetentionDays", 365);
+        ReflectionTestUtils.setField(retentionService, "chunkSize", 2);
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 10);
+    }
+
+    @Test
+    void archiveReadNotifications_ShouldMoveInChunksUntilOneIsNotFull() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        when(jdbcTemplate.update(contains("notifications_archive"), any(), any(), any())).thenReturn(2, 2, 1);
+
+        assertEquals(5, retentionService.archiveReadNotifications(cutoff));
+
+        // Cada bloque es una sentencia con el mismo corte y LIMIT = chunk-size
+        verify(jdbcTemplate, times(3)).update(contains("is_read = true"), eq(Timestamp.valueOf(cutoff)), eq(2), any());
+    }
+
+    @Test
+    void archiveReadNotifications_ShouldStopAtMaxChunksPerRun() {
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 3);
+        when(jdbcTemplate.update(anyString(), any(), any(), any())).thenReturn(2);
+
+        assertEquals(6, retentionService.archiveReadNotifications(LocalDateTime.now()));
+
+        verify(jdbcTemplate, times(3)).update(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void runRetention_ShouldUseConfiguredCutoffs() {
+        // Sin nada que mover; las fases comparten update() con distinto número de argumentos
+        lenient().when(jdbcTemplate.update(anyString(), any(), any(), any())).thenReturn(0);
+        lenient().when(jdbcTemplate.update(anyString(), any(), any())).thenReturn(0);
+
+        LocalDateTime before = LocalDateTime.now();
+        retentionService.runRetention();
+
+        ArgumentCaptor<Timestamp> readCutoff = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).update(contains("is_read = true"), readCutoff.capture(), eq(2), any());
+        assertCloseTo(before.minusDays(30), readCutoff.getValue());
+
+        ArgumentCaptor<Timestamp> purgeCutoff = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate).update(contains("DELETE FROM notifications_archive"), purgeCutoff.capture(), eq(2));
+        assertCloseTo(before.minusDays(365), purgeCutoff.getValue());
+
+        verify(jdbcTemplate).query(contains("ROW_NUMBER()"), any(RowCallbackHandler.class),
+                eq(200), eq(200), eq(2), any());
+    }
+
+    @Test
+    void enforcePerUserCap_ShouldDiscountArchivedUnreadFromCounters() {
+        counterStore.beginInitialize(1L);
+        counterStore.initialize(1L, 5);
+        counterStore.beginInitialize(2L);
+        counterStore.initialize(2L, 3);
+
+        // Primer bloque lleno (2 filas), segundo parcial (1 fila): termina
+        List<List<Object[]>> chunks = List.of(
+                List.of(new Object[]{1L, false}, new Object[]{2L, true}),
+                List.<Object[]>of(new Object[]{1L, false}));
+        int[] call = {0};
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : chunks.get(call[0]++)) {
+                ResultSet rs = mock(ResultSet.class);
+                lenient().when(rs.getLong("user_id")).thenReturn((Long) row[0]);
+                when(rs.getBoolean("is_read")).thenReturn((Boolean) row[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), anyInt(), anyInt(), anyInt(), any());
+
+        assertEquals(3, retentionService.enforcePerUserCap());
+
+        assertEquals(3L, counterStore.get(1L));
+        // Solo se archivó una leída: el contador no cambia
+        assertEquals(3L, counterStore.get(2L));
+        assertEquals(2, call[0]);
+    }
+
+    private static void assertCloseTo(LocalDateTime expected, Timestamp actual) {
+        Duration difference = Duration.between(expected, actual.toLocalDateTime()).abs();
+        assertTrue(difference.toSeconds() < 5, "Corte inesperado: " + actual);
+    }
+}
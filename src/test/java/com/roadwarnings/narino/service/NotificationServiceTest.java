@@ -0,0 +1,164 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.Notification;
+import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.enums.NotificationType;
+import com.roadwarnings.narino.repository.NotificationRepository;
+import com.roadwarnings.narino.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InMemoryUnreadCounterStore counterStore;
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        counterStore = new InMemoryUnreadCounterStore();
+        ReflectionTestUtils.setField(counterStore, "maxUsers", 100);
+        ReflectionTestUtils.setField(counterStore, "ttlHours", 24L);
+        notificationService = new NotificationService(notificationRepository, userRepository, jdbcTemplate, counterStore);
+        ReflectionTestUtils.setField(notificationService, "insertChunkSize", 2);
+    }
+
+    @Test
+    void getUnreadCount_ShouldQueryDatabaseOnlyOnce() {
+        when(notificationRepository.countUnreadByUserId(1L)).thenReturn(3L);
+
+        assertEquals(3L, notificationService.getUnreadCount(1L));
+        assertEquals(3L, notificationService.getUnreadCount(1L));
+
+        verify(notificationRepository, times(1)).countUnreadByUserId(1L);
+    }
+
+    @Test
+    void getUnreadCount_WhenNotificationCreatedDuringFirstCount_ShouldCountAgain() {
+        when(notificationRepository.save(any(Notification.class))).thenReturn(notification(10L, 1L, false));
+        when(notificationRepository.countUnreadByUserId(1L))
+                .thenAnswer(invocation -> {
+                    // La notificación confirma en otro hilo mientras el COUNT está en curso y no entra en él
+                    CompletableFuture.runAsync(() -> notificationService.createNotification(
+                            1L, NotificationType.ALERT_NEARBY, "t", "m", null)).join();
+                    return 3L;
+                })
+                .thenReturn(4L);
+
+        assertEquals(3L, notificationService.getUnreadCount(1L));
+        assertEquals(4L, notificationService.getUnreadCount(1L));
+        assertEquals(4L, notificationService.getUnreadCount(1L));
+
+        verify(notificationRepository, times(2)).countUnreadByUserId(1L);
+    }
+
+    @Test
+    void getUnreadCount_WhenCounterExpired_ShouldCountAgain() {
+        ReflectionTestUtils.setField(counterStore, "ttlHours", 0L);
+        when(notificationRepository.countUnreadByUserId(1L)).thenReturn(3L, 5L);
+
+        assertEquals(3L, notificationService.getUnreadCount(1L));
+        assertEquals(5L, notificationService.getUnreadCount(1L));
+    }
+
+    @Test
+    void createNotifications_ShouldInsertInChunksAndIncrementCounters() {
+        when(notificationRepository.countUnreadByUserId(anyLong())).thenReturn(0L);
+        notificationService.getUnreadCount(1L);
+        notificationService.getUnreadCount(2L);
+
+        List<NotificationService.NotificationDraft> drafts = IntStream.range(0, 5)
+                .mapToObj(i -> new NotificationService.NotificationDraft(
+                        i < 3 ? 1L : 2L, NotificationType.ALERT_NEARBY, "t" + i, "m", null))
+                .toList();
+
+        assertEquals(5, notificationService.createNotifications(drafts));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(3)).update(sql.capture(), any(Object[].class));
+        assertEquals(2, countRows(sql.getAllValues().get(0)));
+        assertEquals(1, countRows(sql.getAllValues().get(2)));
+
+        assertEquals(3L, notificationService.getUnreadCount(1L));
+        assertEquals(2L, notificationService.getUnreadCount(2L));
+    }
+
+    @Test
+    void markAsRead_ShouldDecrementOnlyWhenNotificationWasUnread() {
+        when(notificationRepository.countUnreadByUserId(1L)).thenReturn(2L);
+        notificationService.getUnreadCount(1L);
+
+        Notification notification = notification(10L, 1L, false);
+        when(notificationRepository.findById(10L)).thenReturn(Optional.of(notification));
+        when(notificationRepository.save(notification)).thenReturn(notification);
+
+        notificationService.markAsRead(10L);
+        notificationService.markAsRead(10L);
+
+        assertEquals(1L, notificationService.getUnreadCount(1L));
+    }
+
+    @Test
+    void markAllAsRead_ShouldResetCounter() {
+        when(notificationRepository.countUnreadByUserId(1L)).thenReturn(7L);
+        notificationService.getUnreadCount(1L);
+
+        notificationService.markAllAsRead(1L);
+
+        assertEquals(0L, notificationService.getUnreadCount(1L));
+    }
+
+    @Test
+    void deleteNotification_WhenUnread_ShouldDecrementCounter() {
+        when(notificationRepository.countUnreadByUserId(1L)).thenReturn(1L);
+        notificationService.getUnreadCount(1L);
+        when(notificationRepository.findById(10L)).thenReturn(Optional.of(notification(10L, 1L, false)));
+
+        notificationService.deleteNotification(10L, 1L);
+
+        assertEquals(0L, notificationService.getUnreadCount(1L));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    private static int countRows(String sql) {
+        return sql.split("false").length - 1;
+    }
+
+    private static Notification notification(Long id, Long userId, boolean read) {
+        User user = new User();
+        user.setId(userId);
+        return Notification.builder()
+                .id(id)
+                .user(user)
+                .type(NotificationType.ALERT_NEARBY)
+                .title("t")
+                .message("m")
+                .isRead(read)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.OutboxEvent;
+import com.roadwarnings.narino.enums.OutboxStatus;
+import com.roadwarnings.narino.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private RecordingHandler handler;
+    private OutboxDispatcher dispatcher;
+    private OutboxEvent event;
+
+    @BeforeEach
+    void setUp() {
+        handler = new RecordingHandler();
+        dispatcher = new OutboxDispatcher(outboxEventRepository, List.of(handler), new SyncTaskExecutor());
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "baseDelaySeconds", 30L);
+        dispatcher.init();
+
+        event = OutboxEvent.builder()
+                .id(1L)
+                .eventType("TEST")
+                .aggregateId(10L)
+                .status(OutboxStatus.PROCESSING)
+                .attempts(1)
+                .build();
+
+        lenient().when(outboxEventRepository.claim(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+        lenient().when(outboxEventRepository.findById(1L)).thenReturn(Optional.of(event));
+    }
+
+    @Test
+    void process_WhenAllStepsSucceed_ShouldCompleteEvent() {
+        dispatcher.process(1L);
+
+        assertEquals(List.of("A", "B"), handler.executed);
+        assertEquals(OutboxStatus.COMPLETED, event.getStatus());
+        assertNotNull(event.getProcessedAt());
+    }
+
+    @Test
+    void process_WhenStepFails_ShouldScheduleRetryAndKeepCompletedSteps() {
+        handler.failingStep = "B";
+
+        dispatcher.process(1L);
+
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertTrue(event.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("A", event.getCompletedSteps());
+
+        // Reintento: el paso A no se repite
+        handler.failingStep = null;
+        handler.executed.clear();
+        event.setStatus(OutboxStatus.PROCESSING);
+
+        dispatcher.process(1L);
+
+        assertEquals(List.of("B"), handler.executed);
+        assertEquals(OutboxStatus.COMPLETED, event.getStatus());
+    }
+
+    @Test
+    void process_WhenAttemptsExhausted_ShouldMarkFailed() {
+        handler.failingStep = "A";
+        event.setAttempts(3);
+
+        dispatcher.process(1L);
+
+        assertEquals(OutboxStatus.FAILED, event.getStatus());
+        assertNotNull(event.getLastError());
+    }
+
+    @Test
+    void process_WhenAlreadyClaimed_ShouldDoNothing() {
+        when(outboxEventRepository.claim(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+
+        dispatcher.process(1L);
+
+        assertTrue(handler.executed.isEmpty());
+        verify(outboxEventRepository, never()).save(any(OutboxEvent.class));
+    }
+
+    private static class RecordingHandler implements OutboxEventHandler {
+
+        private final List<String> executed = new ArrayList<>();
+        private String failingStep;
+
+        @Override
+        public String getEventType() {
+            return "TEST";
+        }
+
+        @Override
+        public List<String> getSteps() {
+            return List.of("A", "B");
+        }
+
+        @Override
+        public void handleStep(OutboxEvent event, String step) {
+            if (step.equals(failingStep)) {
+                throw new IllegalStateException("fallo en " + step);
+            }
+            executed.add(step);
+        }
+    }
+}
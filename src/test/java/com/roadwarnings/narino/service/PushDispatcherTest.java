@@ -0,0 +1,139 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.enums.ExternalDependency;
+import com.roadwarnings.narino.repository.DeviceTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * PushDispatcher contra el sustituto local de FCM
+ */
+@ExtendWith(MockitoExtension.class)
+class PushDispatcherTest {
+
+    @Mock
+    private DeviceTokenRepository deviceTokenRepository;
+
+    @Mock
+    private ExternalCallGuard externalCallGuard;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private LocalFcmGateway fcm;
+    private PushDispatcher dispatcher;
+    private final PushMessage message = new PushMessage("Alerta", "Derrumbe en la vía", Map.of("alertId", "1"));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        fcm = new LocalFcmGateway();
+        dispatcher = new PushDispatcher(deviceTokenRepository, fcm, externalCallGuard, taskScheduler,
+                new SimpleMeterRegistry(), new SyncTaskExecutor());
+        ReflectionTestUtils.setField(dispatcher, "multicastSize", 500);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "baseDelayMs", 1L);
+        dispatcher.init();
+
+        // Guard sin circuit breaker: ejecuta la llamada y aplica el fallback si falla
+        lenient().when(externalCallGuard.execute(eq(ExternalDependency.FCM), any(), any())).thenAnswer(invocation -> {
+            Callable<Object> call = invocation.getArgument(1);
+            Function<Exception, Object> fallback = invocation.getArgument(2);
+            try {
+                return call.call();
+            } catch (Exception e) {
+                return fallback.apply(e);
+            }
+        });
+
+        // Reintentos inmediatos
+        lenient().when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+    }
+
+    @Test
+    void dispatchToUsers_ShouldQueryTokensOnceAndPackMulticastChunks() {
+        List<String> tokens = tokens(1200);
+        when(deviceTokenRepository.findActiveTokensByUserIdIn(anyCollection())).thenReturn(tokens);
+
+        dispatcher.dispatchToUsers(List.of(1L, 2L, 3L), message);
+
+        verify(deviceTokenRepository, times(1)).findActiveTokensByUserIdIn(anyCollection());
+        assertEquals(List.of(500, 500, 200),
+                fcm.getSent().stream().map(sent -> sent.tokens().size()).toList());
+        assertEquals(1200, fcm.getDeliveredTokens().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchToTokens_ShouldDeactivateInvalidTokensInBulk() {
+        fcm.markInvalid("token-3", "token-7");
+
+        dispatcher.dispatchToTokens(tokens(10), message);
+
+        ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(deviceTokenRepository, times(1)).deactivateTokens(captor.capture());
+        assertEquals(List.of("token-3", "token-7"), List.copyOf(captor.getValue()));
+        assertEquals(8, fcm.getDeliveredTokens().size());
+    }
+
+    @Test
+    void dispatchToTokens_WhenFcmTemporarilyDown_ShouldRetryWithBackoff() {
+        fcm.failNextCalls(2);
+
+        dispatcher.dispatchToTokens(tokens(5), message);
+
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        assertEquals(5, fcm.getDeliveredTokens().size());
+    }
+
+    @Test
+    void dispatchToTokens_ShouldRetryOnlyTransientFailures() {
+        fcm.markUnavailableOnce("token-1");
+
+        dispatcher.dispatchToTokens(tokens(4), message);
+
+        assertEquals(2, fcm.getSent().size());
+        assertEquals(List.of("token-1"), fcm.getSent().get(1).tokens());
+        assertEquals(4, fcm.getDeliveredTokens().size());
+    }
+
+    @Test
+    void dispatchToTokens_WhenAttemptsExhausted_ShouldGiveUp() {
+        fcm.failNextCalls(10);
+
+        dispatcher.dispatchToTokens(tokens(5), message);
+
+        // 3 intentos: el original y 2 reintentos
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        assertTrue(fcm.getDeliveredTokens().isEmpty());
+    }
+
+    private static List<String> tokens(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "token-" + i).toList();
+    }
+}
@@ -0,0 +1,71 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.entity.UserStatistics;
+import com.roadwarnings.narino.enums.NotificationType;
+import com.roadwarnings.narino.event.UserStatisticsFlushedEvent;
+import com.roadwarnings.narino.repository.UserStatisticsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReputationServiceTest {
+
+    @Mock
+    private UserStatisticsRepository statisticsRepository;
+
+    @Mock
+    private BadgeService badgeService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private UserStatisticsWriteBuffer statisticsBuffer;
+
+    @InjectMocks
+    private ReputationService reputationService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onStatisticsFlushed_ShouldUpdateLevelsAndNotifyLevelUpsInOneBatch() {
+        UserStatistics ana = statistics(10L, 1L, 1, 120);
+        UserStatistics luis = statistics(20L, 2L, 2, 600);
+        UserStatistics sara = statistics(30L, 3L, 2, 150);
+        List<UserStatistics> flushed = List.of(ana, luis, sara);
+        when(statisticsRepository.findByUserIdIn(Set.of(1L, 2L, 3L))).thenReturn(flushed);
+
+        reputationService.onStatisticsFlushed(new UserStatisticsFlushedEvent(Set.of(1L, 2L, 3L)));
+
+        verify(statisticsRepository).updateLevel(10L, 2);
+        verify(statisticsRepository).updateLevel(20L, 4);
+        verify(statisticsRepository, never()).updateLevel(eq(30L), anyInt());
+
+        ArgumentCaptor<List<NotificationService.NotificationDraft>> drafts = ArgumentCaptor.forClass(List.class);
+        verify(notificationService, times(1)).createNotifications(drafts.capture());
+        verify(notificationService, never()).createNotification(any(), any(), any(), any(), any());
+        assertEquals(List.of(1L, 2L), drafts.getValue().stream().map(NotificationService.NotificationDraft::userId).toList());
+        assertEquals(List.of(2L, 4L),
+                drafts.getValue().stream().map(NotificationService.NotificationDraft::relatedEntityId).toList());
+        assertTrue(drafts.getValue().stream().allMatch(draft -> draft.type() == NotificationType.REPUTATION_MILESTONE));
+
+        verify(badgeService, times(1)).checkAndAwardBadges(flushed);
+    }
+
+    private static UserStatistics statistics(Long id, Long userId, int level, int points) {
+        User user = new User();
+        user.setId(userId);
+        return UserStatistics.builder().id(id).user(user).level(level).reputationPoints(points).build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.FavoriteRoute;
+import com.roadwarnings.narino.entity.Route;
+import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.event.FavoriteRouteChangedEvent;
+import com.roadwarnings.narino.repository.FavoriteRouteRepository;
+import com.roadwarnings.narino.repository.RouteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RouteSubscriberIndexTest {
+
+    @Mock
+    private FavoriteRouteRepository favoriteRouteRepository;
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    private RouteSubscriberIndex index;
+
+    // Pasto → Ipiales (~70 km) y Pasto → Tangua (~15 km)
+    private final Route pastoIpiales = route(1L, "Pasto - Ipiales", 1.2136, -77.2811, 0.8302, -77.6443);
+    private final Route pastoTangua = route(2L, "Pasto - Tangua", 1.2136, -77.2811, 1.0950, -77.3940);
+
+    @BeforeEach
+    void setUp() {
+        index = new RouteSubscriberIndex(favoriteRouteRepository, routeRepository);
+        ReflectionTestUtils.setField(index, "radiusKm", 2.0);
+        ReflectionTestUtils.setField(index, "precision", 5);
+
+        when(favoriteRouteRepository.findAllWithNotificationsEnabled()).thenReturn(List.of(
+                favorite(10L, pastoIpiales, null),
+                favorite(11L, pastoIpiales, "Al trabajo"),
+                favorite(10L, pastoTangua, null)));
+
+        index.rebuild();
+    }
+
+    @Test
+    void findSubscribers_WhenAlertOnSharedSegment_ShouldReturnEachUserOnce() {
+        // Cerca de Pasto: ambas rutas pasan por ahí; el usuario 10 está suscrito a las dos
+        List<RouteSubscriberIndex.RouteSubscriber> subscribers = index.findSubscribers(1.2100, -77.2850, null);
+
+        assertEquals(2, subscribers.size());
+        assertEquals(2, subscribers.stream().map(RouteSubscriberIndex.RouteSubscriber::userId).distinct().count());
+        assertTrue(subscribers.stream().anyMatch(s -> s.userId() == 11L && s.routeName().equals("Al trabajo")));
+    }
+
+    @Test
+    void findSubscribers_WhenAlertInMiddleOfLongRoute_ShouldMatchOnlyThatRoute() {
+        // Punto medio del segmento Pasto - Ipiales
+        List<RouteSubscriberIndex.RouteSubscriber> subscribers = index.findSubscribers(1.0219, -77.4627, null);
+
+        assertEquals(2, subscribers.size());
+        assertTrue(subscribers.stream().allMatch(s -> s.routeId() == 1L));
+    }
+
+    @Test
+    void findSubscribers_WhenAlertFarFromRoutes_ShouldReturnEmpty() {
+        // Tumaco
+        assertTrue(index.findSubscribers(1.8067, -78.7647, null).isEmpty());
+    }
+
+    @Test
+    void findSubscribers_ShouldExcludeAlertAuthor() {
+        List<RouteSubscriberIndex.RouteSubscriber> subscribers = index.findSubscribers(1.0219, -77.4627, 11L);
+
+        assertEquals(1, subscribers.size());
+        assertEquals(10L, subscribers.get(0).userId());
+    }
+
+    @Test
+    void onFavoriteRouteChanged_WhenUnsubscribed_ShouldStopNotifyingUser() {
+        index.onFavoriteRouteChanged(new FavoriteRouteChangedEvent(1L, 11L, null, false));
+
+        List<RouteSubscriberIndex.RouteSubscriber> subscribers = index.findSubscribers(1.0219, -77.4627, null);
+        assertEquals(List.of(10L), subscribers.stream().map(RouteSubscriberIndex.RouteSubscriber::userId).toList());
+    }
+
+    private static Route route(Long id, String name, double originLat, double originLon, double destLat, double destLon) {
+        return Route.builder()
+                .id(id)
+                .name(name)
+                .originLatitude(originLat)
+                .originLongitude(originLon)
+                .destinationLatitude(destLat)
+                .destinationLongitude(destLon)
+                .isActive(true)
+                .build();
+    }
+
+    private static FavoriteRoute favorite(Long userId, Route route, String customName) {
+        return FavoriteRoute.builder()
+                .user(User.builder().id(userId).build())
+                .route(route)
+                .customName(customName)
+                .notificationsEnabled(true)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.enums.ContributionType;
+import com.roadwarnings.narino.event.UserStatisticsFlushedEvent;
+import com.roadwarnings.narino.repository.UserRepository;
+import com.roadwarnings.narino.repository.UserStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatisticsWriteBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserStatisticsRepository statisticsRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private UserStatisticsWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new UserStatisticsWriteBuffer(jdbcTemplate, statisticsRepository, userRepository, eventPublisher);
+        ReflectionTestUtils.setField(buffer, "batchSize", 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteOneCoalescedUpdatePerUser() {
+        buffer.record(1L, ContributionType.ALERT_UPVOTED, 3);
+        buffer.record(1L, ContributionType.ALERT_UPVOTED, 1);
+        buffer.record(1L, ContributionType.ALERT_DOWNVOTED, 1);
+        buffer.record(2L, ContributionType.COMMENT_POSTED, 1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class))).thenReturn(new int[]{1, 1});
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), args.capture(), any(int[].class));
+        assertEquals(2, args.getValue().size());
+
+        Object[] user1 = args.getValue().stream().filter(row -> row[11].equals(1L)).findFirst().orElseThrow();
+        assertEquals(4L, user1[3]);   // upvotes_received, contado una sola vez
+        assertEquals(1L, user1[4]);   // downvotes_received
+        assertEquals(17L, user1[7]);  // 4 * 5 - 3 puntos
+
+        verify(eventPublisher).publishEvent(new UserStatisticsFlushedEvent(Set.of(1L, 2L)));
+        assertEquals(0, buffer.getPendingUsers());
+    }
+
+    @Test
+    void flush_WhenBatchFails_ShouldKeepDeltasForNextFlush() {
+        buffer.record(1L, ContributionType.ALERT_CREATED, 1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class)))
+                .thenThrow(new DataAccessResourceFailureException("BD no disponible"));
+
+        buffer.flush();
+
+        assertEquals(1, buffer.getPendingUsers());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,125 @@
+package com.roadwarnings.narino.service;
+
+import com.roadwarnings.narino.entity.Alert;
+import com.roadwarnings.narino.entity.User;
+import com.roadwarnings.narino.event.AlertVotesFlushedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VoteCounterServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private VoteCounterService voteCounterService;
+    private Alert alert;
+
+    @BeforeEach
+    void setUp() {
+        voteCounterService = new VoteCounterService(jdbcTemplate, eventPublisher);
+        ReflectionTestUtils.setField(voteCounterService, "idleMinutes", 10L);
+
+        User author = new User();
+        author.setId(7L);
+        alert = Alert.builder().id(1L).upvotes(4).downvotes(1).user(author).build();
+    }
+
+    @Test
+    void votes_ShouldAccumulateOverPersistedTotalsWithoutWriting() {
+        List<CompletableFuture<Void>> voters = IntStream.range(0, 100)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> voteCounterService.upvote(alert)))
+                .toList();
+        voters.forEach(CompletableFuture::join);
+        VoteCounterService.VoteTotals totals = voteCounterService.downvote(alert);
+
+        assertEquals(new VoteCounterService.VoteTotals(104, 2), totals);
+        assertEquals(totals, voteCounterService.totals(alert));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteDeltasInOneAtomicBatch() {
+        Alert other = Alert.builder().id(2L).upvotes(0).downvotes(0).build();
+        voteCounterService.upvote(alert);
+        voteCounterService.upvote(alert);
+        voteCounterService.downvote(other);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        voteCounterService.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("upvotes = upvotes + ?"), rows.capture());
+        Map<Object, List<Object>> deltasByAlert = rows.getValue().stream()
+                .collect(Collectors.toMap(row -> row[2], row -> List.of(row[0], row[1])));
+        assertEquals(Map.of(1L, List.of(2L, 0L), 2L, List.of(0L, 1L)), deltasByAlert);
+
+        // Solo se notifica al autor de la alerta con sus deltas
+        verify(eventPublisher).publishEvent(new AlertVotesFlushedEvent(1L, 7L, 2, 0));
+        verifyNoMoreInteractions(eventPublisher);
+        assertEquals(new VoteCounterService.VoteTotals(6, 1), voteCounterService.totals(alert));
+
+        // Sin votos nuevos no se vuelve a escribir
+        voteCounterService.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WhenBatchFails_ShouldRequeueDeltasForNextFlush() {
+        voteCounterService.upvote(alert);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"))
+                .thenReturn(new int[]{1});
+
+        voteCounterService.flush();
+
+        // Los totales servidos no cambian tras el fallo
+        assertEquals(new VoteCounterService.VoteTotals(5, 1), voteCounterService.totals(alert));
+        verifyNoInteractions(eventPublisher);
+
+        voteCounterService.upvote(alert);
+        voteCounterService.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        assertArrayEquals(new Object[]{2L, 0L, 1L}, rows.getAllValues().get(1).get(0));
+        verify(eventPublisher).publishEvent(new AlertVotesFlushedEvent(1L, 7L, 2, 0));
+        assertEquals(new VoteCounterService.VoteTotals(6, 1), voteCounterService.totals(alert));
+    }
+
+    @Test
+    void flush_WhenAlertWasDeleted_ShouldDropItsVotes() {
+        voteCounterService.upvote(alert);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+
+        voteCounterService.flush();
+
+        assertEquals(0, voteCounterService.getTrackedAlerts());
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,149 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherServiceTest {
+
+    private static final String CURRENT_JSON = """
+            {"main": {"temp": 14.5, "feels_like": 13.0, "humidity": 90, "pressure": 1020},
+             "weather": [{"description": "lluvia fuerte", "icon": "10d"}],
+             "wind": {"speed": 12.0, "deg": 180}, "visibility": 8000, "rain": {"1h": 12.0}}""";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private MunicipalityGazetteerService gazetteerService;
+
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() {
+        ExternalCallGuard guard = new ExternalCallGuard(CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), new SimpleMeterRegistry());
+        guard.init();
+
+        weatherService = new WeatherService(restTemplate, new ObjectMapper(), gazetteerService, guard);
+        ReflectionTestUtils.setField(weatherService, "apiKey", "test");
+        ReflectionTestUtils.setField(weatherService, "apiUrl", "https://api.openweathermap.org/data/2.5");
+        ReflectionTestUtils.setField(weatherService, "requestsPerMinute", 50);
+        ReflectionTestUtils.setField(weatherService, "cellSizeDegrees", 0.2);
+        ReflectionTestUtils.setField(weatherService, "maxLookupDistanceKm", 30.0);
+        ReflectionTestUtils.setField(weatherService, "currentStaleAfterMinutes", 30L);
+        ReflectionTestUtils.setField(weatherService, "forecastStaleAfterMinutes", 360L);
+
+        // Cabeceras de Pasto e Ipiales: dos celdas distintas
+        when(gazetteerService.getSeatCoordinates()).thenReturn(List.of(
+                new double[]{1.2136, -77.2811},
+                new double[]{0.8303, -77.6444}));
+        weatherService.initGrid();
+    }
+
+    @Test
+    void initGrid_ShouldCreateOneCellPerSeat() {
+        assertEquals(2, weatherService.getCellCount());
+    }
+
+    @Test
+    void getCurrentWeather_AfterRefresh_ShouldServeFromMemoryWithoutCallingProvider() {
+        when(restTemplate.getForEntity(contains("/weather"), eq(String.class)))
+                .thenReturn(ResponseEntity.ok(CURRENT_JSON));
+
+        assertEquals(2, weatherService.refreshCurrentConditions());
+
+        WeatherService.WeatherDataDTO weather = weatherService.getCurrentWeather(1.2136, -77.2811);
+        assertEquals(14.5, weather.getTemperature());
+        assertEquals("6:-387", weather.getCellId());
+        assertEquals(0L, weather.getAgeMinutes());
+        assertFalse(weather.getStale());
+
+        WeatherService.WeatherAlertDTO hazards = weatherService.checkWeatherHazards(1.2136, -77.2811);
+        assertTrue(hazards.getHasHazards());
+        assertEquals("HIGH", hazards.getSeverity());
+
+        // Solo las dos llamadas del refresco; las consultas no salen al proveedor
+        verify(restTemplate, times(2)).getForEntity(anyString(), eq(String.class));
+    }
+
+    @Test
+    void getCurrentWeather_OutsideGrid_ShouldUseNearestCellWithinLimit() {
+        when(restTemplate.getForEntity(contains("/weather"), eq(String.class)))
+                .thenReturn(ResponseEntity.ok(CURRENT_JSON));
+        weatherService.refreshCurrentConditions();
+
+        // A unos 16 km del centro de la celda de Pasto, en una celda sin cabecera
+        assertEquals("6:-387", weatherService.getCurrentWeather(1.21, -77.41).getCellId());
+        // Bogotá queda fuera del radio máximo de búsqueda
+        assertNull(weatherService.getCurrentWeather(4.6097, -74.0817));
+        assertNull(weatherService.getCurrentWeather(null, -77.2811));
+    }
+
+    @Test
+    void getCurrentWeather_BeforeFirstRefresh_ShouldReturnNull() {
+        assertNull(weatherService.getCurrentWeather(1.2136, -77.2811));
+        assertNull(weatherService.checkWeatherHazards(1.2136, -77.2811));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void refreshCurrentConditions_WhenProviderFails_ShouldKeepLastValue() {
+        when(restTemplate.getForEntity(contains("/weather"), eq(String.class)))
+                .thenReturn(ResponseEntity.ok(CURRENT_JSON))
+                .thenReturn(ResponseEntity.ok(CURRENT_JSON))
+                .thenThrow(new ResourceAccessException("timeout"));
+        weatherService.refreshCurrentConditions();
+        WeatherService.WeatherDataDTO before = weatherService.getCurrentWeather(1.2136, -77.2811);
+
+        assertEquals(0, weatherService.refreshCurrentConditions());
+
+        WeatherService.WeatherDataDTO after = weatherService.getCurrentWeather(1.2136, -77.2811);
+        assertEquals(before.getTimestamp(), after.getTimestamp());
+        assertEquals(14.5, after.getTemperature());
+    }
+
+    @Test
+    void getWeatherForecast_ShouldLimitStepsToRequestedDays() {
+        String items = IntStream.range(0, 40)
+                .mapToObj(i -> """
+                        {"dt_txt": "paso-%d", "main": {"temp": 15.0}, "weather": [{"description": "nubes", "icon": "04d"}]}"""
+                        .formatted(i))
+                .collect(Collectors.joining(","));
+        when(restTemplate.getForEntity(contains("/forecast"), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"list\": [" + items + "]}"));
+
+        assertEquals(2, weatherService.refreshForecasts());
+
+        assertEquals(8, weatherService.getWeatherForecast(1.2136, -77.2811, 1).size());
+        assertEquals(24, weatherService.getWeatherForecast(1.2136, -77.2811, null).size());
+        // Más de 5 días se recorta al máximo que entrega el proveedor
+        assertEquals(40, weatherService.getWeatherForecast(1.2136, -77.2811, 10).size());
+
+        WeatherService.WeatherForecastSnapshotDTO snapshot = weatherService.getForecastSnapshot(0.8303, -77.6444, 1);
+        assertEquals("4:-389", snapshot.getCellId());
+        assertFalse(snapshot.getStale());
+        assertEquals(0.0, snapshot.getForecasts().get(0).getRainfall3h());
+    }
+}
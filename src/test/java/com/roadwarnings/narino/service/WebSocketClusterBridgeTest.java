@@ -0,0 +1,120 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dos instancias conectadas por el bus embebido
+ */
+@ExtendWith(MockitoExtension.class)
+class WebSocketClusterBridgeTest {
+
+    @Mock
+    private SimpMessagingTemplate templateA;
+
+    @Mock
+    private SimpMessagingTemplate templateB;
+
+    @Mock
+    private MessageChannel brokerChannel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private InMemoryClusterMessageBus bus;
+    private WebSocketClusterBridge nodeA;
+    private WebSocketClusterBridge nodeB;
+
+    @BeforeEach
+    void setUp() {
+        bus = new InMemoryClusterMessageBus();
+        nodeA = bridge(templateA);
+        nodeB = bridge(templateB);
+    }
+
+    @Test
+    void topicMessage_ShouldReachOtherNodeOnlyOnce() {
+        Message<byte[]> message = brokerMessage("/topic/alerts/cell/d21xw", "{\"alertId\":1}");
+
+        Message<?> local = nodeA.preSend(message, brokerChannel);
+
+        assertSame(message, local);
+        verifyNoInteractions(templateA);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> forwarded = ArgumentCaptor.forClass(Message.class);
+        verify(templateB).send(eq("/topic/alerts/cell/d21xw"), forwarded.capture());
+        assertEquals("{\"alertId\":1}", new String(forwarded.getValue().getPayload(), StandardCharsets.UTF_8));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, forwarded.getValue().getHeaders().get(MessageHeaders.CONTENT_TYPE));
+
+        // Re-inyectado en B: el interceptor de B no lo vuelve a publicar
+        nodeB.preSend(forwarded.getValue(), brokerChannel);
+        verifyNoInteractions(templateA);
+        verify(templateB, times(1)).send(anyString(), any(Message.class));
+    }
+
+    @Test
+    void duplicateDelivery_ShouldBeIgnored() throws Exception {
+        String envelope = objectMapper.writeValueAsString(new WebSocketClusterBridge.Envelope(
+                "id-1", "otro-nodo", "/topic/alerts", null, "{}".getBytes(StandardCharsets.UTF_8)));
+
+        nodeB.onClusterMessage(envelope);
+        nodeB.onClusterMessage(envelope);
+
+        verify(templateB, times(1)).send(eq("/topic/alerts"), any(Message.class));
+    }
+
+    @Test
+    void resolvedUserQueue_ShouldStayLocal() {
+        nodeA.preSend(brokerMessage("/queue/nearby-alerts-user123", "{}"), brokerChannel);
+
+        verifyNoInteractions(templateB);
+    }
+
+    @Test
+    void userDestination_ShouldBeForwardedForRemoteResolution() {
+        nodeA.preSend(brokerMessage("/user/ana/queue/notifications", "\"hola\""), brokerChannel);
+
+        verify(templateB).send(eq("/user/ana/queue/notifications"), any(Message.class));
+    }
+
+    private WebSocketClusterBridge bridge(SimpMessagingTemplate template) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<SimpMessagingTemplate> provider = mock(ObjectProvider.class);
+        lenient().when(provider.getObject()).thenReturn(template);
+
+        WebSocketClusterBridge bridge = new WebSocketClusterBridge(bus, objectMapper, provider);
+        ReflectionTestUtils.setField(bridge, "channel", "websocket:broadcast");
+        ReflectionTestUtils.setField(bridge, "dedupWindow", 100);
+        bridge.init();
+        return bridge;
+    }
+
+    private static Message<byte[]> brokerMessage(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,108 @@
+package com.roadwarnings.narino.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.websocket.AlertBatchWebSocketMessage;
+import com.roadwarnings.narino.dto.websocket.AlertWebSocketMessage;
+import com.roadwarnings.narino.enums.AlertTopicMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketServiceTest {
+
+    // Pasto e Ipiales caen en celdas distintas
+    private static final double PASTO_LAT = 1.2136;
+    private static final double PASTO_LON = -77.2811;
+    private static final double IPIALES_LAT = 0.8302;
+    private static final double IPIALES_LON = -77.6444;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private AlertEventStreamService alertEventStreamService;
+
+    private WebSocketService webSocketService;
+
+    @BeforeEach
+    void setUp() {
+        webSocketService = new WebSocketService(messagingTemplate, alertEventStreamService);
+        ReflectionTestUtils.setField(webSocketService, "cellPrecision", 5);
+    }
+
+    @Test
+    void cellsMode_ShouldPublishOnlyToTheAlertCell() {
+        ReflectionTestUtils.setField(webSocketService, "topicMode", AlertTopicMode.CELLS);
+        String cell = webSocketService.cellOf(PASTO_LAT, PASTO_LON);
+
+        webSocketService.broadcastAlertVoteUpdate(1L, PASTO_LAT, PASTO_LON, 3, 0);
+
+        verify(messagingTemplate).convertAndSend(eq(WebSocketService.CELL_TOPIC_PREFIX + cell), any(AlertWebSocketMessage.class));
+        verify(messagingTemplate, never()).convertAndSend(eq(WebSocketService.GLOBAL_ALERTS_TOPIC), any(Object.class));
+    }
+
+    @Test
+    void globalMode_ShouldKeepSingleTopic() {
+        ReflectionTestUtils.setField(webSocketService, "topicMode", AlertTopicMode.GLOBAL);
+
+        webSocketService.broadcastAlertDeletion(1L, PASTO_LAT, PASTO_LON);
+
+        verify(messagingTemplate).convertAndSend(eq(WebSocketService.GLOBAL_ALERTS_TOPIC), any(AlertWebSocketMessage.class));
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void bothMode_ShouldSerializeOnceAndSendToBothTopics() {
+        ReflectionTestUtils.setField(webSocketService, "topicMode", AlertTopicMode.BOTH);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(new ObjectMapper().findAndRegisterModules());
+        when(messagingTemplate.getMessageConverter()).thenReturn(converter);
+        String cell = webSocketService.cellOf(PASTO_LAT, PASTO_LON);
+
+        webSocketService.broadcastAlertDeletion(1L, PASTO_LAT, PASTO_LON);
+
+        verify(messagingTemplate).send(eq(WebSocketService.GLOBAL_ALERTS_TOPIC), any(Message.class));
+        verify(messagingTemplate).send(eq(WebSocketService.CELL_TOPIC_PREFIX + cell), any(Message.class));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void batch_InCellsMode_ShouldSplitAlertsByCell() {
+        ReflectionTestUtils.setField(webSocketService, "topicMode", AlertTopicMode.CELLS);
+
+        webSocketService.broadcastAlertBatch("INVIAS", List.of(
+                alert(1L, PASTO_LAT, PASTO_LON),
+                alert(2L, PASTO_LAT, PASTO_LON),
+                alert(3L, IPIALES_LAT, IPIALES_LON)));
+
+        verify(messagingTemplate).convertAndSend(
+                eq(WebSocketService.CELL_TOPIC_PREFIX + webSocketService.cellOf(PASTO_LAT, PASTO_LON)),
+                argThat((AlertBatchWebSocketMessage m) -> m.getCount() == 2));
+        verify(messagingTemplate).convertAndSend(
+                eq(WebSocketService.CELL_TOPIC_PREFIX + webSocketService.cellOf(IPIALES_LAT, IPIALES_LON)),
+                argThat((AlertBatchWebSocketMessage m) -> m.getCount() == 1));
+    }
+
+    private static AlertWebSocketMessage alert(Long id, double latitude, double longitude) {
+        return AlertWebSocketMessage.builder()
+                .action("CREATED")
+                .alertId(id)
+                .latitude(latitude)
+                .longitude(longitude)
+                .build();
+    }
+}
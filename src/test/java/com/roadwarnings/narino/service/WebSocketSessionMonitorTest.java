@@ -0,0 +1,140 @@
+package com.roadwarnings.narino.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketSessionMonitorTest {
+
+    @Mock
+    private WebSocketSession rawSession;
+
+    private final List<Runnable> pendingFlushes = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSessionMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        // Los vaciados quedan retenidos hasta que el test los ejecuta (cliente "bloqueado")
+        TaskExecutor executor = pendingFlushes::add;
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new WebSocketSessionMonitor(executor, meterRegistry);
+        ReflectionTestUtils.setField(monitor, "sendTimeLimit", 60_000);
+        ReflectionTestUtils.setField(monitor, "bufferSizeLimit", 20);
+        monitor.init();
+
+        lenient().when(rawSession.getId()).thenReturn("s1");
+    }
+
+    @Test
+    void sendMessage_WhenQueueFullWithDropOldest_ShouldDiscardOldestFrames() throws Exception {
+        ReflectionTestUtils.setField(monitor, "overflowPolicy", WebSocketSessionMonitor.OverflowPolicy.DROP_OLDEST);
+        WebSocketSession session = monitor.decorate(rawSession);
+
+        session.sendMessage(frame("a"));
+        session.sendMessage(frame("b"));
+        session.sendMessage(frame("c"));
+
+        WebSocketSessionMonitor.SessionStats stats = monitor.getSessionStats().get(0);
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(1, stats.getDroppedMessages());
+        assertEquals(1.0, meterRegistry.counter("websocket.session.dropped").count());
+
+        pendingFlushes.forEach(Runnable::run);
+
+        InOrder inOrder = inOrder(rawSession);
+        inOrder.verify(rawSession).sendMessage(frame("b"));
+        inOrder.verify(rawSession).sendMessage(frame("c"));
+        verify(rawSession, never()).sendMessage(frame("a"));
+        assertEquals(1, pendingFlushes.size());
+    }
+
+    @Test
+    void sendMessage_WhenQueueFullWithDisconnect_ShouldCloseSession() throws Exception {
+        ReflectionTestUtils.setField(monitor, "overflowPolicy", WebSocketSessionMonitor.OverflowPolicy.DISCONNECT);
+        WebSocketSession session = monitor.decorate(rawSession);
+
+        session.sendMessage(frame("a"));
+        session.sendMessage(frame("b"));
+        session.sendMessage(frame("c"));
+        session.sendMessage(frame("d"));
+
+        verify(rawSession).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1.0, meterRegistry.counter("websocket.session.disconnected").count());
+
+        pendingFlushes.forEach(Runnable::run);
+        verify(rawSession, never()).sendMessage(any(WebSocketMessage.class));
+    }
+
+    @Test
+    void release_ShouldForgetSession() throws Exception {
+        ReflectionTestUtils.setField(monitor, "overflowPolicy", WebSocketSessionMonitor.OverflowPolicy.DROP_OLDEST);
+        monitor.decorate(rawSession).sendMessage(frame("a"));
+        pendingFlushes.forEach(Runnable::run);
+
+        assertEquals(1, monitor.getSessionStats().get(0).getSentMessages());
+
+        monitor.release("s1");
+
+        assertTrue(monitor.getSessionStats().isEmpty());
+    }
+
+    @Test
+    void sendMessage_WithDropOldest_ShouldKeepControlFrames() throws Exception {
+        ReflectionTestUtils.setField(monitor, "overflowPolicy", WebSocketSessionMonitor.OverflowPolicy.DROP_OLDEST);
+        WebSocketSession session = monitor.decorate(rawSession);
+        TextMessage receipt = new TextMessage("RECEIPT\nr");
+
+        session.sendMessage(receipt);
+        session.sendMessage(frame("a"));
+        session.sendMessage(frame("b"));
+
+        pendingFlushes.forEach(Runnable::run);
+
+        InOrder inOrder = inOrder(rawSession);
+        inOrder.verify(rawSession).sendMessage(receipt);
+        inOrder.verify(rawSession).sendMessage(frame("b"));
+        verify(rawSession, never()).sendMessage(frame("a"));
+    }
+
+    @Test
+    void sendMessage_WithDropOldestAndDeltaSubscriptions_ShouldCloseInsteadOfDropping() throws Exception {
+        ReflectionTestUtils.setField(monitor, "overflowPolicy", WebSocketSessionMonitor.OverflowPolicy.DROP_OLDEST);
+        when(rawSession.getAttributes()).thenReturn(
+                Map.of(AlertWireFormatInterceptor.DELTA_SUBSCRIPTIONS_ATTRIBUTE, Boolean.TRUE));
+        WebSocketSession session = monitor.decorate(rawSession);
+
+        session.sendMessage(frame("a"));
+        session.sendMessage(frame("b"));
+        session.sendMessage(frame("c"));
+
+        // Un delta perdido desincroniza al cliente: se cierra y al reconectar recibe el estado completo
+        verify(rawSession).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0.0, meterRegistry.counter("websocket.session.dropped").count());
+        pendingFlushes.forEach(Runnable::run);
+        verify(rawSession, never()).sendMessage(any(WebSocketMessage.class));
+    }
+
+    private static TextMessage frame(String body) {
+        return new TextMessage("MESSAGE\n" + body);
+    }
+}
@@ -0,0 +1,62 @@
+package com.roadwarnings.narino.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el parser en streaming con el parseo anterior (readTree + regex por paso)
+ * sobre la respuesta grabada de Directions (3 rutas alternativas, ~660 pasos).
+ * No corre con los tests normales: mvn test -Pbenchmark. Solo registra los tiempos;
+ * la equivalencia de resultados la verifica DirectionsResponseParserTest.
+ */
+@Tag("benchmark")
+@Slf4j
+class DirectionsResponseParserBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private static byte[] response;
+
+    @BeforeAll
+    static void loadResponse() throws IOException {
+        try (InputStream in = DirectionsResponseParserBenchmarkTest.class
+                .getResourceAsStream(DirectionsResponseParserTest.RESPONSE_FILE)) {
+            assertNotNull(in, "Falta el archivo " + DirectionsResponseParserTest.RESPONSE_FILE);
+            response = in.readAllBytes();
+        }
+    }
+
+    @Test
+    void benchmark_StreamingVsTreeModel() throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            DirectionsResponseParserTest.parseWithTreeModel(new String(response, StandardCharsets.UTF_8));
+            DirectionsResponseParser.parse(new ByteArrayInputStream(response));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            DirectionsResponseParserTest.parseWithTreeModel(new String(response, StandardCharsets.UTF_8));
+        }
+        long treeNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            DirectionsResponseParser.parse(new ByteArrayInputStream(response));
+        }
+        long streamingNanos = (System.nanoTime() - start) / MEASURED_ITERATIONS;
+
+        log.info("Directions ({} KB, {} iteraciones): readTree+regex {} ms/op, streaming {} ms/op",
+                response.length / 1024, MEASURED_ITERATIONS,
+                String.format("%.2f", treeNanos / 1_000_000.0), String.format("%.2f", streamingNanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,95 @@
+package com.roadwarnings.narino.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roadwarnings.narino.dto.response.RouteCalculationResponseDTO.RouteOption;
+import com.roadwarnings.narino.dto.response.RouteCalculationResponseDTO.RouteStep;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica que el parser en streaming produce lo mismo que el parseo anterior
+ * (readTree + regex por paso) sobre una respuesta grande de Directions
+ * (3 rutas alternativas, ~660 pasos).
+ */
+class DirectionsResponseParserTest {
+
+    static final String RESPONSE_FILE = "/google/directions-pasto-ipiales.json";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static byte[] response;
+
+    @BeforeAll
+    static void loadResponse() throws IOException {
+        try (InputStream in = DirectionsResponseParserTest.class.getResourceAsStream(RESPONSE_FILE)) {
+            assertNotNull(in, "Falta el archivo " + RESPONSE_FILE);
+            response = in.readAllBytes();
+        }
+    }
+
+    @Test
+    void parse_ShouldMatchTreeModelParsing() throws IOException {
+        List<RouteOption> expected = parseWithTreeModel(new String(response, StandardCharsets.UTF_8));
+        List<RouteOption> actual = DirectionsResponseParser.parse(new ByteArrayInputStream(response));
+
+        assertEquals(3, actual.size());
+        assertEquals(expected, actual);
+        assertFalse(actual.get(0).getSteps().get(0).getInstruction().contains("<"));
+    }
+
+    @Test
+    void parse_WhenNoRoutes_ShouldReturnEmptyList() throws IOException {
+        byte[] zeroResults = "{\"geocoded_waypoints\":[],\"routes\":[],\"status\":\"ZERO_RESULTS\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        List<RouteOption> actual = DirectionsResponseParser.parse(new ByteArrayInputStream(zeroResults));
+
+        assertTrue(actual.isEmpty());
+        assertEquals(parseWithTreeModel(new String(zeroResults, StandardCharsets.UTF_8)), actual);
+    }
+
+    /**
+     * Parseo anterior de GoogleMapsService.calculateRoutes (árbol completo + regex sin precompilar)
+     */
+    static List<RouteOption> parseWithTreeModel(String json) throws IOException {
+        JsonNode routes = objectMapper.readTree(json).get("routes");
+        List<RouteOption> routeOptions = new ArrayList<>();
+
+        for (int i = 0; i < routes.size(); i++) {
+            JsonNode route = routes.get(i);
+            JsonNode leg = route.get("legs").get(0);
+
+            List<RouteStep> steps = new ArrayList<>();
+            for (JsonNode step : leg.get("steps")) {
+                JsonNode startLocation = step.path("start_location");
+                steps.add(RouteStep.builder()
+                        .instruction(step.path("html_instructions").asText().replaceAll("<[^>]*>", ""))
+                        .distance(step.path("distance").path("value").asDouble() / 1000.0)
+                        .duration(step.path("duration").path("value").asInt() / 60)
+                        .lat(startLocation.path("lat").asDouble())
+                        .lng(startLocation.path("lng").asDouble())
+                        .build());
+            }
+
+            routeOptions.add(RouteOption.builder()
+                    .id("route-" + (i + 1))
+                    .name(route.path("summary").asText("Ruta " + (i + 1)))
+                    .distance(leg.path("distance").path("value").asDouble() / 1000.0)
+                    .duration(leg.path("duration").path("value").asInt() / 60)
+                    .polyline(route.path("overview_polyline").path("points").asText())
+                    .steps(steps)
+                    .build());
+        }
+
+        return routeOptions;
+    }
+}
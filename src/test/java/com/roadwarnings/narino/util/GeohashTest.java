@@ -0,0 +1,43 @@
+package com.roadwarnings.narino.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void encode_ShouldMatchReferenceValues() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("d21", Geohash.encode(1.2136, -77.2811, 3));
+    }
+
+    @Test
+    void encode_ShouldBePrefixOfHigherPrecision() {
+        String precise = Geohash.encode(1.2136, -77.2811, 7);
+        assertTrue(precise.startsWith(Geohash.encode(1.2136, -77.2811, 5)));
+    }
+
+    @Test
+    void cellWithNeighbors_ShouldReturnNineDistinctCellsIncludingOwn() {
+        List<String> cells = Geohash.cellWithNeighbors(1.2136, -77.2811, 6);
+
+        assertEquals(9, cells.size());
+        assertEquals(9, cells.stream().distinct().count());
+        assertTrue(cells.contains(Geohash.encode(1.2136, -77.2811, 6)));
+    }
+
+    @Test
+    void cellWithNeighbors_ShouldContainPointJustAcrossBorder() {
+        double lonWidth = Geohash.cellWidth(6);
+        // Punto en el borde oriental de su celda y otro a pocos metros, en la celda vecina
+        double lon = (Math.floor((-77.2811 + 180) / lonWidth) + 1) * lonWidth - 180 - 1e-6;
+
+        String across = Geohash.encode(1.2136, lon + 2e-6, 6);
+
+        assertNotEquals(Geohash.encode(1.2136, lon, 6), across);
+        assertTrue(Geohash.cellWithNeighbors(1.2136, lon, 6).contains(across));
+    }
+}